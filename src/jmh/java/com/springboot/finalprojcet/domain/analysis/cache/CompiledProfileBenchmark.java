@@ -0,0 +1,76 @@
+package com.springboot.finalprojcet.domain.analysis.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.finalprojcet.domain.analysis.dto.AnalysisProfileDto;
+import com.springboot.finalprojcet.domain.analysis.dto.EvaluationResponseDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Per-evaluation latency against a 1k-track playlist: the previous path (profile_data parsed on every
+ * call, then a list scan per track) against a cached {@link CompiledProfile}. Track loading is left
+ * out - it is the same query on both paths. Run with {@code ./gradlew jmh}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class CompiledProfileBenchmark {
+
+    @Param({"1000"})
+    private int tracks;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private String profileData;
+    private CompiledProfile compiled;
+    private List<String> trackArtists;
+
+    @Setup
+    public void setUp() throws Exception {
+        List<AnalysisProfileDto.ItemWeight> topArtists = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            topArtists.add(AnalysisProfileDto.ItemWeight.builder().name("Artist " + i).count(30 - i).weight(0.01).build());
+        }
+        AnalysisProfileDto profile = AnalysisProfileDto.builder()
+                .userId(1L)
+                .preferences(AnalysisProfileDto.Preferences.builder().topArtists(topArtists).build())
+                .weights(AnalysisProfileDto.Weights.builder().artistMatch(0.35).build())
+                .build();
+        profileData = objectMapper.writeValueAsString(profile);
+        compiled = CompiledProfile.compile(profile);
+
+        // Every 4th track by a top artist, in a different case than the profile
+        trackArtists = new ArrayList<>();
+        for (int i = 0; i < tracks; i++) {
+            trackArtists.add(i % 4 == 0 ? "ARTIST " + (i % 30) : "Other " + i);
+        }
+    }
+
+    // What evaluatePlaylist used to do per call once the tracks were loaded
+    @Benchmark
+    public int legacy() throws Exception {
+        AnalysisProfileDto profile = objectMapper.readValue(profileData, AnalysisProfileDto.class);
+        List<String> topArtists = profile.getPreferences().getTopArtists().stream()
+                .map(a -> a.getName().toLowerCase())
+                .collect(Collectors.toList());
+        int artistMatches = 0;
+        List<String> matchedArtists = new ArrayList<>();
+        for (String artist : trackArtists) {
+            if (artist != null && topArtists.contains(artist.toLowerCase())) {
+                artistMatches++;
+                if (!matchedArtists.contains(artist))
+                    matchedArtists.add(artist);
+            }
+        }
+        return artistMatches + matchedArtists.size();
+    }
+
+    @Benchmark
+    public EvaluationResponseDto compiled() {
+        return compiled.evaluate(trackArtists);
+    }
+}
@@ -0,0 +1,95 @@
+package com.springboot.finalprojcet.domain.auth.jwt;
+
+import com.springboot.finalprojcet.domain.auth.cache.UserPrincipalCache;
+import com.springboot.finalprojcet.domain.auth.service.CostomUserDetailsService;
+import com.springboot.finalprojcet.domain.user.repository.UserRepository;
+import com.springboot.finalprojcet.entity.Users;
+import com.springboot.finalprojcet.enums.RoleType;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Per-request overhead of the JWT filter: the previous path (key rebuilt and token parsed twice, user
+ * loaded every time) against the filter itself (one parse with the shared parser, cached principal).
+ * The repository is a mock, so this measures the CPU side only - the saved user query comes on top.
+ * Run with {@code ./gradlew jmh}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final String SECRET = "benchmark-secret";
+
+    private JwtAuthenticationFilter filter;
+    private CostomUserDetailsService userDetailsService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        JwtProperties properties = new JwtProperties();
+        properties.setSecret(SECRET);
+        properties.setAccessTokenExpiration(3_600_000L);
+        properties.setRefreshTokenExpiration(86_400_000L);
+        JwtTokenProvider provider = new JwtTokenProvider(properties);
+        provider.init();
+
+        Users user = Users.builder().userId(1L).email("bench@example.com").roleType(RoleType.USER).build();
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(user));
+
+        userDetailsService = new CostomUserDetailsService(userRepository);
+        UserPrincipalCache principalCache = new UserPrincipalCache(userRepository, null, null,
+                new SimpleMeterRegistry(), 60, 1_000);
+        filter = new JwtAuthenticationFilter(provider, userDetailsService, principalCache);
+        token = provider.createAccessToken(user.getEmail(), user.getUserId(), RoleType.USER.name());
+    }
+
+    // What the filter used to do per request: validateToken + getEmail, each deriving the key and
+    // building a parser, then a user lookup
+    @Benchmark
+    public UserDetails legacy() {
+        Jwts.parser().verifyWith(legacyKey()).build().parseSignedClaims(token);
+        String email = Jwts.parser().verifyWith(legacyKey()).build().parseSignedClaims(token).getPayload()
+                .getSubject();
+        return userDetailsService.loadUserByUsername(email);
+    }
+
+    @Benchmark
+    public Authentication filter() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/me");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+
+    private static SecretKey legacyKey() {
+        String secret = SECRET;
+        while (secret.getBytes(StandardCharsets.UTF_8).length < 32) {
+            secret = secret + secret;
+        }
+        return Keys.hmacShaKeyFor(Arrays.copyOf(secret.getBytes(StandardCharsets.UTF_8), 32));
+    }
+}
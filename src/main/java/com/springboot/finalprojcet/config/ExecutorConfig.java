@@ -0,0 +1,118 @@
+package com.springboot.finalprojcet.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class ExecutorConfig {
+
+    // CPU-bound playlist scoring - kept off the common pool
+    @Bean(name = "analysisEvaluationPool", destroyMethod = "shutdown")
+    public ForkJoinPool analysisEvaluationPool(
+            @Value("${analysis.batch.parallelism:0}") int parallelism) {
+        int size = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        return new ForkJoinPool(size);
+    }
+
+    // Runs the single feature-collection job loop in the background
+    @Bean(name = "featureJobRunner", destroyMethod = "shutdownNow")
+    public ExecutorService featureJobRunner() {
+        return Executors.newSingleThreadExecutor(r -> new Thread(r, "feature-job"));
+    }
+
+    // One-off track dedupe/merge job
+    @Bean(name = "trackDedupeRunner", destroyMethod = "shutdownNow")
+    public ExecutorService trackDedupeRunner() {
+        return Executors.newSingleThreadExecutor(r -> new Thread(r, "track-dedupe"));
+    }
+
+    // Bounded fan-out for per-track Spotify lookups (ISRC search has no batch endpoint)
+    @Bean(name = "featureLookupPool", destroyMethod = "shutdownNow")
+    public ExecutorService featureLookupPool(
+            @Value("${training.features.concurrency:4}") int concurrency) {
+        return Executors.newFixedThreadPool(Math.max(1, concurrency));
+    }
+
+    // Concurrent page reads for Spotify playlist import; the Spotify guard still meters the request rate
+    @Bean(name = "spotifyPagingPool", destroyMethod = "shutdownNow")
+    public ExecutorService spotifyPagingPool(
+            @Value("${spotify.import.paging-pool-size:8}") int poolSize) {
+        return Executors.newFixedThreadPool(Math.max(1, poolSize), r -> new Thread(r, "spotify-paging"));
+    }
+
+    // /videos detail lookups that overlap with YouTube playlist paging during import
+    @Bean(name = "youtubeVideoPool", destroyMethod = "shutdownNow")
+    public ExecutorService youtubeVideoPool(
+            @Value("${youtube.import.detail-pool-size:8}") int poolSize) {
+        return Executors.newFixedThreadPool(Math.max(1, poolSize), r -> new Thread(r, "youtube-videos"));
+    }
+
+    // Background artwork downloads for imports - drops work when saturated (the remote URL stays usable)
+    @Bean(name = "artworkDownloadPool", destroyMethod = "shutdown")
+    public ExecutorService artworkDownloadPool(
+            @Value("${images.download.concurrency:4}") int concurrency,
+            @Value("${images.download.queue-size:20000}") int queueSize) {
+        int size = Math.max(1, concurrency);
+        return new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(queueSize),
+                r -> new Thread(r, "artwork-download"));
+    }
+
+    // FastAPI job submissions - bounded so a slow model server cannot pile up request threads
+    @Bean(name = "fastApiDispatchPool", destroyMethod = "shutdown")
+    public ExecutorService fastApiDispatchPool(
+            @Value("${fastapi.dispatch.concurrency:4}") int concurrency,
+            @Value("${fastapi.dispatch.queue-size:200}") int queueSize) {
+        int size = Math.max(1, concurrency);
+        return new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(queueSize),
+                r -> new Thread(r, "fastapi-dispatch"));
+    }
+
+    // Outbound iTunes fan-out (recommendations) - blocking HTTP stays off the common ForkJoinPool.
+    // Abort when saturated: callers run against a deadline and treat a rejected query as missing
+    @Bean(name = "itunesFanoutPool", destroyMethod = "shutdownNow")
+    public ExecutorService itunesFanoutPool(
+            @Value("${itunes.fanout.concurrency:8}") int concurrency,
+            @Value("${itunes.fanout.queue-size:100}") int queueSize) {
+        int size = Math.max(1, concurrency);
+        return new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(queueSize),
+                r -> new Thread(r, "itunes-fanout"));
+    }
+
+    // Heavy scheduled jobs get a thread each, so they never hold the scheduler threads the cart flush and
+    // the token refresh run on. A tick that finds the previous run still going is dropped
+    @Bean(name = "recommendRefreshRunner", destroyMethod = "shutdownNow")
+    public ExecutorService recommendRefreshRunner() {
+        return skipWhenBusy("recommend-refresh");
+    }
+
+    @Bean(name = "featureSummaryRunner", destroyMethod = "shutdownNow")
+    public ExecutorService featureSummaryRunner() {
+        return skipWhenBusy("feature-summary");
+    }
+
+    @Bean(name = "trackSearchSweepRunner", destroyMethod = "shutdownNow")
+    public ExecutorService trackSearchSweepRunner() {
+        return skipWhenBusy("track-search-sweep");
+    }
+
+    // Delayed retries without parking a thread in Thread.sleep
+    @Bean(name = "fastApiRetryScheduler", destroyMethod = "shutdownNow")
+    public ScheduledExecutorService fastApiRetryScheduler() {
+        return Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "fastapi-retry"));
+    }
+
+    private static ExecutorService skipWhenBusy(String threadName) {
+        return new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                r -> new Thread(r, threadName), new ThreadPoolExecutor.DiscardPolicy());
+    }
+}
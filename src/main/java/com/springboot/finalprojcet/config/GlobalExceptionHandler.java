@@ -1,5 +1,6 @@
 package com.springboot.finalprojcet.config;
 
+import com.springboot.finalprojcet.domain.common.resilience.ProviderUnavailableException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -10,6 +11,18 @@ import java.util.Map;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    // External provider degraded (circuit open / rate limited) - tell the client to retry later
+    @ExceptionHandler(ProviderUnavailableException.class)
+    public ResponseEntity<Map<String, Object>> handleProviderUnavailable(ProviderUnavailableException e) {
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(Map.of(
+                        "success", false,
+                        "message", e.getMessage(),
+                        "error", e.getMessage(),
+                        "provider", e.getProvider()));
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<Map<String, Object>> handleRuntimeException(RuntimeException e) {
         // Check for specific duplicate email message
@@ -1,14 +1,153 @@
 package com.springboot.finalprojcet.config;
 
+import io.micrometer.common.KeyValue;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.routing.RoutingSupport;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.io.SocketConfig;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.observation.ClientHttpObservationDocumentation;
+import org.springframework.http.client.observation.ClientRequestObservationContext;
+import org.springframework.http.client.observation.ClientRequestObservationConvention;
+import org.springframework.http.client.observation.DefaultClientRequestObservationConvention;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.URISyntaxException;
+import java.time.Duration;
+
+/**
+ * Shared outbound HTTP client for every integration (Spotify, iTunes, Tidal, YouTube, FastAPI, images).
+ * One pooled Apache HttpClient with keep-alive, timeouts and gzip (content compression is on by default).
+ * Pool usage is exported as httpcomponents.httpclient.pool.* and per-host latency as
+ * http.client.requests (client.name = host) through the RestTemplateBuilder observation; the uri tag is
+ * kept to real URI templates, see {@link #clientRequestObservationConvention}.
+ * FastAPI (model training starts, LLM search/explain) answers far slower than the music APIs, so it
+ * gets its own RestTemplate on the same pool with a longer read timeout.
+ */
 @Configuration
 public class RestTemplateConfig {
 
+    @Value("${http.client.max-total:200}")
+    private int maxTotal;
+
+    @Value("${http.client.max-per-route:20}")
+    private int maxPerRoute;
+
+    // "host=limit" pairs for providers that need a different pool size, e.g. api.spotify.com=40
+    @Value("${http.client.max-per-host:}")
+    private String maxPerHost;
+
+    @Value("${http.client.connect-timeout-ms:3000}")
+    private long connectTimeoutMs;
+
+    @Value("${http.client.read-timeout-ms:10000}")
+    private long readTimeoutMs;
+
+    @Value("${fastapi.http.read-timeout-ms:120000}")
+    private long fastApiReadTimeoutMs;
+
+    @Value("${http.client.pool-timeout-ms:2000}")
+    private long poolTimeoutMs;
+
+    @Value("${http.client.idle-evict-seconds:30}")
+    private long idleEvictSeconds;
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager httpConnectionManager(MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager manager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxTotal)
+                .setMaxConnPerRoute(maxPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .setTimeToLive(TimeValue.ofMinutes(5))
+                        .build())
+                .setDefaultSocketConfig(SocketConfig.custom()
+                        .setSoTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .build())
+                .build();
+
+        for (String entry : maxPerHost.split(",")) {
+            String[] pair = entry.trim().split("=");
+            if (pair.length != 2)
+                continue;
+            try {
+                HttpHost host = RoutingSupport.normalize(HttpHost.create("https://" + pair[0].trim()), null);
+                // All providers are HTTPS; the planner builds secure routes for them
+                manager.setMaxPerRoute(new HttpRoute(host, null, true), Integer.parseInt(pair[1].trim()));
+            } catch (URISyntaxException | NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid http.client.max-per-host entry: " + entry, e);
+            }
+        }
+
+        new PoolingHttpClientConnectionManagerMetricsBinder(manager, "outbound").bindTo(meterRegistry);
+        return manager;
+    }
+
+    /**
+     * Most provider calls pass a fully built URL (ids, offsets, query strings), which the default
+     * convention records as the uri tag - one meter per URL until max-uri-tags starts dropping new ones,
+     * per-host latency included. Only URLs with template variables keep their uri tag; the rest are
+     * tagged by host alone.
+     */
+    @Bean
+    public ClientRequestObservationConvention clientRequestObservationConvention(
+            @Value("${management.observations.http.client.requests.name:http.client.requests}") String name) {
+        return new DefaultClientRequestObservationConvention(name) {
+            @Override
+            protected KeyValue uri(ClientRequestObservationContext context) {
+                String template = context.getUriTemplate();
+                if (template != null && template.contains("{"))
+                    return super.uri(context);
+                return KeyValue.of(ClientHttpObservationDocumentation.LowCardinalityKeyNames.URI, "none");
+            }
+        };
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient httpClient(PoolingHttpClientConnectionManager httpConnectionManager) {
+        return HttpClients.custom()
+                .setConnectionManager(httpConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolTimeoutMs))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(idleEvictSeconds))
+                .build();
+    }
+
+    @Bean
+    public RestTemplate restTemplate(RestTemplateBuilder restTemplateBuilder, CloseableHttpClient httpClient) {
+        return restTemplateBuilder
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(httpClient))
+                .build();
+    }
+
+    // Injected by name (fastApiRestTemplate) next to the default restTemplate
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate fastApiRestTemplate(RestTemplateBuilder restTemplateBuilder, CloseableHttpClient httpClient) {
+        return restTemplateBuilder
+                .requestFactory(() -> {
+                    HttpComponentsClientHttpRequestFactory factory = new HttpComponentsClientHttpRequestFactory(httpClient);
+                    // Per-request response timeout overrides the pool's socket timeout
+                    factory.setReadTimeout(Duration.ofMillis(fastApiReadTimeoutMs));
+                    return factory;
+                })
+                .build();
     }
 }
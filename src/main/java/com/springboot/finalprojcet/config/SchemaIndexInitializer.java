@@ -0,0 +1,146 @@
+package com.springboot.finalprojcet.config;
+
+import com.springboot.finalprojcet.domain.track.resolver.TrackIdentityResolver;
+import com.springboot.finalprojcet.domain.track.search.TrackSearchIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ddl-auto is off, so the columns, indexes and triggers that queries depend on are created here at
+ * startup (no-op once they exist). This is the only place that runs startup DDL. Nodes starting together
+ * take turns through a MariaDB named lock, so two of them never ALTER the same table at once.
+ * Runners finish before ApplicationReadyEvent, so beans that detect these objects on that event
+ * (TrackIdentityResolver, TrackSearchIndex) see the result.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SchemaIndexInitializer implements ApplicationRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${tracks.identity.ensure-index:true}")
+    private boolean ensureIdentityIndex;
+
+    @Value("${tracks.search.ensure-index:true}")
+    private boolean ensureSearchIndex;
+
+    @Value("${training.interactions.ensure-index:true}")
+    private boolean ensureInteractionIndex;
+
+    // Longest a node waits for another node's DDL before starting without it
+    @Value("${schema.ddl-lock-timeout-seconds:600}")
+    private int lockTimeoutSeconds;
+
+    private static final String LOCK_NAME = "schema_index_initializer";
+
+    // Identity lookups of TrackIdentityResolver and the dedupe job must all be index lookups
+    private static final List<String> TRACK_IDENTITY_DDL = List.of(
+            "CREATE INDEX IF NOT EXISTS idx_tracks_isrc ON tracks (isrc)",
+            "CREATE INDEX IF NOT EXISTS idx_tracks_spotify_id ON tracks (spotify_id)",
+            // Superseded by idx_tracks_title_artist_key - nothing reads it, every insert paid for it
+            "DROP INDEX IF EXISTS idx_tracks_title_artist ON tracks",
+            "ALTER TABLE tracks ADD COLUMN IF NOT EXISTS youtube_id VARCHAR(32) AS ("
+                    + TrackIdentityResolver.YOUTUBE_ID_EXPR + ") VIRTUAL",
+            "CREATE INDEX IF NOT EXISTS idx_tracks_youtube_id ON tracks (youtube_id)",
+            "ALTER TABLE tracks ADD COLUMN IF NOT EXISTS title_artist_key VARCHAR(511) AS ("
+                    + TrackIdentityResolver.TITLE_ARTIST_KEY_SQL + ") STORED",
+            "CREATE INDEX IF NOT EXISTS idx_tracks_title_artist_key ON tracks (title_artist_key)");
+
+    // Token column and FULLTEXT index of TrackSearchIndex
+    private static final List<String> TRACK_SEARCH_DDL = List.of(
+            "ALTER TABLE tracks ADD COLUMN IF NOT EXISTS search_terms TEXT",
+            "CREATE FULLTEXT INDEX IF NOT EXISTS " + TrackSearchIndex.INDEX_NAME + " ON tracks (search_terms)");
+
+    // Tombstones for the training interaction feed. Triggers fill it for every writer, including plain
+    // SQL; FK cascades do not fire triggers, so links are always deleted explicitly before their playlist.
+    // A link moved to another track (dedupe merge) is a removal plus a fresh add (added_at reset)
+    private static final List<String> INTERACTION_DDL = List.of(
+            // Keyset index for the training interaction feed (added_at, map_id)
+            "CREATE INDEX IF NOT EXISTS idx_pt_added_map ON playlist_tracks (added_at, map_id, playlist_id, track_id)",
+            "CREATE TABLE IF NOT EXISTS playlist_track_removals ("
+                    + "removal_id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY, "
+                    + "map_id BIGINT NOT NULL, playlist_id BIGINT, track_id BIGINT, user_id BIGINT, "
+                    + "removed_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP, "
+                    + "KEY idx_ptr_removed (removed_at, removal_id), "
+                    + "KEY idx_ptr_user_removed (user_id, removed_at, removal_id))",
+            "CREATE TRIGGER IF NOT EXISTS trg_playlist_tracks_removed AFTER DELETE ON playlist_tracks FOR EACH ROW "
+                    + "INSERT INTO playlist_track_removals (map_id, playlist_id, track_id, user_id) "
+                    + "VALUES (OLD.map_id, OLD.playlist_id, OLD.track_id, "
+                    + "(SELECT user_id FROM playlists WHERE playlist_id = OLD.playlist_id))",
+            "CREATE TRIGGER IF NOT EXISTS trg_playlist_tracks_readd BEFORE UPDATE ON playlist_tracks FOR EACH ROW "
+                    + "IF NOT (NEW.track_id <=> OLD.track_id) OR NOT (NEW.playlist_id <=> OLD.playlist_id) THEN "
+                    + "SET NEW.added_at = NOW(); END IF",
+            "CREATE TRIGGER IF NOT EXISTS trg_playlist_tracks_moved AFTER UPDATE ON playlist_tracks FOR EACH ROW "
+                    + "IF NOT (NEW.track_id <=> OLD.track_id) OR NOT (NEW.playlist_id <=> OLD.playlist_id) THEN "
+                    + "INSERT INTO playlist_track_removals (map_id, playlist_id, track_id, user_id) "
+                    + "VALUES (OLD.map_id, OLD.playlist_id, OLD.track_id, "
+                    + "(SELECT user_id FROM playlists WHERE playlist_id = OLD.playlist_id)); END IF");
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<String> ddl = new ArrayList<>();
+        if (ensureIdentityIndex)
+            ddl.addAll(TRACK_IDENTITY_DDL);
+        if (ensureSearchIndex)
+            ddl.addAll(TRACK_SEARCH_DDL);
+        if (ensureInteractionIndex)
+            ddl.addAll(INTERACTION_DDL);
+        if (ddl.isEmpty())
+            return;
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+                applyLocked(con, ddl);
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("[Schema] Startup DDL skipped: {}", e.getMessage());
+        }
+    }
+
+    // GET_LOCK belongs to the session, so the lock, every statement and the release share one connection
+    private void applyLocked(Connection con, List<String> ddl) throws SQLException {
+        if (!acquireLock(con)) {
+            log.warn("[Schema] Another node held the DDL lock for {}s, starting without it", lockTimeoutSeconds);
+            return;
+        }
+        try (Statement statement = con.createStatement()) {
+            for (String sql : ddl) {
+                try {
+                    statement.execute(sql);
+                } catch (SQLException e) {
+                    log.warn("[Schema] Could not apply '{}': {}", sql, e.getMessage());
+                }
+            }
+        } finally {
+            try (PreparedStatement release = con.prepareStatement("DO RELEASE_LOCK(?)")) {
+                release.setString(1, LOCK_NAME);
+                release.execute();
+            }
+        }
+    }
+
+    private boolean acquireLock(Connection con) throws SQLException {
+        try (PreparedStatement lock = con.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            lock.setString(1, LOCK_NAME);
+            lock.setInt(2, lockTimeoutSeconds);
+            try (ResultSet rs = lock.executeQuery()) {
+                return rs.next() && rs.getInt(1) == 1;
+            }
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package com.springboot.finalprojcet.controller;
 
+import com.springboot.finalprojcet.domain.common.resilience.ProviderGuards;
+import com.springboot.finalprojcet.domain.common.resilience.ProviderUnavailableException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -22,9 +25,11 @@ public class LlmController {
     private String fastApiUrl;
 
     private final RestTemplate restTemplate;
+    private final ProviderGuards providerGuards;
 
-    public LlmController() {
-        this.restTemplate = new RestTemplate();
+    public LlmController(RestTemplate fastApiRestTemplate, ProviderGuards providerGuards) {
+        this.restTemplate = fastApiRestTemplate;
+        this.providerGuards = providerGuards;
     }
 
     @PostMapping("/search")
@@ -37,12 +42,15 @@ public class LlmController {
         HttpEntity<Map<String, Object>> entity = new HttpEntity<>(request, headers);
 
         try {
-            ResponseEntity<Object> response = restTemplate.exchange(
+            ResponseEntity<Object> response = providerGuards.llm().call(() -> restTemplate.exchange(
                     url,
                     HttpMethod.POST,
                     entity,
-                    Object.class);
+                    Object.class));
             return ResponseEntity.status(response.getStatusCode()).body(response.getBody());
+        } catch (ProviderUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.internalServerError()
@@ -60,12 +68,15 @@ public class LlmController {
         HttpEntity<Map<String, Object>> entity = new HttpEntity<>(request, headers);
 
         try {
-            ResponseEntity<Object> response = restTemplate.exchange(
+            ResponseEntity<Object> response = providerGuards.llm().call(() -> restTemplate.exchange(
                     url,
                     HttpMethod.POST,
                     entity,
-                    Object.class);
+                    Object.class));
             return ResponseEntity.status(response.getStatusCode()).body(response.getBody());
+        } catch (ProviderUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
                     .body(Map.of("error", "FastAPI connection failed: " + e.getMessage()));
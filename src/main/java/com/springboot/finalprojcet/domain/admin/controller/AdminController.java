@@ -82,6 +82,29 @@ public class AdminController {
         return ResponseEntity.ok(stats);
     }
 
+    @PostMapping("/tracks/dedupe")
+    @Operation(summary = "중복 트랙 정리", description = "MASTER 권한 전용. ISRC/Spotify ID/YouTube ID/제목+아티스트 기준으로 중복 트랙 병합 (dryRun=true면 집계만)")
+    public ResponseEntity<?> startTrackDedupe(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @RequestParam(required = false, defaultValue = "false") boolean dryRun
+    ) {
+        if (!isMaster(userDetails)) {
+            return ResponseEntity.status(403).body(Map.of("error", "MASTER 권한이 필요합니다"));
+        }
+        return ResponseEntity.accepted().body(adminService.startTrackDedupe(dryRun));
+    }
+
+    @GetMapping("/tracks/dedupe")
+    @Operation(summary = "중복 트랙 정리 상태", description = "ADMIN/MASTER 권한")
+    public ResponseEntity<?> getTrackDedupeStatus(
+            @AuthenticationPrincipal CustomUserDetails userDetails
+    ) {
+        if (!isAdmin(userDetails)) {
+            return ResponseEntity.status(403).body(Map.of("error", "권한이 없습니다"));
+        }
+        return ResponseEntity.ok(adminService.getTrackDedupeStatus());
+    }
+
     private boolean isAdmin(CustomUserDetails userDetails) {
         if (userDetails == null) return false;
         RoleType role = userDetails.getUser().getRoleType();
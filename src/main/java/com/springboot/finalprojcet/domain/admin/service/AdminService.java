@@ -5,9 +5,13 @@ import com.springboot.finalprojcet.domain.admin.dto.UserAdminDto;
 import com.springboot.finalprojcet.enums.RoleType;
 import org.springframework.data.domain.Page;
 
+import java.util.Map;
+
 public interface AdminService {
     Page<UserAdminDto> getAllUsers(String search, int page, int size);
     void updateUserRole(Long userId, RoleType roleType);
     void deleteUser(Long userId, Long requesterId);
     AdminStatsDto getStats();
+    Map<String, Object> startTrackDedupe(boolean dryRun);
+    Map<String, Object> getTrackDedupeStatus();
 }
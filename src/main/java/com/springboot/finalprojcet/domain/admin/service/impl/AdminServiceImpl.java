@@ -3,8 +3,13 @@ package com.springboot.finalprojcet.domain.admin.service.impl;
 import com.springboot.finalprojcet.domain.admin.dto.AdminStatsDto;
 import com.springboot.finalprojcet.domain.admin.dto.UserAdminDto;
 import com.springboot.finalprojcet.domain.admin.service.AdminService;
+import com.springboot.finalprojcet.domain.analysis.cache.CompiledProfileCache;
+import com.springboot.finalprojcet.domain.analysis.store.TasteProfileStore;
+import com.springboot.finalprojcet.domain.auth.cache.UserPrincipalCache;
 import com.springboot.finalprojcet.domain.gms.repository.PlaylistRepository;
+import com.springboot.finalprojcet.domain.tidal.repository.PlaylistTracksRepository;
 import com.springboot.finalprojcet.domain.tidal.repository.TracksRepository;
+import com.springboot.finalprojcet.domain.track.job.TrackDedupeJob;
 import com.springboot.finalprojcet.domain.user.repository.UserRepository;
 import com.springboot.finalprojcet.entity.Users;
 import com.springboot.finalprojcet.enums.RoleType;
@@ -15,6 +20,8 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Map;
+
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
@@ -23,6 +30,11 @@ public class AdminServiceImpl implements AdminService {
     private final UserRepository userRepository;
     private final TracksRepository tracksRepository;
     private final PlaylistRepository playlistRepository;
+    private final PlaylistTracksRepository playlistTracksRepository;
+    private final TasteProfileStore tasteProfileStore;
+    private final CompiledProfileCache compiledProfileCache;
+    private final TrackDedupeJob trackDedupeJob;
+    private final UserPrincipalCache userPrincipalCache;
 
     @Override
     public Page<UserAdminDto> getAllUsers(String search, int page, int size) {
@@ -45,17 +57,22 @@ public class AdminServiceImpl implements AdminService {
                 .orElseThrow(() -> new IllegalArgumentException("사용자를 찾을 수 없습니다: " + userId));
         user.setRoleType(roleType);
         userRepository.save(user);
+        userPrincipalCache.invalidate(userId);
     }
 
     @Override
-    @Transactional
+    @Transactional(timeoutString = "${imports.tx-timeout-seconds:600}")
     public void deleteUser(Long userId, Long requesterId) {
         if (userId.equals(requesterId)) {
             throw new IllegalArgumentException("본인 계정은 삭제할 수 없습니다");
         }
         Users user = userRepository.findById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("사용자를 찾을 수 없습니다: " + userId));
+        playlistTracksRepository.deleteAllByUserId(userId);
         userRepository.delete(user);
+        tasteProfileStore.clear(userId);
+        compiledProfileCache.invalidate(userId);
+        userPrincipalCache.invalidate(userId);
     }
 
     @Override
@@ -66,4 +83,14 @@ public class AdminServiceImpl implements AdminService {
                 .totalPlaylists(playlistRepository.count())
                 .build();
     }
+
+    @Override
+    public Map<String, Object> startTrackDedupe(boolean dryRun) {
+        return trackDedupeJob.start(dryRun);
+    }
+
+    @Override
+    public Map<String, Object> getTrackDedupeStatus() {
+        return trackDedupeJob.status();
+    }
 }
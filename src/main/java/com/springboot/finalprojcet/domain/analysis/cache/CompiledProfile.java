@@ -0,0 +1,102 @@
+package com.springboot.finalprojcet.domain.analysis.cache;
+
+import com.springboot.finalprojcet.domain.analysis.dto.AnalysisProfileDto;
+import com.springboot.finalprojcet.domain.analysis.dto.EvaluationResponseDto;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable, evaluation-ready form of {@link AnalysisProfileDto}.
+ * Top artists are pre-normalized into a hash map so matching is O(tracks).
+ */
+@Getter
+public class CompiledProfile {
+
+    private final Long userId;
+    private final String trainedAt;
+    private final Map<String, Double> artistWeights;
+    private final AnalysisProfileDto.Weights weights;
+
+    private CompiledProfile(Long userId, String trainedAt, Map<String, Double> artistWeights,
+            AnalysisProfileDto.Weights weights) {
+        this.userId = userId;
+        this.trainedAt = trainedAt;
+        this.artistWeights = artistWeights;
+        this.weights = weights;
+    }
+
+    public static CompiledProfile compile(AnalysisProfileDto profile) {
+        Map<String, Double> artistWeights = new HashMap<>();
+        if (profile.getPreferences() != null && profile.getPreferences().getTopArtists() != null) {
+            for (AnalysisProfileDto.ItemWeight a : profile.getPreferences().getTopArtists()) {
+                if (a.getName() != null) {
+                    artistWeights.put(normalize(a.getName()), a.getWeight());
+                }
+            }
+        }
+        AnalysisProfileDto.Weights weights = profile.getWeights() != null ? profile.getWeights()
+                : AnalysisProfileDto.Weights.builder().artistMatch(0.35).build();
+        return new CompiledProfile(profile.getUserId(), profile.getTrainedAt(),
+                Collections.unmodifiableMap(artistWeights), weights);
+    }
+
+    public static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public boolean matchesArtist(String artist) {
+        return artist != null && artistWeights.containsKey(normalize(artist));
+    }
+
+    /**
+     * Scores a playlist given its track artists (in playlist order).
+     */
+    public EvaluationResponseDto evaluate(Collection<String> trackArtists) {
+        if (trackArtists.isEmpty()) {
+            return EvaluationResponseDto.builder().score(0).grade("F").reason("Empty playlist").build();
+        }
+
+        int artistMatches = 0;
+        Set<String> matchedArtists = new LinkedHashSet<>();
+
+        for (String artist : trackArtists) {
+            if (matchesArtist(artist)) {
+                artistMatches++;
+                matchedArtists.add(artist);
+            }
+        }
+
+        double artistScore = ((double) artistMatches / trackArtists.size()) * 100;
+        double totalScore = artistScore * weights.getArtistMatch();
+
+        // Skip other metrics for brevity, add base score
+        double finalScore = Math.min(100, Math.max(0, totalScore + 30));
+
+        // Grade
+        String grade = finalScore >= 85 ? "S"
+                : finalScore >= 75 ? "A" : finalScore >= 65 ? "B" : finalScore >= 50 ? "C" : "D";
+        List<String> matched = new ArrayList<>(matchedArtists);
+        String reason = !matched.isEmpty()
+                ? "Matches: " + String.join(", ", matched.subList(0, Math.min(3, matched.size())))
+                : "Different from your usual preferences";
+
+        return EvaluationResponseDto.builder()
+                .score((int) finalScore)
+                .grade(grade)
+                .reason(reason)
+                .matchDetails(EvaluationResponseDto.MatchDetails.builder()
+                        .artistMatches(artistMatches)
+                        .matchedArtists(matched)
+                        .build())
+                .build();
+    }
+}
@@ -0,0 +1,114 @@
+package com.springboot.finalprojcet.domain.analysis.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.springboot.finalprojcet.domain.analysis.dto.AnalysisProfileDto;
+import com.springboot.finalprojcet.domain.analysis.repository.UserProfilesRepository;
+import com.springboot.finalprojcet.domain.common.tx.AfterCommit;
+import com.springboot.finalprojcet.entity.UserProfiles;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * In-memory cache of compiled analysis profiles.
+ * Avoids reading and Jackson-parsing user_profiles.profile_data on every evaluation.
+ * trainModel replaces the entry once its transaction commits, and every other node drops its copy
+ * (Redis pub/sub), so no node serves a stale (or rolled back) profile; the TTL bounds staleness if
+ * an invalidation is missed.
+ */
+@Component
+@Slf4j
+public class CompiledProfileCache implements MessageListener {
+
+    private static final String INVALIDATE_CHANNEL = "analysis:profile:invalidate";
+
+    private final UserProfilesRepository userProfilesRepository;
+    private final ObjectMapper objectMapper;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    // Optional.empty() marks users without a trained profile
+    private final Cache<Long, Optional<CompiledProfile>> cache;
+
+    public CompiledProfileCache(UserProfilesRepository userProfilesRepository, ObjectMapper objectMapper,
+            RedisTemplate<String, String> redisTemplate, RedisMessageListenerContainer redisMessageListenerContainer,
+            @Value("${analysis.profile-cache.ttl-minutes:10}") long ttlMinutes) {
+        this.userProfilesRepository = userProfilesRepository;
+        this.objectMapper = objectMapper;
+        this.redisTemplate = redisTemplate;
+        this.redisMessageListenerContainer = redisMessageListenerContainer;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .build();
+    }
+
+    @PostConstruct
+    void subscribeInvalidations() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATE_CHANNEL));
+    }
+
+    public CompiledProfile get(Long userId) {
+        return cache.get(userId, this::load).orElse(null);
+    }
+
+    public void put(Long userId, AnalysisProfileDto profile) {
+        CompiledProfile compiled = CompiledProfile.compile(profile);
+        AfterCommit.run(() -> {
+            publish(userId);
+            cache.put(userId, Optional.of(compiled));
+        });
+    }
+
+    public void invalidate(Long userId) {
+        cache.invalidate(userId);
+        // Again after commit, in case a reader reloaded the old row in the meantime
+        AfterCommit.run(() -> {
+            cache.invalidate(userId);
+            publish(userId);
+        });
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            cache.invalidate(Long.parseLong(new String(message.getBody(), StandardCharsets.UTF_8)));
+        } catch (NumberFormatException e) {
+            log.warn("[ProfileCache] Ignoring malformed invalidation message");
+        }
+    }
+
+    // Other nodes reload from user_profiles; this node gets its own message too, which costs one reload
+    private void publish(Long userId) {
+        try {
+            redisTemplate.convertAndSend(INVALIDATE_CHANNEL, String.valueOf(userId));
+        } catch (Exception e) {
+            log.warn("[ProfileCache] Failed to publish invalidation for {}: {}", userId, e.getMessage());
+        }
+    }
+
+    private Optional<CompiledProfile> load(Long userId) {
+        UserProfiles up = userProfilesRepository.findById(userId).orElse(null);
+        if (up == null || up.getProfileData() == null)
+            return Optional.empty();
+        try {
+            AnalysisProfileDto profile = objectMapper.readValue(up.getProfileData(), AnalysisProfileDto.class);
+            return Optional.of(CompiledProfile.compile(profile));
+        } catch (Exception e) {
+            log.warn("Failed to parse profile for user {}: {}", userId, e.getMessage());
+            return Optional.empty();
+        }
+    }
+}
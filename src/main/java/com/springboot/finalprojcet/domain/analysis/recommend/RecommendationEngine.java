@@ -0,0 +1,221 @@
+package com.springboot.finalprojcet.domain.analysis.recommend;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Content-based recommendations over track audio features.
+ * Loads normalized feature vectors from the tracks table into a {@link TrackFeatureIndex},
+ * tops it up with newly inserted tracks on a schedule, and accepts direct upserts when
+ * features are collected so the index never needs a full reload for small changes.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RecommendationEngine {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ExecutorService recommendRefreshRunner;
+
+    @Value("${analysis.recommend.nprobe:32}")
+    private int nprobe;
+
+    // Feature order of every vector in the index
+    private static final String[] FEATURE_COLUMNS = {
+            "tempo", "energy", "danceability", "valence", "acousticness",
+            "instrumentalness", "liveness", "speechiness", "loudness" };
+    static final int DIM = FEATURE_COLUMNS.length;
+
+    private static final String SELECT_FEATURES = "t.track_id, t." + String.join(", t.", FEATURE_COLUMNS);
+    private static final int LOAD_FETCH_SIZE = 5_000;
+    // Re-cluster once the index has grown this much since the last full build
+    private static final double REBUILD_GROWTH = 1.5;
+
+    private volatile TrackFeatureIndex index;
+    private volatile long watermark;
+    private volatile int builtSize;
+
+    // A full rebuild can take a while - keep it off the shared scheduler threads
+    @Scheduled(initialDelayString = "${analysis.recommend.initial-delay-ms:30000}",
+            fixedDelayString = "${analysis.recommend.refresh-ms:300000}")
+    public void scheduleRefresh() {
+        recommendRefreshRunner.execute(this::refresh);
+    }
+
+    public void refresh() {
+        try {
+            // Same lock as rebuild(), so a top-up never moves the watermark of a newer build
+            synchronized (this) {
+                TrackFeatureIndex current = index;
+                if (current == null || current.size() >= builtSize * REBUILD_GROWTH) {
+                    rebuild();
+                } else {
+                    loadSinceWatermark(current);
+                }
+            }
+        } catch (Exception e) {
+            log.error("[Recommend] Index refresh failed", e);
+        }
+    }
+
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        FeatureBuffer buffer = new FeatureBuffer();
+        jdbcTemplate.query(con -> {
+            var ps = con.prepareStatement("SELECT " + SELECT_FEATURES
+                    + " FROM tracks t WHERE t.energy IS NOT NULL ORDER BY t.track_id");
+            ps.setFetchSize(LOAD_FETCH_SIZE);
+            return ps;
+        }, (RowCallbackHandler) rs -> buffer.add(rs.getLong(1), readVector(rs)));
+
+        TrackFeatureIndex built = TrackFeatureIndex.build(buffer.ids, buffer.vectors, buffer.count, DIM);
+        index = built;
+        builtSize = Math.max(1, buffer.count);
+        watermark = buffer.maxId;
+        log.info("[Recommend] Built feature index: {} tracks in {} ms", buffer.count,
+                System.currentTimeMillis() - start);
+    }
+
+    // Caller holds the lock
+    private void loadSinceWatermark(TrackFeatureIndex current) {
+        long[] maxId = { watermark };
+        jdbcTemplate.query("SELECT " + SELECT_FEATURES
+                + " FROM tracks t WHERE t.energy IS NOT NULL AND t.track_id > ? ORDER BY t.track_id",
+                (RowCallbackHandler) rs -> {
+                    long trackId = rs.getLong(1);
+                    current.upsert(trackId, readVector(rs));
+                    maxId[0] = Math.max(maxId[0], trackId);
+                }, watermark);
+        if (maxId[0] > watermark) {
+            log.debug("[Recommend] Indexed new tracks up to id {}", maxId[0]);
+            watermark = maxId[0];
+        }
+    }
+
+    /**
+     * Called when audio features for a track were (re)collected.
+     */
+    public void upsert(long trackId, Map<String, Object> audioFeatures) {
+        TrackFeatureIndex current = index;
+        if (current == null || audioFeatures == null || audioFeatures.get("energy") == null) {
+            return;
+        }
+        float[] vector = new float[DIM];
+        for (int i = 0; i < DIM; i++) {
+            Object value = audioFeatures.get(FEATURE_COLUMNS[i]);
+            vector[i] = normalize(i, value instanceof Number n ? n.doubleValue() : null);
+        }
+        current.upsert(trackId, vector);
+    }
+
+    /**
+     * Tracks closest to the centroid of the user's PMS library, excluding tracks they already have.
+     */
+    public List<TrackFeatureIndex.Hit> similarToUser(Long userId, int limit) {
+        TrackFeatureIndex current = ensureBuilt();
+
+        StringBuilder avg = new StringBuilder("SELECT COUNT(*)");
+        for (String column : FEATURE_COLUMNS) {
+            avg.append(", AVG(t.").append(column).append(")");
+        }
+        avg.append(" FROM tracks t JOIN playlist_tracks pt ON pt.track_id = t.track_id ")
+                .append("JOIN playlists p ON p.playlist_id = pt.playlist_id ")
+                .append("WHERE p.user_id = ? AND p.space_type = 'PMS' AND t.energy IS NOT NULL");
+
+        float[] centroid = jdbcTemplate.queryForObject(avg.toString(), (rs, rowNum) -> {
+            if (rs.getLong(1) == 0) {
+                return null;
+            }
+            float[] v = new float[DIM];
+            for (int i = 0; i < DIM; i++) {
+                double value = rs.getDouble(i + 2);
+                v[i] = normalize(i, rs.wasNull() ? null : value);
+            }
+            return v;
+        }, userId);
+
+        if (centroid == null) {
+            return List.of();
+        }
+
+        Set<Long> owned = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT DISTINCT pt.track_id FROM playlist_tracks pt " +
+                        "JOIN playlists p ON p.playlist_id = pt.playlist_id WHERE p.user_id = ?",
+                Long.class, userId));
+
+        return current.search(centroid, limit, nprobe, owned::contains);
+    }
+
+    // Cold start: the first caller builds the index, concurrent callers wait for it instead of rebuilding
+    private TrackFeatureIndex ensureBuilt() {
+        TrackFeatureIndex current = index;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (index == null) {
+                rebuild();
+            }
+            return index;
+        }
+    }
+
+    public int indexedTracks() {
+        TrackFeatureIndex current = index;
+        return current != null ? current.size() : 0;
+    }
+
+    private static float[] readVector(ResultSet rs) throws SQLException {
+        float[] v = new float[DIM];
+        for (int i = 0; i < DIM; i++) {
+            double value = rs.getDouble(i + 2);
+            v[i] = normalize(i, rs.wasNull() ? null : value);
+        }
+        return v;
+    }
+
+    // Scale every feature into [0, 1]; missing values sit at the midpoint
+    private static float normalize(int feature, Double value) {
+        if (value == null) {
+            return 0.5f;
+        }
+        double scaled = switch (FEATURE_COLUMNS[feature]) {
+            case "tempo" -> value / 250.0;
+            case "loudness" -> (value + 60.0) / 60.0;
+            default -> value;
+        };
+        return (float) Math.max(0.0, Math.min(1.0, scaled));
+    }
+
+    private static class FeatureBuffer {
+        long[] ids = new long[1024];
+        float[] vectors = new float[1024 * DIM];
+        int count;
+        long maxId;
+
+        void add(long id, float[] vector) {
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+                vectors = Arrays.copyOf(vectors, count * 2 * DIM);
+            }
+            ids[count] = id;
+            System.arraycopy(vector, 0, vectors, count * DIM, DIM);
+            count++;
+            maxId = Math.max(maxId, id);
+        }
+    }
+}
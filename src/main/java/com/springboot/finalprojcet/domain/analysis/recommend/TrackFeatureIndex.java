@@ -0,0 +1,258 @@
+package com.springboot.finalprojcet.domain.analysis.recommend;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+
+/**
+ * IVF (inverted file) approximate nearest-neighbour index over track audio feature vectors.
+ * Vectors live in a single row-major float matrix; k-means centroids partition the rows into
+ * inverted lists and a query only scans the nprobe closest lists.
+ * Supports in-place upserts so newly collected features become searchable without a rebuild.
+ */
+public class TrackFeatureIndex {
+
+    private static final int KMEANS_ITERATIONS = 10;
+    private static final int KMEANS_MAX_SAMPLE = 20_000;
+
+    private final int dim;
+    private final float[] centroids;
+    private final int nlist;
+
+    private float[] matrix;
+    private long[] trackIds;
+    private int[] listOf;
+    private int size;
+    private final Map<Long, Integer> rowByTrackId = new HashMap<>();
+    private final IntList[] lists;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public record Hit(long trackId, float distance) {
+    }
+
+    private TrackFeatureIndex(int dim, float[] centroids, int nlist, int capacity) {
+        this.dim = dim;
+        this.centroids = centroids;
+        this.nlist = nlist;
+        this.matrix = new float[Math.max(1, capacity) * dim];
+        this.trackIds = new long[Math.max(1, capacity)];
+        this.listOf = new int[Math.max(1, capacity)];
+        this.lists = new IntList[nlist];
+        for (int i = 0; i < nlist; i++) {
+            lists[i] = new IntList();
+        }
+    }
+
+    /**
+     * Trains centroids with k-means (nlist = sqrt(n)) and assigns every row.
+     */
+    public static TrackFeatureIndex build(long[] ids, float[] vectors, int count, int dim) {
+        int nlist = Math.max(1, (int) Math.sqrt(count));
+        float[] centroids = trainCentroids(vectors, count, dim, nlist);
+        TrackFeatureIndex index = new TrackFeatureIndex(dim, centroids, nlist, count);
+        for (int i = 0; i < count; i++) {
+            index.insertRow(ids[i], vectors, i * dim);
+        }
+        return index;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int dim() {
+        return dim;
+    }
+
+    public void upsert(long trackId, float[] vector) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rowByTrackId.get(trackId);
+            if (row == null) {
+                insertRow(trackId, vector, 0);
+                return;
+            }
+            System.arraycopy(vector, 0, matrix, row * dim, dim);
+            int list = nearestCentroid(matrix, row * dim);
+            if (list != listOf[row]) {
+                lists[listOf[row]].remove(row);
+                lists[list].add(row);
+                listOf[row] = list;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Hit> search(float[] query, int k, int nprobe, LongPredicate exclude) {
+        lock.readLock().lock();
+        try {
+            if (size == 0 || k <= 0) {
+                return List.of();
+            }
+
+            // Closest nprobe centroids
+            int probes = Math.min(nprobe, nlist);
+            PriorityQueue<float[]> centroidHeap = new PriorityQueue<>((a, b) -> Float.compare(b[1], a[1]));
+            for (int c = 0; c < nlist; c++) {
+                float d = distance(query, 0, centroids, c * dim, dim);
+                if (centroidHeap.size() < probes) {
+                    centroidHeap.add(new float[] { c, d });
+                } else if (d < centroidHeap.peek()[1]) {
+                    centroidHeap.poll();
+                    centroidHeap.add(new float[] { c, d });
+                }
+            }
+
+            // Max-heap of the best k rows seen so far
+            PriorityQueue<Hit> best = new PriorityQueue<>((a, b) -> Float.compare(b.distance(), a.distance()));
+            for (float[] probe : centroidHeap) {
+                IntList list = lists[(int) probe[0]];
+                for (int i = 0; i < list.size; i++) {
+                    int row = list.values[i];
+                    long trackId = trackIds[row];
+                    if (exclude != null && exclude.test(trackId)) {
+                        continue;
+                    }
+                    float d = distance(query, 0, matrix, row * dim, dim);
+                    if (best.size() < k) {
+                        best.add(new Hit(trackId, d));
+                    } else if (d < best.peek().distance()) {
+                        best.poll();
+                        best.add(new Hit(trackId, d));
+                    }
+                }
+            }
+
+            List<Hit> result = new ArrayList<>(best);
+            result.sort((a, b) -> Float.compare(a.distance(), b.distance()));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ===== internals =====
+
+    private void insertRow(long trackId, float[] source, int offset) {
+        if (size == trackIds.length) {
+            int capacity = trackIds.length * 2;
+            matrix = Arrays.copyOf(matrix, capacity * dim);
+            trackIds = Arrays.copyOf(trackIds, capacity);
+            listOf = Arrays.copyOf(listOf, capacity);
+        }
+        int row = size++;
+        System.arraycopy(source, offset, matrix, row * dim, dim);
+        trackIds[row] = trackId;
+        int list = nearestCentroid(matrix, row * dim);
+        listOf[row] = list;
+        lists[list].add(row);
+        rowByTrackId.put(trackId, row);
+    }
+
+    private int nearestCentroid(float[] source, int offset) {
+        int best = 0;
+        float bestDistance = Float.MAX_VALUE;
+        for (int c = 0; c < nlist; c++) {
+            float d = distance(source, offset, centroids, c * dim, dim);
+            if (d < bestDistance) {
+                bestDistance = d;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    private static float[] trainCentroids(float[] vectors, int count, int dim, int nlist) {
+        float[] centroids = new float[nlist * dim];
+        if (count == 0) {
+            return centroids;
+        }
+        Random random = new Random(42);
+
+        // Train on a sample to bound build time
+        int sampleSize = Math.min(count, KMEANS_MAX_SAMPLE);
+        int[] sample = new int[sampleSize];
+        for (int i = 0; i < sampleSize; i++) {
+            sample[i] = sampleSize == count ? i : random.nextInt(count);
+        }
+
+        for (int c = 0; c < nlist; c++) {
+            int row = sample[random.nextInt(sampleSize)];
+            System.arraycopy(vectors, row * dim, centroids, c * dim, dim);
+        }
+
+        float[] sums = new float[nlist * dim];
+        int[] counts = new int[nlist];
+        for (int iter = 0; iter < KMEANS_ITERATIONS; iter++) {
+            Arrays.fill(sums, 0f);
+            Arrays.fill(counts, 0);
+            for (int row : sample) {
+                int best = 0;
+                float bestDistance = Float.MAX_VALUE;
+                for (int c = 0; c < nlist; c++) {
+                    float d = distance(vectors, row * dim, centroids, c * dim, dim);
+                    if (d < bestDistance) {
+                        bestDistance = d;
+                        best = c;
+                    }
+                }
+                counts[best]++;
+                for (int j = 0; j < dim; j++) {
+                    sums[best * dim + j] += vectors[row * dim + j];
+                }
+            }
+            for (int c = 0; c < nlist; c++) {
+                if (counts[c] == 0) {
+                    continue; // keep previous centroid for empty clusters
+                }
+                for (int j = 0; j < dim; j++) {
+                    centroids[c * dim + j] = sums[c * dim + j] / counts[c];
+                }
+            }
+        }
+        return centroids;
+    }
+
+    private static float distance(float[] a, int aOffset, float[] b, int bOffset, int dim) {
+        float sum = 0f;
+        for (int j = 0; j < dim; j++) {
+            float diff = a[aOffset + j] - b[bOffset + j];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    private static class IntList {
+        int[] values = new int[8];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void remove(int value) {
+            for (int i = 0; i < size; i++) {
+                if (values[i] == value) {
+                    values[i] = values[--size];
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -2,10 +2,15 @@ package com.springboot.finalprojcet.domain.analysis.service.impl;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.finalprojcet.domain.analysis.cache.CompiledProfile;
+import com.springboot.finalprojcet.domain.analysis.cache.CompiledProfileCache;
 import com.springboot.finalprojcet.domain.analysis.dto.AnalysisProfileDto;
 import com.springboot.finalprojcet.domain.analysis.dto.EvaluationResponseDto;
+import com.springboot.finalprojcet.domain.analysis.recommend.RecommendationEngine;
+import com.springboot.finalprojcet.domain.analysis.recommend.TrackFeatureIndex;
 import com.springboot.finalprojcet.domain.analysis.repository.UserProfilesRepository;
 import com.springboot.finalprojcet.domain.analysis.service.AnalysisService;
+import com.springboot.finalprojcet.domain.analysis.store.TasteProfileStore;
 import com.springboot.finalprojcet.domain.gms.repository.PlaylistRepository;
 import com.springboot.finalprojcet.domain.tidal.repository.PlaylistTracksRepository;
 import com.springboot.finalprojcet.domain.tidal.repository.TracksRepository;
@@ -16,11 +21,15 @@ import com.springboot.finalprojcet.enums.SourceType;
 import com.springboot.finalprojcet.enums.SpaceType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 @Service
@@ -33,67 +42,56 @@ public class AnalysisServiceImpl implements AnalysisService {
     private final TracksRepository tracksRepository;
     private final PlaylistTracksRepository playlistTracksRepository;
     private final ObjectMapper objectMapper;
+    private final TasteProfileStore tasteProfileStore;
+    private final CompiledProfileCache compiledProfileCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final ForkJoinPool analysisEvaluationPool;
+    private final RecommendationEngine recommendationEngine;
 
-    // Genre Keywords (Hardcoded for migration parity)
-    private static final Map<String, List<String>> GENRE_KEYWORDS = Map.of(
-            "Jazz", List.of("jazz", "재즈", "swing", "bebop", "bossa"),
-            "K-Pop", List.of("kpop", "k-pop", "케이팝"),
-            "R&B", List.of("r&b", "rnb", "soul", "알앤비"),
-            "Classical", List.of("classical", "classic", "클래식"),
-            "Hip-Hop", List.of("hip-hop", "hiphop", "rap", "힙합"),
-            "EDM", List.of("edm", "electronic", "house"),
-            "Rock", List.of("rock", "metal", "락"),
-            "Pop", List.of("pop", "팝"),
-            "Acoustic", List.of("acoustic", "어쿠스틱"),
-            "Blues", List.of("blues", "블루스"));
+    private static final int BATCH_QUERY_CHUNK = 1000;
+    private static final int BATCH_WRITE_CHUNK = 500;
 
+    // REPEATABLE READ: every read of the rebuild sees the snapshot taken by its first read
     @Override
-    @Transactional
+    @Transactional(isolation = Isolation.REPEATABLE_READ)
     public Map<String, Object> trainModel(Long userId) {
         try {
-            // 1. Fetch all tracks from user's PMS playlists
-            List<Tracks> tracks = tracksRepository.findTracksByUserIdAndSpaceType(userId, SpaceType.PMS);
+            // 1. Load incremental counters (full rebuild only on first training)
+            TasteProfileStore.Counters counters;
+            if (!tasteProfileStore.isSeeded(userId)) {
+                // The first read pins the snapshot; changes committed after it are queued and replayed by seed()
+                List<Tracks> linkedTracks = tracksRepository.findLinkedTracksByUserIdAndSpaceType(userId, SpaceType.PMS);
+                tasteProfileStore.beginSeed(userId);
+                tasteProfileStore.seed(userId, rebuildCounters(userId, linkedTracks));
+                counters = tasteProfileStore.snapshot(userId);
+            } else {
+                counters = tasteProfileStore.snapshot(userId);
+            }
 
-            if (tracks.isEmpty()) {
+            if (counters.isEmpty()) {
                 // Try Platform playlists as fallback
-                tracks = tracksRepository.findTracksByUserIdAndSourceType(userId, SourceType.Platform);
-                if (tracks.isEmpty()) {
+                List<Tracks> platformTracks = tracksRepository.findTracksByUserIdAndSourceType(userId,
+                        SourceType.Platform);
+                if (platformTracks.isEmpty()) {
                     return Map.of("status", "cold_start", "message", "No personal data found");
                 }
+                TasteProfileStore.Counters fallback = new TasteProfileStore.Counters();
+                platformTracks.forEach(t -> fallback.addTrack(t, 1));
+                fallback.genres.putAll(counters.genres);
+                counters = fallback;
             }
 
-            // 2. Build Frequency Maps
-            Map<String, Integer> artistFreq = new HashMap<>();
-            Map<String, Integer> albumFreq = new HashMap<>();
+            // 2. Renormalize snapshot
+            Map<String, Integer> artistFreq = counters.artists;
+            Map<String, Integer> albumFreq = counters.albums;
             long totalPop = 0;
             int popCount = 0;
-            long totalDur = 0;
-            int durCount = 0;
-            int explicitCount = 0;
-
-            for (Tracks track : tracks) {
-                String artist = track.getArtist() != null ? track.getArtist() : "Unknown";
-                artistFreq.put(artist, artistFreq.getOrDefault(artist, 0) + 1);
-
-                String album = track.getAlbum() != null ? track.getAlbum() : "Unknown";
-                albumFreq.put(album, albumFreq.getOrDefault(album, 0) + 1);
-
-                // Popularity (Assuming it's in Tracks, if not, skip. Entity has explicit
-                // field?)
-                // Tracks entity definition needed. Assuming fields exist.
-                // If not, we skip.
-                // For now, let's assume popular/duration exists.
-                if (track.getDuration() != null) {
-                    totalDur += track.getDuration();
-                    durCount++;
-                }
-            }
-
-            // Note: Popularity/Explicit might not be in standard Tracks entity,
-            // checking simple implementation.
+            long totalDur = counters.durationSum;
+            int durCount = counters.durationCount;
+            int explicitCount = counters.explicitCount;
 
             // 3. Extract Top Preferences
-            final int trackSize = tracks.size();
+            final int trackSize = counters.totalTracks;
             List<AnalysisProfileDto.ItemWeight> topArtists = artistFreq.entrySet().stream()
                     .sorted((a, b) -> b.getValue().compareTo(a.getValue()))
                     .limit(30)
@@ -113,21 +111,8 @@ public class AnalysisServiceImpl implements AnalysisService {
                             .build())
                     .collect(Collectors.toList());
 
-            // 4. Infer genres from playlist titles
-            List<Playlists> userPlaylists = playlistRepository.findByUserUserIdAndSpaceType(userId, SpaceType.PMS);
-            Map<String, Integer> inferredGenresMap = new HashMap<>();
-
-            for (Playlists p : userPlaylists) {
-                String text = (p.getTitle() + " " + (p.getDescription() != null ? p.getDescription() : ""))
-                        .toLowerCase();
-                GENRE_KEYWORDS.forEach((genre, keywords) -> {
-                    for (String kw : keywords) {
-                        if (text.contains(kw)) {
-                            inferredGenresMap.put(genre, inferredGenresMap.getOrDefault(genre, 0) + 1);
-                        }
-                    }
-                });
-            }
+            // 4. Genres inferred from playlist titles (maintained by TasteProfileStore)
+            Map<String, Integer> inferredGenresMap = counters.genres;
 
             List<AnalysisProfileDto.ItemCount> topGenres = inferredGenresMap.entrySet().stream()
                     .sorted((a, b) -> b.getValue().compareTo(a.getValue()))
@@ -142,7 +127,7 @@ public class AnalysisServiceImpl implements AnalysisService {
                     .userId(userId)
                     .trainedAt(LocalDateTime.now().toString())
                     .dataStats(AnalysisProfileDto.DataStats.builder()
-                            .totalTracks(tracks.size())
+                            .totalTracks(counters.totalTracks)
                             .uniqueArtists(artistFreq.size())
                             .uniqueAlbums(albumFreq.size())
                             .build())
@@ -156,7 +141,7 @@ public class AnalysisServiceImpl implements AnalysisService {
                             .durationProfile(AnalysisProfileDto.StatProfile.builder()
                                     .avg(durCount > 0 ? (int) (totalDur / durCount) : 240)
                                     .build())
-                            .explicitTolerance(tracks.isEmpty() ? 0.5 : (double) explicitCount / tracks.size())
+                            .explicitTolerance(trackSize > 0 ? (double) explicitCount / trackSize : 0.5)
                             .build())
                     .weights(AnalysisProfileDto.Weights.builder()
                             .artistMatch(0.35)
@@ -174,6 +159,7 @@ public class AnalysisServiceImpl implements AnalysisService {
             userProfile.setProfileData(objectMapper.writeValueAsString(profile));
             userProfile.setModelVersion("v1.0");
             userProfilesRepository.save(userProfile);
+            compiledProfileCache.put(userId, profile);
 
             return Map.of(
                     "status", "trained",
@@ -215,7 +201,7 @@ public class AnalysisServiceImpl implements AnalysisService {
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public EvaluationResponseDto evaluatePlaylist(Long userId, String playlistId) {
         // Implementation for evaluation (simplified for brevity, matching JS logic)
         // Need to parse ID (Long)
@@ -226,7 +212,7 @@ public class AnalysisServiceImpl implements AnalysisService {
             throw new RuntimeException("Invalid playlist ID");
         }
 
-        AnalysisProfileDto profile = loadProfileDto(userId);
+        CompiledProfile profile = compiledProfileCache.get(userId);
         if (profile == null) {
             return EvaluationResponseDto.builder()
                     .score(50)
@@ -236,80 +222,138 @@ public class AnalysisServiceImpl implements AnalysisService {
                     .build();
         }
 
-        Playlists playlist = playlistRepository.findById(pId)
-                .orElseThrow(() -> new RuntimeException("Playlist not found"));
-        // Fetch tracks
-        // Using existing repository logic to get tracks
-        // Assuming we can get tracks from playlistTracksRepository
-        var playlistTracks = playlistTracksRepository.findAllByPlaylistPlaylistIdOrderByOrderIndex(pId);
-        List<Tracks> tracks = playlistTracks.stream().map(pt -> pt.getTrack()).collect(Collectors.toList());
-
-        if (tracks.isEmpty()) {
-            return EvaluationResponseDto.builder().score(0).grade("F").reason("Empty playlist").build();
+        if (!playlistRepository.existsById(pId)) {
+            throw new RuntimeException("Playlist not found");
         }
 
-        // Logic matching JS...
-        // Calculate score based on profile weights...
-        // For now returning mock to match rapid dev, or implement fully if easy.
-        // Let's implement full basic logic.
+        List<String> trackArtists = playlistTracksRepository.findArtistsByPlaylistId(pId);
+        return profile.evaluate(trackArtists);
+    }
 
-        double totalScore = 0;
-        int artistMatches = 0;
-        List<String> matchedArtists = new ArrayList<>();
+    @Override
+    @Transactional
+    public Map<String, Object> batchEvaluate(Long userId, List<String> playlistIds) {
+        // 1. Profile is loaded once for the whole batch
+        CompiledProfile profile = compiledProfileCache.get(userId);
+        if (profile == null) {
+            return Map.of(
+                    "needsTraining", true,
+                    "message", "Model not trained yet. Train with personal playlists first.");
+        }
 
-        List<String> topArtists = profile.getPreferences().getTopArtists().stream().map(a -> a.getName().toLowerCase())
-                .collect(Collectors.toList());
+        List<String> invalidIds = new ArrayList<>();
+        Set<Long> ids = new LinkedHashSet<>();
+        for (String id : playlistIds) {
+            try {
+                ids.add(Long.parseLong(id));
+            } catch (NumberFormatException e) {
+                invalidIds.add(id);
+            }
+        }
 
-        for (Tracks t : tracks) {
-            if (t.getArtist() != null && topArtists.contains(t.getArtist().toLowerCase())) {
-                artistMatches++;
-                if (!matchedArtists.contains(t.getArtist()))
-                    matchedArtists.add(t.getArtist());
+        // 2. Fetch artists for all playlists, grouped by playlist_id (chunked IN lists)
+        Set<Long> existing = new HashSet<>();
+        Map<Long, List<String>> artistsByPlaylist = new HashMap<>();
+        List<Long> idList = new ArrayList<>(ids);
+        for (int i = 0; i < idList.size(); i += BATCH_QUERY_CHUNK) {
+            List<Long> chunk = idList.subList(i, Math.min(i + BATCH_QUERY_CHUNK, idList.size()));
+            existing.addAll(playlistRepository.findExistingIds(chunk));
+            for (Object[] row : playlistTracksRepository.findArtistsByPlaylistIds(chunk)) {
+                artistsByPlaylist.computeIfAbsent((Long) row[0], k -> new ArrayList<>()).add((String) row[1]);
             }
         }
 
-        double artistScore = ((double) artistMatches / tracks.size()) * 100;
-        totalScore += artistScore * profile.getWeights().getArtistMatch();
-
-        // Skip other metrics for brevity, add base score
-        double finalScore = Math.min(100, Math.max(0, totalScore + 30));
-
-        // Grade
-        String grade = finalScore >= 85 ? "S"
-                : finalScore >= 75 ? "A" : finalScore >= 65 ? "B" : finalScore >= 50 ? "C" : "D";
-        String reason = !matchedArtists.isEmpty()
-                ? "Matches: " + String.join(", ", matchedArtists.subList(0, Math.min(3, matchedArtists.size())))
-                : "Different from your usual preferences";
-
-        return EvaluationResponseDto.builder()
-                .score((int) finalScore)
-                .grade(grade)
-                .reason(reason)
-                .matchDetails(EvaluationResponseDto.MatchDetails.builder()
-                        .artistMatches(artistMatches)
-                        .matchedArtists(matchedArtists)
-                        .build())
-                .build();
-    }
+        List<Long> evaluable = idList.stream().filter(existing::contains).collect(Collectors.toList());
+        idList.stream().filter(id -> !existing.contains(id)).map(String::valueOf).forEach(invalidIds::add);
 
-    @Override
-    public Map<String, Object> batchEvaluate(Long userId, List<String> playlistIds) {
-        return Map.of("message", "Batch evaluation not yet fully implemented"); // Stub
+        // 3. Score in parallel on the bounded evaluation pool
+        List<Map.Entry<Long, EvaluationResponseDto>> scored;
+        try {
+            scored = analysisEvaluationPool.submit(() -> evaluable.parallelStream()
+                    .map(id -> Map.entry(id, profile.evaluate(artistsByPlaylist.getOrDefault(id, List.of()))))
+                    .collect(Collectors.toList()))
+                    .get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Batch evaluation interrupted");
+        } catch (ExecutionException e) {
+            log.error("Batch Evaluation Error", e.getCause());
+            throw new RuntimeException("Batch evaluation failed: " + e.getCause().getMessage());
+        }
+
+        // 4. Persist all scores in one JDBC batch
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO playlist_scored_id (playlist_id, user_id, ai_score) VALUES (?, ?, ?) " +
+                        "ON DUPLICATE KEY UPDATE ai_score = VALUES(ai_score), updated_at = CURRENT_TIMESTAMP",
+                scored,
+                BATCH_WRITE_CHUNK,
+                (ps, entry) -> {
+                    ps.setLong(1, entry.getKey());
+                    ps.setLong(2, userId);
+                    ps.setDouble(3, entry.getValue().getScore());
+                });
+
+        List<Map<String, Object>> results = scored.stream().map(entry -> {
+            Map<String, Object> r = new HashMap<>();
+            r.put("playlistId", entry.getKey());
+            r.put("score", entry.getValue().getScore());
+            r.put("grade", entry.getValue().getGrade());
+            r.put("reason", entry.getValue().getReason());
+            r.put("matchDetails", entry.getValue().getMatchDetails());
+            return r;
+        }).collect(Collectors.toList());
+
+        return Map.of(
+                "evaluated", results.size(),
+                "results", results,
+                "invalidIds", invalidIds);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Map<String, Object> getRecommendations(Long userId, int limit) {
-        return Map.of("message", "Recommendations not yet fully implemented"); // Stub
-    }
+        List<TrackFeatureIndex.Hit> hits = recommendationEngine.similarToUser(userId, limit);
+        if (hits.isEmpty()) {
+            return Map.of(
+                    "userId", userId,
+                    "recommendations", List.of(),
+                    "total", 0,
+                    "message", "No audio features found for your personal playlists");
+        }
 
-    private AnalysisProfileDto loadProfileDto(Long userId) {
-        UserProfiles up = userProfilesRepository.findById(userId).orElse(null);
-        if (up == null || up.getProfileData() == null)
-            return null;
-        try {
-            return objectMapper.readValue(up.getProfileData(), AnalysisProfileDto.class);
-        } catch (Exception e) {
-            return null;
+        Map<Long, Tracks> tracksById = tracksRepository
+                .findAllById(hits.stream().map(TrackFeatureIndex.Hit::trackId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(Tracks::getTrackId, t -> t));
+
+        List<Map<String, Object>> recommendations = new ArrayList<>();
+        for (TrackFeatureIndex.Hit hit : hits) {
+            Tracks t = tracksById.get(hit.trackId());
+            if (t == null)
+                continue;
+            Map<String, Object> m = new HashMap<>();
+            m.put("trackId", t.getTrackId());
+            m.put("title", t.getTitle());
+            m.put("artist", t.getArtist());
+            m.put("album", t.getAlbum());
+            m.put("artwork", t.getArtwork());
+            m.put("similarity", 1.0 / (1.0 + Math.sqrt(hit.distance())));
+            recommendations.add(m);
         }
+
+        return Map.of(
+                "userId", userId,
+                "recommendations", recommendations,
+                "total", recommendations.size(),
+                "indexedTracks", recommendationEngine.indexedTracks());
+    }
+
+    // Full scan of the user's PMS library; only needed to seed the incremental counters
+    private TasteProfileStore.Counters rebuildCounters(Long userId, List<Tracks> linkedTracks) {
+        TasteProfileStore.Counters counters = new TasteProfileStore.Counters();
+        linkedTracks.forEach(t -> counters.addTrack(t, 1));
+        playlistRepository.findByUserUserIdAndSpaceType(userId, SpaceType.PMS)
+                .forEach(p -> counters.addPlaylistText(p.getTitle(), p.getDescription(), 1));
+        return counters;
     }
 }
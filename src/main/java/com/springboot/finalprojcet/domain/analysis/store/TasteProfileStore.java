@@ -0,0 +1,320 @@
+package com.springboot.finalprojcet.domain.analysis.store;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.finalprojcet.domain.common.event.LibraryChangedEvent;
+import com.springboot.finalprojcet.domain.common.tx.AfterCommit;
+import com.springboot.finalprojcet.entity.Playlists;
+import com.springboot.finalprojcet.entity.Tracks;
+import com.springboot.finalprojcet.enums.SpaceType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Redis-based incremental taste counters for the analysis profile.
+ * PMS track/playlist changes adjust per-user artist, album and genre counts,
+ * so trainModel only has to renormalize a snapshot instead of rescanning the library.
+ * <p>
+ * Seeding and increments run as Lua scripts. While a seed is being computed ({@link #beginSeed}),
+ * increments are queued and replayed by {@link #seed} in the same atomic step that installs the
+ * rebuilt counters, so changes committed during the rebuild are not lost.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TasteProfileStore {
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+
+    private static final String KEY_PREFIX = "analysis:taste:";
+
+    // Bumped when Counters gains a field, so counters seeded without it are rebuilt on the next training
+    private static final String FIELD_SEEDED = "seeded:v2";
+    private static final String FIELD_TOTAL_TRACKS = "totalTracks";
+    private static final String FIELD_DURATION_SUM = "durationSum";
+    private static final String FIELD_DURATION_COUNT = "durationCount";
+    private static final String FIELD_EXPLICIT_COUNT = "explicitCount";
+
+    // Bounds how long increments are queued if a seed never finishes
+    private static final Duration SEED_WINDOW = Duration.ofMinutes(10);
+
+    // KEYS: artist, album, genre, stats, pending, seeding
+    private static final String APPLY_LUA = """
+            local function n(v) return string.format('%d', v) end
+            local function apply(d)
+              for k, v in pairs(d.artists) do redis.call('HINCRBY', KEYS[1], k, n(v)) end
+              for k, v in pairs(d.albums) do redis.call('HINCRBY', KEYS[2], k, n(v)) end
+              for k, v in pairs(d.genres) do redis.call('HINCRBY', KEYS[3], k, n(v)) end
+              if d.totalTracks ~= 0 then redis.call('HINCRBY', KEYS[4], 'totalTracks', n(d.totalTracks)) end
+              if d.durationSum ~= 0 then redis.call('HINCRBY', KEYS[4], 'durationSum', n(d.durationSum)) end
+              if d.durationCount ~= 0 then redis.call('HINCRBY', KEYS[4], 'durationCount', n(d.durationCount)) end
+              if d.explicitCount ~= 0 then redis.call('HINCRBY', KEYS[4], 'explicitCount', n(d.explicitCount)) end
+            end
+            """;
+
+    // Seeded: apply. Seeding: queue for the seed to replay. Otherwise: the next seed rebuilds it anyway.
+    private static final DefaultRedisScript<Long> INCREMENT_SCRIPT = new DefaultRedisScript<>(APPLY_LUA + """
+            if redis.call('HEXISTS', KEYS[4], 'seeded:v2') == 1 then
+              apply(cjson.decode(ARGV[1]))
+              return 1
+            end
+            if redis.call('EXISTS', KEYS[6]) == 1 then
+              redis.call('RPUSH', KEYS[5], ARGV[1])
+              redis.call('EXPIRE', KEYS[5], ARGV[2])
+              return 2
+            end
+            return 0
+            """, Long.class);
+
+    private static final DefaultRedisScript<Long> SEED_SCRIPT = new DefaultRedisScript<>(APPLY_LUA + """
+            redis.call('DEL', KEYS[1], KEYS[2], KEYS[3], KEYS[4])
+            apply(cjson.decode(ARGV[1]))
+            for _, queued in ipairs(redis.call('LRANGE', KEYS[5], 0, -1)) do
+              apply(cjson.decode(queued))
+            end
+            redis.call('DEL', KEYS[5], KEYS[6])
+            redis.call('HSET', KEYS[4], 'seeded:v2', '1')
+            return 1
+            """, Long.class);
+
+    // Genre Keywords (Hardcoded for migration parity)
+    public static final Map<String, List<String>> GENRE_KEYWORDS = Map.of(
+            "Jazz", List.of("jazz", "재즈", "swing", "bebop", "bossa"),
+            "K-Pop", List.of("kpop", "k-pop", "케이팝"),
+            "R&B", List.of("r&b", "rnb", "soul", "알앤비"),
+            "Classical", List.of("classical", "classic", "클래식"),
+            "Hip-Hop", List.of("hip-hop", "hiphop", "rap", "힙합"),
+            "EDM", List.of("edm", "electronic", "house"),
+            "Rock", List.of("rock", "metal", "락"),
+            "Pop", List.of("pop", "팝"),
+            "Acoustic", List.of("acoustic", "어쿠스틱"),
+            "Blues", List.of("blues", "블루스"));
+
+    // ===== Counters =====
+
+    public static class Counters {
+        public final Map<String, Integer> artists = new HashMap<>();
+        public final Map<String, Integer> albums = new HashMap<>();
+        public final Map<String, Integer> genres = new HashMap<>();
+        public int totalTracks;
+        public long durationSum;
+        public int durationCount;
+        public int explicitCount;
+
+        public void addTrack(Tracks track, int delta) {
+            String artist = track.getArtist() != null ? track.getArtist() : "Unknown";
+            String album = track.getAlbum() != null ? track.getAlbum() : "Unknown";
+            artists.merge(artist, delta, Integer::sum);
+            albums.merge(album, delta, Integer::sum);
+            totalTracks += delta;
+            if (track.getDuration() != null) {
+                durationSum += (long) track.getDuration() * delta;
+                durationCount += delta;
+            }
+            if (Boolean.TRUE.equals(track.getExplicit())) {
+                explicitCount += delta;
+            }
+        }
+
+        public void addPlaylistText(String title, String description, int delta) {
+            String text = ((title != null ? title : "") + " " + (description != null ? description : ""))
+                    .toLowerCase();
+            GENRE_KEYWORDS.forEach((genre, keywords) -> {
+                for (String kw : keywords) {
+                    if (text.contains(kw)) {
+                        genres.merge(genre, delta, Integer::sum);
+                    }
+                }
+            });
+        }
+
+        public boolean isEmpty() {
+            return totalTracks <= 0;
+        }
+    }
+
+    // ===== Incremental updates (PMS only) =====
+
+    public void onTracksAdded(Playlists playlist, Collection<Tracks> tracks) {
+        applyTracks(playlist, tracks, 1);
+    }
+
+    public void onTracksRemoved(Playlists playlist, Collection<Tracks> tracks) {
+        applyTracks(playlist, tracks, -1);
+    }
+
+    public void onPlaylistAdded(Playlists playlist) {
+        applyPlaylistText(playlist, playlist.getTitle(), playlist.getDescription(), 1);
+    }
+
+    public void onPlaylistRemoved(Playlists playlist) {
+        applyPlaylistText(playlist, playlist.getTitle(), playlist.getDescription(), -1);
+    }
+
+    public void onPlaylistRenamed(Playlists playlist, String oldTitle, String oldDescription) {
+        applyPlaylistText(playlist, oldTitle, oldDescription, -1);
+        applyPlaylistText(playlist, playlist.getTitle(), playlist.getDescription(), 1);
+    }
+
+    private void applyTracks(Playlists playlist, Collection<Tracks> tracks, int delta) {
+        // Library aggregates cover every space, so notify before the PMS filter
+        if (playlist != null && playlist.getUser() != null && tracks != null && !tracks.isEmpty()) {
+            eventPublisher.publishEvent(new LibraryChangedEvent(playlist.getUser().getUserId()));
+        }
+        Long userId = pmsOwner(playlist);
+        if (userId == null || tracks == null || tracks.isEmpty()) {
+            return;
+        }
+        Counters counters = new Counters();
+        tracks.forEach(t -> counters.addTrack(t, delta));
+        AfterCommit.run(() -> increment(userId, counters));
+    }
+
+    private void applyPlaylistText(Playlists playlist, String title, String description, int delta) {
+        Long userId = pmsOwner(playlist);
+        if (userId == null) {
+            return;
+        }
+        Counters counters = new Counters();
+        counters.addPlaylistText(title, description, delta);
+        if (!counters.genres.isEmpty()) {
+            AfterCommit.run(() -> increment(userId, counters));
+        }
+    }
+
+    private Long pmsOwner(Playlists playlist) {
+        if (playlist == null || playlist.getSpaceType() != SpaceType.PMS || playlist.getUser() == null) {
+            return null;
+        }
+        return playlist.getUser().getUserId();
+    }
+
+    private void increment(Long userId, Counters delta) {
+        try {
+            redisTemplate.execute(INCREMENT_SCRIPT, keys(userId), toJson(delta),
+                    String.valueOf(SEED_WINDOW.toSeconds()));
+        } catch (Exception e) {
+            log.warn("Failed to update taste counters for user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    // ===== Seeding / Snapshot =====
+
+    public boolean isSeeded(Long userId) {
+        return Boolean.TRUE.equals(redisTemplate.opsForHash().hasKey(statsKey(userId), FIELD_SEEDED));
+    }
+
+    /**
+     * Call after the rebuild's transaction has taken its snapshot, before reading the rest of it: from
+     * now until {@link #seed}, increments are queued instead of dropped. Opening the window earlier would
+     * count a change that commits in between twice - once in the rebuild and once from the queue.
+     */
+    public void beginSeed(Long userId) {
+        redisTemplate.opsForValue().set(seedingKey(userId), "1", SEED_WINDOW);
+    }
+
+    /**
+     * Atomically replaces the stored counters with a full rebuild plus the increments queued since
+     * {@link #beginSeed}. Used once per user (or on demand).
+     */
+    public void seed(Long userId, Counters counters) {
+        redisTemplate.execute(SEED_SCRIPT, keys(userId), toJson(counters));
+        log.debug("Seeded taste counters for user: {}", userId);
+    }
+
+    public Counters snapshot(Long userId) {
+        Counters counters = new Counters();
+        readInto(artistKey(userId), counters.artists);
+        readInto(albumKey(userId), counters.albums);
+        readInto(genreKey(userId), counters.genres);
+
+        Map<Object, Object> stats = redisTemplate.opsForHash().entries(statsKey(userId));
+        counters.totalTracks = (int) parseLong(stats.get(FIELD_TOTAL_TRACKS));
+        counters.durationSum = parseLong(stats.get(FIELD_DURATION_SUM));
+        counters.durationCount = (int) parseLong(stats.get(FIELD_DURATION_COUNT));
+        counters.explicitCount = (int) parseLong(stats.get(FIELD_EXPLICIT_COUNT));
+        return counters;
+    }
+
+    public void clear(Long userId) {
+        redisTemplate.delete(keys(userId));
+    }
+
+    private String toJson(Counters counters) {
+        try {
+            return objectMapper.writeValueAsString(Map.of(
+                    "artists", counters.artists,
+                    "albums", counters.albums,
+                    "genres", counters.genres,
+                    FIELD_TOTAL_TRACKS, counters.totalTracks,
+                    FIELD_DURATION_SUM, counters.durationSum,
+                    FIELD_DURATION_COUNT, counters.durationCount,
+                    FIELD_EXPLICIT_COUNT, counters.explicitCount));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize taste counters", e);
+        }
+    }
+
+    private void readInto(String key, Map<String, Integer> target) {
+        redisTemplate.opsForHash().entries(key).forEach((k, v) -> {
+            int count = (int) parseLong(v);
+            // Removed items linger with zero counts; drop them from the snapshot
+            if (count > 0) {
+                target.put(k.toString(), count);
+            }
+        });
+    }
+
+    private long parseLong(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(value.toString());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private String artistKey(Long userId) {
+        return KEY_PREFIX + userId + ":artist";
+    }
+
+    private String albumKey(Long userId) {
+        return KEY_PREFIX + userId + ":album";
+    }
+
+    private String genreKey(Long userId) {
+        return KEY_PREFIX + userId + ":genre";
+    }
+
+    private String statsKey(Long userId) {
+        return KEY_PREFIX + userId + ":stats";
+    }
+
+    private String pendingKey(Long userId) {
+        return KEY_PREFIX + userId + ":pending";
+    }
+
+    private String seedingKey(Long userId) {
+        return KEY_PREFIX + userId + ":seeding";
+    }
+
+    // Order matches the KEYS used by the Lua scripts
+    private List<String> keys(Long userId) {
+        return List.of(artistKey(userId), albumKey(userId), genreKey(userId), statsKey(userId),
+                pendingKey(userId), seedingKey(userId));
+    }
+}
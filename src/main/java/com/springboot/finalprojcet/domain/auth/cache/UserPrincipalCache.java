@@ -0,0 +1,104 @@
+package com.springboot.finalprojcet.domain.auth.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.springboot.finalprojcet.domain.auth.service.CustomUserDetails;
+import com.springboot.finalprojcet.domain.common.tx.AfterCommit;
+import com.springboot.finalprojcet.domain.user.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Short-lived cache of authenticated principals keyed by userId, so the JWT filter does not query
+ * the users table on every request. Entries are dropped on role change or deletion on every node
+ * (Redis pub/sub); the TTL bounds staleness for anything else.
+ */
+@Component
+@Slf4j
+public class UserPrincipalCache implements MessageListener {
+
+    private static final String INVALIDATE_CHANNEL = "auth:principal:invalidate";
+
+    private final UserRepository userRepository;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final Cache<Long, CustomUserDetails> principals;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public UserPrincipalCache(UserRepository userRepository, RedisTemplate<String, String> redisTemplate,
+            RedisMessageListenerContainer redisMessageListenerContainer, MeterRegistry meterRegistry,
+            @Value("${auth.principal-cache.ttl-seconds:60}") long ttlSeconds,
+            @Value("${auth.principal-cache.max-size:10000}") long maxSize) {
+        this.userRepository = userRepository;
+        this.redisTemplate = redisTemplate;
+        this.redisMessageListenerContainer = redisMessageListenerContainer;
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+        this.hits = Counter.builder("auth.principal.cache").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("auth.principal.cache").tag("result", "miss").register(meterRegistry);
+    }
+
+    @PostConstruct
+    void subscribeInvalidations() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATE_CHANNEL));
+    }
+
+    /**
+     * Principal for the token's user, or null if the user no longer exists (or the token's email
+     * does not belong to it).
+     */
+    public CustomUserDetails get(Long userId, String email) {
+        CustomUserDetails cached = principals.getIfPresent(userId);
+        if (cached != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            cached = principals.get(userId,
+                    id -> userRepository.findById(id).map(CustomUserDetails::new).orElse(null));
+        }
+        if (cached == null || !cached.getUsername().equals(email)) {
+            return null;
+        }
+        return cached;
+    }
+
+    /**
+     * Drops the user's cached principal on every node once the current transaction commits.
+     */
+    public void invalidate(Long userId) {
+        Runnable publish = () -> {
+            principals.invalidate(userId);
+            try {
+                redisTemplate.convertAndSend(INVALIDATE_CHANNEL, String.valueOf(userId));
+            } catch (Exception e) {
+                log.warn("[PrincipalCache] Failed to publish invalidation for {}: {}", userId, e.getMessage());
+            }
+        };
+        AfterCommit.run(publish);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            principals.invalidate(Long.parseLong(new String(message.getBody(), StandardCharsets.UTF_8)));
+        } catch (NumberFormatException e) {
+            log.warn("[PrincipalCache] Ignoring malformed invalidation message");
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.springboot.finalprojcet.domain.auth.jwt;
 
+import com.springboot.finalprojcet.domain.auth.cache.UserPrincipalCache;
 import com.springboot.finalprojcet.domain.auth.service.CostomUserDetailsService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -23,6 +25,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter { // OncePerRe
 
     private final JwtTokenProvider jwtTokenProvider;
     private final CostomUserDetailsService customUserDetailsService;
+    private final UserPrincipalCache userPrincipalCache;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -33,17 +36,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter { // OncePerRe
                                                                  // eyJhbGciOiJIUzI1NiJ9...) 가져옴
         String token = jwtTokenProvider.resolveToken(bearerToken); // bearer을 제외한 나머지 순수 토큰값을 가져옴
 
-        // 토큰 유효성 검증
-        if (token != null && jwtTokenProvider.validateToken(token)) { // validateToken(JwtTokenProvider에서 유효성 검사 메소드) 토큰
-                                                                      // 유효성 검사
-            // 토큰에서 이메일 추출
-            String email = jwtTokenProvider.getEmail(token); // 토큰에서 이메일을 가져옴
+        // 토큰 검증 + claims 추출 (한 번만 파싱)
+        Claims claims = token != null ? jwtTokenProvider.parseClaims(token) : null;
+        if (claims != null) {
+            String email = claims.getSubject(); // 토큰에서 이메일을 가져옴
+            Long userId = claims.get("uid", Long.class);
 
-            // DB에서 사용자 조회
+            // 사용자 조회 - userId가 있으면 캐시(짧은 TTL)에서, 없으면 DB에서 이메일로
             UserDetails userDetails = null;
             try {
-                userDetails = customUserDetailsService.loadUserByUsername(email);
+                userDetails = userId != null
+                        ? userPrincipalCache.get(userId, email)
+                        : customUserDetailsService.loadUserByUsername(email);
             } catch (UsernameNotFoundException e) {
+                // userDetails stays null
+            }
+            if (userDetails == null) {
                 log.warn("User not found for email: {} - Proceeding as Anonymous", email);
             }
 
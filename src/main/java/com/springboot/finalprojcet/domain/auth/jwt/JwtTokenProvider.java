@@ -1,8 +1,10 @@
 package com.springboot.finalprojcet.domain.auth.jwt;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -19,8 +21,17 @@ import java.util.Date;
 public class JwtTokenProvider {
     private final JwtProperties jwtProperties;
 
-    private SecretKey getSecretKey() {
-        String secret = jwtProperties.getSecret();
+    // 서명 키와 파서는 요청마다 만들 필요가 없으므로 한 번만 생성해서 재사용 (thread-safe)
+    private SecretKey secretKey;
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    void init() {
+        this.secretKey = buildSecretKey(jwtProperties.getSecret());
+        this.jwtParser = Jwts.parser().verifyWith(secretKey).build();
+    }
+
+    private static SecretKey buildSecretKey(String secret) {
         // Ensure key is at least 256 bits (32 bytes) for HS256
         while (secret.getBytes(StandardCharsets.UTF_8).length < 32) {
             secret = secret + secret;
@@ -31,6 +42,10 @@ public class JwtTokenProvider {
         }
         return Keys.hmacShaKeyFor(keyBytes);
     }
+
+    private SecretKey getSecretKey() {
+        return secretKey;
+    }
     /*
         Jwt 서명할 때 문자열 그대로 사용하지 못해서 'SecretKey' 객체로 변환해야 함
         동작 과정
@@ -68,10 +83,7 @@ public class JwtTokenProvider {
     // 토큰 유효성 검증
     public boolean validateToken(String token) {
         try {
-            Jwts.parser() // 토큰 파싱(분석) 시작
-                    .verifyWith(getSecretKey()) // 이 비밀키로 서명 검증
-                    .build() // 설정 끝이라는 끝(객체 생성 완료)
-                    .parseSignedClaims(token); // 토큰 과싱 실행. 여기서 검증함
+            jwtParser.parseSignedClaims(token); // 토큰 과싱 실행. 여기서 검증함
             return true;
             /*
                 서명이 유효한가?(위조 여부)
@@ -84,12 +96,20 @@ public class JwtTokenProvider {
         }
     }
 
+    // 검증 + claims 추출을 한 번의 파싱으로 처리 (필터용). 유효하지 않으면 null
+    public Claims parseClaims(String token) {
+        try {
+            return jwtParser.parseSignedClaims(token).getPayload();
+        } catch (Exception e) {
+            log.error("토큰 검증 실패 : {}", e.getMessage());
+            return null;
+        }
+    }
+
     // 토큰에서 role 추출
     public String getRole(String token) {
         // Claims는 Json 덩어리
-        Claims claims = Jwts.parser() // 분석시작
-                .verifyWith(getSecretKey()) // 이 비밀키로 서명 검증
-                .build() // 설정 끝
+        Claims claims = jwtParser
                 .parseSignedClaims(token) // 토큰 파싱(여기서 검증 시작)
                 .getPayload(); // 토큰 내용물(Claims) 꺼내기 ex) Claims claims = { sub: "hong@company.com", role: "일반유저", ... }
         return claims.get("role", String.class);
@@ -97,9 +117,7 @@ public class JwtTokenProvider {
 
 // 토큰에서 이메일 추출
     public String getEmail(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSecretKey())
-                .build()
+        Claims claims = jwtParser
                 .parseSignedClaims(token)
                 .getPayload();
         return claims.getSubject();
@@ -107,9 +125,7 @@ public class JwtTokenProvider {
 
     // 토큰에서 userId 추출
     public Long getUserId(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSecretKey())
-                .build()
+        Claims claims = jwtParser
                 .parseSignedClaims(token)
                 .getPayload();
         return claims.get("uid", Long.class);
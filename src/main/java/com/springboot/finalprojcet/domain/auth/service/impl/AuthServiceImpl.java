@@ -7,6 +7,7 @@ import com.springboot.finalprojcet.domain.auth.dto.sign.SignupRequestDto;
 import com.springboot.finalprojcet.domain.auth.dto.sign.SignupResponseDto;
 import com.springboot.finalprojcet.domain.auth.jwt.JwtTokenProvider;
 import com.springboot.finalprojcet.domain.auth.service.AuthService;
+import com.springboot.finalprojcet.domain.common.resilience.ProviderGuards;
 import com.springboot.finalprojcet.domain.tidal.dto.TidalAuthStatusResponse;
 import com.springboot.finalprojcet.domain.tidal.dto.TidalExchangeRequest;
 import com.springboot.finalprojcet.domain.tidal.dto.TidalExchangeResponse;
@@ -38,6 +39,8 @@ public class AuthServiceImpl implements AuthService {
     private final JwtTokenProvider jwtTokenProvider;
     private final RefreshTokenService refreshTokenService;
     private final TidalService tidalService;
+    private final org.springframework.web.client.RestTemplate fastApiRestTemplate;
+    private final ProviderGuards providerGuards;
 
     @Override
     public LoginResponseDto login(LoginRequestDto loginRequestDto) {
@@ -233,7 +236,6 @@ Users user = userRepository.findByEmail(email)
                     // Tidal 동기화 및 DB 저장 완료 대기
                     Thread.sleep(3000);
 
-                    org.springframework.web.client.RestTemplate restTemplate = new org.springframework.web.client.RestTemplate();
                     org.springframework.http.HttpHeaders headers = new org.springframework.http.HttpHeaders();
                     headers.setContentType(org.springframework.http.MediaType.APPLICATION_JSON);
 
@@ -246,7 +248,8 @@ java.util.Map<String, Object> body = new java.util.HashMap<>();
                     String fastApiUrl = "http://fastapi:8000/api/init-models";
 
                     log.info("[Signup] FastAPI 사용자 모델 초기화 시작: userId={}", finalUserId);
-                    java.util.Map<String, Object> response = restTemplate.postForObject(fastApiUrl, request, java.util.Map.class);
+                    java.util.Map<String, Object> response = providerGuards.fastapi()
+                            .call(() -> fastApiRestTemplate.postForObject(fastApiUrl, request, java.util.Map.class));
                     log.info("[Signup] FastAPI 사용자 모델 초기화 완료: {}", response);
                 } catch (Exception e) {
                     log.error("[Signup] FastAPI 사용자 모델 초기화 실패: {}", e.getMessage());
@@ -133,13 +133,14 @@ public class CartController {
             }
             log.info("[CartController] Playlist saved - playlistId={}", saveResult.get("playlistId"));
 
-            // 2단계: FastAPI 분석 요청 (commit 이후이므로 FastAPI가 DB 데이터를 볼 수 있음)
+            // 2단계: FastAPI 분석 작업 등록 (commit 이후 비동기 전송, jobId로 상태 조회)
             Map<String, Object> evalResult = cartService.requestFastapiEvaluation(userId, model);
             
             // 최종 응답
             saveResult.put("evaluation", evalResult);
             saveResult.put("success", true);
-            saveResult.put("message", (boolean) evalResult.get("success") ? "분석 완료" : "분석 요청 완료 (AI 처리 중)");
+            saveResult.put("jobId", evalResult.get("jobId"));
+            saveResult.put("message", "분석 요청 완료 (AI 처리 중)");
             
             return ResponseEntity.ok(saveResult);
         } catch (IllegalStateException e) {
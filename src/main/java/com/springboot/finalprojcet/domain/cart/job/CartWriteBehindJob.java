@@ -0,0 +1,158 @@
+package com.springboot.finalprojcet.domain.cart.job;
+
+import com.springboot.finalprojcet.domain.cart.dto.CartItemDto;
+import com.springboot.finalprojcet.domain.cart.store.CartStore;
+import com.springboot.finalprojcet.domain.cart.store.CartStore.Change;
+import com.springboot.finalprojcet.domain.cart.store.CartStore.Op;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Applies queued cart changes from {@link CartStore} to user_cart. Runs on every node; a Redis lock
+ * makes one node drain the queue at a time. Each batch is written in order in one transaction and
+ * only then removed from the queue, so a failed batch is retried as a whole - every statement is
+ * idempotent (INSERT IGNORE, DELETE by key), which makes replaying it safe. An ADD the
+ * (user_id, title, artist) unique key refused is discarded from the Redis cart as well, so the cart
+ * never shows an item user_cart does not have.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CartWriteBehindJob {
+
+    private final CartStore cartStore;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final RedisTemplate<String, String> redisTemplate;
+
+    @Value("${cart.write-behind.batch-size:500}")
+    private int batchSize;
+
+    private static final String LOCK_KEY = "cart:writebehind:lock";
+    private static final Duration LOCK_TTL = Duration.ofSeconds(60);
+
+    private static final String INSERT_SQL = "INSERT IGNORE INTO user_cart "
+            + "(id, user_id, track_id, title, artist, album, artwork, preview_url, external_id, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Scheduled(initialDelayString = "${cart.write-behind.initial-delay-ms:5000}",
+            fixedDelayString = "${cart.write-behind.interval-ms:1000}")
+    public void flush() {
+        String owner = UUID.randomUUID().toString();
+        if (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(LOCK_KEY, owner, LOCK_TTL)))
+            return;
+        try {
+            int applied;
+            do {
+                applied = flushBatch();
+            } while (applied == batchSize);
+        } catch (Exception e) {
+            log.error("[CartWriteBehind] Flush failed, {} changes stay queued", cartStore.pendingChanges(), e);
+        } finally {
+            if (owner.equals(redisTemplate.opsForValue().get(LOCK_KEY)))
+                redisTemplate.delete(LOCK_KEY);
+        }
+    }
+
+    // Drain what is queued before the node goes away
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    private int flushBatch() {
+        List<Change> changes = cartStore.peekChanges(batchSize);
+        if (changes.isEmpty())
+            return 0;
+
+        List<Change> ignored = new ArrayList<>();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            // Consecutive changes of the same kind go out as one JDBC batch; order between kinds is kept
+            List<Change> run = new ArrayList<>();
+            for (Change change : changes.stream().filter(Objects::nonNull).toList()) {
+                if (!run.isEmpty() && run.get(0).op() != change.op()) {
+                    apply(run, ignored);
+                    run.clear();
+                }
+                run.add(change);
+            }
+            if (!run.isEmpty())
+                apply(run, ignored);
+        });
+        cartStore.ack(changes.size());
+        discardRefused(ignored);
+        log.debug("[CartWriteBehind] Persisted {} cart changes", changes.size());
+        return changes.size();
+    }
+
+    // ADDs that INSERT IGNORE skipped are collected into ignored
+    private void apply(List<Change> run, List<Change> ignored) {
+        Op op = run.get(0).op();
+        switch (op) {
+            case ADD -> collectIgnored(run, ignored, jdbcTemplate.batchUpdate(INSERT_SQL, run, run.size(), (ps, change) -> {
+                CartItemDto item = change.item();
+                ps.setLong(1, item.getId());
+                ps.setLong(2, change.userId());
+                ps.setObject(3, item.getTrackId());
+                ps.setString(4, item.getTitle());
+                ps.setString(5, item.getArtist());
+                ps.setString(6, item.getAlbum());
+                ps.setString(7, item.getArtwork());
+                ps.setString(8, item.getPreviewUrl());
+                ps.setString(9, item.getExternalId());
+                ps.setTimestamp(10, item.getCreatedAt() != null ? Timestamp.valueOf(item.getCreatedAt()) : null);
+            }));
+            case REMOVE -> jdbcTemplate.batchUpdate("DELETE FROM user_cart WHERE id = ? AND user_id = ?",
+                    run, run.size(), (ps, change) -> {
+                        ps.setLong(1, change.itemId());
+                        ps.setLong(2, change.userId());
+                    });
+            case CLEAR -> jdbcTemplate.batchUpdate("DELETE FROM user_cart WHERE user_id = ?",
+                    run, run.size(), (ps, change) -> ps.setLong(1, change.userId()));
+        }
+    }
+
+    private static void collectIgnored(List<Change> run, List<Change> ignored, int[][] counts) {
+        int index = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                // SUCCESS_NO_INFO (-2) is not a skip
+                if (count == 0)
+                    ignored.add(run.get(index));
+                index++;
+            }
+        }
+    }
+
+    /**
+     * A skipped ADD is either a replay (its row is already there) or a row the unique key refused because
+     * the collation treats it as the same track as another cart row. Only the latter is dropped from Redis.
+     */
+    private void discardRefused(List<Change> ignored) {
+        if (ignored.isEmpty())
+            return;
+        List<Long> ids = ignored.stream().map(Change::itemId).toList();
+        Set<Long> written = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT id FROM user_cart WHERE id IN (" + String.join(",", Collections.nCopies(ids.size(), "?")) + ")",
+                Long.class, ids.toArray()));
+        for (Change change : ignored) {
+            if (!written.contains(change.itemId())) {
+                log.info("[CartWriteBehind] user_cart already has '{}' by '{}' for user {} - dropping cart item {}",
+                        change.item().getTitle(), change.item().getArtist(), change.userId(), change.itemId());
+                cartStore.discard(change.userId(), change.itemId());
+            }
+        }
+    }
+}
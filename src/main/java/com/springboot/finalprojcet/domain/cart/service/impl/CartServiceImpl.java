@@ -4,55 +4,56 @@ import com.springboot.finalprojcet.domain.cart.dto.CartAddRequestDto;
 import com.springboot.finalprojcet.domain.cart.dto.CartAnalysisRequestDto;
 import com.springboot.finalprojcet.domain.cart.dto.CartItemDto;
 import com.springboot.finalprojcet.domain.cart.dto.CartResponseDto;
-import com.springboot.finalprojcet.domain.cart.repository.UserCartRepository;
 import com.springboot.finalprojcet.domain.cart.service.CartService;
+import com.springboot.finalprojcet.domain.cart.store.CartStore;
+import com.springboot.finalprojcet.domain.common.event.LibraryChangedEvent;
+import com.springboot.finalprojcet.domain.common.tx.AfterCommit;
+import com.springboot.finalprojcet.domain.gms.job.FastApiJobDispatcher;
 import com.springboot.finalprojcet.domain.gms.repository.PlaylistRepository;
 import com.springboot.finalprojcet.domain.tidal.repository.TracksRepository;
-import com.springboot.finalprojcet.domain.tidal.repository.PlaylistTracksRepository;
+import com.springboot.finalprojcet.domain.track.resolver.TrackCandidate;
+import com.springboot.finalprojcet.domain.track.resolver.TrackIdentityResolver;
 import com.springboot.finalprojcet.domain.user.repository.UserRepository;
-import com.springboot.finalprojcet.entity.PlaylistTracks;
 import com.springboot.finalprojcet.entity.Tracks;
-import com.springboot.finalprojcet.entity.UserCart;
-import com.springboot.finalprojcet.entity.Users;
+import com.springboot.finalprojcet.enums.FastApiJobType;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.*;
+import java.util.stream.IntStream;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
-@Transactional
+@Transactional(timeoutString = "${playlists.tx-timeout-seconds:60}")
 public class CartServiceImpl implements CartService {
 
-    private final UserCartRepository cartRepository;
+    private final CartStore cartStore;
     private final UserRepository userRepository;
     private final PlaylistRepository playlistRepository;
     private final TracksRepository tracksRepository;
-    private final PlaylistTracksRepository playlistTracksRepository;
-    private final RestTemplate restTemplate;
+    private final TrackIdentityResolver trackIdentityResolver;
+    private final FastApiJobDispatcher fastApiJobDispatcher;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
 
-    @Value("${fastapi.url:http://fastapi:8000}")
-    private String fastApiUrl;
+    private static final int BATCH_WRITE_CHUNK = 500;
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public CartResponseDto getCart(Long userId) {
         log.info("[CartService] getCart - userId={}", userId);
         
-        List<UserCart> cartItems = cartRepository.findByUserUserIdOrderByCreatedAtDesc(userId);
-        List<CartItemDto> dtos = cartItems.stream()
-                .map(CartItemDto::fromEntity)
-                .collect(Collectors.toList());
-        
+        List<CartItemDto> dtos = cartStore.findAll(userId);
+
         return CartResponseDto.builder()
                 .success(true)
                 .cart(dtos)
@@ -61,21 +62,13 @@ public class CartServiceImpl implements CartService {
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public CartItemDto addToCart(Long userId, CartAddRequestDto request) {
         log.info("[CartService] addToCart - userId={}, title={}, artist={}", 
                 userId, request.getTitle(), request.getArtist());
         
-        // 중복 체크
-        if (cartRepository.existsByUserUserIdAndTitleAndArtist(
-                userId, request.getTitle(), request.getArtist())) {
-            throw new IllegalStateException("Track already in cart");
-        }
-        
-        Users user = userRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found: " + userId));
-        
-        UserCart cartItem = UserCart.builder()
-                .user(user)
+        // 중복 체크는 Redis set으로, DB 반영은 CartWriteBehindJob이 비동기로 처리
+        CartItemDto cartItem = CartItemDto.builder()
                 .trackId(request.getTrackId())
                 .title(request.getTitle())
                 .artist(request.getArtist())
@@ -85,33 +78,37 @@ public class CartServiceImpl implements CartService {
                 .externalId(request.getExternalId())
                 .build();
         
-        UserCart saved = cartRepository.save(cartItem);
+        CartItemDto saved = cartStore.add(userId, cartItem);
+        if (saved == null) {
+            throw new IllegalStateException("Track already in cart");
+        }
         log.info("[CartService] Cart item saved - id={}", saved.getId());
-        
-        return CartItemDto.fromEntity(saved);
+
+        return saved;
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void removeFromCart(Long userId, Long cartItemId) {
         log.info("[CartService] removeFromCart - userId={}, cartItemId={}", userId, cartItemId);
         
-        UserCart cartItem = cartRepository.findByIdAndUserUserId(cartItemId, userId)
-                .orElseThrow(() -> new IllegalArgumentException("Cart item not found"));
-        
-        cartRepository.delete(cartItem);
+        if (!cartStore.remove(userId, cartItemId)) {
+            throw new IllegalArgumentException("Cart item not found");
+        }
         log.info("[CartService] Cart item deleted - id={}", cartItemId);
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void clearCart(Long userId) {
         log.info("[CartService] clearCart - userId={}", userId);
-        cartRepository.deleteByUserUserId(userId);
+        cartStore.clear(userId);
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public boolean isInCart(Long userId, String title, String artist) {
-        return cartRepository.existsByUserUserIdAndTitleAndArtist(userId, title, artist);
+        return cartStore.contains(userId, title, artist);
     }
 
     @Override
@@ -131,7 +128,7 @@ public class CartServiceImpl implements CartService {
     public Map<String, Object> saveCartAsPlaylist(Long userId, CartAnalysisRequestDto request) {
         log.info("[CartService] saveCartAsPlaylist - userId={}, model={}", userId, request.getModel());
 
-        List<UserCart> cartItems = cartRepository.findByUserUserIdOrderByCreatedAtDesc(userId);
+        List<CartItemDto> cartItems = cartStore.findAll(userId);
         if (cartItems.isEmpty()) {
             throw new IllegalStateException("Cart is empty");
         }
@@ -155,41 +152,50 @@ public class CartServiceImpl implements CartService {
         log.info("[CartService] Playlist created - id={}", playlist.getPlaylistId());
 
         // 1-2. 장바구니 트랙들을 tracks 테이블에 저장하고 playlist_tracks에 연결
-        int orderIdx = 0;
-        for (UserCart cartItem : cartItems) {
-            Tracks track = null;
-            if (cartItem.getTrackId() != null) {
-                track = tracksRepository.findById(cartItem.getTrackId()).orElse(null);
-            }
-            
-            if (track == null) {
-                track = Tracks.builder()
-                        .title(cartItem.getTitle())
-                        .artist(cartItem.getArtist())
-                        .album(cartItem.getAlbum() != null ? cartItem.getAlbum() : "")
-                        .artwork(cartItem.getArtwork())
-                        .build();
-                
-                if (cartItem.getPreviewUrl() != null && !cartItem.getPreviewUrl().isEmpty()) {
-                    track.setExternalMetadata("{\"previewUrl\":\"" + cartItem.getPreviewUrl().replace("\"", "\\\"") + "\"}");
-                }
-                
-                track = tracksRepository.save(track);
-                log.info("[CartService] Track created - id={}, title={}", track.getTrackId(), track.getTitle());
-            }
-            
-            PlaylistTracks pt = PlaylistTracks.builder()
-                    .playlist(playlist)
-                    .track(track)
-                    .orderIndex(orderIdx++)
-                    .build();
-            playlistTracksRepository.save(pt);
+        // trackId가 있는 트랙은 한 번에 조회, 나머지는 TrackIdentityResolver로 기존 트랙(제목+아티스트)에
+        // 매칭하고 없는 것만 새로 저장 (import와 같은 기준이라 중복 행이 생기지 않음)
+        // 새 트랙과 링크 모두 JDBC batch - 장바구니 크기와 상관없이 문장 수가 일정
+        Set<Long> knownIds = new HashSet<>();
+        tracksRepository.findAllById(cartItems.stream()
+                        .map(CartItemDto::getTrackId)
+                        .filter(Objects::nonNull)
+                        .distinct()
+                        .toList())
+                .forEach(track -> knownIds.add(track.getTrackId()));
+
+        List<CartItemDto> missing = cartItems.stream()
+                .filter(item -> item.getTrackId() == null || !knownIds.contains(item.getTrackId()))
+                .toList();
+        List<Tracks> resolved = trackIdentityResolver.resolve(missing.stream().map(this::toTrackCandidate).toList());
+
+        List<Long> trackIds = new ArrayList<>(cartItems.size());
+        Iterator<Tracks> matched = resolved.iterator();
+        for (CartItemDto cartItem : cartItems) {
+            trackIds.add(cartItem.getTrackId() != null && knownIds.contains(cartItem.getTrackId())
+                    ? cartItem.getTrackId()
+                    : matched.next().getTrackId());
         }
-        log.info("[CartService] {} tracks linked to playlist {}", orderIdx, playlist.getPlaylistId());
 
-        // 2. 장바구니 비우기
-        cartRepository.deleteByUserUserId(userId);
-        log.info("[CartService] Cart cleared - userId={}", userId);
+        Long playlistId = playlist.getPlaylistId();
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO playlist_tracks (playlist_id, track_id, order_index) VALUES (?, ?, ?)",
+                IntStream.range(0, trackIds.size()).boxed().toList(),
+                BATCH_WRITE_CHUNK,
+                (ps, i) -> {
+                    ps.setLong(1, playlistId);
+                    ps.setLong(2, trackIds.get(i));
+                    ps.setInt(3, i);
+                });
+        log.info("[CartService] {} tracks linked to playlist {} ({} resolved by title/artist)", trackIds.size(),
+                playlistId, resolved.size());
+        eventPublisher.publishEvent(new LibraryChangedEvent(userId));
+
+        // 2. 플레이리스트로 저장한 항목만 장바구니에서 제거 - 커밋된 뒤에만, 그 사이 담긴 곡은 유지
+        List<Long> savedItemIds = cartItems.stream().map(CartItemDto::getId).toList();
+        AfterCommit.run(() -> {
+            cartStore.removeAll(userId, savedItemIds);
+            log.info("[CartService] {} saved items removed from cart - userId={}", savedItemIds.size(), userId);
+        });
 
         Map<String, Object> result = new HashMap<>();
         result.put("success", true);
@@ -200,73 +206,55 @@ public class CartServiceImpl implements CartService {
         return result;
     }
 
-    @Override
-    public Map<String, Object> requestFastapiEvaluation(Long userId, String model) {
-        log.info("[CartService] requestFastapiEvaluation - userId={}, model={}", userId, model);
+    // Cart items only carry title/artist - the factory runs for items no existing track matches
+    private TrackCandidate toTrackCandidate(CartItemDto item) {
+        return new TrackCandidate(null, null, null, item.getTitle(), item.getArtist(), () -> {
+            Tracks track = new Tracks();
+            track.setTitle(item.getTitle());
+            track.setArtist(item.getArtist());
+            track.setAlbum(item.getAlbum() != null ? item.getAlbum() : "");
+            track.setArtwork(item.getArtwork());
+            track.setExternalMetadata(previewMetadata(item.getPreviewUrl()));
+            return track;
+        });
+    }
 
+    private String previewMetadata(String previewUrl) {
+        if (previewUrl == null || previewUrl.isEmpty())
+            return null;
         try {
-            String url = fastApiUrl + "/api/v1/evaluation/start";
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-
-            Map<String, Object> body = new HashMap<>();
-            body.put("userId", userId);
-            body.put("model", model != null ? model : "M1");
-
-            HttpEntity<Map<String, Object>> httpRequest = new HttpEntity<>(body, headers);
-
-            log.info("[CartService] Requesting FastAPI evaluation - url: {}, userId: {}", url, userId);
-            ResponseEntity<String> response = restTemplate.postForEntity(url, httpRequest, String.class);
-            log.info("[CartService] FastAPI evaluation completed - status: {}", response.getStatusCode());
-
-            Map<String, Object> result = new HashMap<>();
-            result.put("success", true);
-            result.put("message", "AI 분석 완료");
-            result.put("response", response.getBody());
-            return result;
-
-        } catch (Exception e) {
-            log.error("[CartService] FastAPI evaluation failed - userId: {}, error: {}", userId, e.getMessage());
-            Map<String, Object> result = new HashMap<>();
-            result.put("success", false);
-            result.put("message", "AI 분석 실패: " + e.getMessage());
-            return result;
+            return objectMapper.writeValueAsString(Map.of("previewUrl", previewUrl));
+        } catch (JsonProcessingException e) {
+            log.warn("[CartService] Failed to serialize preview metadata: {}", e.getMessage());
+            return null;
         }
     }
 
+    @Override
+    public Map<String, Object> requestFastapiEvaluation(Long userId, String model) {
+        log.info("[CartService] requestFastapiEvaluation - userId={}, model={}", userId, model);
+        return dispatch(FastApiJobType.EVALUATION, userId, model, "AI 분석 요청 접수");
+    }
+
     @Override
     public Map<String, Object> trainModel(Long userId, String model) {
         log.info("[CartService] trainModel - userId={}, model={}", userId, model);
+        return dispatch(FastApiJobType.TRAINING, userId, model, "모델 학습 요청 접수");
+    }
 
-        try {
-            String url = fastApiUrl + "/api/v1/training/start";
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-
-            Map<String, Object> body = new HashMap<>();
-            body.put("userId", userId);
-            body.put("model", model != null ? model : "M1");
-
-            HttpEntity<Map<String, Object>> httpRequest = new HttpEntity<>(body, headers);
-
-            log.info("[CartService] Requesting FastAPI training - url: {}, userId: {}", url, userId);
-            ResponseEntity<String> response = restTemplate.postForEntity(url, httpRequest, String.class);
-
-            log.info("[CartService] FastAPI training requested - status: {}", response.getStatusCode());
+    // FastAPI 호출은 비동기 작업으로 등록 - 진행 상황은 /api/gms/jobs/{jobId} 로 조회
+    private Map<String, Object> dispatch(FastApiJobType type, Long userId, String model, String message) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("userId", userId);
+        body.put("model", model != null ? model : "M1");
 
-            Map<String, Object> result = new HashMap<>();
-            result.put("success", true);
-            result.put("message", "모델 학습 요청 완료");
-            return result;
+        Map<String, Object> job = fastApiJobDispatcher.submit(type, userId, body);
 
-        } catch (Exception e) {
-            log.error("[CartService] FastAPI training request failed - userId: {}, error: {}", userId, e.getMessage());
-            Map<String, Object> result = new HashMap<>();
-            result.put("success", false);
-            result.put("message", "모델 학습 요청 실패: " + e.getMessage());
-            return result;
-        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("message", message);
+        result.put("jobId", job.get("jobId"));
+        result.put("status", job.get("status"));
+        return result;
     }
 }
@@ -0,0 +1,305 @@
+package com.springboot.finalprojcet.domain.cart.store;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.finalprojcet.domain.cart.dto.CartItemDto;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Redis copy of every user's cart - the source of truth for cart reads and writes.
+ * <ul>
+ * <li>{@code cart:<userId>:items} - hash of cart item id to item JSON</li>
+ * <li>{@code cart:<userId>:keys} - set of (title, artist) keys for O(1) duplicate checks</li>
+ * <li>{@code cart:<userId>:loaded} - marker that the cart was loaded from user_cart once</li>
+ * </ul>
+ * Every change is also appended to {@code cart:writebehind}, which {@code CartWriteBehindJob} applies
+ * to user_cart in batches. Item ids come from a Redis sequence seeded from user_cart, so an item
+ * keeps the same id before and after it is persisted.
+ * <p>
+ * Each mutation (add, remove, clear) is one Lua script, so the hash, the key set and the queue never
+ * disagree - not even when a node dies between calls.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CartStore {
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    private static final String KEY_PREFIX = "cart:";
+    private static final String ID_SEQ_KEY = "cart:id:seq";
+    private static final String QUEUE_KEY = "cart:writebehind";
+
+    // KEYS: items, keys, queue / ARGV: dedupe key, item id, item json, change json
+    private static final DefaultRedisScript<Long> ADD_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('SADD', KEYS[2], ARGV[1]) == 0 then return 0 end
+            redis.call('HSET', KEYS[1], ARGV[2], ARGV[3])
+            redis.call('RPUSH', KEYS[3], ARGV[4])
+            return 1
+            """, Long.class);
+
+    // KEYS: items, keys, queue / ARGV: '1' to queue REMOVEs, then (item id, item json, dedupe key, change json)*
+    // An item is only dropped if its stored json is still the one the key was computed from
+    private static final DefaultRedisScript<Long> DROP_SCRIPT = new DefaultRedisScript<>("""
+            local removed = 0
+            for i = 2, #ARGV, 4 do
+              if redis.call('HGET', KEYS[1], ARGV[i]) == ARGV[i + 1] then
+                redis.call('HDEL', KEYS[1], ARGV[i])
+                redis.call('SREM', KEYS[2], ARGV[i + 2])
+                if ARGV[1] == '1' then redis.call('RPUSH', KEYS[3], ARGV[i + 3]) end
+                removed = removed + 1
+              end
+            end
+            return removed
+            """, Long.class);
+
+    // KEYS: items, keys, loaded, queue / ARGV: change json
+    private static final DefaultRedisScript<Long> CLEAR_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('DEL', KEYS[1], KEYS[2])
+            redis.call('SET', KEYS[3], '1')
+            redis.call('RPUSH', KEYS[4], ARGV[1])
+            return 1
+            """, Long.class);
+
+    public enum Op {
+        ADD, REMOVE, CLEAR
+    }
+
+    /**
+     * One pending change for user_cart. {@code item} is set for ADD, {@code itemId} for REMOVE.
+     */
+    public record Change(Op op, Long userId, Long itemId, CartItemDto item) {
+    }
+
+    @PostConstruct
+    void seedIdSequence() {
+        // New items take ids after every existing user_cart row
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM user_cart", Long.class);
+        String current = redisTemplate.opsForValue().get(ID_SEQ_KEY);
+        // Also covers a Redis restored from an older snapshot - ids must never go backwards
+        if (current == null || Long.parseLong(current) < maxId) {
+            redisTemplate.opsForValue().set(ID_SEQ_KEY, String.valueOf(maxId));
+        }
+    }
+
+    /**
+     * The user's cart, newest first.
+     */
+    public List<CartItemDto> findAll(Long userId) {
+        ensureLoaded(userId);
+        List<CartItemDto> items = new ArrayList<>();
+        for (Object json : redisTemplate.opsForHash().values(itemsKey(userId))) {
+            CartItemDto item = readItem((String) json);
+            if (item != null)
+                items.add(item);
+        }
+        items.sort(Comparator.comparing(CartItemDto::getCreatedAt,
+                Comparator.nullsLast(Comparator.reverseOrder())));
+        return items;
+    }
+
+    public boolean contains(Long userId, String title, String artist) {
+        ensureLoaded(userId);
+        return Boolean.TRUE.equals(redisTemplate.opsForSet().isMember(keysKey(userId), dedupeKey(title, artist)));
+    }
+
+    /**
+     * Adds the item and assigns its id and createdAt. Returns null if the user already has a track
+     * with the same title and artist in the cart.
+     */
+    public CartItemDto add(Long userId, CartItemDto item) {
+        ensureLoaded(userId);
+        // Taken before the script - a refused duplicate only leaves a gap in the sequence
+        item.setId(redisTemplate.opsForValue().increment(ID_SEQ_KEY));
+        item.setUserId(userId);
+        item.setCreatedAt(LocalDateTime.now());
+        Long added = redisTemplate.execute(ADD_SCRIPT, List.of(itemsKey(userId), keysKey(userId), QUEUE_KEY),
+                dedupeKey(item.getTitle(), item.getArtist()), String.valueOf(item.getId()), writeJson(item),
+                writeJson(new Change(Op.ADD, userId, item.getId(), item)));
+        return added != null && added == 1 ? item : null;
+    }
+
+    /**
+     * Removes the item. Returns false if the user has no cart item with that id.
+     */
+    public boolean remove(Long userId, Long itemId) {
+        ensureLoaded(userId);
+        return drop(userId, List.of(itemId), true) == 1;
+    }
+
+    /**
+     * Removes just these items - e.g. the ones saved as a playlist - and keeps anything added since.
+     */
+    public void removeAll(Long userId, Collection<Long> itemIds) {
+        ensureLoaded(userId);
+        drop(userId, itemIds, true);
+    }
+
+    /**
+     * Drops an item user_cart refused (its unique key matched another row under the column collation),
+     * so the cart stops showing it. Nothing is queued - there is no row to delete.
+     */
+    public void discard(Long userId, Long itemId) {
+        drop(userId, List.of(itemId), false);
+    }
+
+    public void clear(Long userId) {
+        // The (now empty) cart stays loaded, so it is not refilled from user_cart before the flush
+        redisTemplate.execute(CLEAR_SCRIPT,
+                List.of(itemsKey(userId), keysKey(userId), loadedKey(userId), QUEUE_KEY),
+                writeJson(new Change(Op.CLEAR, userId, null, null)));
+    }
+
+    // ===== write-behind queue =====
+
+    /**
+     * Up to {@code limit} oldest pending changes, in order. They stay queued until {@link #ack}.
+     */
+    public List<Change> peekChanges(int limit) {
+        List<String> raw = redisTemplate.opsForList().range(QUEUE_KEY, 0, limit - 1);
+        if (raw == null)
+            return List.of();
+        List<Change> changes = new ArrayList<>(raw.size());
+        for (String json : raw) {
+            try {
+                changes.add(objectMapper.readValue(json, Change.class));
+            } catch (JsonProcessingException e) {
+                // Keep the position so ack still trims the right number of entries
+                log.error("[CartStore] Dropping unreadable queued change: {}", json, e);
+                changes.add(null);
+            }
+        }
+        return changes;
+    }
+
+    public void ack(int count) {
+        redisTemplate.opsForList().trim(QUEUE_KEY, count, -1);
+    }
+
+    public long pendingChanges() {
+        Long size = redisTemplate.opsForList().size(QUEUE_KEY);
+        return size != null ? size : 0;
+    }
+
+    // ===== internals =====
+
+    // First access after a deploy (or a Redis flush): copy the user's rows from user_cart once
+    private void ensureLoaded(Long userId) {
+        if (Boolean.TRUE.equals(redisTemplate.hasKey(loadedKey(userId))))
+            return;
+
+        Map<String, String> items = new HashMap<>();
+        Set<String> keys = new HashSet<>();
+        jdbcTemplate.query("SELECT id, track_id, title, artist, album, artwork, preview_url, external_id, created_at "
+                + "FROM user_cart WHERE user_id = ?", rs -> {
+            Timestamp createdAt = rs.getTimestamp("created_at");
+            CartItemDto item = CartItemDto.builder()
+                    .id(rs.getLong("id"))
+                    .userId(userId)
+                    .trackId(rs.getObject("track_id") != null ? rs.getLong("track_id") : null)
+                    .title(rs.getString("title"))
+                    .artist(rs.getString("artist"))
+                    .album(rs.getString("album"))
+                    .artwork(rs.getString("artwork"))
+                    .previewUrl(rs.getString("preview_url"))
+                    .externalId(rs.getString("external_id"))
+                    .createdAt(createdAt != null ? createdAt.toLocalDateTime() : null)
+                    .build();
+            items.put(String.valueOf(item.getId()), writeJson(item));
+            keys.add(dedupeKey(item.getTitle(), item.getArtist()));
+        }, userId);
+
+        if (!items.isEmpty()) {
+            redisTemplate.opsForHash().putAll(itemsKey(userId), items);
+            redisTemplate.opsForSet().add(keysKey(userId), keys.toArray(String[]::new));
+        }
+        redisTemplate.opsForValue().set(loadedKey(userId), "1");
+        log.debug("[CartStore] Loaded {} cart items for user {}", items.size(), userId);
+    }
+
+    /**
+     * Deletes the items and their duplicate-check keys, queueing a REMOVE for each if {@code queue};
+     * returns how many were present. The dedupe key is folded here (Lua cannot), from the item json
+     * read just before - items never change once added, and the script re-checks that json.
+     */
+    private long drop(Long userId, Collection<Long> itemIds, boolean queue) {
+        List<Long> ids = itemIds.stream().filter(Objects::nonNull).distinct().toList();
+        if (ids.isEmpty())
+            return 0;
+        List<Object> jsons = redisTemplate.opsForHash().multiGet(itemsKey(userId),
+                ids.stream().map(id -> (Object) String.valueOf(id)).toList());
+        List<String> args = new ArrayList<>();
+        args.add(queue ? "1" : "0");
+        for (int i = 0; i < ids.size(); i++) {
+            String json = (String) jsons.get(i);
+            if (json == null)
+                continue;
+            CartItemDto item = readItem(json);
+            args.add(String.valueOf(ids.get(i)));
+            args.add(json);
+            args.add(item != null ? dedupeKey(item.getTitle(), item.getArtist()) : "");
+            args.add(writeJson(new Change(Op.REMOVE, userId, ids.get(i), null)));
+        }
+        if (args.size() == 1)
+            return 0;
+        Long removed = redisTemplate.execute(DROP_SCRIPT, List.of(itemsKey(userId), keysKey(userId), QUEUE_KEY),
+                args.toArray());
+        return removed != null ? removed : 0;
+    }
+
+    private String writeJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize cart data", e);
+        }
+    }
+
+    private CartItemDto readItem(String json) {
+        try {
+            return objectMapper.readValue(json, CartItemDto.class);
+        } catch (JsonProcessingException e) {
+            log.error("[CartStore] Unreadable cart item: {}", json, e);
+            return null;
+        }
+    }
+
+    // Same rule as the user_cart (user_id, title, artist) unique key: the column collation ignores case,
+    // accents and trailing spaces. Rarer collation equivalences are caught by CartWriteBehindJob, which
+    // discards items the unique key refused
+    static String dedupeKey(String title, String artist) {
+        return fold(title) + "\u0001" + fold(artist);
+    }
+
+    private static String fold(String value) {
+        if (value == null)
+            return "";
+        String unaccented = Normalizer.normalize(value, Normalizer.Form.NFD).replaceAll("\\p{M}+", "");
+        return unaccented.toLowerCase(Locale.ROOT).replaceAll(" +$", "");
+    }
+
+    private static String itemsKey(Long userId) {
+        return KEY_PREFIX + userId + ":items";
+    }
+
+    private static String keysKey(Long userId) {
+        return KEY_PREFIX + userId + ":keys";
+    }
+
+    private static String loadedKey(Long userId) {
+        return KEY_PREFIX + userId + ":loaded";
+    }
+}
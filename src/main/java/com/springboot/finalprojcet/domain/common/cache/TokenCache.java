@@ -0,0 +1,189 @@
+package com.springboot.finalprojcet.domain.common.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Two-level cache for OAuth tokens: a size-bounded in-process cache (L1) in front of Redis (L2).
+ * <p>
+ * Values are stored in Redis in a compact binary form ({@link Codec}) instead of JSON strings.
+ * L1 keeps those bytes (or "absent") per key, so a hit costs neither a Redis round trip nor a JSON
+ * parse, and every reader still gets its own decoded instance that it may mutate safely.
+ * Writes and deletes go to Redis first, then publish the key on a pub/sub channel so the other
+ * nodes drop their L1 entry; the short L1 TTL bounds staleness if a message is ever missed.
+ */
+@Slf4j
+public class TokenCache<T> {
+
+    /**
+     * Binary encoding for one value type. The first byte written by {@link #encode} must not be '{'
+     * so entries still stored as JSON by older versions can be told apart.
+     */
+    public interface Codec<T> {
+        byte[] encode(T value) throws IOException;
+
+        T decode(byte[] bytes) throws IOException;
+
+        /** Reads a value written as JSON before the binary format existed. */
+        T decodeLegacyJson(byte[] json) throws IOException;
+    }
+
+    private static final String NODE_ID = UUID.randomUUID().toString();
+    private static final byte[] ABSENT = new byte[0];
+
+    private final String name;
+    private final String keyPrefix;
+    private final Codec<T> codec;
+    private final RedisTemplate<String, byte[]> binaryRedisTemplate;
+    private final Duration redisTtl;
+    private final String channel;
+    private final Cache<String, byte[]> local;
+
+    private final Counter l1Hits;
+    private final Counter l2Hits;
+    private final Counter misses;
+
+    public TokenCache(String name, String keyPrefix, Codec<T> codec,
+            RedisTemplate<String, byte[]> binaryRedisTemplate,
+            RedisMessageListenerContainer listenerContainer, MeterRegistry meterRegistry,
+            Duration redisTtl, Duration localTtl, long localMaxSize) {
+        this.name = name;
+        this.keyPrefix = keyPrefix;
+        this.codec = codec;
+        this.binaryRedisTemplate = binaryRedisTemplate;
+        this.redisTtl = redisTtl;
+        this.channel = keyPrefix + "invalidate";
+        this.local = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(localTtl)
+                .build();
+
+        this.l1Hits = Counter.builder("token.cache.requests").tag("cache", name).tag("result", "l1")
+                .register(meterRegistry);
+        this.l2Hits = Counter.builder("token.cache.requests").tag("cache", name).tag("result", "l2")
+                .register(meterRegistry);
+        this.misses = Counter.builder("token.cache.requests").tag("cache", name).tag("result", "miss")
+                .register(meterRegistry);
+
+        listenerContainer.addMessageListener(this::onInvalidate, new ChannelTopic(channel));
+    }
+
+    public T get(String id) {
+        byte[] cached = local.getIfPresent(id);
+        if (cached != null) {
+            l1Hits.increment();
+            return cached == ABSENT ? null : decode(id, cached);
+        }
+
+        byte[] stored = binaryRedisTemplate.opsForValue().get(keyPrefix + id);
+        if (stored == null || stored.length == 0) {
+            misses.increment();
+            local.put(id, ABSENT);
+            return null;
+        }
+        l2Hits.increment();
+        if (stored[0] == '{') {
+            // Written as JSON by an older version - convert in place
+            T value = decodeLegacy(id, stored);
+            if (value != null)
+                put(id, value);
+            return value;
+        }
+        local.put(id, stored);
+        return decode(id, stored);
+    }
+
+    public boolean contains(String id) {
+        return get(id) != null;
+    }
+
+    public void put(String id, T value) {
+        byte[] bytes;
+        try {
+            bytes = codec.encode(value);
+        } catch (IOException e) {
+            log.error("[TokenCache:{}] Failed to encode value", name, e);
+            throw new RuntimeException("Failed to save token", e);
+        }
+        binaryRedisTemplate.opsForValue().set(keyPrefix + id, bytes, redisTtl);
+        local.put(id, bytes);
+        publishInvalidate(id);
+    }
+
+    public void remove(String id) {
+        binaryRedisTemplate.delete(keyPrefix + id);
+        local.put(id, ABSENT);
+        publishInvalidate(id);
+    }
+
+    // ===== internals =====
+
+    private T decode(String id, byte[] bytes) {
+        try {
+            return codec.decode(bytes);
+        } catch (IOException e) {
+            log.error("[TokenCache:{}] Unreadable entry for {}", name, id, e);
+            local.invalidate(id);
+            return null;
+        }
+    }
+
+    private T decodeLegacy(String id, byte[] json) {
+        try {
+            return codec.decodeLegacyJson(json);
+        } catch (IOException e) {
+            log.error("[TokenCache:{}] Unreadable legacy entry for {}", name, id, e);
+            return null;
+        }
+    }
+
+    private void publishInvalidate(String id) {
+        try {
+            binaryRedisTemplate.convertAndSend(channel, (NODE_ID + "|" + id).getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            // L1 TTL still bounds how long other nodes can serve the old value
+            log.warn("[TokenCache:{}] Failed to publish invalidation: {}", name, e.getMessage());
+        }
+    }
+
+    private void onInvalidate(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int sep = body.indexOf('|');
+        if (sep < 0 || body.substring(0, sep).equals(NODE_ID))
+            return;
+        local.invalidate(body.substring(sep + 1));
+    }
+
+    // ===== binary helpers for codecs =====
+
+    public static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0)
+            return null;
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
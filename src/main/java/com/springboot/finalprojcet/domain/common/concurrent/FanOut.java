@@ -0,0 +1,74 @@
+package com.springboot.finalprojcet.domain.common.concurrent;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Runs one task per key on a caller-supplied executor and waits for all of them up to a single
+ * overall deadline. Whatever finished in time is returned; slow tasks are abandoned, not awaited.
+ */
+public final class FanOut {
+
+    private FanOut() {
+    }
+
+    /**
+     * @param completed values of tasks that finished in time, in key order
+     * @param timedOut  keys still running at the deadline
+     * @param failed    keys whose task threw or could not be scheduled
+     */
+    public record Result<K, V>(Map<K, V> completed, List<K> timedOut, List<K> failed) {
+        public boolean isPartial() {
+            return !timedOut.isEmpty() || !failed.isEmpty();
+        }
+    }
+
+    public static <K, V> Result<K, V> run(Collection<K> keys, Function<K, V> task, Executor executor,
+            Duration deadline) {
+        Map<K, CompletableFuture<V>> futures = new LinkedHashMap<>();
+        for (K key : keys) {
+            CompletableFuture<V> future;
+            try {
+                future = CompletableFuture.supplyAsync(() -> task.apply(key), executor);
+            } catch (RejectedExecutionException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            futures.put(key, future);
+        }
+
+        try {
+            CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new))
+                    .get(deadline.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            // Collected per key below
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        Map<K, V> completed = new LinkedHashMap<>();
+        List<K> timedOut = new ArrayList<>();
+        List<K> failed = new ArrayList<>();
+        futures.forEach((key, future) -> {
+            if (!future.isDone()) {
+                future.cancel(false);
+                timedOut.add(key);
+            } else if (future.isCompletedExceptionally()) {
+                failed.add(key);
+            } else {
+                completed.put(key, future.join());
+            }
+        });
+        return new Result<>(completed, timedOut, failed);
+    }
+}
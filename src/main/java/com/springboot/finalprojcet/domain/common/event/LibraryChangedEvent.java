@@ -0,0 +1,8 @@
+package com.springboot.finalprojcet.domain.common.event;
+
+/**
+ * Published when tracks are linked to or unlinked from any of a user's playlists.
+ * Listeners that cache per-user library aggregates drop their entry for the user.
+ */
+public record LibraryChangedEvent(Long userId) {
+}
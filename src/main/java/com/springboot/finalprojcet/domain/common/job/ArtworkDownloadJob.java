@@ -0,0 +1,61 @@
+package com.springboot.finalprojcet.domain.common.job;
+
+import com.springboot.finalprojcet.domain.common.service.ImageService;
+import com.springboot.finalprojcet.domain.common.tx.AfterCommit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Copies remote artwork to local storage in the background, so imports store the provider URL and
+ * move on. Once a download finishes the row is switched to the local path - only if it still holds
+ * the URL that was downloaded. A failed or dropped download leaves the remote URL in place, which
+ * is what the UI already falls back to.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ArtworkDownloadJob {
+
+    private final ImageService imageService;
+    private final JdbcTemplate jdbcTemplate;
+    private final ExecutorService artworkDownloadPool;
+
+    public void enqueueTrack(Long trackId, String url) {
+        enqueue("UPDATE tracks SET artwork = ? WHERE track_id = ? AND artwork = ?", "tracks", trackId, url);
+    }
+
+    public void enqueuePlaylist(Long playlistId, String url) {
+        enqueue("UPDATE playlists SET cover_image = ? WHERE playlist_id = ? AND cover_image = ?", "playlists",
+                playlistId, url);
+    }
+
+    // Queued after commit, so the worker never looks for a row that is not visible yet
+    private void enqueue(String sql, String subDir, Long id, String url) {
+        if (id == null || url == null || !url.startsWith("http"))
+            return;
+        Runnable task = () -> {
+            try {
+                artworkDownloadPool.execute(() -> download(sql, subDir, id, url));
+            } catch (RejectedExecutionException e) {
+                log.debug("[Artwork] Queue full, keeping remote artwork for {} {}", subDir, id);
+            }
+        };
+        AfterCommit.run(task);
+    }
+
+    private void download(String sql, String subDir, Long id, String url) {
+        try {
+            String local = imageService.downloadImage(url, subDir);
+            // downloadImage hands back the original URL when it fails
+            if (local != null && !local.equals(url))
+                jdbcTemplate.update(sql, local, id, url);
+        } catch (Exception e) {
+            log.warn("[Artwork] Failed to localize {} {}: {}", subDir, id, e.getMessage());
+        }
+    }
+}
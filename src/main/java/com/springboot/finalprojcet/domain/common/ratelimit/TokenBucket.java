@@ -0,0 +1,89 @@
+package com.springboot.finalprojcet.domain.common.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Blocking token bucket for outbound API calls.
+ * Refills continuously at {@code permitsPerSecond} up to {@code capacity} (burst size).
+ */
+public class TokenBucket {
+
+    private final double capacity;
+    private final double refillPerNano;
+
+    private double tokens;
+    private long lastRefill;
+    // Provider asked us to back off (e.g. 429 Retry-After) - nobody gets a token before this
+    private long pausedUntil;
+
+    public TokenBucket(double permitsPerSecond, int capacity) {
+        this.capacity = capacity;
+        this.refillPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+        this.pausedUntil = lastRefill;
+    }
+
+    public void acquire() throws InterruptedException {
+        while (true) {
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                refill(now);
+                if (now - pausedUntil >= 0 && tokens >= 1) {
+                    tokens -= 1;
+                    return;
+                }
+                waitNanos = Math.max(pausedUntil - now, (long) ((1 - tokens) / refillPerNano));
+            }
+            TimeUnit.NANOSECONDS.sleep(Math.max(waitNanos, TimeUnit.MILLISECONDS.toNanos(1)));
+        }
+    }
+
+    public synchronized boolean tryAcquire() {
+        long now = System.nanoTime();
+        refill(now);
+        if (now - pausedUntil >= 0 && tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Waits at most {@code timeout} for a token. Returns false straight away when the bucket
+     * cannot refill (or the provider pause cannot end) within the timeout, so callers fail fast.
+     */
+    public boolean tryAcquire(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (true) {
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                refill(now);
+                if (now - pausedUntil >= 0 && tokens >= 1) {
+                    tokens -= 1;
+                    return true;
+                }
+                waitNanos = Math.max(pausedUntil - now, (long) ((1 - tokens) / refillPerNano));
+                if (now + waitNanos - deadline > 0) {
+                    return false;
+                }
+            }
+            TimeUnit.NANOSECONDS.sleep(Math.max(waitNanos, TimeUnit.MILLISECONDS.toNanos(1)));
+        }
+    }
+
+    public synchronized void pause(long duration, TimeUnit unit) {
+        long until = System.nanoTime() + unit.toNanos(duration);
+        if (until - pausedUntil > 0) {
+            pausedUntil = until;
+        }
+        tokens = 0;
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerNano);
+        lastRefill = now;
+    }
+}
@@ -0,0 +1,92 @@
+package com.springboot.finalprojcet.domain.common.resilience;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consecutive-failure circuit breaker.
+ * Opens after {@code failureThreshold} failures in a row, rejects calls for {@code openDuration},
+ * then lets a single trial call through (HALF_OPEN) whose outcome closes or re-opens the circuit.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    public CircuitBreaker(int failureThreshold, long openDuration, TimeUnit unit) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = unit.toNanos(openDuration);
+    }
+
+    /**
+     * Cheap check without claiming the half-open trial - used to fail fast before queueing.
+     */
+    public synchronized boolean isCallPermitted() {
+        return switch (currentState(System.nanoTime())) {
+            case CLOSED -> true;
+            case HALF_OPEN -> !trialInFlight;
+            case OPEN -> false;
+        };
+    }
+
+    /**
+     * Claims permission for one call. In HALF_OPEN only the first caller gets through.
+     */
+    public synchronized boolean tryAcquirePermission() {
+        return switch (currentState(System.nanoTime())) {
+            case CLOSED -> true;
+            case HALF_OPEN -> {
+                if (trialInFlight)
+                    yield false;
+                trialInFlight = true;
+                yield true;
+            }
+            case OPEN -> false;
+        };
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        trialInFlight = false;
+        state = State.CLOSED;
+    }
+
+    public synchronized void onFailure() {
+        trialInFlight = false;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+        }
+    }
+
+    /**
+     * Gives back a claimed permission when the call never reached the provider.
+     */
+    public synchronized void release() {
+        trialInFlight = false;
+    }
+
+    public synchronized State state() {
+        return currentState(System.nanoTime());
+    }
+
+    public synchronized int consecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    private State currentState(long now) {
+        if (state == State.OPEN && now - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+        }
+        return state;
+    }
+}
@@ -0,0 +1,187 @@
+package com.springboot.finalprojcet.domain.common.resilience;
+
+import com.springboot.finalprojcet.domain.common.ratelimit.TokenBucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Wraps every outbound call to one provider with a circuit breaker, a bulkhead (max concurrent
+ * calls) and a token-bucket rate limiter. Callers never sleep on a provider that is known to be
+ * down or throttling us: the call is rejected up front and the caller falls back.
+ * <p>
+ * 5xx responses and I/O errors count as breaker failures; 429 pauses the bucket for Retry-After
+ * instead, and other 4xx are the caller's problem, not the provider's.
+ */
+@Slf4j
+public class ProviderGuard {
+
+    private final String name;
+    private final TokenBucket rateLimiter;
+    private final CircuitBreaker circuitBreaker;
+    private final Semaphore bulkhead;
+    private final int maxConcurrent;
+    private final long defaultWaitMs;
+
+    private final Counter successes;
+    private final Counter failures;
+    private final Counter rejected;
+
+    public ProviderGuard(String name, ProviderSettings settings, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.rateLimiter = new TokenBucket(settings.ratePerSecond(), settings.burst());
+        this.circuitBreaker = new CircuitBreaker(settings.failureThreshold(), settings.openSeconds(),
+                TimeUnit.SECONDS);
+        this.maxConcurrent = settings.maxConcurrent();
+        this.bulkhead = new Semaphore(maxConcurrent);
+        this.defaultWaitMs = settings.maxWaitMs();
+
+        this.successes = Counter.builder("provider.calls").tag("provider", name).tag("outcome", "success")
+                .register(meterRegistry);
+        this.failures = Counter.builder("provider.calls").tag("provider", name).tag("outcome", "failure")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("provider.calls").tag("provider", name).tag("outcome", "rejected")
+                .register(meterRegistry);
+        Gauge.builder("provider.circuit.open", circuitBreaker, cb -> cb.state() == CircuitBreaker.State.CLOSED ? 0 : 1)
+                .tag("provider", name).register(meterRegistry);
+        Gauge.builder("provider.bulkhead.active", bulkhead, b -> maxConcurrent - b.availablePermits())
+                .tag("provider", name).register(meterRegistry);
+    }
+
+    /**
+     * Runs the call, waiting at most the provider's default budget for a bulkhead slot and a token.
+     *
+     * @throws ProviderUnavailableException if the call was not sent
+     */
+    public <T> T call(Supplier<T> action) {
+        return call(action, defaultWaitMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Same as {@link #call(Supplier)} but returns the fallback when the provider is unavailable.
+     */
+    public <T> T call(Supplier<T> action, Supplier<T> fallback) {
+        try {
+            return call(action);
+        } catch (ProviderUnavailableException e) {
+            log.debug("[Resilience] {} - using fallback", e.getMessage());
+            return fallback.get();
+        }
+    }
+
+    /**
+     * Runs the call with an explicit wait budget - background jobs can afford to queue longer
+     * than request threads.
+     */
+    public <T> T call(Supplier<T> action, long maxWait, TimeUnit unit) {
+        if (!circuitBreaker.isCallPermitted()) {
+            throw reject("circuit open");
+        }
+        long deadline = System.nanoTime() + unit.toNanos(maxWait);
+        try {
+            if (!bulkhead.tryAcquire(maxWait, unit)) {
+                throw reject("bulkhead full");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw reject("interrupted");
+        }
+        try {
+            if (!rateLimiter.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                throw reject("rate limited");
+            }
+            if (!circuitBreaker.tryAcquirePermission()) {
+                throw reject("circuit open");
+            }
+            return execute(action);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw reject("interrupted");
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private <T> T execute(Supplier<T> action) {
+        try {
+            T result = action.get();
+            circuitBreaker.onSuccess();
+            successes.increment();
+            return result;
+        } catch (HttpClientErrorException.TooManyRequests e) {
+            // Throttled, not broken - hold everyone back for Retry-After
+            long retryAfter = parseRetryAfter(e.getResponseHeaders());
+            log.warn("[Resilience] {} rate limited, backing off {}s", name, retryAfter);
+            rateLimiter.pause(retryAfter, TimeUnit.SECONDS);
+            circuitBreaker.release();
+            failures.increment();
+            throw e;
+        } catch (HttpServerErrorException | ResourceAccessException e) {
+            recordFailure(e);
+            throw e;
+        } catch (HttpClientErrorException e) {
+            // Provider answered - the request was bad
+            circuitBreaker.onSuccess();
+            successes.increment();
+            throw e;
+        } catch (RuntimeException e) {
+            circuitBreaker.release();
+            throw e;
+        }
+    }
+
+    private void recordFailure(RuntimeException e) {
+        CircuitBreaker.State before = circuitBreaker.state();
+        circuitBreaker.onFailure();
+        failures.increment();
+        if (before != CircuitBreaker.State.OPEN && circuitBreaker.state() == CircuitBreaker.State.OPEN) {
+            log.warn("[Resilience] {} circuit opened after {} failures: {}", name,
+                    circuitBreaker.consecutiveFailures(), e.getMessage());
+        }
+    }
+
+    private ProviderUnavailableException reject(String reason) {
+        rejected.increment();
+        return new ProviderUnavailableException(name, reason);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public CircuitBreaker.State state() {
+        return circuitBreaker.state();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("state", circuitBreaker.state().name());
+        stats.put("consecutiveFailures", circuitBreaker.consecutiveFailures());
+        stats.put("activeCalls", maxConcurrent - bulkhead.availablePermits());
+        stats.put("maxConcurrent", maxConcurrent);
+        stats.put("successes", (long) successes.count());
+        stats.put("failures", (long) failures.count());
+        stats.put("rejected", (long) rejected.count());
+        return stats;
+    }
+
+    private static long parseRetryAfter(HttpHeaders headers) {
+        String value = headers != null ? headers.getFirst(HttpHeaders.RETRY_AFTER) : null;
+        try {
+            return value != null ? Math.max(1, Long.parseLong(value.trim())) : 1;
+        } catch (NumberFormatException e) {
+            return 1;
+        }
+    }
+}
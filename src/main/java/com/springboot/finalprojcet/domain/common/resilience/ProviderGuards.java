@@ -0,0 +1,91 @@
+package com.springboot.finalprojcet.domain.common.resilience;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One {@link ProviderGuard} per external provider, shared by every service that talks to it.
+ * Limits come from {@code resilience.providers.<name>.*} with per-provider defaults below.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProviderGuards {
+
+    public static final String ITUNES = "itunes";
+    public static final String TIDAL = "tidal";
+    public static final String SPOTIFY = "spotify";
+    public static final String YOUTUBE = "youtube";
+    public static final String FASTAPI = "fastapi";
+    // LLM endpoints live on the FastAPI host but have their own latency profile - a slow LLM answer
+    // must not open the circuit for training/evaluation jobs
+    public static final String LLM = "llm";
+
+    // rate/s, burst, max concurrent, failure threshold, open seconds, max wait ms
+    private static final Map<String, ProviderSettings> DEFAULTS = Map.of(
+            // iTunes Search allows roughly 20 calls/minute per IP
+            ITUNES, new ProviderSettings(0.5, 10, 8, 5, 60, 2_000),
+            TIDAL, new ProviderSettings(10, 20, 16, 5, 30, 2_000),
+            // Spotify rate limits per app (rolling 30s window)
+            SPOTIFY, new ProviderSettings(10, 20, 16, 5, 30, 2_000),
+            YOUTUBE, new ProviderSettings(10, 20, 16, 5, 30, 2_000),
+            FASTAPI, new ProviderSettings(20, 20, 8, 3, 30, 5_000),
+            LLM, new ProviderSettings(5, 10, 8, 5, 30, 2_000));
+
+    private static final ProviderSettings FALLBACK_DEFAULT = new ProviderSettings(10, 20, 16, 5, 30, 2_000);
+
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, ProviderGuard> guards = new ConcurrentHashMap<>();
+
+    public ProviderGuard get(String provider) {
+        return guards.computeIfAbsent(provider, name -> new ProviderGuard(name, settings(name), meterRegistry));
+    }
+
+    public ProviderGuard itunes() {
+        return get(ITUNES);
+    }
+
+    public ProviderGuard tidal() {
+        return get(TIDAL);
+    }
+
+    public ProviderGuard spotify() {
+        return get(SPOTIFY);
+    }
+
+    public ProviderGuard youtube() {
+        return get(YOUTUBE);
+    }
+
+    public ProviderGuard fastapi() {
+        return get(FASTAPI);
+    }
+
+    public ProviderGuard llm() {
+        return get(LLM);
+    }
+
+    public Collection<ProviderGuard> all() {
+        DEFAULTS.keySet().forEach(this::get);
+        return guards.values();
+    }
+
+    private ProviderSettings settings(String name) {
+        ProviderSettings d = DEFAULTS.getOrDefault(name, FALLBACK_DEFAULT);
+        String prefix = "resilience.providers." + name + ".";
+        return new ProviderSettings(
+                environment.getProperty(prefix + "rate-per-second", Double.class, d.ratePerSecond()),
+                environment.getProperty(prefix + "burst", Integer.class, d.burst()),
+                environment.getProperty(prefix + "max-concurrent", Integer.class, d.maxConcurrent()),
+                environment.getProperty(prefix + "failure-threshold", Integer.class, d.failureThreshold()),
+                environment.getProperty(prefix + "open-seconds", Long.class, d.openSeconds()),
+                environment.getProperty(prefix + "max-wait-ms", Long.class, d.maxWaitMs()));
+    }
+}
@@ -0,0 +1,39 @@
+package com.springboot.finalprojcet.domain.common.resilience;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Reports circuit state per provider under /actuator/health ("providers").
+ * A degraded provider does not take the application down - we keep serving with fallbacks -
+ * so the status stays UP and the degraded providers are listed in the details.
+ */
+@Component("providers")
+@RequiredArgsConstructor
+public class ProviderHealthIndicator implements HealthIndicator {
+
+    private final ProviderGuards providerGuards;
+
+    @Override
+    public Health health() {
+        Map<String, Object> details = new TreeMap<>();
+        List<String> degraded = new ArrayList<>();
+        for (ProviderGuard guard : providerGuards.all()) {
+            details.put(guard.getName(), guard.stats());
+            if (guard.state() != CircuitBreaker.State.CLOSED) {
+                degraded.add(guard.getName());
+            }
+        }
+        return Health.up()
+                .withDetail("degraded", degraded)
+                .withDetails(details)
+                .build();
+    }
+}
@@ -0,0 +1,13 @@
+package com.springboot.finalprojcet.domain.common.resilience;
+
+/**
+ * Limits for one provider, read from {@code resilience.providers.<name>.*}.
+ */
+public record ProviderSettings(
+        double ratePerSecond,
+        int burst,
+        int maxConcurrent,
+        int failureThreshold,
+        long openSeconds,
+        long maxWaitMs) {
+}
@@ -0,0 +1,19 @@
+package com.springboot.finalprojcet.domain.common.resilience;
+
+/**
+ * Thrown when a provider call is rejected without being sent: circuit open, bulkhead full
+ * or rate limit not available within the caller's wait budget.
+ */
+public class ProviderUnavailableException extends RuntimeException {
+
+    private final String provider;
+
+    public ProviderUnavailableException(String provider, String reason) {
+        super(provider + " unavailable: " + reason);
+        this.provider = provider;
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+}
@@ -2,15 +2,20 @@ package com.springboot.finalprojcet.domain.common.service.impl;
 
 import com.springboot.finalprojcet.domain.common.service.ImageService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
 
 import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.URL;
+import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -23,9 +28,14 @@ import java.util.UUID;
 @Slf4j
 public class ImageServiceImpl implements ImageService {
 
+    private static final String USER_AGENT =
+            "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36";
+
     private final Path uploadDir;
+    private final RestTemplate restTemplate;
 
-    public ImageServiceImpl() {
+    public ImageServiceImpl(RestTemplate restTemplate) {
+        this.restTemplate = restTemplate;
         // Base upload directory in the project root
         this.uploadDir = Paths.get(System.getProperty("user.dir"), "uploads").toAbsolutePath().normalize();
         try {
@@ -48,43 +58,40 @@ public class ImageServiceImpl implements ImageService {
             Files.createDirectories(targetDir);
 
             // Download and save with User-Agent to avoid 403 Forbidden (Apple Music)
-            java.net.HttpURLConnection connection = (java.net.HttpURLConnection) new URL(imageUrl).openConnection();
-            connection.setInstanceFollowRedirects(true);
-            connection.setRequestProperty("User-Agent",
-                    "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36");
-            connection.setConnectTimeout(5000);
-            connection.setReadTimeout(5000);
-
-            // Determine extension from Content-Type
-            String contentType = connection.getContentType();
-            String extension = "jpg"; // Default
-            if (contentType != null) {
-                if (contentType.contains("png"))
-                    extension = "png";
-                else if (contentType.contains("gif"))
-                    extension = "gif";
-                else if (contentType.contains("jpeg") || contentType.contains("jpg"))
-                    extension = "jpg";
-            } else {
-                // Fallback to URL parsing if Content-Type is missing
-                if (imageUrl.contains(".png"))
-                    extension = "png";
-                else if (imageUrl.contains(".gif"))
-                    extension = "gif";
-            }
-
-            String filename = UUID.randomUUID().toString() + "." + extension;
-            Path targetPath = targetDir.resolve(filename);
+            String filename = restTemplate.execute(URI.create(imageUrl), HttpMethod.GET,
+                    request -> request.getHeaders().set(HttpHeaders.USER_AGENT, USER_AGENT),
+                    response -> {
+                        // Determine extension from Content-Type
+                        MediaType contentType = response.getHeaders().getContentType();
+                        String extension = "jpg"; // Default
+                        if (contentType != null) {
+                            String subtype = contentType.getSubtype();
+                            if (subtype.contains("png"))
+                                extension = "png";
+                            else if (subtype.contains("gif"))
+                                extension = "gif";
+                            else if (subtype.contains("jpeg") || subtype.contains("jpg"))
+                                extension = "jpg";
+                        } else {
+                            // Fallback to URL parsing if Content-Type is missing
+                            if (imageUrl.contains(".png"))
+                                extension = "png";
+                            else if (imageUrl.contains(".gif"))
+                                extension = "gif";
+                        }
 
-            try (InputStream in = connection.getInputStream()) {
-                Files.copy(in, targetPath, StandardCopyOption.REPLACE_EXISTING);
-            }
+                        String name = UUID.randomUUID().toString() + "." + extension;
+                        try (InputStream in = response.getBody()) {
+                            Files.copy(in, targetDir.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+                        }
+                        return name;
+                    });
 
             // Return relative path for DB
             // e.g., /uploads/playlists/filename.jpg
             return "/uploads/" + subDir + "/" + filename;
 
-        } catch (IOException e) {
+        } catch (IOException | RestClientException | IllegalArgumentException e) {
             log.error("Failed to download image from {}: {}", imageUrl, e.getMessage());
             // Fallback: return original URL if download fails so we don't break the UI
             // completely
@@ -171,15 +178,16 @@ public class ImageServiceImpl implements ImageService {
             return null;
         }
         
-        java.net.HttpURLConnection connection = (java.net.HttpURLConnection) new URL(imageUrl).openConnection();
-        connection.setInstanceFollowRedirects(true);
-        connection.setRequestProperty("User-Agent",
-                "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36");
-        connection.setConnectTimeout(5000);
-        connection.setReadTimeout(5000);
-        
-        try (InputStream in = connection.getInputStream()) {
-            return ImageIO.read(in);
+        try {
+            return restTemplate.execute(URI.create(imageUrl), HttpMethod.GET,
+                    request -> request.getHeaders().set(HttpHeaders.USER_AGENT, USER_AGENT),
+                    response -> {
+                        try (InputStream in = response.getBody()) {
+                            return ImageIO.read(in);
+                        }
+                    });
+        } catch (RestClientException | IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
         }
     }
     
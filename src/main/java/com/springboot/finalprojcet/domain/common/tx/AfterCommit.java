@@ -0,0 +1,63 @@
+package com.springboot.finalprojcet.domain.common.tx;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Defers side effects - Redis writes, cache invalidation, background work - until the surrounding
+ * transaction commits, so a rolled back transaction leaves nothing behind. Outside a transaction
+ * they run right away.
+ */
+public final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    public static void run(Runnable task) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    task.run();
+                }
+            });
+        } else {
+            task.run();
+        }
+    }
+
+    /**
+     * Collects values per transaction and hands them to {@code flush} once, after commit. A later value
+     * with the same key replaces the earlier one. Outside a transaction {@code flush} gets just this value.
+     *
+     * @param owner identifies the batch within the transaction, usually the calling bean
+     */
+    public static <K, V> void collect(Object owner, K key, V value, Consumer<List<V>> flush) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            flush.accept(List.of(value));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Map<K, V> batch = (Map<K, V>) TransactionSynchronizationManager.getResource(owner);
+        if (batch == null) {
+            Map<K, V> created = new LinkedHashMap<>();
+            TransactionSynchronizationManager.bindResource(owner, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    flush.accept(new ArrayList<>(created.values()));
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(owner);
+                }
+            });
+            batch = created;
+        }
+        batch.put(key, value);
+    }
+}
@@ -2,7 +2,13 @@ package com.springboot.finalprojcet.domain.ems.service.impl;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.finalprojcet.domain.analysis.recommend.RecommendationEngine;
+import com.springboot.finalprojcet.domain.analysis.recommend.TrackFeatureIndex;
+import com.springboot.finalprojcet.domain.common.resilience.ProviderGuards;
+import com.springboot.finalprojcet.domain.common.resilience.ProviderUnavailableException;
 import com.springboot.finalprojcet.domain.gms.repository.PlaylistRepository;
+import com.springboot.finalprojcet.domain.itunes.client.ItunesClient;
+import com.springboot.finalprojcet.domain.itunes.dto.ItunesItem;
 import com.springboot.finalprojcet.domain.ems.service.EmsService;
 import com.springboot.finalprojcet.domain.tidal.config.TidalProperties;
 import com.springboot.finalprojcet.domain.tidal.repository.PlaylistTracksRepository;
@@ -12,12 +18,18 @@ import com.springboot.finalprojcet.entity.Tracks;
 import com.springboot.finalprojcet.enums.SpaceType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.client.RestTemplate;
 
+import java.sql.Statement;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
@@ -31,6 +43,20 @@ public class EmsServiceImpl implements EmsService {
     private final ObjectMapper objectMapper;
     private final TidalProperties tidalProperties;
     private final RestTemplate restTemplate;
+    private final RecommendationEngine recommendationEngine;
+    private final ProviderGuards providerGuards;
+    private final ItunesClient itunesClient;
+    private final PlatformTransactionManager transactionManager;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${ems.migration.batch-size:50}")
+    private int migrationBatchSize;
+
+    @Value("${ems.migration.batch-tx-timeout-seconds:30}")
+    private int migrationBatchTimeoutSeconds;
+
+    // Background migration can wait out provider rate limits instead of failing fast
+    private static final long MIGRATION_WAIT_SECONDS = 30;
 
     @Override
     @Transactional(readOnly = true)
@@ -100,11 +126,22 @@ public class EmsServiceImpl implements EmsService {
     @Override
     @Transactional
     public Map<String, Object> getRecommendations(Long userId, int limit) {
-        // Get random tracks for recommendations
-        List<Tracks> allTracks = tracksRepository.findAll();
-        Collections.shuffle(allTracks);
-
-        List<Tracks> selectedTracks = allTracks.stream().limit(limit).collect(Collectors.toList());
+        // Audio-feature neighbours of the user's library first, random discovery as fallback
+        String reason = "similar_audio_features";
+        List<Long> similarIds = recommendationEngine.similarToUser(userId, limit).stream()
+                .map(TrackFeatureIndex.Hit::trackId)
+                .collect(Collectors.toList());
+        List<Tracks> selectedTracks;
+        if (!similarIds.isEmpty()) {
+            Map<Long, Tracks> byId = tracksRepository.findAllById(similarIds).stream()
+                    .collect(Collectors.toMap(Tracks::getTrackId, t -> t));
+            selectedTracks = similarIds.stream().map(byId::get).filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+        } else {
+            reason = "random_discovery";
+            selectedTracks = tracksRepository.findRandom(limit);
+        }
+        final String recommendReason = reason;
 
         // Fill missing duration for selected tracks (lazy loading)
         List<Tracks> tracksToUpdate = new ArrayList<>();
@@ -138,7 +175,7 @@ public class EmsServiceImpl implements EmsService {
                     m.put("duration", t.getDuration());
                     m.put("genre", t.getGenre());
                     m.put("artwork", t.getArtwork());
-                    m.put("recommendReason", "random_discovery");
+                    m.put("recommendReason", recommendReason);
                     return m;
                 }).collect(Collectors.toList());
 
@@ -416,8 +453,11 @@ public class EmsServiceImpl implements EmsService {
         return "\uFEFF" + csv.toString();
     }
 
+    /**
+     * Provider lookups (iTunes is guarded at 0.5 rps) run outside any transaction; results are
+     * written in short batch transactions so no connection or row lock is held while waiting.
+     */
     @Override
-    @Transactional
     public Map<String, Object> migrateEmsTracks() {
         log.info("[EMS Migration] Starting track metadata migration...");
 
@@ -429,6 +469,8 @@ public class EmsServiceImpl implements EmsService {
         int failed = 0;
         int skipped = 0;
         List<String> errors = new ArrayList<>();
+        String aborted = null;
+        List<Tracks> pending = new ArrayList<>(migrationBatchSize);
 
         for (Tracks track : tracksToMigrate) {
             try {
@@ -461,10 +503,10 @@ public class EmsServiceImpl implements EmsService {
                     }
 
                     if (track.getDuration() != null && track.getDuration() > 0) {
-                        tracksRepository.save(track);
-                        updated++;
-
-                        if (updated % 50 == 0) {
+                        pending.add(track);
+                        if (pending.size() >= migrationBatchSize) {
+                            updated += writeMigrated(pending);
+                            pending.clear();
                             log.info("[EMS Migration] Progress: {} updated, {} failed, {} skipped", updated, failed, skipped);
                         }
                     } else {
@@ -474,9 +516,11 @@ public class EmsServiceImpl implements EmsService {
                     skipped++;
                 }
 
-                // Rate limiting - 500ms between requests (iTunes rate limit is strict)
-                Thread.sleep(500);
-
+            } catch (ProviderUnavailableException e) {
+                // Provider throttling us or down - stop instead of burning through the remaining tracks
+                log.warn("[EMS Migration] Stopping early: {}", e.getMessage());
+                aborted = e.getMessage();
+                break;
             } catch (Exception e) {
                 failed++;
                 if (errors.size() < 10) {
@@ -484,17 +528,52 @@ public class EmsServiceImpl implements EmsService {
                 }
             }
         }
+        // Lookups already paid for are kept even when the run stops early
+        if (!pending.isEmpty()) {
+            updated += writeMigrated(pending);
+        }
 
-        log.info("[EMS Migration] Complete! Updated: {}, Failed: {}, Skipped: {}", updated, failed, skipped);
+        log.info("[EMS Migration] {}! Updated: {}, Failed: {}, Skipped: {}",
+                aborted == null ? "Complete" : "Stopped", updated, failed, skipped);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("status", aborted == null ? "complete" : "partial");
+        result.put("total", tracksToMigrate.size());
+        result.put("updated", updated);
+        result.put("failed", failed);
+        result.put("skipped", skipped);
+        result.put("errors", errors);
+        if (aborted != null)
+            result.put("reason", aborted);
+        return result;
+    }
 
-        return Map.of(
-                "status", "complete",
-                "total", tracksToMigrate.size(),
-                "updated", updated,
-                "failed", failed,
-                "skipped", skipped,
-                "errors", errors
-        );
+    /**
+     * One short transaction per batch. Only the looked-up columns are written, and only while the
+     * row still has no duration, so edits made during the (slow) lookups are not overwritten.
+     */
+    private int writeMigrated(List<Tracks> batch) {
+        TransactionTemplate batchTx = new TransactionTemplate(transactionManager);
+        batchTx.setTimeout(migrationBatchTimeoutSeconds);
+        int[][] counts = batchTx.execute(tx -> jdbcTemplate.batchUpdate(
+                "UPDATE tracks SET duration = ?, "
+                        + "artist = CASE WHEN artist IS NULL OR artist = 'Unknown' THEN COALESCE(?, artist) ELSE artist END, "
+                        + "album = COALESCE(album, ?) "
+                        + "WHERE track_id = ? AND (duration IS NULL OR duration = 0)",
+                batch, batch.size(), (ps, track) -> {
+                    ps.setInt(1, track.getDuration());
+                    ps.setString(2, track.getArtist());
+                    ps.setString(3, track.getAlbum());
+                    ps.setLong(4, track.getTrackId());
+                }));
+        int written = 0;
+        for (int[] chunk : counts) {
+            for (int count : chunk) {
+                // SUCCESS_NO_INFO (-2) - the driver ran the statement but did not report rows
+                written += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+            }
+        }
+        return written;
     }
 
     private String extractTidalId(Tracks track) {
@@ -524,7 +603,10 @@ public class EmsServiceImpl implements EmsService {
             headers.set("x-tidal-token", tidalProperties.getClientId());
 
             HttpEntity<Void> entity = new HttpEntity<>(headers);
-            ResponseEntity<JsonNode> response = restTemplate.exchange(url, HttpMethod.GET, entity, JsonNode.class);
+            // Tidal degraded -> caught below, caller falls back to iTunes
+            ResponseEntity<JsonNode> response = providerGuards.tidal().call(
+                    () -> restTemplate.exchange(url, HttpMethod.GET, entity, JsonNode.class),
+                    MIGRATION_WAIT_SECONDS, TimeUnit.SECONDS);
 
             if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
                 JsonNode body = response.getBody();
@@ -554,83 +636,27 @@ public class EmsServiceImpl implements EmsService {
     }
 
     private Map<String, Object> fetchTrackFromItunes(String title, String artist) {
-        // Retry with exponential backoff
-        int maxRetries = 3;
-        int delay = 500; // Start with 500ms
-
-        for (int attempt = 0; attempt < maxRetries; attempt++) {
-            try {
-                // Clean up search terms
-                String searchTerm = (title + " " + artist)
-                        .replaceAll("[^a-zA-Z0-9가-힣\\s]", " ")
-                        .replaceAll("\\s+", " ")
-                        .trim();
-
-                if (searchTerm.length() < 3) {
-                    return null;
-                }
-
-                String encodedTerm = java.net.URLEncoder.encode(searchTerm, java.nio.charset.StandardCharsets.UTF_8);
-                String url = "https://itunes.apple.com/search?term=" + encodedTerm
-                        + "&media=music&entity=song&limit=3&country=KR";
-
-                // Use String response and parse manually (iTunes returns text/javascript)
-                HttpHeaders headers = new HttpHeaders();
-                headers.set("Accept", "*/*");
-
-                HttpEntity<Void> entity = new HttpEntity<>(headers);
-                ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
-
-                if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                    JsonNode body = objectMapper.readTree(response.getBody());
-                    JsonNode results = body.path("results");
-
-                    if (results.isArray() && results.size() > 0) {
-                        // Find best match - prefer exact title match
-                        JsonNode bestMatch = null;
-                        for (JsonNode track : results) {
-                            String trackName = track.path("trackName").asText("").toLowerCase();
-                            if (trackName.equals(title.toLowerCase())) {
-                                bestMatch = track;
-                                break;
-                            }
-                            if (bestMatch == null) {
-                                bestMatch = track;
-                            }
-                        }
-
-                        if (bestMatch != null) {
-                            Map<String, Object> result = new HashMap<>();
-                            // iTunes returns duration in milliseconds
-                            int durationMs = bestMatch.path("trackTimeMillis").asInt(0);
-                            result.put("duration", durationMs / 1000); // Convert to seconds
-                            result.put("artist", bestMatch.path("artistName").asText(null));
-                            result.put("album", bestMatch.path("collectionName").asText(null));
-                            return result;
-                        }
-                    }
-                    return null; // Success but no results
-                }
-            } catch (Exception e) {
-                String msg = e.getMessage();
-                if (msg != null && (msg.contains("429") || msg.contains("Too Many Requests"))) {
-                    // Rate limited - wait and retry
-                    try {
-                        Thread.sleep(delay);
-                        delay *= 2; // Exponential backoff
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                        return null;
-                    }
-                } else {
-                    // Other error, don't retry
-                    if (attempt == 0) {
-                        log.debug("[EMS Migration] iTunes search failed for '{}' by '{}': {}", title, artist, msg);
-                    }
-                    return null;
-                }
-            }
+        ItunesItem match;
+        try {
+            // Migration is a background job, so it may queue behind the iTunes rate limit;
+            // ProviderUnavailableException (circuit open / still throttled) stops the run
+            match = itunesClient.findTrack(title, artist, MIGRATION_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (ProviderUnavailableException e) {
+            throw e;
+        } catch (Exception e) {
+            log.debug("[EMS Migration] iTunes search failed for '{}' by '{}': {}", title, artist, e.getMessage());
+            return null;
         }
-        return null;
+        if (match == null) {
+            return null;
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        // iTunes returns duration in milliseconds
+        long durationMs = match.getTrackTimeMillis() != null ? match.getTrackTimeMillis() : 0L;
+        result.put("duration", (int) (durationMs / 1000)); // Convert to seconds
+        result.put("artist", match.getArtistName());
+        result.put("album", match.getCollectionName());
+        return result;
     }
 }
@@ -4,13 +4,16 @@ import com.springboot.finalprojcet.domain.gms.dto.EmsPlaylistResponseDto;
 import com.springboot.finalprojcet.domain.gms.dto.RecommendTracksRequestDto;
 import com.springboot.finalprojcet.domain.gms.dto.RecommendTracksResponseDto;
 import com.springboot.finalprojcet.domain.gms.dto.SuccessFirstModelRequestDto;
+import com.springboot.finalprojcet.domain.gms.job.FastApiJobDispatcher;
 import com.springboot.finalprojcet.domain.gms.service.GmsRecommendService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.HashMap;
 import java.util.List;
@@ -24,6 +27,7 @@ import java.util.Map;
 public class GmsRecommendController {
 
     private final GmsRecommendService gmsRecommendService;
+    private final FastApiJobDispatcher fastApiJobDispatcher;
 
     /**
      * FastAPI에서 AI 모델 학습 완료 후 호출하는 콜백 API
@@ -35,7 +39,7 @@ public class GmsRecommendController {
     ) {
         log.info("successFirstModel API 호출 - userId: {}", request.getUserId());
 
-        gmsRecommendService.successFirstModel(request.getUserId());
+        gmsRecommendService.successFirstModel(request.getUserId(), request.getJobId());
 
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
@@ -90,4 +94,26 @@ public class GmsRecommendController {
 
         return ResponseEntity.ok(result);
     }
+
+    /**
+     * FastAPI 평가/학습 작업 상태 조회 API
+     */
+    @GetMapping("/jobs/{jobId}")
+    @Operation(summary = "FastAPI 작업 상태 조회", description = "평가/학습 작업의 현재 상태를 조회")
+    public ResponseEntity<Map<String, Object>> getJobStatus(@PathVariable String jobId) {
+        Map<String, Object> status = fastApiJobDispatcher.status(jobId);
+        if (status == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(status);
+    }
+
+    /**
+     * FastAPI 작업 상태 구독 API (SSE)
+     */
+    @GetMapping(value = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "FastAPI 작업 상태 구독", description = "작업 상태가 바뀔 때마다 SSE로 전달, 완료/실패 시 종료")
+    public SseEmitter subscribeJob(@PathVariable String jobId) {
+        return fastApiJobDispatcher.subscribe(jobId);
+    }
 }
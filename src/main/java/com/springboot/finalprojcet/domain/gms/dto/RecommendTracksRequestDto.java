@@ -13,6 +13,8 @@ import java.util.List;
 @AllArgsConstructor
 public class RecommendTracksRequestDto {
     private Long userId;
+    // Echo of the jobId sent with the evaluation request (absent from older FastAPI builds)
+    private String jobId;
     private List<TrackDto> tracks;
 
     @Getter
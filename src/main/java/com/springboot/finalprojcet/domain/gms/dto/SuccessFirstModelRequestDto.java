@@ -11,4 +11,6 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class SuccessFirstModelRequestDto {
     private Long userId;
+    // Echo of the jobId sent with the training request (absent from older FastAPI builds)
+    private String jobId;
 }
@@ -0,0 +1,380 @@
+package com.springboot.finalprojcet.domain.gms.job;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.finalprojcet.domain.common.resilience.ProviderGuards;
+import com.springboot.finalprojcet.domain.common.resilience.ProviderUnavailableException;
+import com.springboot.finalprojcet.domain.common.tx.AfterCommit;
+import com.springboot.finalprojcet.enums.FastApiJobType;
+import jakarta.annotation.PostConstruct;
+import org.apache.hc.client5.http.ConnectTimeoutException;
+import org.apache.hc.core5.http.ConnectionRequestTimeoutException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records FastAPI evaluation/training jobs and submits them off the request thread.
+ * Submissions run on a bounded pool with exponential-backoff retries; FastAPI reports completion
+ * through the /api/gms callbacks, which echo the jobId sent in the payload (older callbacks without
+ * it close the user's latest job of that type).
+ * Job state lives in Redis so status polling works on any node, and state changes are
+ * broadcast over pub/sub so SSE subscribers on every node are notified. Every status change is a
+ * compare-and-set in Lua, so a late dispatcher write can never overwrite a terminal state.
+ * A start is only re-sent when it provably never reached FastAPI (connect failure, guard rejection)
+ * or FastAPI answered 5xx/429; every attempt carries the jobId as its Idempotency-Key.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class FastApiJobDispatcher implements MessageListener {
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RestTemplate fastApiRestTemplate;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService fastApiDispatchPool;
+    private final ScheduledExecutorService fastApiRetryScheduler;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final ProviderGuards providerGuards;
+
+    @Value("${fastapi.url:http://fastapi:8000}")
+    private String fastApiUrl;
+
+    @Value("${fastapi.dispatch.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${fastapi.dispatch.retry-backoff-ms:2000}")
+    private long retryBackoffMs;
+
+    private static final String JOB_KEY_PREFIX = "fastapi:job:";
+    private static final String USER_KEY_PREFIX = "fastapi:job:user:";
+    private static final String EVENTS_CHANNEL = "fastapi:job:events";
+    private static final Duration JOB_TTL = Duration.ofDays(3);
+    private static final long SSE_TIMEOUT_MS = Duration.ofMinutes(10).toMillis();
+    private static final int MAX_STORED_RESPONSE = 2_000;
+
+    public static final String STATUS_QUEUED = "QUEUED";
+    public static final String STATUS_DISPATCHING = "DISPATCHING";
+    public static final String STATUS_RETRYING = "RETRYING";
+    public static final String STATUS_SUBMITTED = "SUBMITTED";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    private static final Set<String> TERMINAL = Set.of(STATUS_COMPLETED, STATUS_FAILED);
+    private static final Set<String> PENDING = Set.of(STATUS_QUEUED, STATUS_RETRYING);
+    private static final Set<String> ACTIVE = Set.of(STATUS_QUEUED, STATUS_DISPATCHING, STATUS_RETRYING,
+            STATUS_SUBMITTED);
+
+    // ARGV: n, n allowed current statuses, then field/value pairs. Returns 1 if the fields were written.
+    private static final DefaultRedisScript<Long> TRANSITION_SCRIPT = new DefaultRedisScript<>("""
+            local current = redis.call('HGET', KEYS[1], 'status')
+            if not current then return 0 end
+            local n = tonumber(ARGV[1])
+            local allowed = false
+            for i = 2, n + 1 do
+              if ARGV[i] == current then allowed = true end
+            end
+            if not allowed then return 0 end
+            for i = n + 2, #ARGV, 2 do
+              redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1])
+            end
+            return 1
+            """, Long.class);
+
+    // Local SSE subscribers by jobId
+    private final Map<String, List<SseEmitter>> emitters = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void subscribeEvents() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(EVENTS_CHANNEL));
+    }
+
+    /**
+     * Records a job and sends it once the surrounding transaction (if any) commits,
+     * so FastAPI never reads data that is not visible yet.
+     */
+    public Map<String, Object> submit(FastApiJobType type, Long userId, Map<String, Object> payload) {
+        String jobId = UUID.randomUUID().toString();
+        String now = Instant.now().toString();
+        Map<String, String> job = new HashMap<>();
+        job.put("jobId", jobId);
+        job.put("type", type.name());
+        job.put("userId", String.valueOf(userId));
+        job.put("status", STATUS_QUEUED);
+        job.put("attempts", "0");
+        job.put("createdAt", now);
+        job.put("updatedAt", now);
+        // FastAPI echoes the jobId in its callback so completion closes exactly this job
+        Map<String, Object> body = new HashMap<>(payload);
+        body.put("jobId", jobId);
+        try {
+            job.put("payload", objectMapper.writeValueAsString(body));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to serialize FastAPI payload", e);
+        }
+
+        String key = jobKey(jobId);
+        redisTemplate.opsForHash().putAll(key, job);
+        redisTemplate.expire(key, JOB_TTL);
+        // Fallback for callbacks that only carry userId - remember the latest job per user and type
+        redisTemplate.opsForValue().set(userKey(userId, type), jobId, JOB_TTL);
+
+        AfterCommit.run(() -> dispatch(jobId, 1));
+        log.info("[FastApiJob] Queued {} job {} - userId: {}", type, jobId, userId);
+        return status(jobId);
+    }
+
+    /**
+     * Marks the job complete (called from FastAPI callbacks). {@code jobId} is the id echoed by the
+     * callback; when it is null the user's latest job of the given type is closed instead.
+     */
+    public Map<String, Object> complete(Long userId, FastApiJobType type, String jobId, String result) {
+        if (jobId == null) {
+            jobId = redisTemplate.opsForValue().get(userKey(userId, type));
+            if (jobId == null) {
+                return null;
+            }
+        } else {
+            List<Object> owner = redisTemplate.opsForHash().multiGet(jobKey(jobId), List.of("userId", "type"));
+            if (!String.valueOf(userId).equals(owner.get(0)) || !type.name().equals(owner.get(1))) {
+                log.warn("[FastApiJob] Ignoring {} callback for job {} - not a job of userId {}", type, jobId, userId);
+                return null;
+            }
+        }
+        Map<String, String> fields = new HashMap<>();
+        fields.put("status", STATUS_COMPLETED);
+        fields.put("completedAt", Instant.now().toString());
+        if (result != null)
+            fields.put("result", truncate(result));
+        if (transition(jobId, ACTIVE, fields)) {
+            log.info("[FastApiJob] {} job {} completed - userId: {}", type, jobId, userId);
+        }
+        return status(jobId);
+    }
+
+    public Map<String, Object> status(String jobId) {
+        Map<Object, Object> job = redisTemplate.opsForHash().entries(jobKey(jobId));
+        if (job.isEmpty()) {
+            return null;
+        }
+        Map<String, Object> status = new LinkedHashMap<>();
+        for (String field : List.of("jobId", "type", "userId", "status", "attempts", "createdAt", "updatedAt",
+                "completedAt", "response", "result", "error")) {
+            Object value = job.get(field);
+            if (value == null)
+                continue;
+            status.put(field, switch (field) {
+                case "userId" -> Long.parseLong((String) value);
+                case "attempts" -> Integer.parseInt((String) value);
+                default -> value;
+            });
+        }
+        return status;
+    }
+
+    public SseEmitter subscribe(String jobId) {
+        // Register before reading the status, so a change published in between is not missed
+        SseEmitter emitter = new SseEmitter(SSE_TIMEOUT_MS);
+        List<SseEmitter> list = emitters.computeIfAbsent(jobId, id -> new CopyOnWriteArrayList<>());
+        list.add(emitter);
+        Runnable remove = () -> {
+            list.remove(emitter);
+            emitters.computeIfPresent(jobId, (id, l) -> l.isEmpty() ? null : l);
+        };
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+
+        Map<String, Object> current = status(jobId);
+        if (current == null) {
+            remove.run();
+            throw new RuntimeException("Job not found: " + jobId);
+        }
+        send(emitter, current);
+        return emitter;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String jobId = new String(message.getBody(), StandardCharsets.UTF_8);
+        List<SseEmitter> list = emitters.get(jobId);
+        if (list == null || list.isEmpty()) {
+            return;
+        }
+        Map<String, Object> current = status(jobId);
+        if (current == null) {
+            return;
+        }
+        for (SseEmitter emitter : list) {
+            send(emitter, current);
+        }
+    }
+
+    // ===== dispatch =====
+
+    private void dispatch(String jobId, int attempt) {
+        try {
+            fastApiDispatchPool.execute(() -> send(jobId, attempt));
+        } catch (RejectedExecutionException e) {
+            // Queue full: treat like a failed attempt so backoff applies
+            retryOrFail(jobId, attempt, "Dispatch queue full");
+        }
+    }
+
+    private void send(String jobId, int attempt) {
+        Map<Object, Object> job = redisTemplate.opsForHash().entries(jobKey(jobId));
+        if (job.isEmpty()) {
+            return; // expired
+        }
+        FastApiJobType type = FastApiJobType.valueOf((String) job.get("type"));
+        // Completed by a callback (or failed) meanwhile - nothing left to send
+        if (!transition(jobId, PENDING, Map.of("status", STATUS_DISPATCHING, "attempts", String.valueOf(attempt)))) {
+            return;
+        }
+
+        try {
+            Map<String, Object> body = objectMapper.readValue((String) job.get("payload"),
+                    new TypeReference<Map<String, Object>>() {
+                    });
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.set("Idempotency-Key", jobId);
+
+            String url = fastApiUrl + type.getPath();
+            log.info("[FastApiJob] Sending {} job {} (attempt {}) - url: {}", type, jobId, attempt, url);
+            // Circuit open / bulkhead full is a failed attempt - retried with backoff like any other
+            ResponseEntity<String> response = providerGuards.fastapi().call(
+                    () -> fastApiRestTemplate.postForEntity(url, new HttpEntity<>(body, headers), String.class));
+
+            Map<String, String> fields = new HashMap<>();
+            fields.put("status", STATUS_SUBMITTED);
+            if (response.getBody() != null)
+                fields.put("response", truncate(response.getBody()));
+            // The callback may already have completed the job
+            transition(jobId, Set.of(STATUS_DISPATCHING), fields);
+        } catch (HttpClientErrorException.TooManyRequests | HttpServerErrorException | ProviderUnavailableException e) {
+            log.warn("[FastApiJob] {} job {} attempt {} failed: {}", type, jobId, attempt, e.getMessage());
+            retryOrFail(jobId, attempt, e.getMessage());
+        } catch (HttpClientErrorException e) {
+            // 4xx will not succeed on retry
+            log.error("[FastApiJob] {} job {} rejected: {}", type, jobId, e.getMessage());
+            transition(jobId, Set.of(STATUS_DISPATCHING), Map.of("status", STATUS_FAILED, "error", truncate(e.getMessage())));
+        } catch (ResourceAccessException e) {
+            if (notSent(e)) {
+                log.warn("[FastApiJob] {} job {} attempt {} failed: {}", type, jobId, attempt, e.getMessage());
+                retryOrFail(jobId, attempt, e.getMessage());
+                return;
+            }
+            // Read timeout / dropped response: FastAPI may have started the job, so it is not sent again
+            // and the callback completes it
+            log.warn("[FastApiJob] {} job {} sent without a response: {}", type, jobId, e.getMessage());
+            transition(jobId, Set.of(STATUS_DISPATCHING), Map.of("status", STATUS_SUBMITTED,
+                    "error", truncate("No response from FastAPI, waiting for callback: " + e.getMessage())));
+        } catch (Exception e) {
+            log.error("[FastApiJob] {} job {} failed: {}", type, jobId, e.getMessage());
+            transition(jobId, Set.of(STATUS_DISPATCHING), Map.of("status", STATUS_FAILED,
+                    "error", truncate(e.getMessage() != null ? e.getMessage() : "Unknown error")));
+        }
+    }
+
+    private void retryOrFail(String jobId, int attempt, String error) {
+        String message = truncate(error != null ? error : "Unknown error");
+        Set<String> from = Set.of(STATUS_QUEUED, STATUS_DISPATCHING, STATUS_RETRYING);
+        if (attempt >= maxAttempts) {
+            transition(jobId, from, Map.of("status", STATUS_FAILED, "error", message));
+            return;
+        }
+        if (!transition(jobId, from, Map.of("status", STATUS_RETRYING, "error", message))) {
+            return;
+        }
+        long delay = retryBackoffMs << (attempt - 1);
+        fastApiRetryScheduler.schedule(() -> dispatch(jobId, attempt + 1), delay, TimeUnit.MILLISECONDS);
+    }
+
+    // The request never left this node, so sending it again cannot start the job twice
+    private static boolean notSent(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof ConnectException || t instanceof ConnectTimeoutException
+                    || t instanceof UnknownHostException || t instanceof ConnectionRequestTimeoutException)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Writes the fields only if the job's current status is one of {@code from}, and notifies
+     * subscribers. Returns false if the job moved on (or expired) in the meantime.
+     */
+    private boolean transition(String jobId, Set<String> from, Map<String, String> fields) {
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(from.size()));
+        args.addAll(from);
+        Map<String, String> values = new HashMap<>(fields);
+        values.put("updatedAt", Instant.now().toString());
+        values.forEach((field, value) -> {
+            args.add(field);
+            args.add(value);
+        });
+        Long applied = redisTemplate.execute(TRANSITION_SCRIPT, List.of(jobKey(jobId)), args.toArray());
+        if (applied == null || applied == 0) {
+            return false;
+        }
+        redisTemplate.convertAndSend(EVENTS_CHANNEL, jobId);
+        return true;
+    }
+
+    private void send(SseEmitter emitter, Map<String, Object> status) {
+        try {
+            emitter.send(SseEmitter.event().name("status").data(status, MediaType.APPLICATION_JSON));
+            if (TERMINAL.contains(status.get("status"))) {
+                emitter.complete();
+            }
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
+        }
+    }
+
+    private String truncate(String value) {
+        if (value == null)
+            return "";
+        return value.length() > MAX_STORED_RESPONSE ? value.substring(0, MAX_STORED_RESPONSE) : value;
+    }
+
+    private String jobKey(String jobId) {
+        return JOB_KEY_PREFIX + jobId;
+    }
+
+    private String userKey(Long userId, FastApiJobType type) {
+        return USER_KEY_PREFIX + userId + ":" + type.name();
+    }
+}
@@ -25,6 +25,9 @@ public interface PlaylistRepository extends JpaRepository<Playlists, Long> {
 
     List<Playlists> findBySpaceType(SpaceType spaceType);
 
+    @Query("SELECT p.playlistId FROM Playlists p WHERE p.playlistId IN :ids")
+    List<Long> findExistingIds(@Param("ids") java.util.Collection<Long> ids);
+
     // 중복 체크용: externalId와 userId로 검색
     boolean existsByExternalIdAndUserUserId(String externalId, Long userId);
 }
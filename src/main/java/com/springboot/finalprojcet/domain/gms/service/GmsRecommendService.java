@@ -12,8 +12,9 @@ public interface GmsRecommendService {
      * AI 모델 학습 완료 후 호출되는 콜백
      * FastAPI에서 모델 학습 완료 후 호출
      * @param userId 사용자 ID
+     * @param jobId 학습 요청 시 전달한 jobId (없으면 사용자의 최근 학습 작업)
      */
-    void successFirstModel(Long userId);
+    void successFirstModel(Long userId, String jobId);
 
     /**
      * 사용자를 위한 EMS 플레이리스트를 추천용으로 생성
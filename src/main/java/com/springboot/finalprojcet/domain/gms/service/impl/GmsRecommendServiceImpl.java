@@ -3,6 +3,7 @@ package com.springboot.finalprojcet.domain.gms.service.impl;
 import com.springboot.finalprojcet.domain.gms.dto.EmsPlaylistResponseDto;
 import com.springboot.finalprojcet.domain.gms.dto.RecommendTracksRequestDto;
 import com.springboot.finalprojcet.domain.gms.dto.RecommendTracksResponseDto;
+import com.springboot.finalprojcet.domain.gms.job.FastApiJobDispatcher;
 import com.springboot.finalprojcet.domain.gms.repository.EmsPlaylistForRecommendRepository;
 import com.springboot.finalprojcet.domain.gms.repository.PlaylistRepository;
 import com.springboot.finalprojcet.domain.gms.service.GmsRecommendService;
@@ -10,16 +11,12 @@ import com.springboot.finalprojcet.domain.user.repository.UserRepository;
 import com.springboot.finalprojcet.entity.EmsPlaylistForRecommend;
 import com.springboot.finalprojcet.entity.Playlists;
 import com.springboot.finalprojcet.entity.Users;
+import com.springboot.finalprojcet.enums.FastApiJobType;
 import com.springboot.finalprojcet.enums.RecommendStatus;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -35,15 +32,13 @@ public class GmsRecommendServiceImpl implements GmsRecommendService {
     private final EmsPlaylistForRecommendRepository emsPlaylistForRecommendRepository;
     private final PlaylistRepository playlistRepository;
     private final UserRepository userRepository;
-    private final RestTemplate restTemplate;
-
-    @Value("${fastapi.url:http://localhost:8000}")
-    private String fastApiUrl;
+    private final FastApiJobDispatcher fastApiJobDispatcher;
 
     @Override
     @Transactional
-    public void successFirstModel(Long userId) {
-        log.info("AI 모델 학습 완료 콜백 수신 - userId: {}", userId);
+    public void successFirstModel(Long userId, String jobId) {
+        log.info("AI 모델 학습 완료 콜백 수신 - userId: {}, jobId: {}", userId, jobId);
+        fastApiJobDispatcher.complete(userId, FastApiJobType.TRAINING, jobId, null);
 
         // EMS 플레이리스트 3개 생성 및 평가 요청
         List<EmsPlaylistResponseDto> createdPlaylists = makeEmsPlaylistsForRecommend(userId, 3);
@@ -107,6 +102,10 @@ public class GmsRecommendServiceImpl implements GmsRecommendService {
                 .map(RecommendTracksRequestDto.TrackDto::getTrackId)
                 .collect(Collectors.toList());
 
+        // 평가 결과 수신 = 평가 작업 완료
+        fastApiJobDispatcher.complete(request.getUserId(), FastApiJobType.EVALUATION, request.getJobId(),
+                "추천 트랙 " + trackIds.size() + "개");
+
         return RecommendTracksResponseDto.builder()
                 .userId(request.getUserId())
                 .trackCount(trackIds.size())
@@ -125,26 +124,11 @@ public class GmsRecommendServiceImpl implements GmsRecommendService {
     }
 
     /**
-     * FastAPI에 EMS 플레이리스트 평가 요청
+     * FastAPI에 EMS 플레이리스트 평가 요청 (커밋 이후 비동기 전송)
      */
     private void callFastApiEvaluation(Long userId) {
-        try {
-            String url = fastApiUrl + "/api/v1/evaluation/start";
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-
-            Map<String, Object> body = new HashMap<>();
-            body.put("userId", userId);
-
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(body, headers);
-
-            log.info("FastAPI 평가 요청 - url: {}, userId: {}", url, userId);
-            restTemplate.postForEntity(url, request, String.class);
-
-        } catch (Exception e) {
-            log.error("FastAPI 평가 요청 실패 - userId: {}, error: {}", userId, e.getMessage());
-            // 실패해도 예외를 던지지 않고 로그만 기록 (비동기 처리 권장)
-        }
+        Map<String, Object> body = new HashMap<>();
+        body.put("userId", userId);
+        fastApiJobDispatcher.submit(FastApiJobType.EVALUATION, userId, body);
     }
 }
@@ -0,0 +1,291 @@
+package com.springboot.finalprojcet.domain.itunes.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.springboot.finalprojcet.domain.common.resilience.ProviderGuards;
+import com.springboot.finalprojcet.domain.common.resilience.ProviderUnavailableException;
+import com.springboot.finalprojcet.domain.itunes.dto.ItunesItem;
+import com.springboot.finalprojcet.domain.itunes.dto.ItunesSearchResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The one place that talks to the iTunes Search API.
+ * Responses are cached by normalized query, and concurrent identical lookups are coalesced so
+ * they share a single upstream call (the first caller fetches, the rest wait on its result).
+ * Upstream calls go through the iTunes {@link com.springboot.finalprojcet.domain.common.resilience.ProviderGuard}.
+ */
+@Component
+@Slf4j
+public class ItunesClient {
+
+    private static final String ITUNES_API_URL = "https://itunes.apple.com";
+    private static final int TRACK_MATCH_LIMIT = 3;
+
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
+    private final ProviderGuards providerGuards;
+    private final AsyncCache<String, List<ItunesItem>> cache;
+    private final long awaitTimeoutMs;
+
+    private final Counter hits;
+    private final Counter coalesced;
+    private final Counter misses;
+    private final Counter upstreamCalls;
+    private final RateWindow upstreamRate = new RateWindow(60);
+
+    public ItunesClient(RestTemplate restTemplate, ObjectMapper objectMapper, ProviderGuards providerGuards,
+            MeterRegistry meterRegistry,
+            @Value("${itunes.cache.max-size:10000}") long maxSize,
+            @Value("${itunes.cache.ttl-minutes:30}") long ttlMinutes,
+            @Value("${itunes.client.await-timeout-ms:30000}") long awaitTimeoutMs) {
+        this.restTemplate = restTemplate;
+        this.objectMapper = objectMapper;
+        this.providerGuards = providerGuards;
+        this.awaitTimeoutMs = awaitTimeoutMs;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .buildAsync();
+
+        this.hits = Counter.builder("itunes.client.requests").tag("result", "hit").register(meterRegistry);
+        this.coalesced = Counter.builder("itunes.client.requests").tag("result", "coalesced").register(meterRegistry);
+        this.misses = Counter.builder("itunes.client.requests").tag("result", "miss").register(meterRegistry);
+        this.upstreamCalls = Counter.builder("itunes.client.upstream").register(meterRegistry);
+        Gauge.builder("itunes.client.hit.ratio", this, ItunesClient::hitRatio).register(meterRegistry);
+        Gauge.builder("itunes.client.upstream.qps", upstreamRate, RateWindow::perSecond).register(meterRegistry);
+    }
+
+    /**
+     * /search - {@code attribute} may be null.
+     */
+    public List<ItunesItem> search(String term, String country, String entity, String attribute, int limit) {
+        return search(term, country, entity, attribute, limit, -1);
+    }
+
+    /**
+     * /lookup by collection or track id.
+     */
+    public List<ItunesItem> lookup(String id, String entity, String country) {
+        String key = "lookup|" + id + "|" + entity + "|" + normalizeCountry(country);
+        UriComponentsBuilder uri = UriComponentsBuilder.fromUriString(ITUNES_API_URL + "/lookup")
+                .queryParam("id", id)
+                .queryParam("entity", entity)
+                .queryParam("country", normalizeCountry(country));
+        return get(key, uri, -1);
+    }
+
+    /**
+     * Best song match for a title/artist pair: exact (case-insensitive) title first, otherwise the top result.
+     * Returns null when nothing matches.
+     */
+    public ItunesItem findTrack(String title, String artist) {
+        return findTrack(title, artist, -1, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Same as {@link #findTrack(String, String)} with an explicit rate-limit wait budget for background jobs.
+     */
+    public ItunesItem findTrack(String title, String artist, long maxWait, TimeUnit unit) {
+        if (title == null || artist == null)
+            return null;
+        String term = cleanTerm(title + " " + artist);
+        if (term.length() < 3)
+            return null;
+
+        List<ItunesItem> results = search(term, "KR", "song", null, TRACK_MATCH_LIMIT,
+                maxWait < 0 ? -1 : unit.toMillis(maxWait));
+        if (results.isEmpty())
+            return null;
+        for (ItunesItem item : results) {
+            if (item.getTrackName() != null && item.getTrackName().equalsIgnoreCase(title)) {
+                return item;
+            }
+        }
+        return results.get(0);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", (long) hits.count());
+        stats.put("coalesced", (long) coalesced.count());
+        stats.put("misses", (long) misses.count());
+        stats.put("hitRatio", hitRatio());
+        stats.put("upstreamCalls", (long) upstreamCalls.count());
+        stats.put("upstreamQps", upstreamRate.perSecond());
+        stats.put("cachedQueries", cache.synchronous().estimatedSize());
+        return stats;
+    }
+
+    // ===== internals =====
+
+    private List<ItunesItem> search(String term, String country, String entity, String attribute, int limit,
+            long maxWaitMs) {
+        String normalized = normalizeTerm(term);
+        if (normalized.isEmpty()) {
+            throw new IllegalArgumentException("Search term is required");
+        }
+        String cc = normalizeCountry(country);
+        String key = "search|" + normalized + "|" + cc + "|" + entity + "|" + attribute + "|" + limit;
+        UriComponentsBuilder uri = UriComponentsBuilder.fromUriString(ITUNES_API_URL + "/search")
+                .queryParam("term", normalized)
+                .queryParam("limit", limit)
+                .queryParam("country", cc)
+                .queryParam("media", "music")
+                .queryParam("entity", entity);
+        if (attribute != null)
+            uri.queryParam("attribute", attribute);
+        return get(key, uri, maxWaitMs);
+    }
+
+    private List<ItunesItem> get(String key, UriComponentsBuilder uri, long maxWaitMs) {
+        CompletableFuture<List<ItunesItem>> promise = new CompletableFuture<>();
+        CompletableFuture<List<ItunesItem>> existing = cache.asMap().putIfAbsent(key, promise);
+        if (existing != null) {
+            (existing.isDone() ? hits : coalesced).increment();
+            return await(existing, maxWaitMs);
+        }
+
+        // We own the key: fetch and publish to everyone waiting on it
+        misses.increment();
+        List<ItunesItem> result = null;
+        Throwable failure = null;
+        try {
+            result = fetch(uri.encode().build().toUri(), maxWaitMs);
+            return result;
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            // Settle the promise on every path (Errors included) or the coalesced waiters hang.
+            // Failed futures are evicted, so the next caller retries upstream
+            if (failure == null)
+                promise.complete(result);
+            else
+                promise.completeExceptionally(failure);
+        }
+    }
+
+    private List<ItunesItem> fetch(URI uri, long maxWaitMs) {
+        for (int attempt = 0;; attempt++) {
+            try {
+                upstreamCalls.increment();
+                upstreamRate.record();
+                String body = maxWaitMs < 0
+                        ? providerGuards.itunes().call(() -> restTemplate.getForObject(uri, String.class))
+                        : providerGuards.itunes().call(() -> restTemplate.getForObject(uri, String.class),
+                                maxWaitMs, TimeUnit.MILLISECONDS);
+                return parse(body);
+            } catch (HttpClientErrorException.TooManyRequests e) {
+                // Guard paused the bucket for Retry-After; one retry, then report unavailable
+                if (attempt >= 1)
+                    throw new ProviderUnavailableException(ProviderGuards.ITUNES, "rate limited");
+            }
+        }
+    }
+
+    private List<ItunesItem> parse(String body) {
+        if (body == null || body.isBlank())
+            return List.of();
+        try {
+            ItunesSearchResponse response = objectMapper.readValue(body, ItunesSearchResponse.class);
+            return response.getResults() != null ? List.copyOf(response.getResults()) : List.of();
+        } catch (IOException e) {
+            throw new RuntimeException("Unreadable iTunes response: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Waits for another caller's in-flight lookup, at most {@code itunes.client.await-timeout-ms}
+     * (or the caller's own budget if that is longer). The shared future is left untouched on timeout.
+     */
+    private List<ItunesItem> await(CompletableFuture<List<ItunesItem>> future, long maxWaitMs) {
+        try {
+            return future.get(Math.max(awaitTimeoutMs, maxWaitMs), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            if (e.getCause() instanceof Error cause)
+                throw cause;
+            throw new CompletionException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new ProviderUnavailableException(ProviderGuards.ITUNES, "in-flight lookup timed out");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProviderUnavailableException(ProviderGuards.ITUNES, "interrupted");
+        }
+    }
+
+    // Same cleanup the old per-service lookups used, so "Title (feat. X)" and "Title - X" share a key
+    static String cleanTerm(String term) {
+        return term.replaceAll("[^a-zA-Z0-9가-힣\\s]", " ")
+                .replaceAll("\\s+", " ")
+                .trim();
+    }
+
+    // iTunes search is case-insensitive - fold case and whitespace for the cache key and the query itself
+    static String normalizeTerm(String term) {
+        return term == null ? "" : term.toLowerCase(Locale.ROOT).replaceAll("\\s+", " ").trim();
+    }
+
+    private static String normalizeCountry(String country) {
+        return country == null || country.isBlank() ? "US" : country.toUpperCase(Locale.ROOT);
+    }
+
+    private double hitRatio() {
+        double served = hits.count() + coalesced.count();
+        double total = served + misses.count();
+        return total == 0 ? 0.0 : served / total;
+    }
+
+    /**
+     * Events per second over the last {@code seconds} seconds, bucketed per second.
+     */
+    private static class RateWindow {
+        private final long[] counts;
+        private final long[] stamps;
+
+        RateWindow(int seconds) {
+            this.counts = new long[seconds];
+            this.stamps = new long[seconds];
+        }
+
+        synchronized void record() {
+            long second = System.currentTimeMillis() / 1000;
+            int slot = (int) (second % counts.length);
+            if (stamps[slot] != second) {
+                stamps[slot] = second;
+                counts[slot] = 0;
+            }
+            counts[slot]++;
+        }
+
+        synchronized double perSecond() {
+            long now = System.currentTimeMillis() / 1000;
+            long total = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if (now - stamps[i] < counts.length)
+                    total += counts[i];
+            }
+            return (double) total / counts.length;
+        }
+    }
+}
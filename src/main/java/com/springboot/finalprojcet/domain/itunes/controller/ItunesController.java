@@ -47,4 +47,10 @@ public class ItunesController {
             return ResponseEntity.notFound().build();
         }
     }
+
+    @GetMapping("/stats")
+    @Operation(summary = "iTunes 클라이언트 통계", description = "검색 캐시 적중률과 upstream 호출 수(QPS)를 조회합니다.")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(itunesService.getClientStats());
+    }
 }
@@ -0,0 +1,38 @@
+package com.springboot.finalprojcet.domain.itunes.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * One entry of an iTunes Search / Lookup response. Only the fields we use are bound.
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ItunesItem {
+    private String wrapperType;
+    private Long trackId;
+    private String trackName;
+    private String artistName;
+    private Long collectionId;
+    private String collectionName;
+    private String artworkUrl100;
+    private String previewUrl;
+    private String trackViewUrl;
+    private String collectionViewUrl;
+    private String releaseDate;
+    private String primaryGenreName;
+    private Long trackTimeMillis;
+    private Integer trackNumber;
+    private Integer trackCount;
+
+    // 600x600 artwork instead of the 100x100 thumbnail
+    public String getArtworkLarge() {
+        return artworkUrl100 != null ? artworkUrl100.replace("100x100", "600x600") : null;
+    }
+}
@@ -0,0 +1,17 @@
+package com.springboot.finalprojcet.domain.itunes.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ItunesSearchResponse {
+    private Integer resultCount;
+    private List<ItunesItem> results;
+}
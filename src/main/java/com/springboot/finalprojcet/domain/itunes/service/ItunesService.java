@@ -8,4 +8,6 @@ public interface ItunesService {
     Map<String, Object> getRecommendations(String country, int limit, String genre);
 
     Map<String, Object> getAlbumDetails(String id, String country);
+
+    Map<String, Object> getClientStats();
 }
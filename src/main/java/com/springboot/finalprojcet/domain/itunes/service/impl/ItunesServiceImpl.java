@@ -1,17 +1,21 @@
 package com.springboot.finalprojcet.domain.itunes.service.impl;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.springboot.finalprojcet.domain.common.concurrent.FanOut;
+import com.springboot.finalprojcet.domain.common.resilience.ProviderUnavailableException;
+import com.springboot.finalprojcet.domain.itunes.client.ItunesClient;
+import com.springboot.finalprojcet.domain.itunes.dto.ItunesItem;
 import com.springboot.finalprojcet.domain.itunes.service.ItunesService;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.web.util.UriComponentsBuilder;
 
+import java.time.Duration;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
 @Service
@@ -19,9 +23,28 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ItunesServiceImpl implements ItunesService {
 
-    private final ObjectMapper objectMapper;
-    private final RestTemplate restTemplate = new RestTemplate();
-    private static final String ITUNES_API_URL = "https://itunes.apple.com";
+    private final ItunesClient itunesClient;
+    private final ExecutorService itunesFanoutPool;
+
+    @Value("${itunes.recommendations.deadline-ms:2500}")
+    private long recommendationDeadlineMs;
+
+    @Value("${itunes.recommendations.cache-ttl-minutes:10}")
+    private long recommendationCacheTtlMinutes;
+
+    private static final List<String> DEFAULT_RECOMMENDATION_QUERIES =
+            List.of("K-Pop", "Top Hits", "Pop", "New Music", "Jazz");
+
+    // Deduped albums per country + genre
+    private Cache<String, List<Map<String, Object>>> recommendationCache;
+
+    @PostConstruct
+    void initRecommendationCache() {
+        recommendationCache = Caffeine.newBuilder()
+                .maximumSize(1_000)
+                .expireAfterWrite(Duration.ofMinutes(recommendationCacheTtlMinutes))
+                .build();
+    }
 
     @Override
     public Map<String, Object> searchMusic(String term, int limit, String country, String entity) {
@@ -29,40 +52,26 @@ public class ItunesServiceImpl implements ItunesService {
             throw new IllegalArgumentException("Search term is required");
         }
 
-        String url = UriComponentsBuilder.fromHttpUrl(ITUNES_API_URL + "/search")
-                .queryParam("term", term)
-                .queryParam("limit", limit)
-                .queryParam("country", country)
-                .queryParam("media", "music")
-                .queryParam("entity", entity)
-                .toUriString();
-
         try {
-            String response = restTemplate.getForObject(url, String.class);
-            Map<String, Object> data = objectMapper.readValue(response, new TypeReference<>() {
-            });
-            List<Map<String, Object>> resultsList = (List<Map<String, Object>>) data.get("results");
-
-            if (resultsList == null)
-                resultsList = Collections.emptyList();
-
-            List<Map<String, Object>> transformed = resultsList.stream().map(item -> {
-                Map<String, Object> map = new HashMap<>();
-                map.put("id", item.get("trackId"));
-                map.put("title", item.get("trackName"));
-                map.put("artist", item.get("artistName"));
-                map.put("album", item.get("collectionName"));
-                String artwork = (String) item.get("artworkUrl100");
-                if (artwork != null)
-                    artwork = artwork.replace("100x100", "600x600");
-                map.put("artwork", artwork);
-                map.put("audio", item.get("previewUrl"));
-                map.put("url", item.get("trackViewUrl"));
-                map.put("date", item.get("releaseDate"));
-                return map;
-            }).collect(Collectors.toList());
+            List<Map<String, Object>> transformed = itunesClient.search(term, country, entity, null, limit).stream()
+                    .map(item -> {
+                        Map<String, Object> map = new HashMap<>();
+                        map.put("id", item.getTrackId());
+                        map.put("title", item.getTrackName());
+                        map.put("artist", item.getArtistName());
+                        map.put("album", item.getCollectionName());
+                        map.put("artwork", item.getArtworkLarge());
+                        map.put("audio", item.getPreviewUrl());
+                        map.put("url", item.getTrackViewUrl());
+                        map.put("date", item.getReleaseDate());
+                        return map;
+                    }).collect(Collectors.toList());
 
             return Map.of("results", transformed);
+        } catch (ProviderUnavailableException e) {
+            // iTunes degraded - empty result instead of a 500
+            log.warn("iTunes search skipped: {}", e.getMessage());
+            return Map.of("results", Collections.emptyList(), "degraded", true);
         } catch (Exception e) {
             log.error("iTunes Search Error", e);
             throw new RuntimeException("iTunes API Error: " + e.getMessage());
@@ -73,64 +82,62 @@ public class ItunesServiceImpl implements ItunesService {
     public Map<String, Object> getRecommendations(String country, int limit, String genre) {
         List<String> queries = (genre != null && !genre.isEmpty())
                 ? Collections.singletonList(genre)
-                : Arrays.asList("K-Pop", "Top Hits", "Pop", "New Music", "Jazz");
-
-        List<CompletableFuture<List<Map<String, Object>>>> futures = queries.stream()
-                .map(query -> CompletableFuture.supplyAsync(() -> fetchRecommendationsForQuery(query, country)))
-                .collect(Collectors.toList());
-
-        List<Map<String, Object>> validResults = new ArrayList<>();
-        Set<Object> seenIds = new HashSet<>();
+                : DEFAULT_RECOMMENDATION_QUERIES;
+
+        String cacheKey = (country != null ? country.toUpperCase(Locale.ROOT) : "") + "|"
+                + (genre != null && !genre.isEmpty() ? genre.toLowerCase(Locale.ROOT) : "*");
+        List<Map<String, Object>> albums = recommendationCache.getIfPresent(cacheKey);
+        boolean partial = false;
+
+        if (albums == null) {
+            // One query per genre on the dedicated pool; whatever is back by the deadline is served
+            FanOut.Result<String, List<ItunesItem>> result = FanOut.run(queries,
+                    query -> itunesClient.search(query, country, "album", "albumTerm", 5),
+                    itunesFanoutPool, Duration.ofMillis(recommendationDeadlineMs));
+            if (result.isPartial()) {
+                log.warn("iTunes recommendations partial - timed out: {}, failed: {}",
+                        result.timedOut(), result.failed());
+            }
 
-        futures.forEach(future -> {
-            try {
-                List<Map<String, Object>> results = future.get(); // Blocking for simplicity in this step, or use join
-                for (Map<String, Object> item : results) {
-                    Object collectionId = item.get("collectionId");
-                    if (collectionId != null && seenIds.add(collectionId)) {
-                        Map<String, Object> map = new HashMap<>();
-                        map.put("id", collectionId);
-                        map.put("title", item.get("collectionName"));
-                        map.put("artist", item.get("artistName"));
-                        String artwork = (String) item.get("artworkUrl100");
-                        if (artwork != null)
-                            artwork = artwork.replace("100x100", "600x600");
-                        map.put("artwork", artwork);
-                        map.put("count", item.get("trackCount"));
-                        map.put("genre", item.get("primaryGenreName"));
-                        map.put("date", item.get("releaseDate"));
-                        map.put("link", item.get("collectionViewUrl"));
-                        validResults.add(map);
-                    }
-                }
-            } catch (Exception e) {
-                log.warn("Failed to fetch recs", e);
+            albums = toAlbums(result.completed().values());
+            partial = result.isPartial();
+            // Only complete results are cached, so a slow moment is not pinned for the whole TTL
+            if (!partial) {
+                recommendationCache.put(cacheKey, albums);
             }
-        });
+        }
 
-        Collections.shuffle(validResults);
-        List<Map<String, Object>> limited = validResults.stream().limit(limit * 2L).collect(Collectors.toList());
+        List<Map<String, Object>> shuffled = new ArrayList<>(albums);
+        Collections.shuffle(shuffled);
+        List<Map<String, Object>> limited = shuffled.stream().limit(limit * 2L).collect(Collectors.toList());
 
-        return Map.of("recommendations", limited);
+        return partial
+                ? Map.of("recommendations", limited, "partial", true)
+                : Map.of("recommendations", limited);
     }
 
-    private List<Map<String, Object>> fetchRecommendationsForQuery(String query, String country) {
-        String url = UriComponentsBuilder.fromHttpUrl(ITUNES_API_URL + "/search")
-                .queryParam("term", query)
-                .queryParam("limit", 5)
-                .queryParam("country", country)
-                .queryParam("media", "music")
-                .queryParam("entity", "album")
-                .queryParam("attribute", "albumTerm")
-                .toUriString();
-        try {
-            String response = restTemplate.getForObject(url, String.class);
-            Map<String, Object> data = objectMapper.readValue(response, new TypeReference<>() {
-            });
-            return (List<Map<String, Object>>) data.get("results");
-        } catch (Exception e) {
-            return Collections.emptyList();
+    // Dedupe by album across queries
+    private List<Map<String, Object>> toAlbums(Collection<List<ItunesItem>> resultsPerQuery) {
+        List<Map<String, Object>> albums = new ArrayList<>();
+        Set<Long> seenIds = new HashSet<>();
+        for (List<ItunesItem> results : resultsPerQuery) {
+            for (ItunesItem item : results) {
+                Long collectionId = item.getCollectionId();
+                if (collectionId != null && seenIds.add(collectionId)) {
+                    Map<String, Object> map = new HashMap<>();
+                    map.put("id", collectionId);
+                    map.put("title", item.getCollectionName());
+                    map.put("artist", item.getArtistName());
+                    map.put("artwork", item.getArtworkLarge());
+                    map.put("count", item.getTrackCount());
+                    map.put("genre", item.getPrimaryGenreName());
+                    map.put("date", item.getReleaseDate());
+                    map.put("link", item.getCollectionViewUrl());
+                    albums.add(Collections.unmodifiableMap(map));
+                }
+            }
         }
+        return List.copyOf(albums);
     }
 
     @Override
@@ -150,48 +157,45 @@ public class ItunesServiceImpl implements ItunesService {
     }
 
     private Map<String, Object> fetchAlbumData(String id, String country) {
-        String url = UriComponentsBuilder.fromHttpUrl(ITUNES_API_URL + "/lookup")
-                .queryParam("id", id)
-                .queryParam("entity", "song")
-                .queryParam("country", country)
-                .toUriString();
         try {
-            String response = restTemplate.getForObject(url, String.class);
-            Map<String, Object> data = objectMapper.readValue(response, new TypeReference<>() {
-            });
-            List<Map<String, Object>> results = (List<Map<String, Object>>) data.get("results");
+            List<ItunesItem> results = itunesClient.lookup(id, "song", country);
 
-            if (results == null || results.isEmpty())
+            if (results.isEmpty())
                 return null;
 
-            Map<String, Object> collection = results.get(0);
+            ItunesItem collection = results.get(0);
             List<Map<String, Object>> tracks = results.stream().skip(1).map(item -> {
                 Map<String, Object> t = new HashMap<>();
-                t.put("id", item.get("trackId"));
-                t.put("title", item.get("trackName"));
-                t.put("artist", item.get("artistName"));
-                t.put("album", item.get("collectionName"));
-                String artwork = (String) item.get("artworkUrl100");
-                if (artwork != null)
-                    artwork = artwork.replace("100x100", "600x600");
-                t.put("artwork", artwork);
-                t.put("audio", item.get("previewUrl"));
-                t.put("url", item.get("trackViewUrl"));
-                t.put("duration", ((Number) item.get("trackTimeMillis")).longValue() / 1000);
-                t.put("trackNumber", item.get("trackNumber"));
+                t.put("id", item.getTrackId());
+                t.put("title", item.getTrackName());
+                t.put("artist", item.getArtistName());
+                t.put("album", item.getCollectionName());
+                t.put("artwork", item.getArtworkLarge());
+                t.put("audio", item.getPreviewUrl());
+                t.put("url", item.getTrackViewUrl());
+                t.put("duration", item.getTrackTimeMillis() != null ? item.getTrackTimeMillis() / 1000 : 0L);
+                t.put("trackNumber", item.getTrackNumber());
                 return t;
             }).collect(Collectors.toList());
 
             Map<String, Object> album = new HashMap<>();
-            album.put("id", collection.get("collectionId"));
-            album.put("title", collection.get("collectionName"));
-            album.put("artist", collection.get("artistName"));
-            album.put("trackCount", collection.get("trackCount"));
+            album.put("id", collection.getCollectionId());
+            album.put("title", collection.getCollectionName());
+            album.put("artist", collection.getArtistName());
+            album.put("trackCount", collection.getTrackCount());
             album.put("tracks", tracks);
 
             return album;
+        } catch (ProviderUnavailableException e) {
+            // Not "album not found" - let the caller see the provider is down
+            throw e;
         } catch (Exception e) {
             return null;
         }
     }
+
+    @Override
+    public Map<String, Object> getClientStats() {
+        return itunesClient.stats();
+    }
 }
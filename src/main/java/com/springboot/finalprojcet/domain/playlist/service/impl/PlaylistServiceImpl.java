@@ -1,7 +1,8 @@
 package com.springboot.finalprojcet.domain.playlist.service.impl;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.finalprojcet.domain.analysis.store.TasteProfileStore;
+import com.springboot.finalprojcet.domain.common.event.LibraryChangedEvent;
 import com.springboot.finalprojcet.domain.common.service.ImageService;
 import com.springboot.finalprojcet.domain.gms.repository.PlaylistRepository;
 import com.springboot.finalprojcet.domain.playlist.dto.PlaylistRequestDto;
@@ -12,6 +13,7 @@ import com.springboot.finalprojcet.domain.playlist.repository.UserDismissedPlayl
 import com.springboot.finalprojcet.domain.playlist.service.PlaylistService;
 import com.springboot.finalprojcet.domain.tidal.repository.PlaylistTracksRepository;
 import com.springboot.finalprojcet.domain.tidal.repository.TracksRepository;
+import com.springboot.finalprojcet.domain.track.search.TrackSearchIndex;
 import com.springboot.finalprojcet.domain.user.repository.UserRepository;
 import com.springboot.finalprojcet.entity.PlaylistTracks;
 import com.springboot.finalprojcet.entity.Playlists;
@@ -23,11 +25,10 @@ import com.springboot.finalprojcet.enums.SpaceType;
 import com.springboot.finalprojcet.enums.StatusFlag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.*;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -48,7 +49,9 @@ public class PlaylistServiceImpl implements PlaylistService {
     private final UserDismissedPlaylistRepository dismissedPlaylistRepository;
     private final ImageService imageService;
     private final ObjectMapper objectMapper;
-    private final RestTemplate restTemplate;
+    private final TasteProfileStore tasteProfileStore;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TrackSearchIndex trackSearchIndex;
 
     @Override
     @Transactional(readOnly = true)
@@ -129,53 +132,6 @@ public class PlaylistServiceImpl implements PlaylistService {
         return dto;
     }
 
-    private Integer fetchDurationFromItunes(String title, String artist) {
-        try {
-            if (title == null || artist == null)
-                return null;
-
-            String searchTerm = (title + " " + artist)
-                    .replaceAll("[^a-zA-Z0-9가-힣\\s]", " ")
-                    .replaceAll("\\s+", " ")
-                    .trim();
-
-            if (searchTerm.length() < 3)
-                return null;
-
-            String encodedTerm = java.net.URLEncoder.encode(searchTerm, java.nio.charset.StandardCharsets.UTF_8);
-            String url = "https://itunes.apple.com/search?term=" + encodedTerm
-                    + "&media=music&entity=song&limit=3&country=KR";
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("Accept", "*/*");
-
-            HttpEntity<Void> entity = new HttpEntity<>(headers);
-            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
-
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                JsonNode body = objectMapper.readTree(response.getBody());
-                JsonNode results = body.path("results");
-
-                if (results.isArray() && results.size() > 0) {
-                    // Find best match
-                    for (JsonNode track : results) {
-                        String trackName = track.path("trackName").asText("").toLowerCase();
-                        if (trackName.equals(title.toLowerCase())) {
-                            int durationMs = track.path("trackTimeMillis").asInt(0);
-                            return durationMs / 1000;
-                        }
-                    }
-                    // No exact match, use first result
-                    int durationMs = results.get(0).path("trackTimeMillis").asInt(0);
-                    return durationMs / 1000;
-                }
-            }
-        } catch (Exception e) {
-            log.debug("[PlaylistService] iTunes lookup failed for '{}': {}", title, e.getMessage());
-        }
-        return null;
-    }
-
     @Override
     @Transactional
     public PlaylistResponseDto createPlaylist(Long userId, PlaylistRequestDto request) {
@@ -194,6 +150,7 @@ public class PlaylistServiceImpl implements PlaylistService {
                 .build();
 
         Playlists saved = playlistRepository.save(playlist);
+        tasteProfileStore.onPlaylistAdded(saved);
 
         // Download and save image locally
         if (request.getCoverImage() != null && request.getCoverImage().startsWith("http")) {
@@ -215,9 +172,13 @@ public class PlaylistServiceImpl implements PlaylistService {
         Playlists playlist = playlistRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Playlist not found"));
 
+        String oldTitle = playlist.getTitle();
+        String oldDescription = playlist.getDescription();
+
         playlist.setTitle(request.getTitle());
         if (request.getDescription() != null)
             playlist.setDescription(request.getDescription());
+        tasteProfileStore.onPlaylistRenamed(playlist, oldTitle, oldDescription);
         // Could update others if needed
 
         return convertToDto(playlist);
@@ -237,6 +198,19 @@ public class PlaylistServiceImpl implements PlaylistService {
     public Map<String, Object> movePlaylist(Long id, SpaceType spaceType) {
         Playlists playlist = playlistRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Playlist not found"));
+
+        // PMS 진입/이탈 시 취향 카운터 반영
+        if (playlist.getSpaceType() != spaceType
+                && (playlist.getSpaceType() == SpaceType.PMS || spaceType == SpaceType.PMS)) {
+            List<Tracks> linkedTracks = playlistTracksRepository.findAllWithTrackByPlaylistId(id).stream()
+                    .map(PlaylistTracks::getTrack)
+                    .collect(Collectors.toList());
+            tasteProfileStore.onTracksRemoved(playlist, linkedTracks);
+            tasteProfileStore.onPlaylistRemoved(playlist);
+            playlist.setSpaceType(spaceType);
+            tasteProfileStore.onTracksAdded(playlist, linkedTracks);
+            tasteProfileStore.onPlaylistAdded(playlist);
+        }
         playlist.setSpaceType(spaceType);
 
         // 커버 이미지 없으면 앞에서 4개 트랙 artwork로 합성
@@ -273,7 +247,7 @@ public class PlaylistServiceImpl implements PlaylistService {
     }
 
     @Override
-    @Transactional
+    @Transactional(timeoutString = "${playlists.tx-timeout-seconds:60}")
     public void deletePlaylist(Long id, Long userId) {
         Playlists playlist = playlistRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Playlist not found"));
@@ -289,11 +263,20 @@ public class PlaylistServiceImpl implements PlaylistService {
             }
         }
 
+        if (playlist.getSpaceType() == SpaceType.PMS) {
+            tasteProfileStore.onTracksRemoved(playlist, playlistTracksRepository.findAllWithTrackByPlaylistId(id)
+                    .stream().map(PlaylistTracks::getTrack).collect(Collectors.toList()));
+            tasteProfileStore.onPlaylistRemoved(playlist);
+        } else if (playlist.getUser() != null) {
+            eventPublisher.publishEvent(new LibraryChangedEvent(playlist.getUser().getUserId()));
+        }
+
+        playlistTracksRepository.deleteAllByPlaylistId(id);
         playlistRepository.deleteById(id);
     }
 
     @Override
-    @Transactional
+    @Transactional(timeoutString = "${playlists.tx-timeout-seconds:60}")
     public Map<String, Object> addTrackToPlaylist(Long id, TrackRequestDto trackDto) {
         Playlists playlist = playlistRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Playlist not found"));
@@ -347,21 +330,27 @@ public class PlaylistServiceImpl implements PlaylistService {
                 .build();
 
         playlistTracksRepository.save(pt);
+        tasteProfileStore.onTracksAdded(playlist, List.of(track));
 
         return Map.of("message", "Track added", "trackId", track.getTrackId(), "order", newOrder);
     }
 
     @Override
-    @Transactional
+    @Transactional(timeoutString = "${playlists.tx-timeout-seconds:60}")
     public void removeTrackFromPlaylist(Long id, Long trackId) {
-        // Need to delete from PlaylistTracks where playlist_id = id AND track_id =
-        // trackId
-        // The repository method might need to be custom or use deleteBy...
-        // Assuming we can find it.
-        // playlistTracksRepository.deleteByPlaylistPlaylistIdAndTrackTrackId(id,
-        // trackId);
-        // Or fetch and delete.
-        // Let's assume generic logic for now.
+        Playlists playlist = playlistRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Playlist not found"));
+
+        List<Tracks> removed = playlistTracksRepository.findAllWithTrackByPlaylistId(id).stream()
+                .map(PlaylistTracks::getTrack)
+                .filter(t -> t.getTrackId().equals(trackId))
+                .collect(Collectors.toList());
+        if (removed.isEmpty()) {
+            return;
+        }
+
+        playlistTracksRepository.deleteByPlaylistPlaylistIdAndTrackTrackId(id, trackId);
+        tasteProfileStore.onTracksRemoved(playlist, removed);
     }
 
     private PlaylistResponseDto convertToDto(Playlists p) {
@@ -409,7 +398,7 @@ public class PlaylistServiceImpl implements PlaylistService {
     }
 
     @Override
-    @Transactional
+    @Transactional(timeoutString = "${playlists.tx-timeout-seconds:60}")
     public Map<String, Object> importAlbum(Long userId, Map<String, Object> data) {
         // 1. Create Playlist
         PlaylistRequestDto req = PlaylistRequestDto.builder()
@@ -465,11 +454,12 @@ public class PlaylistServiceImpl implements PlaylistService {
     public Map<String, Object> searchTracks(String query, int limit) {
         log.info("[PlaylistService] searchTracks - query={}, limit={}", query, limit);
 
-        // Search tracks by artist or title
-        List<Tracks> tracks = tracksRepository.findByArtistContainingIgnoreCaseOrTitleContainingIgnoreCase(
-                query, query, org.springframework.data.domain.PageRequest.of(0, limit * 2) // Fetch more to allow for
-                                                                                           // filtering
-        );
+        // Full-text index first (ranked by relevance + popularity); LIKE scan only until it is built
+        List<Tracks> tracks = trackSearchIndex.search(query, limit * 2); // Fetch more to allow for filtering
+        if (tracks == null) {
+            tracks = tracksRepository.findByArtistContainingIgnoreCaseOrTitleContainingIgnoreCase(
+                    query, query, org.springframework.data.domain.PageRequest.of(0, limit * 2));
+        }
 
         List<Map<String, Object>> trackList = new ArrayList<>();
         java.util.Set<String> seenKeys = new java.util.HashSet<>();
@@ -0,0 +1,138 @@
+package com.springboot.finalprojcet.domain.spotify.cache;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Two-level cache of Spotify artist genres keyed by artist id.
+ * L1 is a bounded in-memory LRU, L2 is Redis with a long TTL shared by every node.
+ * Artist genres rarely change, so a batch of tracks usually resolves without any /artists call.
+ */
+@Component
+@Slf4j
+public class ArtistGenreCache {
+
+    private static final String KEY_PREFIX = "spotify:artist:genres:";
+    private static final TypeReference<List<String>> GENRE_LIST = new TypeReference<>() {
+    };
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration redisTtl;
+    private final Cache<String, List<String>> local;
+
+    private final Counter l1Hits;
+    private final Counter l2Hits;
+    private final Counter misses;
+
+    public ArtistGenreCache(RedisTemplate<String, String> redisTemplate, ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${spotify.artist-cache.max-size:50000}") long maxSize,
+            @Value("${spotify.artist-cache.ttl-days:30}") long ttlDays) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.redisTtl = Duration.ofDays(ttlDays);
+        this.local = Caffeine.newBuilder().maximumSize(maxSize).build();
+
+        this.l1Hits = Counter.builder("spotify.artist.cache").tag("result", "l1_hit").register(meterRegistry);
+        this.l2Hits = Counter.builder("spotify.artist.cache").tag("result", "l2_hit").register(meterRegistry);
+        this.misses = Counter.builder("spotify.artist.cache").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("spotify.artist.cache.hit.ratio", this, ArtistGenreCache::hitRatio).register(meterRegistry);
+    }
+
+    /**
+     * Genres for the given artists. Misses are fetched in one call to loader and written to both levels;
+     * artists the loader does not return are cached with no genres so they are not requested again.
+     */
+    public Map<String, List<String>> getAll(Collection<String> artistIds,
+            Function<List<String>, Map<String, List<String>>> loader) {
+        Map<String, List<String>> result = new HashMap<>(local.getAllPresent(artistIds));
+        l1Hits.increment(result.size());
+
+        List<String> pending = artistIds.stream().distinct().filter(id -> !result.containsKey(id)).toList();
+        if (pending.isEmpty())
+            return result;
+
+        // L2
+        List<String> remote = redisTemplate.opsForValue().multiGet(pending.stream().map(id -> KEY_PREFIX + id).toList());
+        List<String> missing = new ArrayList<>();
+        for (int i = 0; i < pending.size(); i++) {
+            List<String> genres = remote != null ? parse(remote.get(i)) : null;
+            if (genres != null) {
+                result.put(pending.get(i), genres);
+                local.put(pending.get(i), genres);
+                l2Hits.increment();
+            } else {
+                missing.add(pending.get(i));
+            }
+        }
+        if (missing.isEmpty())
+            return result;
+
+        // Upstream
+        misses.increment(missing.size());
+        Map<String, List<String>> loaded = loader.apply(missing);
+        Map<String, String> writes = new HashMap<>();
+        for (String id : missing) {
+            List<String> genres = loaded.getOrDefault(id, List.of());
+            result.put(id, genres);
+            local.put(id, genres);
+            try {
+                writes.put(KEY_PREFIX + id, objectMapper.writeValueAsString(genres));
+            } catch (Exception e) {
+                log.warn("Failed to serialize genres for artist {}", id);
+            }
+        }
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                writes.forEach((key, value) -> ops.opsForValue().set(key, value, redisTtl));
+                return null;
+            }
+        });
+        return result;
+    }
+
+    public Map<String, Object> stats() {
+        return Map.of(
+                "l1Hits", (long) l1Hits.count(),
+                "l2Hits", (long) l2Hits.count(),
+                "misses", (long) misses.count(),
+                "hitRatio", hitRatio(),
+                "localSize", local.estimatedSize());
+    }
+
+    private double hitRatio() {
+        double hits = l1Hits.count() + l2Hits.count();
+        double total = hits + misses.count();
+        return total == 0 ? 0.0 : hits / total;
+    }
+
+    private List<String> parse(String json) {
+        if (json == null)
+            return null;
+        try {
+            return objectMapper.readValue(json, GENRE_LIST);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
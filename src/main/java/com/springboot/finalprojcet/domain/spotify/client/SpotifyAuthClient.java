@@ -0,0 +1,163 @@
+package com.springboot.finalprojcet.domain.spotify.client;
+
+import com.springboot.finalprojcet.domain.common.resilience.ProviderGuards;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Calls to the Spotify accounts service (token endpoint).
+ * The app-level client-credentials token is cached without locking: readers take the current
+ * token from an AtomicReference, and when it needs renewing exactly one caller fetches a new one
+ * while the others wait on the same future.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SpotifyAuthClient {
+
+    private static final String SPOTIFY_TOKEN_URL = "https://accounts.spotify.com/api/token";
+    // Renew a little before Spotify would reject the token
+    private static final long CLIENT_TOKEN_MARGIN_MS = 60_000;
+
+    private final RestTemplate restTemplate;
+    private final ProviderGuards providerGuards;
+
+    @Value("${spotify.client-id}")
+    private String clientId;
+
+    @Value("${spotify.client-secret}")
+    private String clientSecret;
+
+    private record ClientToken(String accessToken, long expiresAt) {
+        boolean validFor(long millis) {
+            return System.currentTimeMillis() + millis < expiresAt;
+        }
+    }
+
+    private final AtomicReference<ClientToken> clientToken = new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<ClientToken>> clientTokenRefresh = new AtomicReference<>();
+
+    /**
+     * authorization_code grant (PKCE). Returns the raw token response.
+     */
+    public Map<String, Object> exchangeCode(String code, String redirectUri, String codeVerifier) {
+        MultiValueMap<String, String> body = new LinkedMultiValueMap<>();
+        body.add("grant_type", "authorization_code");
+        body.add("code", code);
+        body.add("redirect_uri", redirectUri);
+        body.add("code_verifier", codeVerifier);
+        return postToken(body);
+    }
+
+    /**
+     * refresh_token grant. Spotify may omit refresh_token in the response - keep the old one then.
+     */
+    public Map<String, Object> refresh(String refreshToken) {
+        MultiValueMap<String, String> body = new LinkedMultiValueMap<>();
+        body.add("grant_type", "refresh_token");
+        body.add("refresh_token", refreshToken);
+        return postToken(body);
+    }
+
+    /**
+     * Client-credentials token for server-side lookups.
+     */
+    public String getClientToken() {
+        ClientToken current = clientToken.get();
+        if (current != null && current.validFor(CLIENT_TOKEN_MARGIN_MS)) {
+            return current.accessToken();
+        }
+        return refreshClientToken().accessToken();
+    }
+
+    /**
+     * Renews the client token ahead of time when it expires within {@code aheadMs} - called by the refresher
+     * so request threads normally never see an expired token.
+     */
+    public void refreshClientTokenIfExpiring(long aheadMs) {
+        ClientToken current = clientToken.get();
+        if (current != null && !current.validFor(aheadMs)) {
+            refreshClientToken();
+        }
+    }
+
+    // Single flight: the first caller fetches, concurrent callers join its future
+    private ClientToken refreshClientToken() {
+        while (true) {
+            CompletableFuture<ClientToken> inFlight = clientTokenRefresh.get();
+            if (inFlight != null) {
+                return await(inFlight);
+            }
+            CompletableFuture<ClientToken> mine = new CompletableFuture<>();
+            if (!clientTokenRefresh.compareAndSet(null, mine)) {
+                continue;
+            }
+            try {
+                // Someone may have finished a refresh between our read and the CAS
+                ClientToken current = clientToken.get();
+                if (current == null || !current.validFor(CLIENT_TOKEN_MARGIN_MS)) {
+                    current = requestClientToken();
+                    clientToken.set(current);
+                }
+                mine.complete(current);
+                return current;
+            } catch (RuntimeException e) {
+                mine.completeExceptionally(e);
+                throw e;
+            } finally {
+                clientTokenRefresh.set(null);
+            }
+        }
+    }
+
+    private ClientToken requestClientToken() {
+        try {
+            MultiValueMap<String, String> body = new LinkedMultiValueMap<>();
+            body.add("grant_type", "client_credentials");
+            Map<String, Object> response = postToken(body);
+            String accessToken = (String) response.get("access_token");
+            long expiresIn = ((Number) response.get("expires_in")).longValue();
+            return new ClientToken(accessToken, System.currentTimeMillis() + expiresIn * 1000);
+        } catch (Exception e) {
+            log.error("Failed to get Spotify Client Token", e);
+            throw new RuntimeException("Spotify Client Credentials Auth Failed");
+        }
+    }
+
+    private Map<String, Object> postToken(MultiValueMap<String, String> body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
+        String auth = clientId + ":" + clientSecret;
+        headers.setBasicAuth(Base64.getEncoder().encodeToString(auth.getBytes()));
+
+        Map<String, Object> response = providerGuards.spotify().call(() -> restTemplate.postForObject(
+                SPOTIFY_TOKEN_URL, new HttpEntity<>(body, headers), Map.class));
+        if (response == null)
+            throw new RuntimeException("Empty response from Spotify");
+        return response;
+    }
+
+    private static ClientToken await(CompletableFuture<ClientToken> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            throw e;
+        }
+    }
+}
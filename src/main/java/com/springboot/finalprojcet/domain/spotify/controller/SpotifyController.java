@@ -89,7 +89,7 @@ public class SpotifyController {
     }
 
     @PostMapping("/import")
-    @Operation(summary = "플레이리스트 가져오기", description = "Spotify 플레이리스트를 PMS로 가져옵니다.")
+    @Operation(summary = "플레이리스트 가져오기", description = "Spotify 플레이리스트를 PMS로 가져옵니다. spotify.import.max-tracks 제한에 걸리면 응답의 truncated가 true입니다.")
     public ResponseEntity<Map<String, Object>> importPlaylist(
             @RequestBody Map<String, Object> body,
             @AuthenticationPrincipal CustomUserDetails userDetails) { // Optional based on Auth config
@@ -0,0 +1,126 @@
+package com.springboot.finalprojcet.domain.spotify.job;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.finalprojcet.domain.spotify.client.SpotifyAuthClient;
+import com.springboot.finalprojcet.domain.spotify.store.SpotifyTokenStore;
+import com.springboot.finalprojcet.domain.spotify.store.SpotifyTokenStore.TokenInfo;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Renews Spotify user tokens shortly before they expire so request threads always find a valid
+ * access token in the store. Runs on every node; a per-visitor Redis lock makes sure a token is
+ * refreshed once, since Spotify may rotate the refresh token on each use.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SpotifyTokenRefresher {
+
+    private final SpotifyTokenStore tokenStore;
+    private final SpotifyAuthClient spotifyAuthClient;
+    private final ObjectMapper objectMapper;
+
+    @Value("${spotify.token.refresh-ahead-seconds:300}")
+    private long refreshAheadSeconds;
+
+    @Value("${spotify.token.refresh-batch:200}")
+    private int refreshBatch;
+
+    private static final Duration REFRESH_LOCK_TTL = Duration.ofSeconds(30);
+    private static final String INVALID_GRANT = "invalid_grant";
+
+    @Scheduled(initialDelayString = "${spotify.token.refresh-initial-delay-ms:30000}",
+            fixedDelayString = "${spotify.token.refresh-interval-ms:60000}")
+    public void refreshExpiring() {
+        long aheadMs = refreshAheadSeconds * 1000;
+        try {
+            spotifyAuthClient.refreshClientTokenIfExpiring(aheadMs);
+        } catch (Exception e) {
+            log.warn("[SpotifyToken] Client token refresh failed: {}", e.getMessage());
+        }
+
+        List<String> due = tokenStore.findExpiringBefore(System.currentTimeMillis() + aheadMs, refreshBatch);
+        int refreshed = 0;
+        for (String visitorId : due) {
+            try {
+                if (refresh(visitorId, aheadMs) != null)
+                    refreshed++;
+            } catch (Exception e) {
+                log.warn("[SpotifyToken] Refresh failed for {}: {}", visitorId, e.getMessage());
+            }
+        }
+        if (!due.isEmpty()) {
+            log.debug("[SpotifyToken] Refreshed {}/{} expiring tokens", refreshed, due.size());
+        }
+    }
+
+    /**
+     * Refreshes the visitor's token if it expires within {@code aheadMs}. Returns the current token
+     * (refreshed or not), or null when the visitor has no usable token any more.
+     * If another node holds the refresh lock, the stored token is returned as is.
+     */
+    public TokenInfo refresh(String visitorId, long aheadMs) {
+        String lockOwner = tokenStore.tryLockRefresh(visitorId, REFRESH_LOCK_TTL);
+        if (lockOwner == null) {
+            return tokenStore.getToken(visitorId);
+        }
+        try {
+            // Re-read under the lock - another node may have just refreshed it
+            TokenInfo info = tokenStore.getToken(visitorId);
+            if (info == null) {
+                tokenStore.removeToken(visitorId);
+                return null;
+            }
+            if (info.expiresAt - System.currentTimeMillis() > aheadMs || info.refreshToken == null) {
+                return info;
+            }
+
+            Map<String, Object> data;
+            try {
+                data = spotifyAuthClient.refresh(info.refreshToken);
+            } catch (HttpClientErrorException.BadRequest e) {
+                String error = oauthError(e);
+                if (!INVALID_GRANT.equals(error)) {
+                    // invalid_client etc. is our configuration, not the user's grant - keep them connected
+                    log.error("[SpotifyToken] Refresh rejected for {} with {}, keeping the token", visitorId, error);
+                    return info;
+                }
+                // invalid_grant: the user revoked access - drop the token, they have to reconnect
+                log.info("[SpotifyToken] Refresh token rejected for {}, disconnecting", visitorId);
+                tokenStore.removeToken(visitorId);
+                return null;
+            }
+
+            String newRefresh = (String) data.get("refresh_token");
+            TokenInfo refreshed = new TokenInfo((String) data.get("access_token"),
+                    newRefresh != null ? newRefresh : info.refreshToken,
+                    ((Number) data.get("expires_in")).longValue());
+            refreshed.connectedAt = info.connectedAt;
+            tokenStore.saveToken(visitorId, refreshed);
+            return refreshed;
+        } finally {
+            tokenStore.unlockRefresh(visitorId, lockOwner);
+        }
+    }
+
+    // RFC 6749 5.2 error code of a rejected token request, or null if the body has none
+    private String oauthError(HttpClientErrorException e) {
+        try {
+            JsonNode error = objectMapper.readTree(e.getResponseBodyAsString()).path("error");
+            return error.isTextual() ? error.asText() : null;
+        } catch (JsonProcessingException ex) {
+            return null;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.springboot.finalprojcet.domain.spotify.service;
 
+import java.util.List;
 import java.util.Map;
 
 public interface SpotifyService {
@@ -25,4 +26,11 @@ public interface SpotifyService {
     Map<String, Object> searchTrackByIsrc(String isrc);
 
     Map<String, Object> getAudioFeatures(String isrc);
+
+    // Batch endpoints (Client Credentials) - keyed by Spotify id, missing ids are omitted
+    Map<String, Map<String, Object>> getTracksBatch(List<String> spotifyIds);
+
+    Map<String, Map<String, Object>> getAudioFeaturesBatch(List<String> spotifyIds);
+
+    Map<String, List<String>> getArtistGenres(List<String> artistIds);
 }
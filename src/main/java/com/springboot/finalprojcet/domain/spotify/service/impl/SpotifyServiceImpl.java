@@ -4,12 +4,21 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.springboot.finalprojcet.domain.common.service.ImageService;
+import com.springboot.finalprojcet.domain.analysis.store.TasteProfileStore;
+import com.springboot.finalprojcet.domain.common.job.ArtworkDownloadJob;
+import com.springboot.finalprojcet.domain.common.resilience.ProviderGuards;
 import com.springboot.finalprojcet.domain.gms.repository.PlaylistRepository;
 import com.springboot.finalprojcet.domain.playlist.repository.UserDismissedPlaylistRepository;
+import com.springboot.finalprojcet.domain.spotify.cache.ArtistGenreCache;
+import com.springboot.finalprojcet.domain.spotify.client.SpotifyAuthClient;
+import com.springboot.finalprojcet.domain.spotify.job.SpotifyTokenRefresher;
 import com.springboot.finalprojcet.domain.spotify.service.SpotifyService;
+import com.springboot.finalprojcet.domain.spotify.store.SpotifyTokenStore;
+import com.springboot.finalprojcet.domain.spotify.store.SpotifyTokenStore.PkceContext;
+import com.springboot.finalprojcet.domain.spotify.store.SpotifyTokenStore.TokenInfo;
 import com.springboot.finalprojcet.domain.tidal.repository.PlaylistTracksRepository;
-import com.springboot.finalprojcet.domain.tidal.repository.TracksRepository;
+import com.springboot.finalprojcet.domain.track.resolver.TrackCandidate;
+import com.springboot.finalprojcet.domain.track.resolver.TrackIdentityResolver;
 import com.springboot.finalprojcet.entity.PlaylistTracks;
 import com.springboot.finalprojcet.entity.Playlists;
 import com.springboot.finalprojcet.entity.Tracks;
@@ -17,24 +26,30 @@ import com.springboot.finalprojcet.entity.Users;
 import com.springboot.finalprojcet.enums.SourceType;
 import com.springboot.finalprojcet.enums.SpaceType;
 import com.springboot.finalprojcet.enums.StatusFlag;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Service
 @RequiredArgsConstructor
@@ -43,50 +58,52 @@ public class SpotifyServiceImpl implements SpotifyService {
 
     private final PlaylistRepository playlistRepository;
     private final UserDismissedPlaylistRepository dismissedPlaylistRepository;
-    private final TracksRepository tracksRepository;
+    private final TrackIdentityResolver trackIdentityResolver;
     private final PlaylistTracksRepository playlistTracksRepository;
-    private final ImageService imageService;
+    private final ArtworkDownloadJob artworkDownloadJob;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
     private final ObjectMapper objectMapper;
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final TasteProfileStore tasteProfileStore;
+    private final ArtistGenreCache artistGenreCache;
+    private final RestTemplate restTemplate;
+    private final ProviderGuards providerGuards;
+    private final ExecutorService spotifyPagingPool;
+    private final SpotifyTokenStore tokenStore;
+    private final SpotifyAuthClient spotifyAuthClient;
+    private final SpotifyTokenRefresher tokenRefresher;
 
     @Value("${spotify.client-id}")
     private String clientId;
 
-    @Value("${spotify.client-secret}")
-    private String clientSecret;
+    @Value("${spotify.import.paging-concurrency:4}")
+    private int pagingConcurrency;
+
+    // 0 = no limit; a capped import reports truncated=true in its response
+    @Value("${spotify.import.max-tracks:0}")
+    private int maxImportTracks;
+
+    // Upper bound for one persisted batch - the training feed's settle window relies on it
+    @Value("${imports.batch-tx-timeout-seconds:30}")
+    private int importBatchTimeoutSeconds;
 
     private static final String SPOTIFY_AUTH_URL = "https://accounts.spotify.com/authorize";
-    private static final String SPOTIFY_TOKEN_URL = "https://accounts.spotify.com/api/token";
     private static final String SPOTIFY_API_URL = "https://api.spotify.com/v1";
 
-    // In-memory storage (Not suitable for production scale, but matches Node.js
-    // implementation)
-    private final Map<String, TokenInfo> userTokens = new ConcurrentHashMap<>();
-    private final Map<String, PkceContext> pkceContexts = new ConcurrentHashMap<>();
-
-    private static class TokenInfo {
-        String accessToken;
-        String refreshToken;
-        long expiresAt;
-        long connectedAt;
-
-        public TokenInfo(String accessToken, String refreshToken, long expiresIn) {
-            this.accessToken = accessToken;
-            this.refreshToken = refreshToken;
-            this.expiresAt = System.currentTimeMillis() + (expiresIn * 1000);
-            this.connectedAt = System.currentTimeMillis();
-        }
-    }
-
-    private static class PkceContext {
-        String codeVerifier;
-        String visitorId;
+    // Spotify batch endpoint limits
+    private static final int TRACKS_BATCH = 50;
+    private static final int AUDIO_FEATURES_BATCH = 100;
+    private static final int ARTISTS_BATCH = 50;
+    private static final int MAX_RATE_LIMIT_RETRIES = 3;
+    private static final int PLAYLIST_PAGE_SIZE = 100;
+    private static final int IMPORT_PERSIST_BATCH = 500;
+    private static final String PLAYLIST_TRACK_FIELDS =
+            "total,items(track(id,name,duration_ms,artists(name),album(name,images),external_ids))";
 
-        public PkceContext(String x, String y) {
-            this.codeVerifier = x;
-            this.visitorId = y;
-        }
-    }
+    // Background batches (feature collection) may queue behind the shared Spotify rate limit
+    private static final long RATE_LIMIT_WAIT_SECONDS = 60;
+    private static final long INLINE_REFRESH_MARGIN_MS = 30_000;
 
     @Override
     public Map<String, Object> getLoginUrl(String visitorId) {
@@ -99,7 +116,7 @@ public class SpotifyServiceImpl implements SpotifyService {
             String codeChallenge = generateCodeChallenge(codeVerifier);
             String state = UUID.randomUUID().toString().replace("-", "").substring(0, 16);
 
-            pkceContexts.put(state, new PkceContext(codeVerifier, visitorId));
+            tokenStore.savePkceContext(state, new PkceContext(codeVerifier, visitorId));
 
             String scopes = "playlist-read-private playlist-read-collaborative user-library-read user-read-private user-read-email";
             // RedirectURI is passed from frontend, but constructing auth URL here
@@ -141,36 +158,20 @@ public class SpotifyServiceImpl implements SpotifyService {
 
     @Override
     public Map<String, Object> exchangeToken(String code, String state, String redirectUri) {
-        PkceContext context = pkceContexts.remove(state);
+        PkceContext context = tokenStore.removePkceContext(state);
         if (context == null) {
             throw new IllegalArgumentException("Invalid state or session expired");
         }
 
         try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
-            String auth = clientId + ":" + clientSecret;
-            headers.setBasicAuth(Base64.getEncoder().encodeToString(auth.getBytes()));
-
-            MultiValueMap<String, String> body = new LinkedMultiValueMap<>();
-            body.add("grant_type", "authorization_code");
-            body.add("code", code);
-            body.add("redirect_uri", redirectUri);
-            body.add("code_verifier", context.codeVerifier);
-
-            ResponseEntity<Map> response = restTemplate.postForEntity(
-                    SPOTIFY_TOKEN_URL, new HttpEntity<>(body, headers), Map.class);
-
-            Map<String, Object> data = response.getBody();
-            if (data == null)
-                throw new RuntimeException("Empty response from Spotify");
+            Map<String, Object> data = spotifyAuthClient.exchangeCode(code, redirectUri, context.codeVerifier);
 
             String accessToken = (String) data.get("access_token");
             String refreshToken = (String) data.get("refresh_token");
             Integer expiresIn = (Integer) data.get("expires_in");
 
             String tokenKey = context.visitorId != null ? context.visitorId : "default";
-            userTokens.put(tokenKey, new TokenInfo(accessToken, refreshToken, expiresIn));
+            tokenStore.saveToken(tokenKey, new TokenInfo(accessToken, refreshToken, expiresIn));
 
             // Get User Profile
             return connectWithToken(context.visitorId, accessToken);
@@ -188,15 +189,16 @@ public class SpotifyServiceImpl implements SpotifyService {
             headers.setBearerAuth(accessToken);
             HttpEntity<String> entity = new HttpEntity<>(headers);
 
-            ResponseEntity<Map> response = restTemplate.exchange(
-                    SPOTIFY_API_URL + "/me", org.springframework.http.HttpMethod.GET, entity, Map.class);
+            ResponseEntity<Map> response = providerGuards.spotify().call(() -> restTemplate.exchange(
+                    SPOTIFY_API_URL + "/me", org.springframework.http.HttpMethod.GET, entity, Map.class));
 
             Map<String, Object> profile = response.getBody();
             String tokenKey = visitorId != null ? visitorId : "default";
 
             // Store if not exists (for direct connection)
-            if (!userTokens.containsKey(tokenKey) || !userTokens.get(tokenKey).accessToken.equals(accessToken)) {
-                userTokens.put(tokenKey, new TokenInfo(accessToken, null, 3600));
+            TokenInfo stored = tokenStore.getToken(tokenKey);
+            if (stored == null || !stored.accessToken.equals(accessToken)) {
+                tokenStore.saveToken(tokenKey, new TokenInfo(accessToken, null, 3600));
             }
 
             // Extract image
@@ -223,7 +225,7 @@ public class SpotifyServiceImpl implements SpotifyService {
     @Override
     public Map<String, Object> getTokenStatus(String visitorId) {
         String tokenKey = visitorId != null ? visitorId : "default";
-        TokenInfo info = userTokens.get(tokenKey);
+        TokenInfo info = tokenStore.getToken(tokenKey);
 
         if (info == null)
             return Map.of("connected", false);
@@ -235,7 +237,7 @@ public class SpotifyServiceImpl implements SpotifyService {
     @Override
     public void disconnectToken(String visitorId) {
         String tokenKey = visitorId != null ? visitorId : "default";
-        userTokens.remove(tokenKey);
+        tokenStore.removeToken(tokenKey);
     }
 
     @Override
@@ -318,8 +320,12 @@ public class SpotifyServiceImpl implements SpotifyService {
                 "hasMore", data.get("next") != null);
     }
 
+    /**
+     * Not one transaction: the playlist row and every persisted batch commit on their own, so a large
+     * playlist never holds locks (or a growing persistence context) for the whole import. A failed
+     * import removes what it already committed.
+     */
     @Override
-    @Transactional
     public Map<String, Object> importPlaylist(String visitorId, String playlistId, Long userId) {
         // 중복 체크: 이미 가져온 플레이리스트이거나 사용자가 삭제한 것인지 확인
         String externalId = "spotify:" + playlistId;
@@ -343,26 +349,7 @@ public class SpotifyServiceImpl implements SpotifyService {
         List<Map> imgs = (List<Map>) playlistData.get("images");
         String cover = (imgs != null && !imgs.isEmpty()) ? (String) imgs.get(0).get("url") : null;
 
-        // 2. Fetch All Tracks (Simplified: just first 100 for now or loop)
-        // For robustness, full loop is better but let's do 1 page first to avoid
-        // timeout in MVP
-        // Node code did loop. Let's do a simple loop for up to 200 tracks (2 pages).
-
-        List<Map<String, Object>> allTracks = new ArrayList<>();
-        String nextUrl = SPOTIFY_API_URL + "/playlists/" + playlistId + "/tracks?limit=100";
-
-        while (nextUrl != null && allTracks.size() < 500) { // Safety limit
-            Map<String, Object> tracksData = fetchSpotify(nextUrl, accessToken);
-            List<Map<String, Object>> items = (List<Map<String, Object>>) tracksData.get("items");
-            for (Map<String, Object> item : items) {
-                if (item.get("track") != null) {
-                    allTracks.add((Map<String, Object>) item.get("track"));
-                }
-            }
-            nextUrl = (String) tracksData.get("next");
-        }
-
-        // 3. Create Playlist
+        // 2. Create Playlist
         // Need to refactor entities slightly or use Builder manually
         // We need 'Users' entity from ID
         // Assuming we can't inject UserRepo here easily without circular dep or extra
@@ -397,14 +384,7 @@ public class SpotifyServiceImpl implements SpotifyService {
         playlist.setUser(userProxy);
         playlist.setTitle(title);
         playlist.setDescription(desc);
-        // Download cover image
-        if (cover != null && cover.startsWith("http")) {
-            try {
-                cover = imageService.downloadImage(cover, "playlists");
-            } catch (Exception e) {
-                log.warn("Failed to download Spotify playlist cover: {}", e.getMessage());
-            }
-        }
+        // Remote URL for now - downloaded in the background after the import
         playlist.setCoverImage(cover);
         playlist.setSourceType(SourceType.Platform); // or custom 'spotify' if enum supports? Node said 'spotify'. Enum
                                                      // has 'Platform'.
@@ -412,110 +392,201 @@ public class SpotifyServiceImpl implements SpotifyService {
         playlist.setSpaceType(SpaceType.PMS);
         playlist.setStatusFlag(StatusFlag.PTP);
 
-        playlist = playlistRepository.save(playlist);
-
-        // 4. Import Tracks
-        int count = 0;
-        for (int i = 0; i < allTracks.size(); i++) {
-            Map<String, Object> tMap = allTracks.get(i);
-            try {
-                String spotifyId = (String) tMap.get("id");
-                // Simplified: check existence by spotifyId?
-                // Repository might not have findBySpotifyId.
-                // Creating simplified track.
-
-                Tracks track = new Tracks();
-                track.setTitle((String) tMap.get("name"));
-                List<Map> arts = (List<Map>) tMap.get("artists");
-                track.setArtist(arts.stream().map(a -> (String) a.get("name")).collect(Collectors.joining(", ")));
-                Map alb = (Map) tMap.get("album");
-                track.setAlbum((String) alb.get("name"));
-                track.setDuration(((Number) tMap.get("duration_ms")).intValue() / 1000);
-
-                // Map external IDs
-                Map<String, Object> meta = new HashMap<>();
-                meta.put("spotifyId", spotifyId);
-                // track.setExternalMetadata(objectMapper.writeValueAsString(meta));
-                // track.setSpotifyId(spotifyId); // If Entity has it.
-                // Assuming Entity has matching fields from prior analysis?
-                // `Tracks` entity had `externalMetadata`.
-                // Download track artwork
-                String trackImg = null;
-                List<Map> tImgs = (List<Map>) alb.get("images");
-                if (tImgs != null && !tImgs.isEmpty()) {
-                    trackImg = (String) tImgs.get(0).get("url");
-                    if (trackImg != null && trackImg.startsWith("http")) {
-                        try {
-                            trackImg = imageService.downloadImage(trackImg, "tracks");
-                        } catch (Exception e) {
-                            log.warn("Failed to download Spotify track artwork: {}", e.getMessage());
-                        }
+        TransactionTemplate batchTx = new TransactionTemplate(transactionManager);
+        batchTx.setTimeout(importBatchTimeoutSeconds);
+        Playlists newPlaylist = playlist;
+        Playlists target = batchTx.execute(tx -> playlistRepository.save(newPlaylist));
+        playlist = target;
+        artworkDownloadJob.enqueuePlaylist(target.getPlaylistId(), cover);
+
+        // 3. Fetch tracks page by page (in parallel) and persist in batches as pages arrive.
+        // 이미 있는 곡(ISRC/Spotify ID/제목+아티스트)은 기존 행 재사용
+        List<Tracks> importedTracks = new ArrayList<>();
+        int total;
+        try {
+            total = fetchPlaylistTracks(playlistId, accessToken, batch -> {
+                List<Tracks> created = new ArrayList<>();
+                List<TrackCandidate> candidates = new ArrayList<>(batch.size());
+                for (Map<String, Object> tMap : batch) {
+                    try {
+                        candidates.add(toTrackCandidate(tMap, created));
+                    } catch (Exception e) {
+                        log.warn("Skipping unreadable Spotify track: {}", e.getMessage());
                     }
                 }
-                // track.setArtwork(trackImg); // Assuming Track entity has artwork field now?
-                // Wait, Track entity definition in previous context (Apple Music) showed
-                // .artwork().
-                // Let's check if Tracks entity has setArtwork.
-                // Based on PlaylistServiceImpl.java:216 .artwork(trackDto.getArtwork()) it
-                // does.
-                track.setArtwork(trackImg);
-
-                track.setExternalMetadata(objectMapper.writeValueAsString(meta)); // Storing ID here
-
-                // Save Track (Ideally check duplication)
-                // For MVP, just save (or catch unique constraint).
-                track = tracksRepository.save(track);
-
-                PlaylistTracks pt = PlaylistTracks.builder()
-                        .playlist(playlist)
-                        .track(track)
-                        .orderIndex(i)
-                        .build();
-
-                playlistTracksRepository.save(pt);
-                count++;
-            } catch (Exception e) {
-                // Ignore duplicates or errors
-            }
+                // One transaction per batch; the persistence context is emptied before it commits
+                List<Tracks> resolved = batchTx.execute(tx -> {
+                    List<Tracks> tracks = trackIdentityResolver.resolve(candidates);
+                    List<PlaylistTracks> links = new ArrayList<>(tracks.size());
+                    for (Tracks track : tracks) {
+                        links.add(PlaylistTracks.builder()
+                                .playlist(target)
+                                .track(track)
+                                .orderIndex(importedTracks.size() + links.size())
+                                .build());
+                    }
+                    playlistTracksRepository.saveAll(links);
+                    entityManager.flush();
+                    entityManager.clear();
+                    return tracks;
+                });
+                created.forEach(track -> artworkDownloadJob.enqueueTrack(track.getTrackId(), track.getArtwork()));
+                importedTracks.addAll(resolved);
+            });
+        } catch (RuntimeException e) {
+            discardImport(batchTx, target.getPlaylistId());
+            throw e;
         }
+        int count = importedTracks.size();
+        tasteProfileStore.onPlaylistAdded(playlist);
+        tasteProfileStore.onTracksAdded(playlist, importedTracks);
 
-        return Map.of("success", true, "playlistId", playlist.getPlaylistId(), "importedTracks", count);
+        return Map.of("success", true, "playlistId", playlist.getPlaylistId(), "importedTracks", count,
+                "totalTracks", total, "truncated", isTruncated(total));
     }
 
-    // --- Server-Side / Client Credentials ---
+    private boolean isTruncated(int total) {
+        return maxImportTracks > 0 && total > maxImportTracks;
+    }
 
-    // Cache for client token
-    private String clientAccessToken;
-    private long clientTokenExpiresAt;
+    // Batches already committed - remove them so a retry is not blocked by "Already imported"
+    private void discardImport(TransactionTemplate batchTx, Long playlistId) {
+        try {
+            batchTx.executeWithoutResult(tx -> {
+                jdbcTemplate.update("DELETE FROM playlist_tracks WHERE playlist_id = ?", playlistId);
+                jdbcTemplate.update("DELETE FROM playlists WHERE playlist_id = ?", playlistId);
+            });
+        } catch (Exception e) {
+            log.error("Failed to remove partial Spotify import {}: {}", playlistId, e.getMessage());
+        }
+    }
 
-    private synchronized String getClientToken() {
-        if (clientAccessToken != null && System.currentTimeMillis() < clientTokenExpiresAt - 60000) {
-            return clientAccessToken;
+    /**
+     * Reads every track of a playlist. The first page gives {@code total}; the remaining offsets are
+     * fetched concurrently on {@code spotifyPagingPool}, at most {@code pagingConcurrency} pages in flight,
+     * and handed to {@code sink} in playlist order in batches of {@link #IMPORT_PERSIST_BATCH}.
+     * Rate limiting still goes through the Spotify guard inside {@link #fetchSpotify}.
+     *
+     * @return the playlist's total item count as reported by Spotify
+     */
+    private int fetchPlaylistTracks(String playlistId, String accessToken,
+            Consumer<List<Map<String, Object>>> sink) {
+        Map<String, Object> first = fetchSpotify(playlistTracksPage(playlistId, 0), accessToken);
+        int total = first.get("total") instanceof Number n ? n.intValue() : 0;
+        int limit = isTruncated(total) ? maxImportTracks : total;
+        if (limit < total) {
+            log.warn("Spotify playlist {} has {} tracks, importing the first {}", playlistId, total, maxImportTracks);
         }
 
+        List<Map<String, Object>> buffer = new ArrayList<>(IMPORT_PERSIST_BATCH);
+        collectTracks(first, buffer);
+
+        Iterator<Integer> offsets = IntStream
+                .iterate(PLAYLIST_PAGE_SIZE, o -> o < limit, o -> o + PLAYLIST_PAGE_SIZE).iterator();
+        Deque<Future<Map<String, Object>>> inFlight = new ArrayDeque<>();
         try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
-            String auth = clientId + ":" + clientSecret;
-            headers.setBasicAuth(Base64.getEncoder().encodeToString(auth.getBytes()));
+            while (offsets.hasNext() && inFlight.size() < pagingConcurrency) {
+                inFlight.add(submitPage(playlistId, offsets.next(), accessToken));
+            }
+            while (!inFlight.isEmpty()) {
+                if (buffer.size() >= IMPORT_PERSIST_BATCH) {
+                    sink.accept(new ArrayList<>(buffer));
+                    buffer.clear();
+                }
+                Map<String, Object> page = awaitPage(inFlight.poll());
+                if (offsets.hasNext()) {
+                    inFlight.add(submitPage(playlistId, offsets.next(), accessToken));
+                }
+                collectTracks(page, buffer);
+            }
+        } finally {
+            // On failure, stop whatever is still queued
+            inFlight.forEach(f -> f.cancel(true));
+        }
 
-            MultiValueMap<String, String> body = new LinkedMultiValueMap<>();
-            body.add("grant_type", "client_credentials");
+        if (!buffer.isEmpty()) {
+            sink.accept(buffer);
+        }
+        return total;
+    }
 
-            Map<String, Object> response = restTemplate.postForObject(
-                    SPOTIFY_TOKEN_URL, new HttpEntity<>(body, headers), Map.class);
+    private Future<Map<String, Object>> submitPage(String playlistId, int offset, String accessToken) {
+        return spotifyPagingPool.submit(() -> fetchSpotify(playlistTracksPage(playlistId, offset), accessToken));
+    }
 
-            clientAccessToken = (String) response.get("access_token");
-            Integer expiresIn = (Integer) response.get("expires_in");
-            clientTokenExpiresAt = System.currentTimeMillis() + (expiresIn * 1000);
+    private static Map<String, Object> awaitPage(Future<Map<String, Object>> page) {
+        try {
+            return page.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while fetching Spotify playlist", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            throw new RuntimeException("Failed to fetch Spotify playlist page", e.getCause());
+        }
+    }
 
-            return clientAccessToken;
-        } catch (Exception e) {
-            log.error("Failed to get Spotify Client Token", e);
-            throw new RuntimeException("Spotify Client Credentials Auth Failed");
+    private static void collectTracks(Map<String, Object> page, List<Map<String, Object>> buffer) {
+        List<Map<String, Object>> items = (List<Map<String, Object>>) page.get("items");
+        if (items == null)
+            return;
+        for (Map<String, Object> item : items) {
+            if (item.get("track") != null) {
+                buffer.add((Map<String, Object>) item.get("track"));
+            }
         }
     }
 
+    // Only the fields the import reads - keeps 10k-track playlists from pulling full track objects
+    private static String playlistTracksPage(String playlistId, int offset) {
+        return SPOTIFY_API_URL + "/playlists/" + playlistId + "/tracks?limit=" + PLAYLIST_PAGE_SIZE
+                + "&offset=" + offset + "&fields=" + PLAYLIST_TRACK_FIELDS;
+    }
+
+    // New rows are also added to created, so their artwork can be downloaded once they are committed
+    private TrackCandidate toTrackCandidate(Map<String, Object> tMap, List<Tracks> created) {
+        String spotifyId = (String) tMap.get("id");
+        String name = (String) tMap.get("name");
+        List<Map> arts = (List<Map>) tMap.get("artists");
+        String artist = arts.stream().map(a -> (String) a.get("name")).collect(Collectors.joining(", "));
+        Map alb = (Map) tMap.get("album");
+        Map externalIds = (Map) tMap.get("external_ids");
+        String isrc = externalIds != null ? (String) externalIds.get("isrc") : null;
+
+        // Only runs for tracks we do not have yet
+        return new TrackCandidate(isrc, spotifyId, null, name, artist, () -> {
+            Tracks track = new Tracks();
+            track.setTitle(name);
+            track.setArtist(artist);
+            track.setAlbum((String) alb.get("name"));
+            track.setDuration(((Number) tMap.get("duration_ms")).intValue() / 1000);
+
+            String trackImg = null;
+            List<Map> tImgs = (List<Map>) alb.get("images");
+            if (tImgs != null && !tImgs.isEmpty()) {
+                trackImg = (String) tImgs.get(0).get("url");
+            }
+            track.setArtwork(trackImg);
+
+            Map<String, Object> meta = new HashMap<>();
+            meta.put("spotifyId", spotifyId);
+            try {
+                track.setExternalMetadata(objectMapper.writeValueAsString(meta));
+            } catch (Exception e) {
+                log.warn("Failed to serialize Spotify metadata: {}", e.getMessage());
+            }
+            created.add(track);
+            return track;
+        });
+    }
+
+    // --- Server-Side / Client Credentials ---
+
+    private String getClientToken() {
+        return spotifyAuthClient.getClientToken();
+    }
+
     @Override
     public Map<String, Object> searchTrackByIsrc(String isrc) {
         String token = getClientToken();
@@ -544,44 +615,105 @@ public class SpotifyServiceImpl implements SpotifyService {
         String url = SPOTIFY_API_URL + "/audio-features/" + spotifyId;
         Map<String, Object> features = fetchSpotify(url, token);
 
-        // 3. Get Artist Genres
+        // 3. Get Artist Genres (cached)
         List<String> genres = new ArrayList<>();
         List<Map> artists = (List<Map>) track.get("artists");
         if (artists != null && !artists.isEmpty()) {
             String artistId = (String) artists.get(0).get("id");
-            Map<String, Object> artistData = fetchSpotify(SPOTIFY_API_URL + "/artists/" + artistId, token);
-            List<String> g = (List<String>) artistData.get("genres");
-            if (g != null)
-                genres.addAll(g);
+            genres.addAll(getArtistGenres(List.of(artistId)).getOrDefault(artistId, List.of()));
         }
 
         return Map.of(
                 "spotifyId", spotifyId,
                 "genres", genres,
-                "audioFeatures", new HashMap<String, Object>() {
-                    {
-                        put("tempo", features.get("tempo"));
-                        put("energy", features.get("energy"));
-                        put("danceability", features.get("danceability"));
-                        put("valence", features.get("valence"));
-                        put("acousticness", features.get("acousticness"));
-                        put("instrumentalness", features.get("instrumentalness"));
-                        put("liveness", features.get("liveness"));
-                        put("speechiness", features.get("speechiness"));
-                        put("loudness", features.get("loudness"));
-                        put("key", features.get("key"));
-                        put("mode", features.get("mode"));
-                        put("time_signature", features.get("time_signature"));
-                    }
-                });
+                "audioFeatures", toAudioFeatures(features));
+    }
+
+    @Override
+    public Map<String, Map<String, Object>> getTracksBatch(List<String> spotifyIds) {
+        Map<String, Map<String, Object>> result = new HashMap<>();
+        String token = getClientToken();
+        for (int from = 0; from < spotifyIds.size(); from += TRACKS_BATCH) {
+            List<String> chunk = spotifyIds.subList(from, Math.min(from + TRACKS_BATCH, spotifyIds.size()));
+            Map<String, Object> data = fetchSpotify(SPOTIFY_API_URL + "/tracks?ids=" + String.join(",", chunk), token);
+            List<Map<String, Object>> items = (List<Map<String, Object>>) data.get("tracks");
+            if (items == null)
+                continue;
+            for (Map<String, Object> track : items) {
+                if (track != null && track.get("id") != null) {
+                    result.put((String) track.get("id"), track);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Map<String, Object>> getAudioFeaturesBatch(List<String> spotifyIds) {
+        Map<String, Map<String, Object>> result = new HashMap<>();
+        String token = getClientToken();
+        for (int from = 0; from < spotifyIds.size(); from += AUDIO_FEATURES_BATCH) {
+            List<String> chunk = spotifyIds.subList(from, Math.min(from + AUDIO_FEATURES_BATCH, spotifyIds.size()));
+            Map<String, Object> data = fetchSpotify(
+                    SPOTIFY_API_URL + "/audio-features?ids=" + String.join(",", chunk), token);
+            List<Map<String, Object>> items = (List<Map<String, Object>>) data.get("audio_features");
+            if (items == null)
+                continue;
+            for (Map<String, Object> features : items) {
+                // Unknown ids come back as null entries
+                if (features != null && features.get("id") != null) {
+                    result.put((String) features.get("id"), toAudioFeatures(features));
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, List<String>> getArtistGenres(List<String> artistIds) {
+        return artistGenreCache.getAll(artistIds, this::fetchArtistGenres);
+    }
+
+    private Map<String, List<String>> fetchArtistGenres(List<String> artistIds) {
+        Map<String, List<String>> result = new HashMap<>();
+        String token = getClientToken();
+        for (int from = 0; from < artistIds.size(); from += ARTISTS_BATCH) {
+            List<String> chunk = artistIds.subList(from, Math.min(from + ARTISTS_BATCH, artistIds.size()));
+            Map<String, Object> data = fetchSpotify(
+                    SPOTIFY_API_URL + "/artists?ids=" + String.join(",", chunk), token);
+            List<Map<String, Object>> items = (List<Map<String, Object>>) data.get("artists");
+            if (items == null)
+                continue;
+            for (Map<String, Object> artist : items) {
+                if (artist != null && artist.get("id") != null) {
+                    List<String> g = (List<String>) artist.get("genres");
+                    result.put((String) artist.get("id"), g != null ? g : List.of());
+                }
+            }
+        }
+        return result;
+    }
+
+    private Map<String, Object> toAudioFeatures(Map<String, Object> features) {
+        Map<String, Object> map = new HashMap<>();
+        for (String key : List.of("tempo", "energy", "danceability", "valence", "acousticness",
+                "instrumentalness", "liveness", "speechiness", "loudness", "key", "mode", "time_signature")) {
+            map.put(key, features.get(key));
+        }
+        return map;
     }
 
     private String getValidAccessToken(String visitorId) {
         String tokenKey = visitorId != null ? visitorId : "default";
-        TokenInfo info = userTokens.get(tokenKey);
+        TokenInfo info = tokenStore.getToken(tokenKey);
         if (info == null)
             throw new RuntimeException("Not authenticated");
-        // Refresh logic omitted for brevity in MVP (Node implemented it)
+        // Normally renewed ahead of time by SpotifyTokenRefresher; refresh inline only if it lapsed
+        if (info.expiresAt - System.currentTimeMillis() < INLINE_REFRESH_MARGIN_MS && info.refreshToken != null) {
+            info = tokenRefresher.refresh(tokenKey, INLINE_REFRESH_MARGIN_MS);
+            if (info == null)
+                throw new RuntimeException("Not authenticated");
+        }
         return info.accessToken;
     }
 
@@ -589,7 +721,18 @@ public class SpotifyServiceImpl implements SpotifyService {
         HttpHeaders headers = new HttpHeaders();
         headers.setBearerAuth(token);
         HttpEntity<String> entity = new HttpEntity<>(headers);
-        return restTemplate.exchange(url, org.springframework.http.HttpMethod.GET, entity, Map.class).getBody();
+        for (int attempt = 0;; attempt++) {
+            try {
+                // Guard pauses every Spotify caller for Retry-After on 429
+                return providerGuards.spotify().call(
+                        () -> restTemplate.exchange(url, org.springframework.http.HttpMethod.GET, entity, Map.class)
+                                .getBody(),
+                        RATE_LIMIT_WAIT_SECONDS, TimeUnit.SECONDS);
+            } catch (HttpClientErrorException.TooManyRequests e) {
+                if (attempt >= MAX_RATE_LIMIT_RETRIES)
+                    throw e;
+            }
+        }
     }
 
     // Crypto Helpers
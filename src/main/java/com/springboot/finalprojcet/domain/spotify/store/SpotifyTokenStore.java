@@ -0,0 +1,170 @@
+package com.springboot.finalprojcet.domain.spotify.store;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis-based storage for Spotify OAuth tokens and PKCE contexts.
+ * Persists tokens across restarts and shares them between backend nodes.
+ * Every token with a refresh token is also indexed by expiresAt, so the refresher can
+ * find the ones about to expire without scanning keys.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SpotifyTokenStore {
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    private static final String TOKEN_KEY_PREFIX = "spotify:token:";
+    private static final String PKCE_KEY_PREFIX = "spotify:pkce:";
+    private static final String EXPIRY_KEY = "spotify:token:expiry";
+    private static final String REFRESH_LOCK_PREFIX = "spotify:token:refresh:";
+
+    private static final DefaultRedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end
+            return 0
+            """, Long.class);
+
+    // Token TTL: 30 days (refresh tokens are long-lived)
+    private static final long TOKEN_TTL_DAYS = 30;
+    // PKCE context TTL: 10 minutes (short-lived for OAuth flow)
+    private static final long PKCE_TTL_MINUTES = 10;
+
+    // ===== Token Info =====
+
+    public static class TokenInfo {
+        public String accessToken;
+        public String refreshToken;
+        public long expiresAt;
+        public long connectedAt;
+
+        public TokenInfo() {}
+
+        public TokenInfo(String accessToken, String refreshToken, long expiresIn) {
+            this.accessToken = accessToken;
+            this.refreshToken = refreshToken;
+            this.expiresAt = System.currentTimeMillis() + (expiresIn * 1000);
+            this.connectedAt = System.currentTimeMillis();
+        }
+    }
+
+    public static class PkceContext {
+        public String codeVerifier;
+        public String visitorId;
+
+        public PkceContext() {}
+
+        public PkceContext(String codeVerifier, String visitorId) {
+            this.codeVerifier = codeVerifier;
+            this.visitorId = visitorId;
+        }
+    }
+
+    public void saveToken(String visitorId, TokenInfo tokenInfo) {
+        String key = TOKEN_KEY_PREFIX + visitorId;
+        try {
+            String json = objectMapper.writeValueAsString(tokenInfo);
+            redisTemplate.opsForValue().set(key, json, TOKEN_TTL_DAYS, TimeUnit.DAYS);
+            if (tokenInfo.refreshToken != null) {
+                redisTemplate.opsForZSet().add(EXPIRY_KEY, visitorId, tokenInfo.expiresAt);
+            } else {
+                // Directly connected tokens cannot be renewed - they simply expire
+                redisTemplate.opsForZSet().remove(EXPIRY_KEY, visitorId);
+            }
+            log.debug("Saved Spotify token for visitor: {}", visitorId);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize Spotify token info", e);
+            throw new RuntimeException("Failed to save token", e);
+        }
+    }
+
+    public TokenInfo getToken(String visitorId) {
+        String key = TOKEN_KEY_PREFIX + visitorId;
+        String json = redisTemplate.opsForValue().get(key);
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, TokenInfo.class);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to deserialize Spotify token info", e);
+            return null;
+        }
+    }
+
+    public void removeToken(String visitorId) {
+        redisTemplate.delete(TOKEN_KEY_PREFIX + visitorId);
+        redisTemplate.opsForZSet().remove(EXPIRY_KEY, visitorId);
+        log.debug("Removed Spotify token for visitor: {}", visitorId);
+    }
+
+    /**
+     * Visitors whose access token expires before {@code expiresBefore} (epoch millis), soonest first.
+     */
+    public List<String> findExpiringBefore(long expiresBefore, int limit) {
+        Set<String> visitors = redisTemplate.opsForZSet()
+                .rangeByScore(EXPIRY_KEY, Double.NEGATIVE_INFINITY, expiresBefore, 0, limit);
+        return visitors != null ? new ArrayList<>(visitors) : List.of();
+    }
+
+    /**
+     * Cluster-wide guard so only one node refreshes a given visitor's token at a time.
+     * Returns the owner token to pass to {@link #unlockRefresh}, or null if another caller holds the lock.
+     */
+    public String tryLockRefresh(String visitorId, Duration ttl) {
+        String owner = UUID.randomUUID().toString();
+        boolean locked = Boolean.TRUE.equals(
+                redisTemplate.opsForValue().setIfAbsent(REFRESH_LOCK_PREFIX + visitorId, owner, ttl));
+        return locked ? owner : null;
+    }
+
+    /**
+     * Releases the lock only if {@code owner} still holds it - after a slow refresh the TTL may have
+     * handed it to another node.
+     */
+    public void unlockRefresh(String visitorId, String owner) {
+        redisTemplate.execute(UNLOCK_SCRIPT, List.of(REFRESH_LOCK_PREFIX + visitorId), owner);
+    }
+
+    // ===== PKCE Context (keyed by OAuth state) =====
+
+    public void savePkceContext(String state, PkceContext context) {
+        String key = PKCE_KEY_PREFIX + state;
+        try {
+            redisTemplate.opsForValue().set(key, objectMapper.writeValueAsString(context),
+                    PKCE_TTL_MINUTES, TimeUnit.MINUTES);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to save PKCE context", e);
+        }
+    }
+
+    /**
+     * Returns and deletes the context - a state can be exchanged only once.
+     */
+    public PkceContext removePkceContext(String state) {
+        String json = redisTemplate.opsForValue().getAndDelete(PKCE_KEY_PREFIX + state);
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, PkceContext.class);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to deserialize Spotify PKCE context", e);
+            return null;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.springboot.finalprojcet.domain.tidal.repository;
 
 import com.springboot.finalprojcet.entity.PlaylistTracks;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -12,11 +13,30 @@ public interface PlaylistTracksRepository extends JpaRepository<PlaylistTracks,
     @Query("SELECT pt FROM PlaylistTracks pt JOIN FETCH pt.track WHERE pt.playlist.playlistId = :playlistId ORDER BY pt.orderIndex")
     java.util.List<PlaylistTracks> findAllWithTrackByPlaylistId(@Param("playlistId") Long playlistId);
 
+    // Evaluation only needs artist names - single join, no entity hydration
+    @Query("SELECT t.artist FROM PlaylistTracks pt JOIN pt.track t WHERE pt.playlist.playlistId = :playlistId ORDER BY pt.orderIndex")
+    java.util.List<String> findArtistsByPlaylistId(@Param("playlistId") Long playlistId);
+
+    // Batch evaluation: (playlistId, artist) rows for many playlists in one query
+    @Query("SELECT pt.playlist.playlistId, t.artist FROM PlaylistTracks pt JOIN pt.track t "
+            + "WHERE pt.playlist.playlistId IN :playlistIds ORDER BY pt.playlist.playlistId, pt.orderIndex")
+    java.util.List<Object[]> findArtistsByPlaylistIds(@Param("playlistIds") java.util.Collection<Long> playlistIds);
+
     @org.springframework.data.jpa.repository.Query("SELECT MAX(pt.orderIndex) FROM PlaylistTracks pt WHERE pt.playlist.playlistId = :playlistId")
     Integer findMaxOrderIndexByPlaylistId(
             @org.springframework.data.repository.query.Param("playlistId") Long playlistId);
 
     void deleteByPlaylistPlaylistIdAndTrackTrackId(Long playlistId, Long trackId);
 
+    // Deleted explicitly rather than by FK cascade, which would skip the removal trigger (interaction feed)
+    @Modifying
+    @Query(value = "DELETE FROM playlist_tracks WHERE playlist_id = :playlistId", nativeQuery = true)
+    int deleteAllByPlaylistId(@Param("playlistId") Long playlistId);
+
+    @Modifying
+    @Query(value = "DELETE FROM playlist_tracks WHERE playlist_id IN "
+            + "(SELECT playlist_id FROM playlists WHERE user_id = :userId)", nativeQuery = true)
+    int deleteAllByUserId(@Param("userId") Long userId);
+
     Integer countByPlaylistPlaylistId(Long playlistId);
 }
@@ -22,6 +22,12 @@ public interface TracksRepository extends JpaRepository<Tracks, Long> {
         java.util.List<Tracks> findTracksByUserIdAndSpaceType(@Param("userId") Long userId,
                         @Param("spaceType") com.springboot.finalprojcet.enums.SpaceType spaceType);
 
+        // One row per playlist link (not DISTINCT) - matches incremental taste counter semantics
+        @Query("SELECT pt.track FROM PlaylistTracks pt " +
+                        "WHERE pt.playlist.user.userId = :userId AND pt.playlist.spaceType = :spaceType")
+        java.util.List<Tracks> findLinkedTracksByUserIdAndSpaceType(@Param("userId") Long userId,
+                        @Param("spaceType") com.springboot.finalprojcet.enums.SpaceType spaceType);
+
         @Query("SELECT DISTINCT pt.track FROM PlaylistTracks pt " +
                         "WHERE pt.playlist.user.userId = :userId AND pt.playlist.sourceType = :sourceType")
         java.util.List<Tracks> findTracksByUserIdAndSourceType(@Param("userId") Long userId,
@@ -32,6 +38,9 @@ public interface TracksRepository extends JpaRepository<Tracks, Long> {
                         "WHERE pt.playlist.spaceType = 'EMS' AND (pt.track.duration IS NULL OR pt.track.duration = 0)")
         List<Tracks> findEmsTracksWithoutDuration();
 
+        @Query(value = "SELECT * FROM tracks ORDER BY RAND() LIMIT :limit", nativeQuery = true)
+        List<Tracks> findRandom(@Param("limit") int limit);
+
         // Find tracks by ISRC
         Optional<Tracks> findByIsrc(String isrc);
 }
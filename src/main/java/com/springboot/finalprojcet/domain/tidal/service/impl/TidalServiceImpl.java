@@ -3,6 +3,8 @@ package com.springboot.finalprojcet.domain.tidal.service.impl;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.springboot.finalprojcet.domain.analysis.store.TasteProfileStore;
+import com.springboot.finalprojcet.domain.common.resilience.ProviderGuards;
 import com.springboot.finalprojcet.domain.common.service.ImageService;
 import com.springboot.finalprojcet.domain.gms.repository.PlaylistRepository;
 import com.springboot.finalprojcet.domain.playlist.repository.UserDismissedPlaylistRepository;
@@ -51,12 +53,19 @@ public class TidalServiceImpl implements TidalService {
     private final PlaylistTracksRepository playlistTracksRepository;
     private final TidalTokenStore tokenStore;
     private final ImageService imageService;
+    private final TasteProfileStore tasteProfileStore;
+    private final ProviderGuards providerGuards;
 
     @Override
     public TidalTokenStore getTokenStore() {
         return tokenStore;
     }
 
+    // Every Tidal call goes through the shared rate limiter / circuit breaker / bulkhead
+    private <T> ResponseEntity<T> exchange(String url, HttpMethod method, HttpEntity<?> entity, Class<T> responseType) {
+        return providerGuards.tidal().call(() -> restTemplate.exchange(url, method, entity, responseType));
+    }
+
     @Override
     public TidalLoginUrlResponse getLoginUrl(String visitorId, String origin) {
         String codeVerifier = generateCodeVerifier();
@@ -113,7 +122,7 @@ public class TidalServiceImpl implements TidalService {
             body.add("code_verifier", codeVerifier);
 
             HttpEntity<MultiValueMap<String, String>> entity = new HttpEntity<>(body, headers);
-            ResponseEntity<JsonNode> response = restTemplate.exchange(
+            ResponseEntity<JsonNode> response = exchange(
                     tidalProperties.getAuthUrl() + "/token", HttpMethod.POST, entity, JsonNode.class);
 
             JsonNode tokenData = response.getBody();
@@ -293,7 +302,8 @@ public class TidalServiceImpl implements TidalService {
     }
 
     @Override
-    @Transactional
+    // Bounded so the training feed's settle window covers it
+    @Transactional(timeoutString = "${imports.tx-timeout-seconds:600}")
     public TidalImportResponse importPlaylist(TidalImportRequest request) {
         if (request.getUserId() == null) {
             return TidalImportResponse.builder().success(false).error("userId is required").build();
@@ -379,6 +389,7 @@ public class TidalServiceImpl implements TidalService {
 
             // 4. Insert tracks
             int importedCount = 0;
+            List<Tracks> importedTracks = new ArrayList<>();
             for (int i = 0; i < tracks.size(); i++) {
                 JsonNode item = tracks.get(i);
                 JsonNode track = item.has("item") ? item.path("item") : item;
@@ -441,6 +452,7 @@ public class TidalServiceImpl implements TidalService {
                             .orderIndex(i)
                             .build();
                     playlistTracksRepository.save(pt);
+                    importedTracks.add(trackEntity);
 
                     importedCount++;
                 } catch (Exception e) {
@@ -448,6 +460,9 @@ public class TidalServiceImpl implements TidalService {
                 }
             }
 
+            tasteProfileStore.onPlaylistAdded(newPlaylist);
+            tasteProfileStore.onTracksAdded(newPlaylist, importedTracks);
+
             log.info("[Tidal] Import complete: {}/{} tracks", importedCount, tracks.size());
 
             return TidalImportResponse.builder()
@@ -464,7 +479,7 @@ public class TidalServiceImpl implements TidalService {
     }
 
     @Override
-    @Transactional(noRollbackFor = Exception.class)
+    @Transactional(noRollbackFor = Exception.class, timeoutString = "${imports.tx-timeout-seconds:600}")
     public TidalSyncResponse syncTidal(Long userId, TidalSyncRequest request) {
         if (request.getTidalAuthData() == null || request.getTidalAuthData().getAccessToken() == null) {
             log.error("[Sync] Missing Tidal auth data. Request: {}", request);
@@ -545,6 +560,7 @@ public class TidalServiceImpl implements TidalService {
                     // Fetch and save tracks
                     List<JsonNode> tracks = fetchPlaylistTracks(token, p.path("uuid").asText(), "KR");
                     int tracksSaved = 0;
+                    List<Tracks> syncedTracks = new ArrayList<>();
                     
                     for (int i = 0; i < tracks.size(); i++) {
                         JsonNode item = tracks.get(i);
@@ -603,6 +619,7 @@ public class TidalServiceImpl implements TidalService {
                                     .orderIndex(i)
                                     .build();
                             playlistTracksRepository.save(pt);
+                            syncedTracks.add(trackEntity);
                             tracksSaved++;
                         } catch (Exception e) {
                             log.warn("[Sync] Track insert failed (continuing): {}", e.getMessage());
@@ -610,6 +627,9 @@ public class TidalServiceImpl implements TidalService {
                         }
                     }
                     
+                    tasteProfileStore.onPlaylistAdded(playlist);
+                    tasteProfileStore.onTracksAdded(playlist, syncedTracks);
+
                     log.info("[Sync] Playlist '{}' synced with {}/{} tracks", 
                             p.path("title").asText(), tracksSaved, tracks.size());
                     syncedCount++;
@@ -656,7 +676,7 @@ public class TidalServiceImpl implements TidalService {
             String url = tidalProperties.getAuthUrl() + "/device_authorization";
 
             log.info("[Tidal] Initiating Device Auth with python-tidal credentials");
-            ResponseEntity<JsonNode> response = restTemplate.exchange(url, HttpMethod.POST, entity, JsonNode.class);
+            ResponseEntity<JsonNode> response = exchange(url, HttpMethod.POST, entity, JsonNode.class);
             JsonNode data = response.getBody();
 
             if (data == null || data.has("error")) {
@@ -699,7 +719,7 @@ public class TidalServiceImpl implements TidalService {
             HttpEntity<MultiValueMap<String, String>> entity = new HttpEntity<>(body, headers);
             String url = tidalProperties.getAuthUrl() + "/token";
 
-            ResponseEntity<JsonNode> response = restTemplate.exchange(url, HttpMethod.POST, entity, JsonNode.class);
+            ResponseEntity<JsonNode> response = exchange(url, HttpMethod.POST, entity, JsonNode.class);
             JsonNode data = response.getBody();
 
             if (data == null) {
@@ -829,7 +849,7 @@ public class TidalServiceImpl implements TidalService {
             HttpEntity<Void> entity = new HttpEntity<>(headers);
 
             try {
-                ResponseEntity<JsonNode> response = restTemplate.exchange(url, HttpMethod.GET, entity, JsonNode.class);
+                ResponseEntity<JsonNode> response = exchange(url, HttpMethod.GET, entity, JsonNode.class);
 
                 if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
                     JsonNode body = response.getBody();
@@ -1043,7 +1063,7 @@ public class TidalServiceImpl implements TidalService {
             String url = "https://openapi.tidal.com/v2/playlists/" + playlistId + "?countryCode=" + countryCode
                     + "&include=coverArt";
             HttpEntity<Void> entity = new HttpEntity<>(headers);
-            ResponseEntity<JsonNode> response = restTemplate.exchange(url, HttpMethod.GET, entity, JsonNode.class);
+            ResponseEntity<JsonNode> response = exchange(url, HttpMethod.GET, entity, JsonNode.class);
 
             if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
                 JsonNode body = response.getBody();
@@ -1127,7 +1147,7 @@ public class TidalServiceImpl implements TidalService {
 
         for (String endpoint : endpoints) {
             try {
-                ResponseEntity<JsonNode> response = restTemplate.exchange(
+                ResponseEntity<JsonNode> response = exchange(
                         tidalProperties.getApiUrl() + endpoint,
                         HttpMethod.GET, entity, JsonNode.class);
 
@@ -1208,7 +1228,7 @@ public class TidalServiceImpl implements TidalService {
                 try {
                     log.info("[Tidal] Trying v1 endpoint: {}", url);
                     HttpEntity<Void> entity = new HttpEntity<>(headers);
-                    ResponseEntity<JsonNode> response = restTemplate.exchange(url, HttpMethod.GET, entity,
+                    ResponseEntity<JsonNode> response = exchange(url, HttpMethod.GET, entity,
                             JsonNode.class);
 
                     if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
@@ -1263,7 +1283,7 @@ public class TidalServiceImpl implements TidalService {
 
                 log.info("[Tidal] Trying v2 endpoint: {}", url);
                 HttpEntity<Void> entity = new HttpEntity<>(reqHeaders);
-                ResponseEntity<JsonNode> response = restTemplate.exchange(url, HttpMethod.GET, entity, JsonNode.class);
+                ResponseEntity<JsonNode> response = exchange(url, HttpMethod.GET, entity, JsonNode.class);
 
                 if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
                     JsonNode data = response.getBody();
@@ -1484,7 +1504,7 @@ public class TidalServiceImpl implements TidalService {
 
             String url = tidalProperties.getApiUrl() + "/playlists/" + playlistId + "?countryCode=" + countryCode;
             HttpEntity<Void> entity = new HttpEntity<>(headers);
-            ResponseEntity<JsonNode> response = restTemplate.exchange(url, HttpMethod.GET, entity, JsonNode.class);
+            ResponseEntity<JsonNode> response = exchange(url, HttpMethod.GET, entity, JsonNode.class);
 
             if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
                 JsonNode body = response.getBody();
@@ -1516,7 +1536,7 @@ public class TidalServiceImpl implements TidalService {
             String url = "https://openapi.tidal.com/v2/playlists/" + playlistId + "?countryCode=" + countryCode
                     + "&include=coverArt";
             HttpEntity<Void> entity = new HttpEntity<>(headers);
-            ResponseEntity<JsonNode> response = restTemplate.exchange(url, HttpMethod.GET, entity, JsonNode.class);
+            ResponseEntity<JsonNode> response = exchange(url, HttpMethod.GET, entity, JsonNode.class);
 
             if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
                 JsonNode body = response.getBody();
@@ -1624,7 +1644,7 @@ public class TidalServiceImpl implements TidalService {
 
             String url = tidalProperties.getApiUrl() + "/playlists/" + playlistId + "?countryCode=" + countryCode;
             HttpEntity<Void> entity = new HttpEntity<>(headers);
-            ResponseEntity<JsonNode> response = restTemplate.exchange(url, HttpMethod.GET, entity, JsonNode.class);
+            ResponseEntity<JsonNode> response = exchange(url, HttpMethod.GET, entity, JsonNode.class);
 
             return response.getBody();
         } catch (Exception e) {
@@ -1646,7 +1666,7 @@ public class TidalServiceImpl implements TidalService {
             String url = "https://openapi.tidal.com/v2/playlists/" + playlistId + "/relationships/items?countryCode="
                     + countryCode + "&include=items,items.artists,items.albums";
             HttpEntity<Void> entity = new HttpEntity<>(headers);
-            ResponseEntity<JsonNode> response = restTemplate.exchange(url, HttpMethod.GET, entity, JsonNode.class);
+            ResponseEntity<JsonNode> response = exchange(url, HttpMethod.GET, entity, JsonNode.class);
 
             if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
                 JsonNode body = response.getBody();
@@ -1757,7 +1777,7 @@ public class TidalServiceImpl implements TidalService {
                         tidalProperties.getApiUrl(), playlistId, limit, offset, countryCode);
 
                 HttpEntity<Void> entity = new HttpEntity<>(headers);
-                ResponseEntity<JsonNode> response = restTemplate.exchange(url, HttpMethod.GET, entity, JsonNode.class);
+                ResponseEntity<JsonNode> response = exchange(url, HttpMethod.GET, entity, JsonNode.class);
 
                 if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
                     break;
@@ -1807,7 +1827,7 @@ public class TidalServiceImpl implements TidalService {
             String url = tidalProperties.getApiUrl() + "/tracks/" + tidalId
                     + "?countryCode=" + (countryCode != null ? countryCode : "KR");
             HttpEntity<Void> entity = new HttpEntity<>(headers);
-            ResponseEntity<JsonNode> response = restTemplate.exchange(url, HttpMethod.GET, entity, JsonNode.class);
+            ResponseEntity<JsonNode> response = exchange(url, HttpMethod.GET, entity, JsonNode.class);
 
             if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
                 JsonNode body = response.getBody();
@@ -1930,7 +1950,7 @@ public class TidalServiceImpl implements TidalService {
             log.info("[Tidal] Search tracks URL: {}", tracksUrl);
 
             HttpEntity<Void> entity = new HttpEntity<>(headers);
-            ResponseEntity<JsonNode> tracksResponse = restTemplate.exchange(tracksUrl, HttpMethod.GET, entity,
+            ResponseEntity<JsonNode> tracksResponse = exchange(tracksUrl, HttpMethod.GET, entity,
                     JsonNode.class);
             JsonNode tracksData = tracksResponse.getBody();
 
@@ -1,25 +1,32 @@
 package com.springboot.finalprojcet.domain.tidal.store;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
+import com.springboot.finalprojcet.domain.common.cache.TokenCache;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.stereotype.Component;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Duration;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Redis-based storage for Tidal OAuth tokens.
- * Persists tokens across server restarts.
+ * Persists tokens across server restarts. Token reads go through a {@link TokenCache}
+ * (local L1 in front of Redis, binary-encoded values, pub/sub invalidation across nodes).
  */
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class TidalTokenStore {
 
     private final RedisTemplate<String, String> redisTemplate;
-    private final ObjectMapper objectMapper;
 
     private static final String TOKEN_KEY_PREFIX = "tidal:token:";
     private static final String PKCE_KEY_PREFIX = "tidal:pkce:";
@@ -28,6 +35,20 @@ public class TidalTokenStore {
     private static final long TOKEN_TTL_DAYS = 30;
     // PKCE context TTL: 10 minutes (short-lived for OAuth flow)
     private static final long PKCE_TTL_MINUTES = 10;
+    private static final byte FORMAT_VERSION = 1;
+
+    private final TokenCache<TokenInfo> tokens;
+
+    public TidalTokenStore(RedisTemplate<String, String> redisTemplate, ObjectMapper objectMapper,
+            RedisTemplate<String, byte[]> binaryRedisTemplate, RedisMessageListenerContainer redisMessageListenerContainer,
+            MeterRegistry meterRegistry,
+            @Value("${tokens.local-cache.ttl-seconds:60}") long localTtlSeconds,
+            @Value("${tokens.local-cache.max-size:10000}") long localMaxSize) {
+        this.redisTemplate = redisTemplate;
+        this.tokens = new TokenCache<>("tidal", TOKEN_KEY_PREFIX, new TokenInfoCodec(objectMapper),
+                binaryRedisTemplate, redisMessageListenerContainer, meterRegistry,
+                Duration.ofDays(TOKEN_TTL_DAYS), Duration.ofSeconds(localTtlSeconds), localMaxSize);
+    }
 
     // ===== Token Info =====
     
@@ -53,40 +74,60 @@ public class TidalTokenStore {
     }
 
     public void saveToken(String visitorId, TokenInfo tokenInfo) {
-        String key = TOKEN_KEY_PREFIX + visitorId;
-        try {
-            String json = objectMapper.writeValueAsString(tokenInfo);
-            redisTemplate.opsForValue().set(key, json, TOKEN_TTL_DAYS, TimeUnit.DAYS);
-            log.debug("Saved Tidal token for visitor: {}", visitorId);
-        } catch (JsonProcessingException e) {
-            log.error("Failed to serialize Tidal token info", e);
-            throw new RuntimeException("Failed to save token", e);
-        }
+        tokens.put(visitorId, tokenInfo);
+        log.debug("Saved Tidal token for visitor: {}", visitorId);
     }
 
     public TokenInfo getToken(String visitorId) {
-        String key = TOKEN_KEY_PREFIX + visitorId;
-        String json = redisTemplate.opsForValue().get(key);
-        if (json == null) {
-            return null;
-        }
-        try {
-            return objectMapper.readValue(json, TokenInfo.class);
-        } catch (JsonProcessingException e) {
-            log.error("Failed to deserialize Tidal token info", e);
-            return null;
-        }
+        return tokens.get(visitorId);
     }
 
     public void removeToken(String visitorId) {
-        String key = TOKEN_KEY_PREFIX + visitorId;
-        redisTemplate.delete(key);
+        tokens.remove(visitorId);
         log.debug("Removed Tidal token for visitor: {}", visitorId);
     }
 
     public boolean hasToken(String visitorId) {
-        String key = TOKEN_KEY_PREFIX + visitorId;
-        return Boolean.TRUE.equals(redisTemplate.hasKey(key));
+        return tokens.contains(visitorId);
+    }
+
+    // Version byte, then the fields in declaration order
+    private record TokenInfoCodec(ObjectMapper objectMapper) implements TokenCache.Codec<TokenInfo> {
+        @Override
+        public byte[] encode(TokenInfo info) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(FORMAT_VERSION);
+            TokenCache.writeString(out, info.accessToken);
+            TokenCache.writeString(out, info.refreshToken);
+            out.writeLong(info.expiresAt);
+            TokenCache.writeString(out, info.userId);
+            TokenCache.writeString(out, info.countryCode);
+            TokenCache.writeString(out, info.username);
+            out.flush();
+            return bytes.toByteArray();
+        }
+
+        @Override
+        public TokenInfo decode(byte[] bytes) throws IOException {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+            byte version = in.readByte();
+            if (version != FORMAT_VERSION)
+                throw new IOException("Unknown token format version " + version);
+            TokenInfo info = new TokenInfo();
+            info.accessToken = TokenCache.readString(in);
+            info.refreshToken = TokenCache.readString(in);
+            info.expiresAt = in.readLong();
+            info.userId = TokenCache.readString(in);
+            info.countryCode = TokenCache.readString(in);
+            info.username = TokenCache.readString(in);
+            return info;
+        }
+
+        @Override
+        public TokenInfo decodeLegacyJson(byte[] json) throws IOException {
+            return objectMapper.readValue(json, TokenInfo.class);
+        }
     }
 
     // ===== PKCE Verifier =====
@@ -0,0 +1,247 @@
+package com.springboot.finalprojcet.domain.track.job;
+
+import com.springboot.finalprojcet.domain.analysis.recommend.RecommendationEngine;
+import com.springboot.finalprojcet.domain.track.resolver.TrackIdentityResolver;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+
+/**
+ * One-time cleanup of duplicate tracks rows left by imports that always inserted.
+ * Runs the same identity passes as {@link TrackIdentityResolver} (ISRC, Spotify id, YouTube id,
+ * normalized title + artist). Every duplicate group keeps its oldest row: references in
+ * playlist_tracks, user_cart, track_scored_id and user_track_ratings are repointed to it,
+ * identifiers it lacks are copied over, and the other rows are deleted - one transaction per group.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TrackDedupeJob {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final TrackIdentityResolver trackIdentityResolver;
+    private final RecommendationEngine recommendationEngine;
+    private final ExecutorService trackDedupeRunner;
+
+    @Value("${tracks.dedupe.merge-tx-timeout-seconds:30}")
+    private int mergeTimeoutSeconds;
+
+    private static final String JOB_KEY = "tracks:dedupe:job";
+    private static final String LOCK_KEY = "tracks:dedupe:job:lock";
+    private static final Duration LOCK_TTL = Duration.ofMinutes(30);
+
+    private static final String STATUS_RUNNING = "RUNNING";
+    private static final String STATUS_COMPLETED = "COMPLETED";
+    private static final String STATUS_FAILED = "FAILED";
+
+    // Columns the survivor takes from a duplicate when it has no value of its own
+    private static final List<String> FILL_COLUMNS = List.of("isrc", "spotify_id", "album", "artwork", "genre",
+            "audio_features", "release_date", "mbid", "tempo", "music_key", "mode", "time_signature",
+            "danceability", "energy", "valence", "acousticness", "instrumentalness", "liveness", "speechiness",
+            "loudness");
+
+    // external_metadata keys (youtubeId, categoryId, previewUrl, ...) are merged; the survivor's values win
+    private static final String MERGE_INTO_KEPT_SQL = "UPDATE tracks k JOIN tracks d ON d.track_id = ? SET "
+            + FILL_COLUMNS.stream().map(c -> "k." + c + " = COALESCE(k." + c + ", d." + c + "), ")
+                    .collect(Collectors.joining())
+            + "k.duration = COALESCE(NULLIF(k.duration, 0), d.duration), "
+            + "k.external_metadata = CASE WHEN k.external_metadata IS NULL THEN d.external_metadata "
+            + "WHEN d.external_metadata IS NULL THEN k.external_metadata "
+            + "ELSE JSON_MERGE_PATCH(d.external_metadata, k.external_metadata) END "
+            + "WHERE k.track_id = ?";
+
+    private record Pass(String name, String keyExpression, String having) {
+    }
+
+    /**
+     * Starts the job unless one is already running. With dryRun only the duplicate groups are counted.
+     */
+    public Map<String, Object> start(boolean dryRun) {
+        String jobId = UUID.randomUUID().toString();
+        Boolean acquired = redisTemplate.opsForValue().setIfAbsent(LOCK_KEY, jobId, LOCK_TTL);
+        if (!Boolean.TRUE.equals(acquired)) {
+            Map<String, Object> status = status();
+            status.put("message", "Track dedupe already running");
+            return status;
+        }
+
+        String now = Instant.now().toString();
+        Map<String, String> job = new HashMap<>();
+        job.put("jobId", jobId);
+        job.put("status", STATUS_RUNNING);
+        job.put("dryRun", String.valueOf(dryRun));
+        job.put("pass", "");
+        job.put("groups", "0");
+        job.put("removed", "0");
+        job.put("repointed", "0");
+        job.put("startedAt", now);
+        job.put("updatedAt", now);
+        redisTemplate.delete(JOB_KEY);
+        redisTemplate.opsForHash().putAll(JOB_KEY, job);
+
+        trackDedupeRunner.submit(() -> run(jobId, dryRun));
+
+        Map<String, Object> status = status();
+        status.put("message", dryRun ? "Track dedupe dry run started" : "Track dedupe started");
+        return status;
+    }
+
+    public Map<String, Object> status() {
+        Map<Object, Object> job = redisTemplate.opsForHash().entries(JOB_KEY);
+        Map<String, Object> status = new LinkedHashMap<>();
+        if (job.isEmpty()) {
+            status.put("status", "IDLE");
+            return status;
+        }
+        for (String field : List.of("jobId", "status", "dryRun", "pass", "groups", "removed", "repointed",
+                "startedAt", "updatedAt", "finishedAt", "error")) {
+            Object value = job.get(field);
+            if (value == null)
+                continue;
+            status.put(field, switch (field) {
+                case "groups", "removed", "repointed" -> Long.parseLong((String) value);
+                case "dryRun" -> Boolean.parseBoolean((String) value);
+                default -> value;
+            });
+        }
+        return status;
+    }
+
+    private void run(String jobId, boolean dryRun) {
+        long removed = 0;
+        try {
+            for (Pass pass : passes()) {
+                redisTemplate.opsForHash().put(JOB_KEY, "pass", pass.name());
+                List<long[]> groups = findGroups(pass);
+                log.info("[TrackDedupe] {}: {} duplicate groups", pass.name(), groups.size());
+
+                for (long[] group : groups) {
+                    long repointed = dryRun ? 0 : merge(group);
+                    removed += group.length - 1;
+                    redisTemplate.opsForHash().increment(JOB_KEY, "groups", 1);
+                    redisTemplate.opsForHash().increment(JOB_KEY, "removed", group.length - 1);
+                    redisTemplate.opsForHash().increment(JOB_KEY, "repointed", repointed);
+                }
+                redisTemplate.opsForHash().put(JOB_KEY, "updatedAt", Instant.now().toString());
+                redisTemplate.expire(LOCK_KEY, LOCK_TTL);
+            }
+            if (!dryRun && removed > 0) {
+                // Deleted rows are still in the in-memory feature index
+                recommendationEngine.rebuild();
+            }
+            finish(STATUS_COMPLETED, null);
+        } catch (Exception e) {
+            log.error("[TrackDedupe] Job {} failed", jobId, e);
+            finish(STATUS_FAILED, e.getMessage());
+        } finally {
+            if (jobId.equals(redisTemplate.opsForValue().get(LOCK_KEY))) {
+                redisTemplate.delete(LOCK_KEY);
+            }
+        }
+    }
+
+    private List<Pass> passes() {
+        String youtubeId = trackIdentityResolver.youtubeIdExpression();
+        return List.of(
+                new Pass("ISRC", "UPPER(TRIM(isrc))", ""),
+                new Pass("SPOTIFY_ID", "spotify_id", ""),
+                new Pass("YOUTUBE_ID", youtubeId, ""),
+                // Same title/artist with different ISRCs or provider ids are different recordings - leave them alone
+                new Pass("TITLE_ARTIST", trackIdentityResolver.titleArtistKeyExpression(),
+                        " AND COUNT(DISTINCT NULLIF(isrc, '')) <= 1"
+                                + " AND COUNT(DISTINCT NULLIF(spotify_id, '')) <= 1"
+                                + " AND COUNT(DISTINCT NULLIF(" + youtubeId + ", '')) <= 1"));
+    }
+
+    /**
+     * Track ids per duplicate key, oldest first. Only the duplicated keys are materialized.
+     */
+    private List<long[]> findGroups(Pass pass) {
+        String key = pass.keyExpression();
+        String sql = "SELECT d.dedupe_key, t.track_id FROM tracks t "
+                + "JOIN (SELECT " + key + " AS dedupe_key FROM tracks "
+                + "WHERE " + key + " IS NOT NULL AND " + key + " NOT IN ('', '|') "
+                + "GROUP BY dedupe_key HAVING COUNT(*) > 1" + pass.having() + ") d "
+                + "ON " + key + " = d.dedupe_key "
+                + "ORDER BY d.dedupe_key, t.track_id";
+
+        List<long[]> groups = new ArrayList<>();
+        List<Long> current = new ArrayList<>();
+        String[] currentKey = { null };
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+            String k = rs.getString(1);
+            if (!k.equals(currentKey[0])) {
+                addGroup(groups, current);
+                current.clear();
+                currentKey[0] = k;
+            }
+            current.add(rs.getLong(2));
+        });
+        addGroup(groups, current);
+        return groups;
+    }
+
+    private static void addGroup(List<long[]> groups, List<Long> ids) {
+        if (ids.size() > 1) {
+            groups.add(ids.stream().mapToLong(Long::longValue).toArray());
+        }
+    }
+
+    /**
+     * Folds group[1..] into group[0]; returns the number of repointed playlist links.
+     */
+    private long merge(long[] group) {
+        long keep = group[0];
+        Object[] duplicates = Arrays.stream(group, 1, group.length).boxed().toArray();
+        String in = String.join(",", Collections.nCopies(duplicates.length, "?"));
+        Object[] keepThenDuplicates = new Object[duplicates.length + 1];
+        keepThenDuplicates[0] = keep;
+        System.arraycopy(duplicates, 0, keepThenDuplicates, 1, duplicates.length);
+
+        TransactionTemplate mergeTx = new TransactionTemplate(transactionManager);
+        // Repoints playlist_tracks - stays well inside the interaction feed's settle window
+        mergeTx.setTimeout(mergeTimeoutSeconds);
+        Integer repointed = mergeTx.execute(tx -> {
+            for (Object duplicate : duplicates) {
+                jdbcTemplate.update(MERGE_INTO_KEPT_SQL, duplicate, keep);
+            }
+            int links = jdbcTemplate.update(
+                    "UPDATE playlist_tracks SET track_id = ? WHERE track_id IN (" + in + ")", keepThenDuplicates);
+            jdbcTemplate.update("UPDATE user_cart SET track_id = ? WHERE track_id IN (" + in + ")",
+                    keepThenDuplicates);
+            // (user_id, track_id) keyed - keep the survivor's row where both exist
+            for (String table : List.of("track_scored_id", "user_track_ratings")) {
+                jdbcTemplate.update("UPDATE IGNORE " + table + " SET track_id = ? WHERE track_id IN (" + in + ")",
+                        keepThenDuplicates);
+                jdbcTemplate.update("DELETE FROM " + table + " WHERE track_id IN (" + in + ")", duplicates);
+            }
+            jdbcTemplate.update("DELETE FROM tracks WHERE track_id IN (" + in + ")", duplicates);
+            return links;
+        });
+        return repointed != null ? repointed : 0;
+    }
+
+    private void finish(String status, String error) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put("status", status);
+        fields.put("finishedAt", Instant.now().toString());
+        if (error != null)
+            fields.put("error", error);
+        redisTemplate.opsForHash().putAll(JOB_KEY, fields);
+        log.info("[TrackDedupe] Finished with status {}", status);
+    }
+}
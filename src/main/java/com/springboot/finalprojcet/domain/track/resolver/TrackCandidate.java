@@ -0,0 +1,29 @@
+package com.springboot.finalprojcet.domain.track.resolver;
+
+import com.springboot.finalprojcet.entity.Tracks;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * An incoming track from an import, described by whatever identifiers the provider gives us.
+ * {@code factory} builds the new row and is only invoked when no existing track matches,
+ * so expensive work (artwork downloads) is skipped for tracks we already have.
+ * {@code durationSeconds} and {@code metadata} (external_metadata entries) are copied onto a
+ * matched row that lacks them.
+ */
+public record TrackCandidate(
+        String isrc,
+        String spotifyId,
+        String youtubeId,
+        String title,
+        String artist,
+        Integer durationSeconds,
+        Map<String, String> metadata,
+        Supplier<Tracks> factory) {
+
+    public TrackCandidate(String isrc, String spotifyId, String youtubeId, String title, String artist,
+            Supplier<Tracks> factory) {
+        this(isrc, spotifyId, youtubeId, title, artist, null, Map.of(), factory);
+    }
+}
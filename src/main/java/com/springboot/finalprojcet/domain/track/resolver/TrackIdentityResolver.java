@@ -0,0 +1,428 @@
+package com.springboot.finalprojcet.domain.track.resolver;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.finalprojcet.domain.tidal.repository.TracksRepository;
+import com.springboot.finalprojcet.domain.track.search.TrackSearchIndex;
+import com.springboot.finalprojcet.entity.Tracks;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Maps incoming import items onto existing tracks rows so the same song is stored once.
+ * Matching order: ISRC, then provider id (Spotify id / YouTube video id), then normalized
+ * title + artist. Each key is looked up for the whole playlist in one indexed IN query,
+ * and only the items with no match are inserted (deduplicated within the batch as well).
+ * The normalized title + artist key is a stored generated column (title_artist_key) built from
+ * {@link #TITLE_ARTIST_KEY_SQL}, which the dedupe job groups on as well.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TrackIdentityResolver {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TracksRepository tracksRepository;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    private final TrackSearchIndex trackSearchIndex;
+
+    private static final int IN_CHUNK = 500;
+    // external_metadata.youtubeId - indexed through a virtual column when available
+    public static final String YOUTUBE_ID_EXPR = "JSON_UNQUOTE(JSON_EXTRACT(external_metadata, '$.youtubeId'))";
+
+    /**
+     * SQL form of {@link #normalizeKey} (MariaDB REGEXP_REPLACE is PCRE). title and artist are
+     * VARCHAR(255), so the key always fits the VARCHAR(511) column.
+     */
+    public static final String TITLE_ARTIST_KEY_SQL = "CONCAT("
+            + "LOWER(TRIM(REGEXP_REPLACE(title, '[^\\\\p{L}\\\\p{N}]+', ' '))), '|', "
+            + "LOWER(TRIM(REGEXP_REPLACE(artist, '[^\\\\p{L}\\\\p{N}]+', ' '))))";
+
+    // Every mapped column except the generated id and the DB-defaulted created_at
+    private static final List<String> INSERT_COLUMNS = List.of("title", "artist", "album", "duration", "isrc",
+            "external_metadata", "genre", "audio_features", "popularity", "explicit", "release_date", "track_number",
+            "playcount", "listeners", "mbid", "spotify_id", "tempo", "music_key", "mode", "time_signature",
+            "danceability", "energy", "valence", "acousticness", "instrumentalness", "liveness", "speechiness",
+            "loudness", "artwork");
+    private static final String INSERT_SQL = "INSERT INTO tracks (" + String.join(", ", INSERT_COLUMNS)
+            + ") VALUES (" + placeholders(INSERT_COLUMNS.size()) + ")";
+    // Only fills what the row is missing; metadata keys already stored win over the candidate's
+    private static final String UPDATE_SQL = "UPDATE tracks SET isrc = COALESCE(isrc, ?), "
+            + "spotify_id = COALESCE(spotify_id, ?), "
+            + "duration = COALESCE(NULLIF(duration, 0), ?), "
+            + "external_metadata = COALESCE(JSON_MERGE_PATCH(?, external_metadata), ?, external_metadata) "
+            + "WHERE track_id = ?";
+
+    private static final TypeReference<Map<String, Object>> METADATA_TYPE = new TypeReference<>() {
+    };
+
+    private volatile boolean youtubeIdColumn;
+    private volatile boolean titleArtistKeyColumn;
+
+    private record TitleRow(long trackId, String isrc, String spotifyId, String youtubeId) {
+    }
+
+    // The columns are added by SchemaIndexInitializer, which runs before this event
+    @EventListener(ApplicationReadyEvent.class)
+    public void detectColumns() {
+        youtubeIdColumn = hasColumn("youtube_id");
+        titleArtistKeyColumn = hasColumn("title_artist_key");
+    }
+
+    /**
+     * Resolves every candidate to a tracks row, inserting the ones we do not have yet.
+     * The result is aligned with the input; existing rows pick up identifiers, duration and
+     * metadata entries they were missing.
+     */
+    public List<Tracks> resolve(List<TrackCandidate> candidates) {
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, Long> byIsrc = lookupIds("isrc", collect(candidates, c -> normalizeIsrc(c.isrc())));
+        Map<String, Long> bySpotifyId = lookupIds("spotify_id", collect(candidates, TrackCandidate::spotifyId));
+        Map<String, Long> byYoutubeId = lookupIds(youtubeIdExpression(),
+                collect(candidates, TrackCandidate::youtubeId));
+        Map<String, List<TitleRow>> byTitleKey = lookupTitles(candidates);
+
+        // Pick the match for every candidate, then load all matched rows at once
+        Long[] matchedIds = new Long[candidates.size()];
+        for (int i = 0; i < candidates.size(); i++) {
+            matchedIds[i] = match(candidates.get(i), byIsrc, bySpotifyId, byYoutubeId, byTitleKey);
+        }
+        Map<Long, Tracks> existing = new HashMap<>();
+        tracksRepository.findAllById(Arrays.stream(matchedIds).filter(Objects::nonNull).distinct().toList())
+                .forEach(t -> existing.put(t.getTrackId(), t));
+
+        // Items not in the table yet - the same song twice in one playlist still becomes one row
+        Map<String, Tracks> created = new HashMap<>();
+        List<Tracks> toInsert = new ArrayList<>();
+        Set<Tracks> toUpdate = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Tracks> resolved = new ArrayList<>(candidates.size());
+
+        for (int i = 0; i < candidates.size(); i++) {
+            TrackCandidate candidate = candidates.get(i);
+            Tracks track = matchedIds[i] != null ? existing.get(matchedIds[i]) : null;
+            if (track != null) {
+                if (fillMissingIds(track, candidate)) {
+                    toUpdate.add(track);
+                }
+            } else {
+                track = findCreated(created, candidate);
+                if (track == null) {
+                    track = candidate.factory().get();
+                    if (track.getIsrc() == null && candidate.isrc() != null)
+                        track.setIsrc(normalizeIsrc(candidate.isrc()));
+                    if (track.getSpotifyId() == null && candidate.spotifyId() != null)
+                        track.setSpotifyId(candidate.spotifyId());
+                    toInsert.add(track);
+                    for (String key : identityKeys(candidate)) {
+                        created.putIfAbsent(key, track);
+                    }
+                }
+            }
+            resolved.add(track);
+        }
+
+        insert(toInsert);
+        update(toUpdate);
+        log.debug("[TrackIdentity] Resolved {} items: {} existing, {} new", candidates.size(),
+                candidates.size() - toInsert.size(), toInsert.size());
+        return resolved;
+    }
+
+    /**
+     * SQL expression for the YouTube video id - the indexed virtual column when it exists.
+     */
+    public String youtubeIdExpression() {
+        return youtubeIdColumn ? "youtube_id" : YOUTUBE_ID_EXPR;
+    }
+
+    /**
+     * SQL expression for the normalized title + artist key - the indexed stored column when it exists.
+     */
+    public String titleArtistKeyExpression() {
+        return titleArtistKeyColumn ? "title_artist_key" : TITLE_ARTIST_KEY_SQL;
+    }
+
+    /**
+     * Lowercased title/artist with punctuation folded to single spaces - "Song (feat. X)" and "song feat x" agree.
+     * Kept in step with {@link #TITLE_ARTIST_KEY_SQL}.
+     */
+    public static String normalizeKey(String title, String artist) {
+        return normalizeText(title) + "|" + normalizeText(artist);
+    }
+
+    static String normalizeText(String value) {
+        if (value == null)
+            return "";
+        return value.replaceAll("[^\\p{L}\\p{N}]+", " ").trim().toLowerCase(Locale.ROOT);
+    }
+
+    // The key column compares under the table's accent- and case-insensitive collation; fold the same way
+    // so rows found by the IN query are matched back to their candidates
+    static String collationFold(String key) {
+        return Normalizer.normalize(key, Normalizer.Form.NFD).replaceAll("\\p{M}+", "").toLowerCase(Locale.ROOT);
+    }
+
+    static String normalizeIsrc(String isrc) {
+        if (isrc == null || isrc.isBlank())
+            return null;
+        return isrc.trim().toUpperCase(Locale.ROOT);
+    }
+
+    // ===== internals =====
+
+    private Long match(TrackCandidate c, Map<String, Long> byIsrc, Map<String, Long> bySpotifyId,
+            Map<String, Long> byYoutubeId, Map<String, List<TitleRow>> byTitleKey) {
+        String isrc = normalizeIsrc(c.isrc());
+        if (isrc != null && byIsrc.containsKey(isrc))
+            return byIsrc.get(isrc);
+        if (c.spotifyId() != null && bySpotifyId.containsKey(c.spotifyId()))
+            return bySpotifyId.get(c.spotifyId());
+        if (c.youtubeId() != null && byYoutubeId.containsKey(c.youtubeId()))
+            return byYoutubeId.get(c.youtubeId());
+        if (c.title() == null || c.artist() == null)
+            return null;
+        for (TitleRow row : byTitleKey.getOrDefault(collationFold(normalizeKey(c.title(), c.artist())), List.of())) {
+            // Same title/artist but a different recording (live, remaster) - not the same track.
+            // Same rule as the dedupe job's TITLE_ARTIST pass.
+            if (isrc != null && row.isrc() != null && !isrc.equalsIgnoreCase(row.isrc()))
+                continue;
+            if (c.spotifyId() != null && row.spotifyId() != null && !c.spotifyId().equals(row.spotifyId()))
+                continue;
+            if (c.youtubeId() != null && row.youtubeId() != null && !c.youtubeId().equals(row.youtubeId()))
+                continue;
+            return row.trackId();
+        }
+        return null;
+    }
+
+    private boolean fillMissingIds(Tracks track, TrackCandidate c) {
+        boolean changed = false;
+        String isrc = normalizeIsrc(c.isrc());
+        if (track.getIsrc() == null && isrc != null) {
+            track.setIsrc(isrc);
+            changed = true;
+        }
+        if (track.getSpotifyId() == null && c.spotifyId() != null) {
+            track.setSpotifyId(c.spotifyId());
+            changed = true;
+        }
+        if ((track.getDuration() == null || track.getDuration() == 0)
+                && c.durationSeconds() != null && c.durationSeconds() > 0) {
+            track.setDuration(c.durationSeconds());
+            changed = true;
+        }
+        return fillMissingMetadata(track, c) || changed;
+    }
+
+    // Adds candidate metadata keys (youtubeId, categoryId, ...) the row does not have; existing values win
+    private boolean fillMissingMetadata(Tracks track, TrackCandidate c) {
+        if (c.metadata() == null || c.metadata().isEmpty())
+            return false;
+        Map<String, Object> meta = new LinkedHashMap<>();
+        if (track.getExternalMetadata() != null) {
+            try {
+                Map<String, Object> stored = objectMapper.readValue(track.getExternalMetadata(), METADATA_TYPE);
+                if (stored != null)
+                    meta.putAll(stored);
+            } catch (JsonProcessingException e) {
+                log.debug("[TrackIdentity] Leaving unreadable external_metadata of track {}", track.getTrackId());
+                return false;
+            }
+        }
+        boolean changed = false;
+        for (Map.Entry<String, String> entry : c.metadata().entrySet()) {
+            if (entry.getValue() != null && meta.get(entry.getKey()) == null) {
+                meta.put(entry.getKey(), entry.getValue());
+                changed = true;
+            }
+        }
+        if (!changed)
+            return false;
+        try {
+            track.setExternalMetadata(objectMapper.writeValueAsString(meta));
+            return true;
+        } catch (JsonProcessingException e) {
+            return false;
+        }
+    }
+
+    /**
+     * One JDBC batch for all new rows (IDENTITY ids rule out Hibernate insert batching); the generated
+     * ids are copied back onto the entities, which stay detached.
+     */
+    private void insert(List<Tracks> tracks) {
+        if (tracks.isEmpty())
+            return;
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Object[] values = insertValues(tracks.get(i));
+                        for (int c = 0; c < values.length; c++) {
+                            ps.setObject(c + 1, values[c]);
+                        }
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return tracks.size();
+                    }
+                }, keys);
+        List<Map<String, Object>> generated = keys.getKeyList();
+        if (generated.size() != tracks.size()) {
+            throw new IllegalStateException("Inserted " + tracks.size() + " tracks but got "
+                    + generated.size() + " generated ids");
+        }
+        for (int i = 0; i < tracks.size(); i++) {
+            Tracks track = tracks.get(i);
+            track.setTrackId(((Number) generated.get(i).values().iterator().next()).longValue());
+            // Hibernate's entity listener does not see JDBC inserts
+            trackSearchIndex.onTrackSaved(track);
+        }
+    }
+
+    /**
+     * Writes the filled-in identifiers of matched rows in one JDBC batch. The rows were loaded through
+     * JPA, so they are detached afterwards or the flush would write each of them again.
+     */
+    private void update(Collection<Tracks> tracks) {
+        if (tracks.isEmpty())
+            return;
+        jdbcTemplate.batchUpdate(UPDATE_SQL, tracks, tracks.size(), (ps, track) -> {
+            ps.setString(1, track.getIsrc());
+            ps.setString(2, track.getSpotifyId());
+            ps.setObject(3, track.getDuration());
+            ps.setString(4, track.getExternalMetadata());
+            ps.setString(5, track.getExternalMetadata());
+            ps.setLong(6, track.getTrackId());
+        });
+        tracks.forEach(entityManager::detach);
+    }
+
+    private static Object[] insertValues(Tracks t) {
+        return new Object[] { t.getTitle(), t.getArtist(), t.getAlbum(), t.getDuration(), t.getIsrc(),
+                t.getExternalMetadata(), t.getGenre(), t.getAudioFeatures(), t.getPopularity(), t.getExplicit(),
+                t.getReleaseDate(), t.getTrackNumber(), t.getPlaycount(), t.getListeners(), t.getMbid(),
+                t.getSpotifyId(), t.getTempo(), t.getMusicKey(), t.getMode(), t.getTimeSignature(),
+                t.getDanceability(), t.getEnergy(), t.getValence(), t.getAcousticness(), t.getInstrumentalness(),
+                t.getLiveness(), t.getSpeechiness(), t.getLoudness(), t.getArtwork() };
+    }
+
+    private Tracks findCreated(Map<String, Tracks> created, TrackCandidate candidate) {
+        for (String key : identityKeys(candidate)) {
+            Tracks track = created.get(key);
+            if (track != null)
+                return track;
+        }
+        return null;
+    }
+
+    private List<String> identityKeys(TrackCandidate c) {
+        List<String> keys = new ArrayList<>(4);
+        String isrc = normalizeIsrc(c.isrc());
+        if (isrc != null)
+            keys.add("isrc:" + isrc);
+        if (c.spotifyId() != null)
+            keys.add("spotify:" + c.spotifyId());
+        if (c.youtubeId() != null)
+            keys.add("youtube:" + c.youtubeId());
+        if (c.title() != null && c.artist() != null)
+            keys.add("title:" + normalizeKey(c.title(), c.artist()));
+        return keys;
+    }
+
+    private static Set<String> collect(List<TrackCandidate> candidates, Function<TrackCandidate, String> key) {
+        Set<String> values = new LinkedHashSet<>();
+        for (TrackCandidate c : candidates) {
+            String value = key.apply(c);
+            if (value != null && !value.isBlank())
+                values.add(value);
+        }
+        return values;
+    }
+
+    // Oldest row per value - the one the dedupe job keeps
+    private Map<String, Long> lookupIds(String column, Set<String> values) {
+        Map<String, Long> ids = new HashMap<>();
+        for (List<String> chunk : chunks(values)) {
+            String sql = "SELECT " + column + ", MIN(track_id) FROM tracks WHERE " + column + " IN ("
+                    + placeholders(chunk.size()) + ") GROUP BY " + column;
+            jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+                // ISRCs are stored with inconsistent case; provider ids are compared exactly
+                String value = "isrc".equals(column) ? normalizeIsrc(rs.getString(1)) : rs.getString(1);
+                if (value != null)
+                    ids.merge(value, rs.getLong(2), Math::min);
+            }, chunk.toArray());
+        }
+        return ids;
+    }
+
+    // Rows by folded title + artist key, oldest first
+    private Map<String, List<TitleRow>> lookupTitles(List<TrackCandidate> candidates) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (TrackCandidate c : candidates) {
+            if (c.title() != null && c.artist() != null)
+                keys.add(normalizeKey(c.title(), c.artist()));
+        }
+        keys.remove("|");
+
+        Map<String, List<TitleRow>> rows = new HashMap<>();
+        String key = titleArtistKeyExpression();
+        for (List<String> chunk : chunks(keys)) {
+            String sql = "SELECT track_id, " + key + ", isrc, spotify_id, " + youtubeIdExpression()
+                    + " FROM tracks WHERE " + key + " IN (" + placeholders(chunk.size()) + ") ORDER BY track_id";
+            jdbcTemplate.query(sql, (RowCallbackHandler) rs -> rows
+                    .computeIfAbsent(collationFold(rs.getString(2)), k -> new ArrayList<>())
+                    .add(new TitleRow(rs.getLong(1), rs.getString(3), rs.getString(4), rs.getString(5))),
+                    chunk.toArray());
+        }
+        return rows;
+    }
+
+    private boolean hasColumn(String column) {
+        try {
+            Integer count = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM information_schema.columns "
+                            + "WHERE table_schema = DATABASE() AND table_name = 'tracks' AND column_name = ?",
+                    Integer.class, column);
+            return count != null && count > 0;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static List<List<String>> chunks(Set<String> values) {
+        List<String> list = new ArrayList<>(values);
+        List<List<String>> chunks = new ArrayList<>();
+        for (int i = 0; i < list.size(); i += IN_CHUNK) {
+            chunks.add(list.subList(i, Math.min(list.size(), i + IN_CHUNK)));
+        }
+        return chunks;
+    }
+
+    private static String placeholders(int n) {
+        return String.join(",", Collections.nCopies(n, "?"));
+    }
+}
@@ -0,0 +1,283 @@
+package com.springboot.finalprojcet.domain.track.search;
+
+import com.springboot.finalprojcet.domain.common.tx.AfterCommit;
+import com.springboot.finalprojcet.entity.Tracks;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Full-text search over track titles and artists, backed by a MariaDB FULLTEXT index.
+ * <p>
+ * MariaDB has no n-gram parser, so the tokens are built here and stored in {@code tracks.search_terms}:
+ * Latin/digit words as whole words, Korean/CJK runs as syllable unigrams and bigrams (so "아이유" is
+ * found by "아이유", "이유" or "유", and "좋은 날" by "좋은날"). Every token carries a short prefix to
+ * stay above InnoDB's minimum token length and clear of its stopword list. Results are ranked by
+ * full-text relevance plus a log-scaled playlist count.
+ * <p>
+ * Tracks saved through JPA are re-tokenized after commit ({@link TrackSearchListener}); a periodic
+ * sweep fills anything inserted with plain SQL and does the initial backfill. Until that backfill has
+ * finished once, {@link #search} returns null and callers use their LIKE query.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TrackSearchIndex {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ExecutorService trackSearchSweepRunner;
+
+    @Value("${tracks.search.candidates:200}")
+    private int candidates;
+
+    @Value("${tracks.search.popularity-weight:0.5}")
+    private double popularityWeight;
+
+    @Value("${tracks.search.sweep-batch:1000}")
+    private int sweepBatch;
+
+    public static final String INDEX_NAME = "ftx_tracks_search_terms";
+    private static final String SWEPT_UPTO_KEY = "tracks:search:swept-upto";
+    private static final String BACKFILLED_KEY = "tracks:search:backfilled";
+    private static final String LOCK_KEY = "tracks:search:sweep:lock";
+    private static final Duration LOCK_TTL = Duration.ofMinutes(10);
+    // IDENTITY ids can commit out of order - re-check the most recent ids on every sweep
+    private static final long SWEEP_LOOKBACK_IDS = 1000;
+
+    private static final String WORD_PREFIX = "w";
+    private static final String CJK_PREFIX = "cj";
+    private static final String CJK = "\\p{IsHangul}\\p{IsHan}\\p{IsHiragana}\\p{IsKatakana}";
+    private static final Pattern RUN = Pattern.compile("[" + CJK + "]+|[\\p{L}\\p{N}&&[^" + CJK + "]]+");
+
+    private static final String SEARCH_SQL = "SELECT c.track_id, c.title, c.artist, c.album, c.duration, c.artwork "
+            + "FROM (SELECT track_id, title, artist, album, duration, artwork, "
+            + "MATCH(search_terms) AGAINST (? IN BOOLEAN MODE) AS relevance "
+            + "FROM tracks WHERE MATCH(search_terms) AGAINST (? IN BOOLEAN MODE) "
+            + "ORDER BY relevance DESC LIMIT ?) c "
+            + "ORDER BY c.relevance + ? * LN(1 + (SELECT COUNT(*) FROM playlist_tracks pt "
+            + "WHERE pt.track_id = c.track_id)) DESC "
+            + "LIMIT ?";
+
+    private volatile boolean columnReady;
+    private volatile boolean searchReady;
+
+    private record Pending(long trackId, String terms) {
+    }
+
+    // The column and its FULLTEXT index are added by SchemaIndexInitializer, which runs before this event
+    @EventListener(ApplicationReadyEvent.class)
+    public void detectSearchIndex() {
+        try {
+            Integer count = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM information_schema.statistics "
+                            + "WHERE table_schema = DATABASE() AND table_name = 'tracks' AND index_name = ?",
+                    Integer.class, INDEX_NAME);
+            columnReady = count != null && count > 0;
+        } catch (Exception e) {
+            columnReady = false;
+        }
+        searchReady = columnReady && Boolean.TRUE.equals(redisTemplate.hasKey(BACKFILLED_KEY));
+        log.info("[TrackSearch] Full-text index {}",
+                searchReady ? "ready" : columnReady ? "backfilling" : "unavailable");
+    }
+
+    /**
+     * Best matches for the query, most relevant first, or null if the index cannot answer it
+     * (not built yet, or the query has no searchable tokens).
+     */
+    public List<Tracks> search(String query, int limit) {
+        if (!searchReady)
+            return null;
+        String booleanQuery = toBooleanQuery(query);
+        if (booleanQuery.isEmpty())
+            return null;
+        return jdbcTemplate.query(SEARCH_SQL, (rs, rowNum) -> Tracks.builder()
+                        .trackId(rs.getLong("track_id"))
+                        .title(rs.getString("title"))
+                        .artist(rs.getString("artist"))
+                        .album(rs.getString("album"))
+                        .duration(rs.getObject("duration") != null ? rs.getInt("duration") : null)
+                        .artwork(rs.getString("artwork"))
+                        .build(),
+                booleanQuery, booleanQuery, Math.max(candidates, limit), popularityWeight, limit);
+    }
+
+    /**
+     * Re-tokenizes a track saved through JPA (or inserted with JDBC) once the surrounding transaction
+     * has committed.
+     */
+    public void onTrackSaved(Tracks track) {
+        if (!columnReady || track.getTrackId() == null)
+            return;
+        Pending pending = new Pending(track.getTrackId(), documentTerms(track.getTitle(), track.getArtist()));
+        // One batch per transaction, written once it has committed
+        AfterCommit.collect(this, pending.trackId(), pending, batch -> {
+            try {
+                write(batch);
+            } catch (Exception e) {
+                // The sweep only fills empty rows - a missed title change stays stale until the next save
+                log.warn("[TrackSearch] Failed to index {} tracks: {}", batch.size(), e.getMessage());
+            }
+        });
+    }
+
+    @Scheduled(initialDelayString = "${tracks.search.sweep-initial-delay-ms:30000}",
+            fixedDelayString = "${tracks.search.sweep-interval-ms:30000}")
+    public void scheduleSweep() {
+        // The first sweep is the whole backfill - run it on its own thread, not the shared scheduler
+        trackSearchSweepRunner.execute(this::sweep);
+    }
+
+    /**
+     * Tokenizes rows that have no search_terms yet, walking tracks by id from where the last sweep
+     * stopped. The first complete pass is the backfill; after it, search switches to the index.
+     */
+    public void sweep() {
+        if (!columnReady)
+            return;
+        String owner = UUID.randomUUID().toString();
+        if (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(LOCK_KEY, owner, LOCK_TTL))) {
+            refreshSearchReady();
+            return;
+        }
+        try {
+            String stored = redisTemplate.opsForValue().get(SWEPT_UPTO_KEY);
+            long cursor = stored != null ? Math.max(0, Long.parseLong(stored) - SWEEP_LOOKBACK_IDS) : 0;
+            int indexed = 0;
+            while (true) {
+                List<Pending> missing = new ArrayList<>();
+                long[] last = {cursor};
+                int[] seen = {0};
+                jdbcTemplate.query("SELECT track_id, title, artist, search_terms IS NULL AS missing FROM tracks "
+                        + "WHERE track_id > ? ORDER BY track_id LIMIT ?", rs -> {
+                    last[0] = rs.getLong("track_id");
+                    seen[0]++;
+                    if (rs.getBoolean("missing")) {
+                        missing.add(new Pending(last[0],
+                                documentTerms(rs.getString("title"), rs.getString("artist"))));
+                    }
+                }, cursor, sweepBatch);
+                write(missing);
+                indexed += missing.size();
+                cursor = last[0];
+                redisTemplate.opsForValue().set(SWEPT_UPTO_KEY, String.valueOf(cursor));
+                if (seen[0] < sweepBatch)
+                    break;
+            }
+            redisTemplate.opsForValue().set(BACKFILLED_KEY, "1");
+            searchReady = true;
+            if (indexed > 0)
+                log.info("[TrackSearch] Indexed {} tracks (swept up to id {})", indexed, cursor);
+        } catch (Exception e) {
+            log.error("[TrackSearch] Sweep failed", e);
+        } finally {
+            if (owner.equals(redisTemplate.opsForValue().get(LOCK_KEY)))
+                redisTemplate.delete(LOCK_KEY);
+        }
+    }
+
+    // ===== internals =====
+
+    private void refreshSearchReady() {
+        if (!searchReady && Boolean.TRUE.equals(redisTemplate.hasKey(BACKFILLED_KEY)))
+            searchReady = true;
+    }
+
+    private void write(List<Pending> pending) {
+        if (pending.isEmpty())
+            return;
+        jdbcTemplate.batchUpdate("UPDATE tracks SET search_terms = ? WHERE track_id = ?", pending, pending.size(),
+                (ps, p) -> {
+                    ps.setString(1, p.terms());
+                    ps.setLong(2, p.trackId());
+                });
+    }
+
+    /**
+     * Tokens stored for a track: every word and every CJK unigram and bigram of title and artist.
+     */
+    static String documentTerms(String title, String artist) {
+        Set<String> terms = new LinkedHashSet<>();
+        for (String text : new String[]{title, artist}) {
+            Matcher m = RUN.matcher(normalize(text));
+            int previousSyllable = -1;
+            while (m.find()) {
+                String run = m.group();
+                if (isCjk(run)) {
+                    int[] cps = run.codePoints().toArray();
+                    // Bigram across the space too, so "좋은날" finds "좋은 날"
+                    if (previousSyllable >= 0)
+                        terms.add(CJK_PREFIX + new String(new int[]{previousSyllable, cps[0]}, 0, 2));
+                    previousSyllable = cps[cps.length - 1];
+                    for (int i = 0; i < cps.length; i++) {
+                        terms.add(CJK_PREFIX + new String(cps, i, 1));
+                        if (i + 1 < cps.length)
+                            terms.add(CJK_PREFIX + new String(cps, i, 2));
+                    }
+                } else {
+                    previousSyllable = -1;
+                    if (run.codePointCount(0, run.length()) > 1)
+                        terms.add(WORD_PREFIX + run);
+                }
+            }
+        }
+        return String.join(" ", terms);
+    }
+
+    /**
+     * Boolean-mode query requiring every token. CJK runs are matched by their bigrams (or the single
+     * syllable); the last word is a prefix so results keep up with typing.
+     */
+    static String toBooleanQuery(String query) {
+        String normalized = normalize(query);
+        boolean typing = !normalized.isEmpty() && !Character.isWhitespace(normalized.charAt(normalized.length() - 1));
+        List<String> runs = new ArrayList<>();
+        Matcher m = RUN.matcher(normalized);
+        while (m.find())
+            runs.add(m.group());
+
+        List<String> required = new ArrayList<>();
+        for (int r = 0; r < runs.size(); r++) {
+            String run = runs.get(r);
+            if (isCjk(run)) {
+                int[] cps = run.codePoints().toArray();
+                if (cps.length == 1) {
+                    required.add("+" + CJK_PREFIX + run);
+                }
+                for (int i = 0; i + 1 < cps.length; i++) {
+                    required.add("+" + CJK_PREFIX + new String(cps, i, 2));
+                }
+            } else if (typing && r == runs.size() - 1) {
+                required.add("+" + WORD_PREFIX + run + "*");
+            } else if (run.codePointCount(0, run.length()) > 1) {
+                required.add("+" + WORD_PREFIX + run);
+            }
+        }
+        return String.join(" ", required);
+    }
+
+    private static boolean isCjk(String run) {
+        int cp = run.codePointAt(0);
+        Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+        return script == Character.UnicodeScript.HANGUL || script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA || script == Character.UnicodeScript.KATAKANA;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,24 @@
+package com.springboot.finalprojcet.domain.track.search;
+
+import com.springboot.finalprojcet.entity.Tracks;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA entity listener that keeps {@link TrackSearchIndex} current for tracks saved through Hibernate.
+ * Created by Spring (Hibernate's bean container), so it can take the index as a dependency.
+ */
+@Component
+@RequiredArgsConstructor
+public class TrackSearchListener {
+
+    private final TrackSearchIndex trackSearchIndex;
+
+    @PostPersist
+    @PostUpdate
+    public void onSaved(Tracks track) {
+        trackSearchIndex.onTrackSaved(track);
+    }
+}
@@ -0,0 +1,128 @@
+package com.springboot.finalprojcet.domain.training.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.springboot.finalprojcet.domain.common.event.LibraryChangedEvent;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Cached library feature summaries (top artists + duration stats).
+ * Per-user summaries are computed on demand and dropped on every node (Redis pub/sub) when the
+ * user's library changes; the global summary scans every playlist link, so it is only recomputed
+ * on a schedule.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class FeatureSummaryCache implements MessageListener {
+
+    private static final String INVALIDATE_CHANNEL = "training:features:invalidate";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final ExecutorService featureSummaryRunner;
+
+    private static final String USER_ARTISTS_SQL = "SELECT t.artist, COUNT(*) as frequency "
+            + "FROM tracks t JOIN playlist_tracks pt ON t.track_id = pt.track_id "
+            + "JOIN playlists p ON pt.playlist_id = p.playlist_id "
+            + "WHERE p.user_id = ? GROUP BY t.artist ORDER BY frequency DESC LIMIT 50";
+    private static final String USER_DURATION_SQL = "SELECT AVG(t.duration) as avg, MIN(t.duration) as min, "
+            + "MAX(t.duration) as max, SUM(t.duration) as total "
+            + "FROM tracks t JOIN playlist_tracks pt ON t.track_id = pt.track_id "
+            + "JOIN playlists p ON pt.playlist_id = p.playlist_id WHERE p.user_id = ?";
+
+    // Every link belongs to a playlist, so the global variant skips the playlists join
+    private static final String GLOBAL_ARTISTS_SQL = "SELECT t.artist, COUNT(*) as frequency "
+            + "FROM tracks t JOIN playlist_tracks pt ON t.track_id = pt.track_id "
+            + "GROUP BY t.artist ORDER BY frequency DESC LIMIT 50";
+    private static final String GLOBAL_DURATION_SQL = "SELECT AVG(t.duration) as avg, MIN(t.duration) as min, "
+            + "MAX(t.duration) as max, SUM(t.duration) as total "
+            + "FROM tracks t JOIN playlist_tracks pt ON t.track_id = pt.track_id";
+
+    private final Cache<Long, Map<String, Object>> userSummaries = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(Duration.ofMinutes(30))
+            .build();
+
+    private volatile Map<String, Object> globalSummary;
+
+    @PostConstruct
+    void subscribeInvalidations() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATE_CHANNEL));
+    }
+
+    public Map<String, Object> get(Long userId) {
+        if (userId == null) {
+            Map<String, Object> global = globalSummary;
+            return global != null ? global : refreshGlobal();
+        }
+        return userSummaries.get(userId, id -> summarize(USER_ARTISTS_SQL, USER_DURATION_SQL, id));
+    }
+
+    @Scheduled(initialDelayString = "${training.features.global-initial-delay-ms:60000}",
+            fixedDelayString = "${training.features.global-refresh-ms:600000}")
+    public void scheduledRefresh() {
+        // Scans every playlist link - runs on its own thread, not the shared scheduler
+        featureSummaryRunner.execute(() -> {
+            try {
+                refreshGlobal();
+            } catch (Exception e) {
+                log.error("[FeatureSummary] Global summary refresh failed", e);
+            }
+        });
+    }
+
+    private synchronized Map<String, Object> refreshGlobal() {
+        long start = System.currentTimeMillis();
+        Map<String, Object> summary = summarize(GLOBAL_ARTISTS_SQL, GLOBAL_DURATION_SQL);
+        globalSummary = summary;
+        log.debug("[FeatureSummary] Global summary refreshed in {} ms", System.currentTimeMillis() - start);
+        return summary;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLibraryChanged(LibraryChangedEvent event) {
+        userSummaries.invalidate(event.userId());
+        try {
+            redisTemplate.convertAndSend(INVALIDATE_CHANNEL, String.valueOf(event.userId()));
+        } catch (Exception e) {
+            log.warn("[FeatureSummary] Failed to publish invalidation for {}: {}", event.userId(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            userSummaries.invalidate(Long.parseLong(new String(message.getBody(), StandardCharsets.UTF_8)));
+        } catch (NumberFormatException e) {
+            log.warn("[FeatureSummary] Ignoring malformed invalidation message");
+        }
+    }
+
+    private Map<String, Object> summarize(String artistSql, String durationSql, Object... args) {
+        List<Map<String, Object>> artistStats = jdbcTemplate.queryForList(artistSql, args);
+        Map<String, Object> durationStats = jdbcTemplate.queryForMap(durationSql, args);
+        return Map.of(
+                "features", Map.of(
+                        "topArtists", artistStats,
+                        "durationStats", durationStats));
+    }
+}
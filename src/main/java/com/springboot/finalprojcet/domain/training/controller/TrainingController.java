@@ -3,6 +3,7 @@ package com.springboot.finalprojcet.domain.training.controller;
 import com.springboot.finalprojcet.domain.auth.service.CustomUserDetails;
 import com.springboot.finalprojcet.domain.training.service.TrainingService;
 import io.swagger.v3.oas.annotations.Operation;
+import jakarta.servlet.http.HttpServletRequest;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpHeaders;
@@ -10,7 +11,9 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
@@ -24,10 +27,13 @@ public class TrainingController {
     private final TrainingService trainingService;
 
     @GetMapping("/user/{userId}/data")
-    public ResponseEntity<Map<String, Object>> getUserData(
+    public ResponseEntity<StreamingResponseBody> getUserData(
             @PathVariable Long userId,
             @RequestParam(defaultValue = "true") boolean includeMetadata) {
-        return ResponseEntity.ok(trainingService.getUserTrainingData(userId, includeMetadata));
+        StreamingResponseBody body = out -> trainingService.writeUserTrainingData(userId, includeMetadata, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
     }
 
     @GetMapping("/export")
@@ -67,6 +73,17 @@ public class TrainingController {
         return ResponseEntity.ok(trainingService.saveScores(userId, scores));
     }
 
+    @PostMapping(value = "/score", consumes = "application/x-ndjson")
+    @Operation(summary = "점수 일괄 저장 (NDJSON)", description = "대량의 점수를 한 줄에 하나씩 스트리밍으로 저장합니다.")
+    public ResponseEntity<Map<String, Object>> saveScoresStream(
+            @RequestParam(required = false) Long userId,
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            HttpServletRequest request) throws IOException {
+        if (userId == null && userDetails != null)
+            userId = userDetails.getUser().getUserId();
+        return ResponseEntity.ok(trainingService.saveScores(userId, request.getInputStream()));
+    }
+
     @GetMapping("/interactions")
     public ResponseEntity<Map<String, Object>> getInteractions(
             @RequestParam(required = false) Long userId,
@@ -74,16 +91,35 @@ public class TrainingController {
         return ResponseEntity.ok(trainingService.getInteractions(userId, limit));
     }
 
+    @GetMapping("/interactions/feed")
+    @Operation(summary = "상호작용 피드", description = "전체 사용자 상호작용(추가 1, 삭제 -1)을 시간순 커서로 페이지 조회합니다. nextCursor를 워터마크로 보관하면 이후 변경분만 가져올 수 있습니다.")
+    public ResponseEntity<Map<String, Object>> getInteractionFeed(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(defaultValue = "1000") int limit) {
+        return ResponseEntity.ok(trainingService.getInteractionFeed(cursor, userId, limit));
+    }
+
     @PostMapping("/collect-features")
     public ResponseEntity<Map<String, Object>> collectFeatures(@RequestBody Map<String, Object> body) {
         List<Long> trackIds = null;
         if (body.get("trackIds") != null) {
-            // Need custom parsing or rely on simple list
-            // Assuming simple List handling via Jackson
-            trackIds = (List<Long>) body.get("trackIds");
+            // Jackson gives Integer/Long depending on size
+            trackIds = ((List<Number>) body.get("trackIds")).stream().map(Number::longValue).toList();
         }
         int limit = body.get("limit") != null ? (int) body.get("limit") : 50;
-        return ResponseEntity.ok(trainingService.collectFeatures(trackIds, limit));
+        return ResponseEntity.accepted().body(trainingService.collectFeatures(trackIds, limit));
+    }
+
+    @GetMapping("/collect-features/status")
+    @Operation(summary = "특징 수집 작업 상태", description = "백그라운드 오디오 특징 수집 작업의 진행 상황을 조회합니다.")
+    public ResponseEntity<Map<String, Object>> getCollectFeaturesStatus() {
+        return ResponseEntity.ok(trainingService.getFeatureCollectionStatus());
+    }
+
+    @PostMapping("/collect-features/cancel")
+    public ResponseEntity<Map<String, Object>> cancelCollectFeatures() {
+        return ResponseEntity.ok(trainingService.cancelFeatureCollection());
     }
 
     @GetMapping("/features-status")
@@ -0,0 +1,343 @@
+package com.springboot.finalprojcet.domain.training.job;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.finalprojcet.domain.analysis.recommend.RecommendationEngine;
+import com.springboot.finalprojcet.domain.spotify.cache.ArtistGenreCache;
+import com.springboot.finalprojcet.domain.spotify.service.SpotifyService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+
+/**
+ * Resumable background job that fills tracks.audio_features from Spotify.
+ * Walks tracks in track_id order page by page: ISRC lookups fan out on a bounded pool,
+ * features and artist genres come from Spotify's batch endpoints, and each page is written
+ * with one batch UPDATE. Progress and the cursor live in Redis, so a job interrupted by a
+ * restart picks up after the last finished page. Every progress write checks, in the same script,
+ * that this run still holds the lock and the job is still the current one - a run that lost either
+ * stops without touching the newer job.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class FeatureCollectionJob {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SpotifyService spotifyService;
+    private final RecommendationEngine recommendationEngine;
+    private final ArtistGenreCache artistGenreCache;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService featureJobRunner;
+    private final ExecutorService featureLookupPool;
+
+    @Value("${training.features.page-size:100}")
+    private int pageSize;
+
+    private static final String JOB_KEY = "training:features:job";
+    private static final String LOCK_KEY = "training:features:job:lock";
+    private static final Duration LOCK_TTL = Duration.ofMinutes(5);
+
+    // KEYS: lock, job. ARGV: owner, jobId, lock ttl ms, cursor, updatedAt, processed, success, failed.
+    // An expired lock is taken back if nobody else holds it
+    private static final DefaultRedisScript<Long> PROGRESS_SCRIPT = new DefaultRedisScript<>("""
+            local holder = redis.call('GET', KEYS[1])
+            if holder and holder ~= ARGV[1] then return 0 end
+            if redis.call('HGET', KEYS[2], 'jobId') ~= ARGV[2] then return 0 end
+            redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[3])
+            redis.call('HSET', KEYS[2], 'cursor', ARGV[4], 'updatedAt', ARGV[5])
+            redis.call('HINCRBY', KEYS[2], 'processed', ARGV[6])
+            redis.call('HINCRBY', KEYS[2], 'success', ARGV[7])
+            redis.call('HINCRBY', KEYS[2], 'failed', ARGV[8])
+            return 1
+            """, Long.class);
+
+    // KEYS: job. ARGV: jobId, then field/value pairs
+    private static final DefaultRedisScript<Long> FINISH_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('HGET', KEYS[1], 'jobId') ~= ARGV[1] then return 0 end
+            redis.call('HSET', KEYS[1], unpack(ARGV, 2))
+            return 1
+            """, Long.class);
+
+    // KEYS: lock. ARGV: owner
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end
+            return 0
+            """, Long.class);
+
+    private static final String STATUS_RUNNING = "RUNNING";
+    private static final String STATUS_CANCELLING = "CANCELLING";
+    private static final String STATUS_CANCELLED = "CANCELLED";
+    private static final String STATUS_COMPLETED = "COMPLETED";
+    private static final String STATUS_FAILED = "FAILED";
+
+    private static final String UPDATE_SQL = "UPDATE tracks SET spotify_id = ?, genre = ?, audio_features = ?, "
+            + "tempo = ?, energy = ?, danceability = ?, valence = ?, acousticness = ?, instrumentalness = ?, "
+            + "liveness = ?, speechiness = ?, loudness = ?, music_key = ?, mode = ?, time_signature = ? "
+            + "WHERE track_id = ?";
+
+    private record PendingTrack(long trackId, String isrc, String spotifyId) {
+    }
+
+    private record Collected(long trackId, String spotifyId, String genre, Map<String, Object> audioFeatures) {
+    }
+
+    /**
+     * Starts a new job unless one is already running; returns the job status right away.
+     * With trackIds only those tracks are (re)collected, otherwise up to limit tracks without features.
+     */
+    public Map<String, Object> start(List<Long> trackIds, int limit) {
+        String jobId = UUID.randomUUID().toString();
+        String owner = UUID.randomUUID().toString();
+        Boolean acquired = redisTemplate.opsForValue().setIfAbsent(LOCK_KEY, owner, LOCK_TTL);
+        if (!Boolean.TRUE.equals(acquired)) {
+            Map<String, Object> status = status();
+            status.put("message", "Feature collection already running");
+            return status;
+        }
+
+        boolean explicit = trackIds != null && !trackIds.isEmpty();
+        String now = Instant.now().toString();
+        Map<String, String> job = new HashMap<>();
+        job.put("jobId", jobId);
+        job.put("status", STATUS_RUNNING);
+        job.put("cursor", "0");
+        job.put("limit", String.valueOf(explicit ? trackIds.size() : limit));
+        job.put("trackIds", explicit
+                ? trackIds.stream().map(String::valueOf).collect(Collectors.joining(",")) : "");
+        job.put("processed", "0");
+        job.put("success", "0");
+        job.put("failed", "0");
+        job.put("startedAt", now);
+        job.put("updatedAt", now);
+        redisTemplate.delete(JOB_KEY);
+        redisTemplate.opsForHash().putAll(JOB_KEY, job);
+
+        featureJobRunner.submit(() -> run(jobId, owner));
+
+        Map<String, Object> status = status();
+        status.put("message", "Feature collection started");
+        return status;
+    }
+
+    public Map<String, Object> status() {
+        Map<Object, Object> job = redisTemplate.opsForHash().entries(JOB_KEY);
+        Map<String, Object> status = new LinkedHashMap<>();
+        if (job.isEmpty()) {
+            status.put("status", "IDLE");
+            status.put("artistCache", artistGenreCache.stats());
+            return status;
+        }
+        for (String field : List.of("jobId", "status", "processed", "success", "failed", "limit", "cursor",
+                "startedAt", "updatedAt", "finishedAt", "error")) {
+            Object value = job.get(field);
+            if (value == null)
+                continue;
+            status.put(field, switch (field) {
+                case "processed", "success", "failed", "limit", "cursor" -> Long.parseLong((String) value);
+                default -> value;
+            });
+        }
+        status.put("artistCache", artistGenreCache.stats());
+        return status;
+    }
+
+    public Map<String, Object> cancel() {
+        Object current = redisTemplate.opsForHash().get(JOB_KEY, "status");
+        if (STATUS_RUNNING.equals(current)) {
+            // The runner checks this between pages
+            redisTemplate.opsForHash().put(JOB_KEY, "status", STATUS_CANCELLING);
+        }
+        return status();
+    }
+
+    // 이전 인스턴스가 종료되면서 중단된 작업 이어서 실행
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedJob() {
+        try {
+            Map<Object, Object> job = redisTemplate.opsForHash().entries(JOB_KEY);
+            String jobId = (String) job.get("jobId");
+            if (jobId == null || !STATUS_RUNNING.equals(job.get("status")))
+                return;
+            String owner = UUID.randomUUID().toString();
+            if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(LOCK_KEY, owner, LOCK_TTL))) {
+                log.info("[FeatureJob] Resuming job {} from track_id > {}", jobId, job.get("cursor"));
+                featureJobRunner.submit(() -> run(jobId, owner));
+            }
+        } catch (Exception e) {
+            log.warn("[FeatureJob] Could not check for interrupted job: {}", e.getMessage());
+        }
+    }
+
+    private void run(String jobId, String owner) {
+        try {
+            Map<Object, Object> job = redisTemplate.opsForHash().entries(JOB_KEY);
+            long cursor = Long.parseLong((String) job.get("cursor"));
+            long limit = Long.parseLong((String) job.get("limit"));
+            long processed = Long.parseLong((String) job.get("processed"));
+            List<Long> trackIds = parseIds((String) job.get("trackIds"));
+
+            while (processed < limit) {
+                if (STATUS_CANCELLING.equals(redisTemplate.opsForHash().get(JOB_KEY, "status"))) {
+                    finish(jobId, STATUS_CANCELLED, null);
+                    return;
+                }
+
+                List<PendingTrack> page = nextPage(cursor, trackIds, (int) Math.min(pageSize, limit - processed));
+                if (page.isEmpty())
+                    break;
+
+                List<Collected> collected = collect(page);
+                write(collected);
+
+                cursor = page.get(page.size() - 1).trackId();
+                processed += page.size();
+                Long recorded = redisTemplate.execute(PROGRESS_SCRIPT, List.of(LOCK_KEY, JOB_KEY), owner, jobId,
+                        String.valueOf(LOCK_TTL.toMillis()), String.valueOf(cursor), Instant.now().toString(),
+                        String.valueOf(page.size()), String.valueOf(collected.size()),
+                        String.valueOf(page.size() - collected.size()));
+                if (recorded == null || recorded == 0) {
+                    // The page itself is written - the run that took over re-collects it at worst
+                    log.warn("[FeatureJob] Job {} lost its lock or was replaced, stopping", jobId);
+                    return;
+                }
+            }
+            finish(jobId, STATUS_COMPLETED, null);
+        } catch (Exception e) {
+            log.error("[FeatureJob] Job {} failed", jobId, e);
+            finish(jobId, STATUS_FAILED, e.getMessage());
+        } finally {
+            redisTemplate.execute(RELEASE_SCRIPT, List.of(LOCK_KEY), owner);
+        }
+    }
+
+    // Keyset page on track_id - no OFFSET, and tracks that found no match are not retried forever
+    private List<PendingTrack> nextPage(long cursor, List<Long> trackIds, int size) {
+        StringBuilder sql = new StringBuilder("SELECT track_id, isrc, spotify_id FROM tracks WHERE track_id > ? ");
+        List<Object> params = new ArrayList<>();
+        params.add(cursor);
+        if (trackIds.isEmpty()) {
+            sql.append("AND audio_features IS NULL AND isrc IS NOT NULL ");
+        } else {
+            sql.append("AND (isrc IS NOT NULL OR spotify_id IS NOT NULL) AND track_id IN (")
+                    .append(String.join(",", Collections.nCopies(trackIds.size(), "?"))).append(") ");
+            params.addAll(trackIds);
+        }
+        sql.append("ORDER BY track_id LIMIT ?");
+        params.add(size);
+
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> new PendingTrack(
+                rs.getLong("track_id"), rs.getString("isrc"), rs.getString("spotify_id")), params.toArray());
+    }
+
+    private List<Collected> collect(List<PendingTrack> page) {
+        // 1. Resolve Spotify tracks: batch lookup for known ids, bounded ISRC searches for the rest
+        Map<Long, Map<String, Object>> spotifyTracks = new HashMap<>();
+
+        List<String> knownIds = page.stream().map(PendingTrack::spotifyId).filter(Objects::nonNull).toList();
+        Map<String, Map<String, Object>> byId = knownIds.isEmpty() ? Map.of() : spotifyService.getTracksBatch(knownIds);
+
+        Map<Long, CompletableFuture<Map<String, Object>>> searches = new LinkedHashMap<>();
+        for (PendingTrack t : page) {
+            if (t.spotifyId() != null && byId.containsKey(t.spotifyId())) {
+                spotifyTracks.put(t.trackId(), byId.get(t.spotifyId()));
+            } else if (t.isrc() != null) {
+                searches.put(t.trackId(), CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return spotifyService.searchTrackByIsrc(t.isrc());
+                    } catch (Exception e) {
+                        log.debug("[FeatureJob] ISRC search failed for {}: {}", t.isrc(), e.getMessage());
+                        return null;
+                    }
+                }, featureLookupPool));
+            }
+        }
+        searches.forEach((trackId, future) -> {
+            Map<String, Object> track = future.join();
+            if (track != null)
+                spotifyTracks.put(trackId, track);
+        });
+
+        if (spotifyTracks.isEmpty())
+            return List.of();
+
+        // 2. Audio features and artist genres in batches
+        List<String> spotifyIds = spotifyTracks.values().stream()
+                .map(t -> (String) t.get("id")).distinct().toList();
+        Map<String, Map<String, Object>> features = spotifyService.getAudioFeaturesBatch(spotifyIds);
+
+        List<String> artistIds = spotifyTracks.values().stream()
+                .map(this::firstArtistId).filter(Objects::nonNull).distinct().toList();
+        Map<String, List<String>> genres = artistIds.isEmpty() ? Map.of() : spotifyService.getArtistGenres(artistIds);
+
+        List<Collected> collected = new ArrayList<>();
+        spotifyTracks.forEach((trackId, track) -> {
+            String spotifyId = (String) track.get("id");
+            Map<String, Object> audioFeatures = features.get(spotifyId);
+            if (audioFeatures == null)
+                return;
+            List<String> g = genres.getOrDefault(firstArtistId(track), List.of());
+            collected.add(new Collected(trackId, spotifyId, g.isEmpty() ? null : String.join(", ", g), audioFeatures));
+        });
+        return collected;
+    }
+
+    private void write(List<Collected> collected) throws Exception {
+        if (collected.isEmpty())
+            return;
+
+        List<Object[]> rows = new ArrayList<>(collected.size());
+        for (Collected c : collected) {
+            Map<String, Object> af = c.audioFeatures();
+            Object mode = af.get("mode") instanceof Number n ? n.intValue() == 1 : null;
+            rows.add(new Object[] {
+                    c.spotifyId(), c.genre(), objectMapper.writeValueAsString(af),
+                    af.get("tempo"), af.get("energy"), af.get("danceability"), af.get("valence"),
+                    af.get("acousticness"), af.get("instrumentalness"), af.get("liveness"),
+                    af.get("speechiness"), af.get("loudness"), af.get("key"), mode, af.get("time_signature"),
+                    c.trackId() });
+        }
+        jdbcTemplate.batchUpdate(UPDATE_SQL, rows);
+
+        // Numeric columns feed the recommendation index
+        for (Collected c : collected) {
+            recommendationEngine.upsert(c.trackId(), c.audioFeatures());
+        }
+    }
+
+    // Only if the job is still the current one - a newer start() owns JOB_KEY otherwise
+    private void finish(String jobId, String status, String error) {
+        List<String> args = new ArrayList<>(List.of(jobId, "status", status, "finishedAt", Instant.now().toString()));
+        if (error != null) {
+            args.add("error");
+            args.add(error);
+        }
+        Long finished = redisTemplate.execute(FINISH_SCRIPT, List.of(JOB_KEY), args.toArray());
+        if (finished != null && finished == 1)
+            log.info("[FeatureJob] Job {} finished with status {}", jobId, status);
+    }
+
+    private String firstArtistId(Map<String, Object> track) {
+        List<Map<String, Object>> artists = (List<Map<String, Object>>) track.get("artists");
+        return artists != null && !artists.isEmpty() ? (String) artists.get(0).get("id") : null;
+    }
+
+    private List<Long> parseIds(String csv) {
+        if (csv == null || csv.isEmpty())
+            return List.of();
+        return Arrays.stream(csv.split(",")).map(Long::valueOf).toList();
+    }
+}
@@ -1,9 +1,13 @@
 package com.springboot.finalprojcet.domain.training.service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Map;
 
 public interface TrainingService {
-    Map<String, Object> getUserTrainingData(Long userId, boolean includeMetadata);
+    // Streams {userId, data:[playlist{..., tracks:[...]}], totalPlaylists, totalTracks} as JSON
+    void writeUserTrainingData(Long userId, boolean includeMetadata, OutputStream out) throws IOException;
 
     Object exportTrainingData(Long userId, String format); // Returns Map or byte[]/String for CSV
 
@@ -11,9 +15,20 @@ public interface TrainingService {
 
     Map<String, Object> saveScores(Long userId, java.util.List<Map<String, Object>> scores);
 
+    // NDJSON body: one {type, score, playlistId|trackId} object per line
+    Map<String, Object> saveScores(Long userId, InputStream ndjson) throws IOException;
+
     Map<String, Object> getInteractions(Long userId, int limit);
 
-    Map<String, Object> collectFeatures(java.util.List<Long> trackIds, int limit); // Spotify Features
+    // Cross-user feed of added (interaction 1) and removed (-1) playlist links in commit-safe time order;
+    // pass the returned nextCursor back to continue
+    Map<String, Object> getInteractionFeed(String cursor, Long userId, int limit);
+
+    Map<String, Object> collectFeatures(java.util.List<Long> trackIds, int limit); // Spotify Features (background job)
+
+    Map<String, Object> getFeatureCollectionStatus();
+
+    Map<String, Object> cancelFeatureCollection();
 
     Map<String, Object> collectGenres(java.util.List<Long> trackIds, int limit); // MusicBrainz/LastFM
 
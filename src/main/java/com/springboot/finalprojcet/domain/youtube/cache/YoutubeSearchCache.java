@@ -0,0 +1,194 @@
+package com.springboot.finalprojcet.domain.youtube.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.springboot.finalprojcet.domain.youtube.quota.YoutubeQuotaMeter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Cache for YouTube search results keyed by normalized query and maxResults.
+ * L1 is a bounded in-memory cache, L2 is Redis shared by every node. An entry is fresh for
+ * {@code youtube.search.cache.ttl-minutes}; after that it is kept in Redis as a stale fallback that is
+ * served instead of calling search.list (100 quota units) when the daily quota runs low or the search
+ * fails for any reason (circuit open, quotaExceeded, 5xx, timeout). Concurrent misses for the same key
+ * share one upstream call.
+ */
+@Component
+@Slf4j
+public class YoutubeSearchCache {
+
+    private static final String KEY_PREFIX = "youtube:search:";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final YoutubeQuotaMeter quotaMeter;
+    private final Duration freshTtl;
+    private final Duration staleTtl;
+    private final Cache<String, CachedSearch> local;
+    private final Map<String, CompletableFuture<CachedSearch>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter staleServed;
+    private final Counter misses;
+
+    public record CachedSearch(List<Map<String, Object>> results, long fetchedAt) {
+    }
+
+    /**
+     * @param stale    served from an expired entry to save quota or because YouTube failed
+     * @param degraded nothing could be served (no cache entry and no quota / YouTube unavailable)
+     */
+    public record Result(List<Map<String, Object>> results, boolean stale, boolean degraded) {
+    }
+
+    public YoutubeSearchCache(RedisTemplate<String, String> redisTemplate, ObjectMapper objectMapper,
+            YoutubeQuotaMeter quotaMeter, MeterRegistry meterRegistry,
+            @Value("${youtube.search.cache.ttl-minutes:360}") long ttlMinutes,
+            @Value("${youtube.search.cache.stale-days:7}") long staleDays,
+            @Value("${youtube.search.cache.max-size:5000}") long maxSize) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.quotaMeter = quotaMeter;
+        this.freshTtl = Duration.ofMinutes(ttlMinutes);
+        this.staleTtl = Duration.ofDays(staleDays);
+        this.local = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(staleTtl).build();
+
+        this.hits = Counter.builder("youtube.search.cache").tag("result", "hit").register(meterRegistry);
+        this.staleServed = Counter.builder("youtube.search.cache").tag("result", "stale").register(meterRegistry);
+        this.misses = Counter.builder("youtube.search.cache").tag("result", "miss").register(meterRegistry);
+    }
+
+    public Result search(String query, int maxResults, Supplier<List<Map<String, Object>>> upstream) {
+        String key = maxResults + ":" + normalize(query);
+        CachedSearch cached = lookup(key);
+        if (cached != null && isFresh(cached)) {
+            hits.increment();
+            return new Result(cached.results(), false, false);
+        }
+
+        // Save the remaining quota for calls that have no cached answer
+        if (cached != null && quotaMeter.isLow()) {
+            staleServed.increment();
+            return new Result(cached.results(), true, false);
+        }
+        if (quotaMeter.wouldExceed(YoutubeQuotaMeter.SEARCH_COST)) {
+            log.warn("[YoutubeSearch] Daily quota exhausted, not searching '{}'", query);
+            return cached != null ? stale(cached) : new Result(List.of(), false, true);
+        }
+
+        try {
+            misses.increment();
+            return new Result(load(key, upstream).results(), false, false);
+        } catch (RuntimeException e) {
+            log.warn("YouTube search failed, {}: {}", cached != null ? "serving stale" : "degraded", e.getMessage());
+            return cached != null ? stale(cached) : new Result(List.of(), false, true);
+        }
+    }
+
+    // ===== internals =====
+
+    private Result stale(CachedSearch cached) {
+        staleServed.increment();
+        return new Result(cached.results(), true, false);
+    }
+
+    /**
+     * Fresh L1 entries are served directly. A stale (or missing) L1 entry falls through to Redis,
+     * where another node may already have stored a newer search - only then do we pay for search.list.
+     */
+    private CachedSearch lookup(String key) {
+        CachedSearch cached = local.getIfPresent(key);
+        if (cached != null && isFresh(cached))
+            return cached;
+        CachedSearch shared = readShared(key);
+        if (shared != null && (cached == null || shared.fetchedAt() > cached.fetchedAt())) {
+            local.put(key, shared);
+            return shared;
+        }
+        return cached;
+    }
+
+    private CachedSearch readShared(String key) {
+        String json;
+        try {
+            json = redisTemplate.opsForValue().get(KEY_PREFIX + key);
+        } catch (Exception e) {
+            log.warn("[YoutubeSearch] Failed to read cache entry {}: {}", key, e.getMessage());
+            return null;
+        }
+        if (json == null)
+            return null;
+        try {
+            return objectMapper.readValue(json, CachedSearch.class);
+        } catch (IOException e) {
+            log.warn("[YoutubeSearch] Unreadable cache entry {}: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    // Single flight per key: the first caller searches, concurrent callers wait for its result
+    private CachedSearch load(String key, Supplier<List<Map<String, Object>>> upstream) {
+        CompletableFuture<CachedSearch> mine = new CompletableFuture<>();
+        CompletableFuture<CachedSearch> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            return await(existing);
+        }
+        try {
+            List<Map<String, Object>> results = upstream.get();
+            quotaMeter.record(YoutubeQuotaMeter.SEARCH_COST);
+            CachedSearch entry = new CachedSearch(List.copyOf(results), System.currentTimeMillis());
+            store(key, entry);
+            mine.complete(entry);
+            return entry;
+        } catch (RuntimeException e) {
+            // Only the caller that made the request pays for it
+            quotaMeter.recordFailure(YoutubeQuotaMeter.SEARCH_COST, e);
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private void store(String key, CachedSearch entry) {
+        local.put(key, entry);
+        try {
+            redisTemplate.opsForValue().set(KEY_PREFIX + key, objectMapper.writeValueAsString(entry), staleTtl);
+        } catch (Exception e) {
+            log.warn("[YoutubeSearch] Failed to write cache entry {}: {}", key, e.getMessage());
+        }
+    }
+
+    private boolean isFresh(CachedSearch cached) {
+        return System.currentTimeMillis() - cached.fetchedAt() < freshTtl.toMillis();
+    }
+
+    private static CachedSearch await(CompletableFuture<CachedSearch> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            throw e;
+        }
+    }
+
+    // "BTS  Dynamite" and "bts dynamite" are the same search
+    static String normalize(String query) {
+        return query == null ? "" : query.toLowerCase(Locale.ROOT).replaceAll("\\s+", " ").trim();
+    }
+}
@@ -29,6 +29,12 @@ public class YoutubeController {
         return ResponseEntity.ok(youtubeService.searchVideo(term, maxResults));
     }
 
+    @GetMapping("/youtube/quota")
+    @Operation(summary = "YouTube 쿼터 사용량", description = "오늘(태평양 시간 기준) 사용한 YouTube Data API 쿼터를 조회합니다.")
+    public ResponseEntity<Map<String, Object>> getQuota() {
+        return ResponseEntity.ok(youtubeService.getQuotaStatus());
+    }
+
     // --- YouTube Music OAuth ---
 
     @GetMapping("/youtube-music/auth/login")
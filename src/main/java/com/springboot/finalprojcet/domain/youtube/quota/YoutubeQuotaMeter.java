@@ -0,0 +1,118 @@
+package com.springboot.finalprojcet.domain.youtube.quota;
+
+import com.springboot.finalprojcet.domain.common.resilience.ProviderUnavailableException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Tracks YouTube Data API quota units spent per day, shared by every node through a Redis counter.
+ * The quota day follows Google's reset at midnight Pacific Time. Costs: search.list = 100,
+ * most list calls (playlists, playlistItems, videos) = 1. Requests YouTube receives are charged even
+ * when they fail, so failed calls are recorded too.
+ */
+@Component
+@Slf4j
+public class YoutubeQuotaMeter {
+
+    public static final int SEARCH_COST = 100;
+    public static final int LIST_COST = 1;
+
+    private static final String KEY_PREFIX = "youtube:quota:";
+    private static final ZoneId QUOTA_ZONE = ZoneId.of("America/Los_Angeles");
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final long dailyLimit;
+    private final double lowThreshold;
+
+    public YoutubeQuotaMeter(RedisTemplate<String, String> redisTemplate, MeterRegistry meterRegistry,
+            @Value("${youtube.quota.daily-limit:10000}") long dailyLimit,
+            @Value("${youtube.quota.low-threshold:0.8}") double lowThreshold) {
+        this.redisTemplate = redisTemplate;
+        this.dailyLimit = dailyLimit;
+        this.lowThreshold = lowThreshold;
+        Gauge.builder("youtube.quota.used", this, YoutubeQuotaMeter::usedToday).register(meterRegistry);
+    }
+
+    public void record(int units) {
+        try {
+            String key = key();
+            Long used = redisTemplate.opsForValue().increment(key, units);
+            if (used != null && used == units) {
+                redisTemplate.expire(key, Duration.ofDays(2));
+            }
+        } catch (Exception e) {
+            // Accounting must never fail the API call itself
+            log.warn("[YoutubeQuota] Failed to record {} units: {}", units, e.getMessage());
+        }
+    }
+
+    /**
+     * Records a call that failed. Everything except a guard rejection (never sent) reached YouTube and is
+     * charged; a 403 quotaExceeded means the day's quota is gone, whatever the local count says.
+     */
+    public void recordFailure(int units, RuntimeException e) {
+        if (e instanceof ProviderUnavailableException)
+            return;
+        if (e instanceof HttpClientErrorException.Forbidden forbidden
+                && forbidden.getResponseBodyAsString().contains("quotaExceeded")) {
+            long missing = dailyLimit - usedToday();
+            log.warn("[YoutubeQuota] YouTube reports the daily quota exceeded");
+            record((int) Math.max(units, missing));
+            return;
+        }
+        record(units);
+    }
+
+    public long usedToday() {
+        try {
+            String value = redisTemplate.opsForValue().get(key());
+            return value != null ? Long.parseLong(value) : 0;
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    /**
+     * True once the day's usage passes the low-water mark - callers should prefer cached data.
+     */
+    public boolean isLow() {
+        return usedToday() >= dailyLimit * lowThreshold;
+    }
+
+    /**
+     * True when a call costing {@code units} would exceed the daily limit.
+     */
+    public boolean wouldExceed(int units) {
+        return usedToday() + units > dailyLimit;
+    }
+
+    public Map<String, Object> status() {
+        long used = usedToday();
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("day", today().toString());
+        status.put("used", used);
+        status.put("limit", dailyLimit);
+        status.put("remaining", Math.max(0, dailyLimit - used));
+        status.put("low", used >= dailyLimit * lowThreshold);
+        return status;
+    }
+
+    private static LocalDate today() {
+        return LocalDate.now(QUOTA_ZONE);
+    }
+
+    private static String key() {
+        return KEY_PREFIX + today();
+    }
+}
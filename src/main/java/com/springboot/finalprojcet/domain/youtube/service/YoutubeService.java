@@ -6,6 +6,8 @@ public interface YoutubeService {
     // Public Search
     Map<String, Object> searchVideo(String query, int maxResults);
 
+    Map<String, Object> getQuotaStatus();
+
     // OAuth
     Map<String, Object> getLoginUrl(String visitorId, String redirectUri);
 
@@ -1,25 +1,31 @@
 package com.springboot.finalprojcet.domain.youtube.service.impl;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.finalprojcet.domain.analysis.store.TasteProfileStore;
+import com.springboot.finalprojcet.domain.common.resilience.ProviderGuards;
 import com.springboot.finalprojcet.domain.gms.repository.PlaylistRepository;
 import com.springboot.finalprojcet.domain.playlist.repository.UserDismissedPlaylistRepository;
-import com.springboot.finalprojcet.domain.tidal.repository.PlaylistTracksRepository;
-import com.springboot.finalprojcet.domain.tidal.repository.TracksRepository;
+import com.springboot.finalprojcet.domain.track.resolver.TrackCandidate;
+import com.springboot.finalprojcet.domain.track.resolver.TrackIdentityResolver;
+import com.springboot.finalprojcet.domain.youtube.cache.YoutubeSearchCache;
+import com.springboot.finalprojcet.domain.youtube.quota.YoutubeQuotaMeter;
 import com.springboot.finalprojcet.domain.youtube.service.YoutubeService;
 import com.springboot.finalprojcet.domain.youtube.store.YoutubeTokenStore;
-import com.springboot.finalprojcet.entity.PlaylistTracks;
 import com.springboot.finalprojcet.entity.Playlists;
 import com.springboot.finalprojcet.entity.Tracks;
 import com.springboot.finalprojcet.entity.Users;
 import com.springboot.finalprojcet.enums.SourceType;
 import com.springboot.finalprojcet.enums.SpaceType;
 import com.springboot.finalprojcet.enums.StatusFlag;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RestTemplate;
@@ -29,7 +35,13 @@ import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.SecureRandom;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Service
 @RequiredArgsConstructor
@@ -38,11 +50,18 @@ public class YoutubeServiceImpl implements YoutubeService {
 
     private final PlaylistRepository playlistRepository;
     private final UserDismissedPlaylistRepository dismissedPlaylistRepository;
-    private final TracksRepository tracksRepository;
-    private final PlaylistTracksRepository playlistTracksRepository;
+    private final TrackIdentityResolver trackIdentityResolver;
     private final ObjectMapper objectMapper;
     private final YoutubeTokenStore tokenStore;
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final TasteProfileStore tasteProfileStore;
+    private final RestTemplate restTemplate;
+    private final ProviderGuards providerGuards;
+    private final ExecutorService youtubeVideoPool;
+    private final YoutubeSearchCache searchCache;
+    private final YoutubeQuotaMeter quotaMeter;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
 
     @Value("${youtube.key}")
     private String apiKey;
@@ -53,9 +72,24 @@ public class YoutubeServiceImpl implements YoutubeService {
     @Value("${youtube.client-secret}")
     private String clientSecret;
 
+    @Value("${youtube.import.detail-concurrency:4}")
+    private int detailConcurrency;
+
+    // Upper bound for one persisted batch - the training feed's settle window relies on it
+    @Value("${imports.batch-tx-timeout-seconds:30}")
+    private int importBatchTimeoutSeconds;
+
+    @Value("${youtube.import.max-tracks:20000}")
+    private int maxImportTracks;
+
     private static final String YOUTUBE_API_URL = "https://www.googleapis.com/youtube/v3";
     private static final String GOOGLE_AUTH_URL = "https://accounts.google.com/o/oauth2/v2/auth";
     private static final String GOOGLE_TOKEN_URL = "https://oauth2.googleapis.com/token";
+    private static final int PLAYLIST_PAGE_SIZE = 50;
+    private static final int IMPORT_PERSIST_BATCH = 500;
+    private static final String PLAYLIST_ITEM_FIELDS =
+            "nextPageToken,items(snippet(title,videoOwnerChannelTitle,resourceId/videoId,thumbnails/high/url))";
+    private static final String VIDEO_DETAIL_FIELDS = "items(id,contentDetails/duration,snippet/categoryId)";
 
     // --- Public Search ---
 
@@ -65,6 +99,29 @@ public class YoutubeServiceImpl implements YoutubeService {
             throw new RuntimeException("YouTube API key not configured");
         }
 
+        try {
+            // Cached by normalized query; quota is only spent on misses
+            YoutubeSearchCache.Result result = searchCache.search(query, maxResults,
+                    () -> fetchSearch(query, maxResults));
+            Map<String, Object> response = new HashMap<>();
+            response.put("playlists", result.results());
+            if (result.stale())
+                response.put("stale", true);
+            if (result.degraded())
+                response.put("degraded", true);
+            return response;
+        } catch (Exception e) {
+            log.error("YouTube Search Error", e);
+            throw new RuntimeException("YouTube API error");
+        }
+    }
+
+    @Override
+    public Map<String, Object> getQuotaStatus() {
+        return quotaMeter.status();
+    }
+
+    private List<Map<String, Object>> fetchSearch(String query, int maxResults) {
         String url = UriComponentsBuilder.fromHttpUrl(YOUTUBE_API_URL + "/search")
                 .queryParam("key", apiKey)
                 .queryParam("part", "snippet")
@@ -74,41 +131,35 @@ public class YoutubeServiceImpl implements YoutubeService {
                 .queryParam("maxResults", maxResults)
                 .toUriString();
 
-        try {
-            Map<String, Object> response = restTemplate.getForObject(url, Map.class);
-            List<Map<String, Object>> items = (List<Map<String, Object>>) response.get("items");
-
-            List<Map<String, Object>> playlists = items.stream().map(item -> {
-                Map<String, Object> snippet = (Map<String, Object>) item.get("snippet");
-                Map<String, Object> idObj = (Map<String, Object>) item.get("id");
-
-                String videoId = (String) idObj.get("videoId");
-                // Fallback if playlistId or other
-                if (videoId == null)
-                    videoId = (String) idObj.get("playlistId");
-
-                Map<String, Object> map = new HashMap<>();
-                map.put("id", videoId);
-                map.put("title", snippet.get("title"));
-                map.put("channelTitle", snippet.get("channelTitle"));
-                map.put("publishedAt", snippet.get("publishedAt"));
-
-                Map<String, Object> thumbs = (Map<String, Object>) snippet.get("thumbnails");
-                if (thumbs != null) {
-                    Map<String, Object> high = (Map<String, Object>) thumbs.get("high");
-                    if (high == null)
-                        high = (Map<String, Object>) thumbs.get("medium");
-                    if (high != null)
-                        map.put("thumbnail", high.get("url"));
-                }
-                return map;
-            }).collect(Collectors.toList());
+        Map<String, Object> response = providerGuards.youtube()
+                .call(() -> restTemplate.getForObject(url, Map.class));
+        List<Map<String, Object>> items = (List<Map<String, Object>>) response.get("items");
 
-            return Map.of("playlists", playlists);
-        } catch (Exception e) {
-            log.error("YouTube Search Error", e);
-            throw new RuntimeException("YouTube API error");
-        }
+        return items.stream().map(item -> {
+            Map<String, Object> snippet = (Map<String, Object>) item.get("snippet");
+            Map<String, Object> idObj = (Map<String, Object>) item.get("id");
+
+            String videoId = (String) idObj.get("videoId");
+            // Fallback if playlistId or other
+            if (videoId == null)
+                videoId = (String) idObj.get("playlistId");
+
+            Map<String, Object> map = new HashMap<>();
+            map.put("id", videoId);
+            map.put("title", snippet.get("title"));
+            map.put("channelTitle", snippet.get("channelTitle"));
+            map.put("publishedAt", snippet.get("publishedAt"));
+
+            Map<String, Object> thumbs = (Map<String, Object>) snippet.get("thumbnails");
+            if (thumbs != null) {
+                Map<String, Object> high = (Map<String, Object>) thumbs.get("high");
+                if (high == null)
+                    high = (Map<String, Object>) thumbs.get("medium");
+                if (high != null)
+                    map.put("thumbnail", high.get("url"));
+            }
+            return map;
+        }).collect(Collectors.toList());
     }
 
     // --- OAuth ---
@@ -268,8 +319,17 @@ public class YoutubeServiceImpl implements YoutubeService {
         HttpHeaders headers = new HttpHeaders();
         headers.setBearerAuth(accessToken);
 
-        return restTemplate.exchange(
-                builder.toUriString(), HttpMethod.GET, new HttpEntity<>(headers), Map.class).getBody();
+        String url = builder.toUriString();
+        Map<String, Object> body;
+        try {
+            body = providerGuards.youtube().call(() -> restTemplate.exchange(
+                    url, HttpMethod.GET, new HttpEntity<>(headers), Map.class).getBody());
+        } catch (RuntimeException e) {
+            quotaMeter.recordFailure(YoutubeQuotaMeter.LIST_COST, e);
+            throw e;
+        }
+        quotaMeter.record(YoutubeQuotaMeter.LIST_COST);
+        return body;
     }
 
     @Override
@@ -408,8 +468,12 @@ public class YoutubeServiceImpl implements YoutubeService {
         return result;
     }
 
+    /**
+     * Not one transaction: the playlist row and every persisted batch commit on their own, so a large
+     * playlist never holds locks (or a growing persistence context) for the whole import. A failed
+     * import removes what it already committed.
+     */
     @Override
-    @Transactional
     public Map<String, Object> importPlaylist(String visitorId, String playlistId, Long userId) {
         // 중복 체크: 이미 가져온 플레이리스트인지 확인
         String externalId = "youtube:" + playlistId;
@@ -447,32 +511,7 @@ public class YoutubeServiceImpl implements YoutubeService {
                 cover = (String) high.get("url");
         }
 
-        // 2. Fetch all tracks (Loop)
-        List<Map<String, Object>> allTracks = new ArrayList<>();
-        String pageToken = null;
-
-        do {
-            Map<String, Object> params = new HashMap<>();
-            params.put("part", "snippet,contentDetails");
-            params.put("playlistId", playlistId);
-            params.put("maxResults", 50);
-            if (pageToken != null)
-                params.put("pageToken", pageToken);
-
-            Map<String, Object> itemsData = fetchYoutube("/playlistItems", accessToken, params);
-            List<Map<String, Object>> items = (List<Map<String, Object>>) itemsData.get("items");
-
-            for (Map<String, Object> item : items) {
-                Map<String, Object> snippet = (Map) item.get("snippet");
-                Map<String, Object> resId = (Map) snippet.get("resourceId");
-                if (resId != null && resId.get("videoId") != null) {
-                    allTracks.add(snippet);
-                }
-            }
-            pageToken = (String) itemsData.get("nextPageToken");
-        } while (pageToken != null && allTracks.size() < 500); // Guard limit
-
-        // 3. Save to DB
+        // 2. Save to DB
         Playlists playlist = new Playlists();
         Users userProxy = Users.builder().userId(userId).build();
         playlist.setUser(userProxy);
@@ -485,77 +524,257 @@ public class YoutubeServiceImpl implements YoutubeService {
         playlist.setSpaceType(SpaceType.PMS);
         playlist.setStatusFlag(StatusFlag.PTP); // DB enum: PTP, PRP, PFP
 
-        playlist = playlistRepository.save(playlist);
+        TransactionTemplate batchTx = new TransactionTemplate(transactionManager);
+        batchTx.setTimeout(importBatchTimeoutSeconds);
+        Playlists newPlaylist = playlist;
+        Playlists target = batchTx.execute(tx -> playlistRepository.save(newPlaylist));
+        playlist = target;
 
-        int order = 0;
-        int importedCount = 0;
-        for (Map<String, Object> snippet : allTracks) {
-            try {
-                String videoTitle = (String) snippet.get("title");
-                Map<String, Object> resId = (Map) snippet.get("resourceId");
-                String videoId = (String) resId.get("videoId");
-                String channel = (String) snippet.get("videoOwnerChannelTitle");
-                if (channel == null)
-                    channel = "Unknown";
-
-                // Parse Title "Artist - Title"
-                String artist = channel.replace(" - Topic", "");
-                String trackName = videoTitle;
-
-                int dashIdx = videoTitle.indexOf(" - ");
-                if (dashIdx > 0) {
-                    artist = videoTitle.substring(0, dashIdx).trim();
-                    trackName = videoTitle.substring(dashIdx + 3).trim();
+        // 3. Page /playlistItems while /videos details for earlier pages are fetched in the background,
+        // then persist in batches. 같은 영상(videoId) 또는 같은 제목+아티스트의 기존 트랙은 재사용
+        List<Tracks> importedTracks = new ArrayList<>();
+        int totalItems;
+        try {
+            totalItems = importPlaylistItems(playlistId, accessToken, batch -> {
+                // One transaction per batch; the persistence context is emptied before it commits
+                List<Tracks> resolved = batchTx.execute(tx -> {
+                    List<Tracks> tracks = trackIdentityResolver.resolve(batch);
+                    // Links in one JDBC batch - saveAll would send one INSERT per row
+                    int firstIndex = importedTracks.size();
+                    jdbcTemplate.batchUpdate(
+                            "INSERT INTO playlist_tracks (playlist_id, track_id, order_index) VALUES (?, ?, ?)",
+                            IntStream.range(0, tracks.size()).boxed().toList(), IMPORT_PERSIST_BATCH, (ps, i) -> {
+                                ps.setLong(1, target.getPlaylistId());
+                                ps.setLong(2, tracks.get(i).getTrackId());
+                                ps.setInt(3, firstIndex + i);
+                            });
+                    entityManager.clear();
+                    return tracks;
+                });
+                importedTracks.addAll(resolved);
+            });
+        } catch (RuntimeException e) {
+            discardImport(batchTx, target.getPlaylistId());
+            throw e;
+        }
+        int importedCount = importedTracks.size();
+        tasteProfileStore.onPlaylistAdded(playlist);
+        tasteProfileStore.onTracksAdded(playlist, importedTracks);
+
+        return Map.of(
+                "success", true,
+                "playlistId", playlist.getPlaylistId(),
+                "title", title,
+                "importedTracks", importedCount,
+                "totalTracks", totalItems);
+    }
+
+    // Batches already committed - remove them so a retry is not blocked by "Already imported"
+    private void discardImport(TransactionTemplate batchTx, Long playlistId) {
+        try {
+            batchTx.executeWithoutResult(tx -> {
+                jdbcTemplate.update("DELETE FROM playlist_tracks WHERE playlist_id = ?", playlistId);
+                jdbcTemplate.update("DELETE FROM playlists WHERE playlist_id = ?", playlistId);
+            });
+        } catch (Exception e) {
+            log.error("Failed to remove partial YouTube import {}: {}", playlistId, e.getMessage());
+        }
+    }
+
+    private record VideoDetails(Integer durationSeconds, String categoryId) {
+    }
+
+    // One /playlistItems page and the pending /videos lookup for its ids
+    private record ItemPage(List<Map<String, Object>> snippets, Future<Map<String, VideoDetails>> details) {
+    }
+
+    /**
+     * Two overlapping stages: this thread follows nextPageToken (it cannot be parallelised), and for every
+     * page of up to 50 items a single /videos call for durations and categories is submitted to
+     * {@code youtubeVideoPool}. Completed pages are converted in playlist order and handed to {@code sink}
+     * in batches of {@link #IMPORT_PERSIST_BATCH}.
+     *
+     * @return number of playlist items read
+     */
+    private int importPlaylistItems(String playlistId, String accessToken, Consumer<List<TrackCandidate>> sink) {
+        Deque<ItemPage> pending = new ArrayDeque<>();
+        List<TrackCandidate> buffer = new ArrayList<>(IMPORT_PERSIST_BATCH);
+        int total = 0;
+        String pageToken = null;
+        try {
+            do {
+                Map<String, Object> params = new HashMap<>();
+                params.put("part", "snippet");
+                params.put("playlistId", playlistId);
+                params.put("maxResults", PLAYLIST_PAGE_SIZE);
+                params.put("fields", PLAYLIST_ITEM_FIELDS);
+                if (pageToken != null)
+                    params.put("pageToken", pageToken);
+
+                Map<String, Object> itemsData = fetchYoutube("/playlistItems", accessToken, params);
+                List<Map<String, Object>> items = (List<Map<String, Object>>) itemsData.get("items");
+
+                List<Map<String, Object>> snippets = new ArrayList<>();
+                for (Map<String, Object> item : items != null ? items : List.<Map<String, Object>>of()) {
+                    Map<String, Object> snippet = (Map) item.get("snippet");
+                    Map<String, Object> resId = snippet != null ? (Map) snippet.get("resourceId") : null;
+                    if (resId != null && resId.get("videoId") != null) {
+                        snippets.add(snippet);
+                    }
                 }
+                total += snippets.size();
+                pending.add(new ItemPage(snippets, submitVideoDetails(snippets, accessToken)));
 
-                Map<String, Object> tThumbs = (Map) snippet.get("thumbnails");
-                String tCover = null;
-                if (tThumbs != null) {
-                    Map<String, Object> h = (Map) tThumbs.get("high");
-                    if (h != null)
-                        tCover = (String) h.get("url");
+                // Keep a bounded number of detail lookups in flight; drain the ones already done
+                while (!pending.isEmpty() && (pending.size() > detailConcurrency || pending.peek().details().isDone())) {
+                    drain(pending.poll(), buffer, sink);
                 }
+                pageToken = (String) itemsData.get("nextPageToken");
+                if (pageToken != null && total >= maxImportTracks) {
+                    log.warn("YouTube playlist {} exceeds {} items, importing the first {}", playlistId,
+                            maxImportTracks, total);
+                    pageToken = null;
+                }
+            } while (pageToken != null);
 
-                // Save Track
-                Tracks track = new Tracks();
-                track.setTitle(trackName);
-                track.setArtist(artist);
-                // Store youtube info in external metadata or specific field?
-                // Node implementation checked 'youtube_id' column or mapping.
-                // Entity 'Tracks' likely has fields. Let's assume generic storage for now or
-                // reuse existing.
-                // I will put it in ExternalMetadata for safety as I don't recall 'youtube_id'
-                // field in Entity definition from previous context.
-                // Wait, Node.js code used `youtube_id` column.
-                // If `Tracks` entity doesn't have it, I should add it or use externalMetadata.
-                // I'll stick to externalMetadata JSON for now to avoid schema changes if
-                // possible, unless I'm sure.
-                Map<String, String> meta = new HashMap<>();
-                meta.put("youtubeId", videoId);
-                track.setExternalMetadata(objectMapper.writeValueAsString(meta));
-                track.setArtwork(tCover);
-
-                // Attempt save (duplicate handling needed in real app)
-                track = tracksRepository.save(track);
-
-                PlaylistTracks pt = PlaylistTracks.builder()
-                        .playlist(playlist)
-                        .track(track)
-                        .orderIndex(order++)
-                        .build();
-                playlistTracksRepository.save(pt);
-                importedCount++;
+            while (!pending.isEmpty()) {
+                drain(pending.poll(), buffer, sink);
+            }
+        } finally {
+            pending.forEach(page -> page.details().cancel(true));
+        }
+        if (!buffer.isEmpty()) {
+            sink.accept(buffer);
+        }
+        return total;
+    }
+
+    private void drain(ItemPage page, List<TrackCandidate> buffer, Consumer<List<TrackCandidate>> sink) {
+        Map<String, VideoDetails> details = awaitDetails(page.details());
+        for (Map<String, Object> snippet : page.snippets()) {
+            try {
+                String videoId = (String) ((Map) snippet.get("resourceId")).get("videoId");
+                // /videos omits private and deleted videos - nothing to import for those
+                if (details != null && !details.containsKey(videoId))
+                    continue;
+                buffer.add(toTrackCandidate(snippet, details != null ? details.get(videoId) : null));
             } catch (Exception e) {
-                // Ignore dupes
+                log.warn("Skipping unreadable YouTube item: {}", e.getMessage());
+            }
+            if (buffer.size() >= IMPORT_PERSIST_BATCH) {
+                sink.accept(new ArrayList<>(buffer));
+                buffer.clear();
             }
         }
+    }
 
-        return Map.of(
-                "success", true,
-                "playlistId", playlist.getPlaylistId(),
-                "title", title,
-                "importedTracks", importedCount,
-                "totalTracks", allTracks.size());
+    private Future<Map<String, VideoDetails>> submitVideoDetails(List<Map<String, Object>> snippets,
+            String accessToken) {
+        List<String> ids = snippets.stream()
+                .map(snippet -> (String) ((Map) snippet.get("resourceId")).get("videoId"))
+                .distinct()
+                .toList();
+        if (ids.isEmpty())
+            return CompletableFuture.completedFuture(Map.of());
+        return youtubeVideoPool.submit(() -> fetchVideoDetails(ids, accessToken));
+    }
+
+    // Up to 50 ids per call - one quota unit for the whole page
+    private Map<String, VideoDetails> fetchVideoDetails(List<String> ids, String accessToken) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("part", "contentDetails,snippet");
+        params.put("id", String.join(",", ids));
+        params.put("maxResults", PLAYLIST_PAGE_SIZE);
+        params.put("fields", VIDEO_DETAIL_FIELDS);
+        Map<String, Object> data = fetchYoutube("/videos", accessToken, params);
+
+        Map<String, VideoDetails> details = new HashMap<>();
+        List<Map<String, Object>> items = (List<Map<String, Object>>) data.get("items");
+        for (Map<String, Object> item : items != null ? items : List.<Map<String, Object>>of()) {
+            Map<String, Object> contentDetails = (Map) item.get("contentDetails");
+            Map<String, Object> snippet = (Map) item.get("snippet");
+            details.put((String) item.get("id"), new VideoDetails(
+                    contentDetails != null ? parseDurationSeconds((String) contentDetails.get("duration")) : null,
+                    snippet != null ? (String) snippet.get("categoryId") : null));
+        }
+        return details;
+    }
+
+    // Details are an enrichment - if the lookup failed, import the items without them
+    private static Map<String, VideoDetails> awaitDetails(Future<Map<String, VideoDetails>> details) {
+        try {
+            return details.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while importing YouTube playlist", e);
+        } catch (ExecutionException e) {
+            log.warn("YouTube video details lookup failed: {}", e.getCause() != null
+                    ? e.getCause().getMessage() : e.getMessage());
+            return null;
+        }
+    }
+
+    // ISO-8601 duration ("PT4M13S"); live streams report P0D
+    private static Integer parseDurationSeconds(String iso) {
+        if (iso == null)
+            return null;
+        try {
+            long seconds = java.time.Duration.parse(iso).getSeconds();
+            return seconds > 0 ? (int) seconds : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private TrackCandidate toTrackCandidate(Map<String, Object> snippet, VideoDetails details) {
+        String videoTitle = (String) snippet.get("title");
+        Map<String, Object> resId = (Map) snippet.get("resourceId");
+        String videoId = (String) resId.get("videoId");
+        String channel = (String) snippet.get("videoOwnerChannelTitle");
+        if (channel == null)
+            channel = "Unknown";
+
+        // Parse Title "Artist - Title"
+        String artist = channel.replace(" - Topic", "");
+        String trackName = videoTitle;
+
+        int dashIdx = videoTitle.indexOf(" - ");
+        if (dashIdx > 0) {
+            artist = videoTitle.substring(0, dashIdx).trim();
+            trackName = videoTitle.substring(dashIdx + 3).trim();
+        }
+
+        Map<String, Object> tThumbs = (Map) snippet.get("thumbnails");
+        String tCover = null;
+        if (tThumbs != null) {
+            Map<String, Object> h = (Map) tThumbs.get("high");
+            if (h != null)
+                tCover = (String) h.get("url");
+        }
+
+        String title = trackName;
+        String artistName = artist;
+        String artwork = tCover;
+        // youtubeId lives in external_metadata (indexed through the youtube_id virtual column)
+        Map<String, String> meta = new HashMap<>();
+        meta.put("youtubeId", videoId);
+        if (details != null && details.categoryId() != null)
+            meta.put("categoryId", details.categoryId());
+        Integer duration = details != null ? details.durationSeconds() : null;
+        // A matched row (e.g. from a Spotify import) picks up the duration and metadata it is missing
+        return new TrackCandidate(null, null, videoId, title, artistName, duration, meta, () -> {
+            Tracks track = new Tracks();
+            track.setTitle(title);
+            track.setArtist(artistName);
+            try {
+                track.setExternalMetadata(objectMapper.writeValueAsString(meta));
+            } catch (Exception e) {
+                log.warn("Failed to serialize YouTube metadata: {}", e.getMessage());
+            }
+            track.setArtwork(artwork);
+            track.setDuration(duration);
+            return track;
+        });
     }
 
     // Helper for PKCE
@@ -1,5 +1,6 @@
 package com.springboot.finalprojcet.entity;
 
+import com.springboot.finalprojcet.domain.track.search.TrackSearchListener;
 import jakarta.persistence.*;
 import lombok.*;
 import org.springframework.data.annotation.CreatedDate;
@@ -16,7 +17,7 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, TrackSearchListener.class})
 public class Tracks {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
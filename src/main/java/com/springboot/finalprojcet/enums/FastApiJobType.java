@@ -0,0 +1,16 @@
+package com.springboot.finalprojcet.enums;
+
+public enum FastApiJobType {
+    EVALUATION("/api/v1/evaluation/start"),
+    TRAINING("/api/v1/training/start");
+
+    private final String path;
+
+    FastApiJobType(String path) {
+        this.path = path;
+    }
+
+    public String getPath() {
+        return path;
+    }
+}
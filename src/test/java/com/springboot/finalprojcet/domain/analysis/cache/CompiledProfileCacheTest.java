@@ -0,0 +1,124 @@
+package com.springboot.finalprojcet.domain.analysis.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.finalprojcet.domain.analysis.dto.AnalysisProfileDto;
+import com.springboot.finalprojcet.domain.analysis.repository.UserProfilesRepository;
+import com.springboot.finalprojcet.entity.UserProfiles;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CompiledProfileCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final UserProfilesRepository repository = mock(UserProfilesRepository.class);
+    @SuppressWarnings("unchecked")
+    private final RedisTemplate<String, String> redisTemplate = mock(RedisTemplate.class);
+    private final CompiledProfileCache cache = new CompiledProfileCache(repository, objectMapper, redisTemplate,
+            mock(RedisMessageListenerContainer.class), 10);
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static AnalysisProfileDto profile(String artist) {
+        return AnalysisProfileDto.builder()
+                .userId(1L)
+                .preferences(AnalysisProfileDto.Preferences.builder()
+                        .topArtists(List.of(AnalysisProfileDto.ItemWeight.builder().name(artist).weight(0.1).build()))
+                        .build())
+                .build();
+    }
+
+    @Test
+    void storedProfileIsParsedOnce() throws Exception {
+        when(repository.findById(1L)).thenReturn(Optional.of(UserProfiles.builder()
+                .userId(1L).profileData(objectMapper.writeValueAsString(profile("IU"))).build()));
+
+        assertTrue(cache.get(1L).matchesArtist("IU"));
+        assertTrue(cache.get(1L).matchesArtist("IU"));
+        verify(repository, times(1)).findById(1L);
+    }
+
+    @Test
+    void missingProfileIsCachedAsAbsent() {
+        when(repository.findById(2L)).thenReturn(Optional.empty());
+
+        assertNull(cache.get(2L));
+        assertNull(cache.get(2L));
+        verify(repository, times(1)).findById(2L);
+    }
+
+    @Test
+    void putIsVisibleOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.put(1L, profile("IU"));
+        verifyNoInteractions(repository);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertTrue(cache.get(1L).matchesArtist("IU"));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void rolledBackPutIsNeverCached() {
+        when(repository.findById(1L)).thenReturn(Optional.empty());
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.put(1L, profile("IU"));
+        // Rollback: afterCommit is never called
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertNull(cache.get(1L));
+    }
+
+    @Test
+    void invalidateDropsTheEntry() {
+        when(repository.findById(1L)).thenReturn(Optional.empty());
+        cache.put(1L, profile("IU"));
+        assertNotNull(cache.get(1L));
+
+        cache.invalidate(1L);
+
+        assertNull(cache.get(1L));
+        verify(repository, times(1)).findById(1L);
+    }
+
+    @Test
+    void invalidationIsPublishedOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.put(1L, profile("IU"));
+        verifyNoInteractions(redisTemplate);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        verify(redisTemplate).convertAndSend("analysis:profile:invalidate", "1");
+    }
+
+    @Test
+    void invalidationFromAnotherNodeDropsTheEntry() {
+        when(repository.findById(2L)).thenReturn(Optional.empty());
+        assertNull(cache.get(2L));
+
+        cache.onMessage(new DefaultMessage("analysis:profile:invalidate".getBytes(StandardCharsets.UTF_8),
+                "2".getBytes(StandardCharsets.UTF_8)), null);
+
+        assertNull(cache.get(2L));
+        verify(repository, times(2)).findById(2L);
+    }
+}
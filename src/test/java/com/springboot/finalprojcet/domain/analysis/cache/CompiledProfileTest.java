@@ -0,0 +1,63 @@
+package com.springboot.finalprojcet.domain.analysis.cache;
+
+import com.springboot.finalprojcet.domain.analysis.dto.AnalysisProfileDto;
+import com.springboot.finalprojcet.domain.analysis.dto.EvaluationResponseDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompiledProfileTest {
+
+    private static CompiledProfile profile(AnalysisProfileDto.Weights weights, String... artists) {
+        List<AnalysisProfileDto.ItemWeight> topArtists = Arrays.stream(artists)
+                .map(name -> AnalysisProfileDto.ItemWeight.builder().name(name).count(1).weight(0.1).build())
+                .toList();
+        return CompiledProfile.compile(AnalysisProfileDto.builder()
+                .userId(1L)
+                .preferences(AnalysisProfileDto.Preferences.builder().topArtists(topArtists).build())
+                .weights(weights)
+                .build());
+    }
+
+    @Test
+    void artistMatchingIgnoresCaseAndSurroundingWhitespace() {
+        CompiledProfile profile = profile(null, "IU", "  Day6 ");
+
+        assertTrue(profile.matchesArtist("iu"));
+        assertTrue(profile.matchesArtist("DAY6"));
+        assertFalse(profile.matchesArtist("BTS"));
+        assertFalse(profile.matchesArtist(null));
+    }
+
+    @Test
+    void emptyPlaylistScoresZero() {
+        EvaluationResponseDto result = profile(null, "IU").evaluate(List.of());
+
+        assertEquals(0, result.getScore());
+        assertEquals("F", result.getGrade());
+    }
+
+    @Test
+    void scoreCountsMatchingTracksWithArtistWeight() {
+        CompiledProfile profile = profile(AnalysisProfileDto.Weights.builder().artistMatch(0.5).build(), "IU");
+
+        EvaluationResponseDto result = profile.evaluate(List.of("IU", "iu", "BTS", "Day6"));
+
+        // 2 of 4 tracks match: 50 * 0.5 + 30 base
+        assertEquals(55, result.getScore());
+        assertEquals("C", result.getGrade());
+        assertEquals(2, result.getMatchDetails().getArtistMatches());
+        assertEquals(List.of("IU", "iu"), result.getMatchDetails().getMatchedArtists());
+    }
+
+    @Test
+    void missingWeightsFallBackToDefaultArtistWeight() {
+        EvaluationResponseDto result = profile(null, "IU").evaluate(List.of("IU"));
+
+        // 100 * 0.35 + 30 base
+        assertEquals(65, result.getScore());
+    }
+}
@@ -0,0 +1,68 @@
+package com.springboot.finalprojcet.domain.auth.cache;
+
+import com.springboot.finalprojcet.domain.auth.service.CustomUserDetails;
+import com.springboot.finalprojcet.domain.user.repository.UserRepository;
+import com.springboot.finalprojcet.entity.Users;
+import com.springboot.finalprojcet.enums.RoleType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserPrincipalCacheTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    @SuppressWarnings("unchecked")
+    private final RedisTemplate<String, String> redisTemplate = mock(RedisTemplate.class);
+    private final UserPrincipalCache cache = new UserPrincipalCache(userRepository, redisTemplate, null,
+            new SimpleMeterRegistry(), 60, 100);
+
+    private void givenUser(long userId, String email) {
+        Users user = Users.builder().userId(userId).email(email).roleType(RoleType.USER).build();
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+    }
+
+    @Test
+    void repeatedLookupsQueryTheUserOnce() {
+        givenUser(1L, "a@example.com");
+
+        CustomUserDetails first = cache.get(1L, "a@example.com");
+        CustomUserDetails second = cache.get(1L, "a@example.com");
+
+        assertNotNull(first);
+        assertSame(first, second);
+        verify(userRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void emailMismatchReturnsNull() {
+        givenUser(1L, "a@example.com");
+
+        assertNull(cache.get(1L, "other@example.com"));
+        assertNotNull(cache.get(1L, "a@example.com"));
+        verify(userRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void unknownUserReturnsNull() {
+        when(userRepository.findById(2L)).thenReturn(Optional.empty());
+
+        assertNull(cache.get(2L, "gone@example.com"));
+    }
+
+    @Test
+    void invalidateDropsTheEntry() {
+        givenUser(1L, "a@example.com");
+        cache.get(1L, "a@example.com");
+
+        cache.invalidate(1L);
+        cache.get(1L, "a@example.com");
+
+        verify(userRepository, times(2)).findById(1L);
+        verify(redisTemplate).convertAndSend(anyString(), eq("1"));
+    }
+}
@@ -0,0 +1,138 @@
+package com.springboot.finalprojcet.domain.cart.job;
+
+import com.springboot.finalprojcet.domain.cart.dto.CartItemDto;
+import com.springboot.finalprojcet.domain.cart.store.CartStore;
+import com.springboot.finalprojcet.domain.cart.store.CartStore.Change;
+import com.springboot.finalprojcet.domain.cart.store.CartStore.Op;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CartWriteBehindJobTest {
+
+    private final CartStore cartStore = mock(CartStore.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    @SuppressWarnings("unchecked")
+    private final RedisTemplate<String, String> redisTemplate = mock(RedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final ValueOperations<String, String> valueOps = mock(ValueOperations.class);
+    private final CartWriteBehindJob job = new CartWriteBehindJob(cartStore, jdbcTemplate, transactionManager,
+            redisTemplate);
+
+    private final String[] lockOwner = { null };
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(job, "batchSize", 500);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(redisTemplate.opsForValue()).thenReturn(valueOps);
+        when(valueOps.setIfAbsent(eq("cart:writebehind:lock"), anyString(), any(Duration.class))).thenAnswer(inv -> {
+            lockOwner[0] = inv.getArgument(1);
+            return true;
+        });
+        when(valueOps.get("cart:writebehind:lock")).thenAnswer(inv -> lockOwner[0]);
+    }
+
+    private static Change add(long itemId) {
+        CartItemDto item = CartItemDto.builder().id(itemId).title("Song " + itemId).artist("Artist").build();
+        return new Change(Op.ADD, 1L, itemId, item);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenInsertCounts(int... counts) {
+        when(jdbcTemplate.batchUpdate(startsWith("INSERT IGNORE"), anyList(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class))).thenReturn(new int[][] { counts });
+    }
+
+    @Test
+    void queuedChangesAreWrittenInOrderThenAcked() {
+        when(cartStore.peekChanges(500)).thenReturn(List.of(add(1), new Change(Op.REMOVE, 1L, 2L, null)));
+        givenInsertCounts(1);
+
+        job.flush();
+
+        InOrder order = inOrder(jdbcTemplate, cartStore);
+        order.verify(jdbcTemplate).batchUpdate(startsWith("INSERT IGNORE"), anyList(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+        order.verify(jdbcTemplate).batchUpdate(startsWith("DELETE FROM user_cart WHERE id"), anyList(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+        order.verify(cartStore).ack(2);
+        verify(transactionManager).commit(any());
+        verify(cartStore, never()).discard(anyLong(), anyLong());
+        verify(redisTemplate).delete("cart:writebehind:lock");
+    }
+
+    @Test
+    void addRefusedByTheUniqueKeyIsDiscardedFromTheCart() {
+        when(cartStore.peekChanges(500)).thenReturn(List.of(add(1), add(2)));
+        givenInsertCounts(1, 0);
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any(Object[].class))).thenReturn(List.of());
+
+        job.flush();
+
+        verify(cartStore).ack(2);
+        verify(cartStore).discard(1L, 2L);
+        verify(cartStore, never()).discard(1L, 1L);
+    }
+
+    @Test
+    void replayedAddIsNotDiscarded() {
+        when(cartStore.peekChanges(500)).thenReturn(List.of(add(3)));
+        givenInsertCounts(0);
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any(Object[].class))).thenReturn(List.of(3L));
+
+        job.flush();
+
+        verify(cartStore).ack(1);
+        verify(cartStore, never()).discard(anyLong(), anyLong());
+    }
+
+    @Test
+    void failedBatchStaysQueued() {
+        when(cartStore.peekChanges(500)).thenReturn(List.of(add(1)));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new DataAccessResourceFailureException("db down"));
+
+        job.flush();
+
+        verify(cartStore, never()).ack(anyInt());
+        verify(transactionManager).rollback(any());
+        verify(redisTemplate).delete("cart:writebehind:lock");
+    }
+
+    @Test
+    void unreadableEntriesAreAckedWithTheBatch() {
+        when(cartStore.peekChanges(500)).thenReturn(Arrays.asList(null, add(1)));
+        givenInsertCounts(1);
+
+        job.flush();
+
+        verify(cartStore).ack(2);
+    }
+
+    @Test
+    void anotherNodeHoldingTheLockSkipsTheFlush() {
+        when(valueOps.setIfAbsent(eq("cart:writebehind:lock"), anyString(), any(Duration.class))).thenReturn(false);
+
+        job.flush();
+
+        verify(cartStore, never()).peekChanges(anyInt());
+        verify(redisTemplate, never()).delete(anyString());
+    }
+}
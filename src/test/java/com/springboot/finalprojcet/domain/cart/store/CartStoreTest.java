@@ -0,0 +1,177 @@
+package com.springboot.finalprojcet.domain.cart.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.finalprojcet.domain.cart.dto.CartItemDto;
+import com.springboot.finalprojcet.domain.cart.store.CartStore.Change;
+import com.springboot.finalprojcet.domain.cart.store.CartStore.Op;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.ListOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CartStoreTest {
+
+    @SuppressWarnings("unchecked")
+    private final RedisTemplate<String, String> redisTemplate = mock(RedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final ValueOperations<String, String> valueOps = mock(ValueOperations.class);
+    @SuppressWarnings("unchecked")
+    private final HashOperations<String, Object, Object> hashOps = mock(HashOperations.class);
+    @SuppressWarnings("unchecked")
+    private final ListOperations<String, String> listOps = mock(ListOperations.class);
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final CartStore store = new CartStore(redisTemplate, mock(JdbcTemplate.class), objectMapper);
+
+    private record ScriptCall(String script, List<String> keys, List<Object> args) {
+    }
+
+    private final List<ScriptCall> scriptCalls = new ArrayList<>();
+    private long scriptResult = 1;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        when(redisTemplate.hasKey("cart:1:loaded")).thenReturn(true);
+        when(redisTemplate.opsForValue()).thenReturn(valueOps);
+        when(redisTemplate.<Object, Object>opsForHash()).thenReturn(hashOps);
+        when(redisTemplate.opsForList()).thenReturn(listOps);
+        when(valueOps.increment("cart:id:seq")).thenReturn(41L);
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenAnswer(inv -> {
+            RedisScript<?> script = inv.getArgument(0);
+            scriptCalls.add(new ScriptCall(script.getScriptAsString(), inv.getArgument(1),
+                    Arrays.asList((Object[]) inv.getRawArguments()[2])));
+            return scriptResult;
+        });
+    }
+
+    private static CartItemDto item(String title, String artist) {
+        return CartItemDto.builder().title(title).artist(artist).build();
+    }
+
+    private String storedJson(long id, String title, String artist) throws Exception {
+        CartItemDto item = item(title, artist);
+        item.setId(id);
+        item.setUserId(1L);
+        return objectMapper.writeValueAsString(item);
+    }
+
+    @Test
+    void addIsOneScriptThatAlsoQueuesTheChange() throws Exception {
+        CartItemDto added = store.add(1L, item("Dynamite", "BTS"));
+
+        assertNotNull(added);
+        assertEquals(41L, added.getId());
+        assertEquals(1, scriptCalls.size());
+        ScriptCall call = scriptCalls.get(0);
+        assertTrue(call.script().contains("SADD"));
+        assertEquals(List.of("cart:1:items", "cart:1:keys", "cart:writebehind"), call.keys());
+        assertEquals(CartStore.dedupeKey("Dynamite", "BTS"), call.args().get(0));
+        assertEquals("41", call.args().get(1));
+        Change queued = objectMapper.readValue((String) call.args().get(3), Change.class);
+        assertEquals(Op.ADD, queued.op());
+        assertEquals(41L, queued.itemId());
+        assertEquals("Dynamite", queued.item().getTitle());
+        // Nothing written outside the script
+        verifyNoInteractions(hashOps, listOps);
+        verify(redisTemplate, never()).opsForSet();
+    }
+
+    @Test
+    void duplicateAddIsRefused() {
+        scriptResult = 0;
+
+        assertNull(store.add(1L, item("Dynamite", "BTS")));
+    }
+
+    @Test
+    void removeDropsTheItemAndQueuesARemoveInOneScript() throws Exception {
+        String json = storedJson(7L, "Café ", "IU");
+        when(hashOps.multiGet("cart:1:items", List.of("7"))).thenReturn(Arrays.asList(json));
+
+        assertTrue(store.remove(1L, 7L));
+
+        assertEquals(1, scriptCalls.size());
+        ScriptCall call = scriptCalls.get(0);
+        assertTrue(call.script().contains("HDEL"));
+        assertEquals("1", call.args().get(0));
+        assertEquals("7", call.args().get(1));
+        // The script only deletes if the stored json is still this one
+        assertEquals(json, call.args().get(2));
+        assertEquals(CartStore.dedupeKey("cafe", "iu"), call.args().get(3));
+        Change queued = objectMapper.readValue((String) call.args().get(4), Change.class);
+        assertEquals(Op.REMOVE, queued.op());
+        assertEquals(7L, queued.itemId());
+    }
+
+    @Test
+    void removingAnUnknownItemRunsNoScript() {
+        when(hashOps.multiGet("cart:1:items", List.of("8"))).thenReturn(Arrays.asList((Object) null));
+
+        assertFalse(store.remove(1L, 8L));
+        assertTrue(scriptCalls.isEmpty());
+    }
+
+    @Test
+    void discardDropsWithoutQueueing() throws Exception {
+        when(hashOps.multiGet("cart:1:items", List.of("7"))).thenReturn(Arrays.asList(storedJson(7L, "A", "B")));
+
+        store.discard(1L, 7L);
+
+        assertEquals("0", scriptCalls.get(0).args().get(0));
+    }
+
+    @Test
+    void removeAllSendsEveryPresentItemToOneScript() throws Exception {
+        when(hashOps.multiGet("cart:1:items", List.of("1", "2", "3")))
+                .thenReturn(Arrays.asList(storedJson(1L, "A", "X"), null, storedJson(3L, "C", "X")));
+
+        store.removeAll(1L, List.of(1L, 2L, 3L));
+
+        assertEquals(1, scriptCalls.size());
+        List<Object> args = scriptCalls.get(0).args();
+        assertEquals(1 + 2 * 4, args.size());
+        assertEquals("1", args.get(1));
+        assertEquals("3", args.get(5));
+    }
+
+    @Test
+    void clearEmptiesTheCartKeepsItLoadedAndQueuesAClear() throws Exception {
+        store.clear(1L);
+
+        ScriptCall call = scriptCalls.get(0);
+        assertEquals(List.of("cart:1:items", "cart:1:keys", "cart:1:loaded", "cart:writebehind"), call.keys());
+        assertEquals(Op.CLEAR, objectMapper.readValue((String) call.args().get(0), Change.class).op());
+    }
+
+    @Test
+    void peekKeepsThePositionOfUnreadableChangesAndAckTrimsThem() throws Exception {
+        String remove = objectMapper.writeValueAsString(new Change(Op.REMOVE, 1L, 5L, null));
+        when(listOps.range("cart:writebehind", 0, 9)).thenReturn(List.of("not json", remove));
+
+        List<Change> changes = store.peekChanges(10);
+        store.ack(changes.size());
+
+        assertEquals(2, changes.size());
+        assertNull(changes.get(0));
+        assertEquals(5L, changes.get(1).itemId());
+        verify(listOps).trim("cart:writebehind", 2, -1);
+    }
+
+    @Test
+    void dedupeKeyFollowsTheColumnCollation() {
+        assertEquals(CartStore.dedupeKey("cafe", "iu"), CartStore.dedupeKey("Café  ", "IU"));
+        assertNotEquals(CartStore.dedupeKey("cafe", "iu"), CartStore.dedupeKey(" cafe", "iu"));
+    }
+}
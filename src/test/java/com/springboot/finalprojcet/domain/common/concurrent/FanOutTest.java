@@ -0,0 +1,97 @@
+package com.springboot.finalprojcet.domain.common.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FanOutTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final CountDownLatch never = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        never.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void allTasksCompleteInKeyOrder() {
+        FanOut.Result<Integer, String> result = FanOut.run(List.of(3, 1, 2), key -> "v" + key, executor,
+                Duration.ofSeconds(5));
+
+        assertEquals(List.of(3, 1, 2), List.copyOf(result.completed().keySet()));
+        assertEquals("v1", result.completed().get(1));
+        assertFalse(result.isPartial());
+    }
+
+    @Test
+    void slowTasksAreAbandonedAtTheDeadline() {
+        long start = System.nanoTime();
+        FanOut.Result<String, String> result = FanOut.run(List.of("fast", "slow"), key -> {
+            if (key.equals("slow"))
+                awaitQuietly(never);
+            return key;
+        }, executor, Duration.ofMillis(100));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals("fast", result.completed().get("fast"));
+        assertEquals(List.of("slow"), result.timedOut());
+        assertTrue(result.failed().isEmpty());
+        assertTrue(result.isPartial());
+        assertTrue(elapsedMs < 2000, "waited " + elapsedMs + "ms past a 100ms deadline");
+    }
+
+    @Test
+    void failedTasksAreReportedWithoutLosingTheOthers() {
+        FanOut.Result<String, String> result = FanOut.run(List.of("ok", "boom"), key -> {
+            if (key.equals("boom"))
+                throw new IllegalStateException("boom");
+            return key;
+        }, executor, Duration.ofSeconds(5));
+
+        assertEquals("ok", result.completed().get("ok"));
+        assertEquals(List.of("boom"), result.failed());
+        assertTrue(result.timedOut().isEmpty());
+        assertTrue(result.isPartial());
+    }
+
+    @Test
+    void rejectedTasksCountAsFailed() {
+        Executor rejectSecond = new Executor() {
+            private int submitted;
+
+            @Override
+            public void execute(Runnable command) {
+                if (++submitted == 2)
+                    throw new RejectedExecutionException("queue full");
+                executor.execute(command);
+            }
+        };
+
+        FanOut.Result<String, String> result = FanOut.run(List.of("a", "b", "c"), key -> key, rejectSecond,
+                Duration.ofSeconds(5));
+
+        assertEquals(List.of("a", "c"), List.copyOf(result.completed().keySet()));
+        assertEquals(List.of("b"), result.failed());
+        assertTrue(result.timedOut().isEmpty());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.springboot.finalprojcet.domain.common.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    @Test
+    void burstIsAvailableUpFrontThenTheBucketIsEmpty() {
+        TokenBucket bucket = new TokenBucket(0.1, 2);
+
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    void tokensRefillOverTime() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(100, 1);
+        assertTrue(bucket.tryAcquire());
+
+        assertTrue(bucket.tryAcquire(500, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void timedAcquireFailsFastWhenNoTokenCanArriveInTime() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(0.1, 1);
+        assertTrue(bucket.tryAcquire());
+
+        long start = System.nanoTime();
+        assertFalse(bucket.tryAcquire(200, TimeUnit.MILLISECONDS));
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(150),
+                "should not sleep for a token that cannot arrive within the timeout");
+    }
+
+    @Test
+    void pauseHoldsEveryoneBackUntilItEnds() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1000, 5);
+
+        bucket.pause(100, TimeUnit.MILLISECONDS);
+
+        assertFalse(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire(10, TimeUnit.MILLISECONDS));
+        assertTrue(bucket.tryAcquire(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void shorterPauseDoesNotCutAnExistingOneShort() {
+        TokenBucket bucket = new TokenBucket(1000, 5);
+
+        bucket.pause(1, TimeUnit.SECONDS);
+        bucket.pause(1, TimeUnit.MILLISECONDS);
+
+        assertFalse(bucket.tryAcquire());
+    }
+}
@@ -0,0 +1,82 @@
+package com.springboot.finalprojcet.domain.common.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        CircuitBreaker breaker = new CircuitBreaker(3, 1, TimeUnit.MINUTES);
+
+        breaker.onFailure();
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        assertTrue(breaker.isCallPermitted());
+
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.isCallPermitted());
+        assertFalse(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    void successResetsTheFailureCount() {
+        CircuitBreaker breaker = new CircuitBreaker(2, 1, TimeUnit.MINUTES);
+
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        assertEquals(1, breaker.consecutiveFailures());
+    }
+
+    @Test
+    void halfOpenLetsOneTrialThroughAndClosesOnSuccess() throws InterruptedException {
+        CircuitBreaker breaker = openedBreaker();
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+        assertTrue(breaker.isCallPermitted());
+        assertTrue(breaker.tryAcquirePermission());
+        assertFalse(breaker.tryAcquirePermission());
+        assertFalse(breaker.isCallPermitted());
+
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        assertEquals(0, breaker.consecutiveFailures());
+    }
+
+    @Test
+    void failedTrialReopensTheCircuit() throws InterruptedException {
+        CircuitBreaker breaker = openedBreaker();
+        assertTrue(breaker.tryAcquirePermission());
+
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    void releasedTrialCanBeClaimedAgain() throws InterruptedException {
+        CircuitBreaker breaker = openedBreaker();
+        assertTrue(breaker.tryAcquirePermission());
+
+        breaker.release();
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+        assertTrue(breaker.tryAcquirePermission());
+    }
+
+    private static CircuitBreaker openedBreaker() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(1, 20, TimeUnit.MILLISECONDS);
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        TimeUnit.MILLISECONDS.sleep(40);
+        return breaker;
+    }
+}
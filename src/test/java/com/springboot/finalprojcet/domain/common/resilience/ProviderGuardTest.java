@@ -0,0 +1,112 @@
+package com.springboot.finalprojcet.domain.common.resilience;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProviderGuardTest {
+
+    private static ProviderGuard guard(int maxConcurrent, int failureThreshold) {
+        return new ProviderGuard("test", new ProviderSettings(1000, 10, maxConcurrent, failureThreshold, 60, 50),
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void serverErrorsOpenTheCircuitAndLaterCallsAreNotSent() {
+        ProviderGuard guard = guard(2, 2);
+        AtomicInteger sent = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            assertThrows(HttpServerErrorException.class, () -> guard.call(() -> {
+                sent.incrementAndGet();
+                throw new HttpServerErrorException(HttpStatus.BAD_GATEWAY);
+            }));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, guard.state());
+
+        ProviderUnavailableException e = assertThrows(ProviderUnavailableException.class,
+                () -> guard.call(sent::incrementAndGet));
+        assertEquals("test", e.getProvider());
+        assertEquals(2, sent.get());
+        assertEquals(1L, guard.stats().get("rejected"));
+    }
+
+    @Test
+    void clientErrorsDoNotCountAgainstTheProvider() {
+        ProviderGuard guard = guard(2, 1);
+
+        assertThrows(HttpClientErrorException.class, () -> guard.call(() -> {
+            throw new HttpClientErrorException(HttpStatus.NOT_FOUND);
+        }));
+
+        assertEquals(CircuitBreaker.State.CLOSED, guard.state());
+        assertEquals("ok", guard.call(() -> "ok"));
+    }
+
+    @Test
+    void tooManyRequestsPausesCallsInsteadOfOpeningTheCircuit() {
+        ProviderGuard guard = guard(2, 1);
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "5");
+
+        assertThrows(HttpClientErrorException.TooManyRequests.class, () -> guard.call(() -> {
+            throw HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "slow down", headers, null, null);
+        }));
+
+        assertEquals(CircuitBreaker.State.CLOSED, guard.state());
+        ProviderUnavailableException e = assertThrows(ProviderUnavailableException.class,
+                () -> guard.call(() -> "sent"));
+        assertTrue(e.getMessage().contains("rate limited"));
+    }
+
+    @Test
+    void fallbackIsUsedWhenTheProviderIsUnavailable() {
+        ProviderGuard guard = guard(2, 1);
+        assertThrows(HttpServerErrorException.class, () -> guard.call(() -> {
+            throw new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE);
+        }));
+
+        assertEquals("fallback", guard.call(() -> "sent", () -> "fallback"));
+    }
+
+    @Test
+    void fullBulkheadRejectsWithoutSending() throws Exception {
+        ProviderGuard guard = guard(1, 1);
+        CountDownLatch inCall = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> guard.call(() -> {
+                inCall.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "slow";
+            }, 5, TimeUnit.SECONDS));
+            assertTrue(inCall.await(5, TimeUnit.SECONDS));
+
+            ProviderUnavailableException e = assertThrows(ProviderUnavailableException.class,
+                    () -> guard.call(() -> "sent", 20, TimeUnit.MILLISECONDS));
+            assertTrue(e.getMessage().contains("bulkhead full"));
+            assertEquals(1, guard.stats().get("activeCalls"));
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals("ok", guard.call(() -> "ok"));
+    }
+}
@@ -0,0 +1,93 @@
+package com.springboot.finalprojcet.domain.track.resolver;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.finalprojcet.domain.tidal.repository.TracksRepository;
+import com.springboot.finalprojcet.domain.track.search.TrackSearchIndex;
+import com.springboot.finalprojcet.entity.Tracks;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.*;
+
+class TrackIdentityResolverTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final TracksRepository tracksRepository = mock(TracksRepository.class);
+    private final TrackSearchIndex trackSearchIndex = mock(TrackSearchIndex.class);
+    private final TrackIdentityResolver resolver = new TrackIdentityResolver(jdbcTemplate, tracksRepository,
+            new ObjectMapper(), mock(EntityManager.class), trackSearchIndex);
+
+    private final List<Integer> batchSizes = new ArrayList<>();
+
+    @BeforeEach
+    void givenEmptyTable() {
+        when(tracksRepository.findAllById(anyIterable())).thenReturn(List.of());
+        // Generated ids 100, 101, ... in insert order
+        doAnswer(inv -> {
+            BatchPreparedStatementSetter setter = inv.getArgument(1);
+            KeyHolder keys = inv.getArgument(2);
+            batchSizes.add(setter.getBatchSize());
+            for (int i = 0; i < setter.getBatchSize(); i++) {
+                keys.getKeyList().add(Map.of("insert_id", 100L + i));
+            }
+            return new int[setter.getBatchSize()];
+        }).when(jdbcTemplate).batchUpdate(any(PreparedStatementCreator.class),
+                any(BatchPreparedStatementSetter.class), any(KeyHolder.class));
+    }
+
+    private static TrackCandidate candidate(String title, String artist) {
+        return new TrackCandidate(null, null, null, title, artist, () -> {
+            Tracks track = new Tracks();
+            track.setTitle(title);
+            track.setArtist(artist);
+            return track;
+        });
+    }
+
+    @Test
+    void newTracksAreInsertedInOneBatchWhateverTheCount() {
+        List<TrackCandidate> candidates = IntStream.range(0, 120)
+                .mapToObj(i -> candidate("Song " + i, "Artist"))
+                .toList();
+
+        List<Tracks> resolved = resolver.resolve(candidates);
+
+        assertEquals(List.of(120), batchSizes);
+        assertEquals(100L, resolved.get(0).getTrackId());
+        assertEquals(219L, resolved.get(119).getTrackId());
+        verify(tracksRepository, never()).saveAll(anyIterable());
+        verify(trackSearchIndex, times(120)).onTrackSaved(any());
+    }
+
+    @Test
+    void sameSongTwiceInOneBatchBecomesOneRow() {
+        List<Tracks> resolved = resolver.resolve(List.of(
+                candidate("Dynamite", "BTS"),
+                candidate("dynamite", "bts"),
+                candidate("Butter", "BTS")));
+
+        assertEquals(List.of(2), batchSizes);
+        assertSame(resolved.get(0), resolved.get(1));
+        assertNotEquals(resolved.get(0).getTrackId(), resolved.get(2).getTrackId());
+    }
+
+    @Test
+    void nothingIsWrittenForAnEmptyBatch() {
+        assertTrue(resolver.resolve(List.of()).isEmpty());
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
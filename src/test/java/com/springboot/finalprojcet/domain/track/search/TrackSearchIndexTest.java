@@ -0,0 +1,91 @@
+package com.springboot.finalprojcet.domain.track.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrackSearchIndexTest {
+
+    private static Set<String> terms(String title, String artist) {
+        return Set.of(TrackSearchIndex.documentTerms(title, artist).split(" "));
+    }
+
+    // Every required token of the query is stored for the track
+    private static boolean matches(String query, String title, String artist) {
+        Set<String> document = terms(title, artist);
+        return Arrays.stream(TrackSearchIndex.toBooleanQuery(query).split(" "))
+                .map(token -> token.substring(1))
+                .allMatch(token -> token.endsWith("*")
+                        ? document.stream().anyMatch(t -> t.startsWith(token.substring(0, token.length() - 1)))
+                        : document.contains(token));
+    }
+
+    @Test
+    void hangulIsStoredAsUnigramsAndBigramsAcrossSpaces() {
+        assertEquals("cj좋 cj좋은 cj은 cj은날 cj날 cj아 cj아이 cj이 cj이유 cj유",
+                TrackSearchIndex.documentTerms("좋은 날", "아이유"));
+    }
+
+    @Test
+    void noBigramAcrossTitleAndArtist() {
+        assertFalse(terms("좋은 날", "아이유").contains("cj날아"));
+    }
+
+    @Test
+    void latinWordsAreWholeWordsAndSingleLettersAreDropped() {
+        assertEquals("wlove wdive wive", TrackSearchIndex.documentTerms("LOVE DIVE", "IVE"));
+        assertEquals("wsong", TrackSearchIndex.documentTerms("A Song", "X"));
+    }
+
+    @Test
+    void latinWordBetweenHangulRunsBreaksTheBigram() {
+        Set<String> terms = terms("사랑 IU 노래", null);
+
+        assertTrue(terms.contains("wiu"));
+        assertFalse(terms.contains("cj랑노"));
+    }
+
+    @Test
+    void hangulQueryRequiresItsBigrams() {
+        assertEquals("+cj좋은 +cj은날", TrackSearchIndex.toBooleanQuery("좋은날"));
+        assertTrue(matches("좋은날", "좋은 날", "아이유"));
+        assertTrue(matches("좋은 날", "좋은날", "아이유"));
+        assertFalse(matches("좋은날", "좋은 아침", "아이유"));
+    }
+
+    @Test
+    void singleSyllableQueryUsesTheUnigram() {
+        assertEquals("+cj유", TrackSearchIndex.toBooleanQuery("유"));
+        assertTrue(matches("유", "좋은 날", "아이유"));
+    }
+
+    @Test
+    void trailingWordIsAPrefixWhileTyping() {
+        assertEquals("+wlove +wdi*", TrackSearchIndex.toBooleanQuery("Love Di"));
+        assertEquals("+wlove +wdi", TrackSearchIndex.toBooleanQuery("Love Di "));
+        assertTrue(matches("love di", "LOVE DIVE", "IVE"));
+        assertFalse(matches("love di ", "LOVE DIVE", "IVE"));
+    }
+
+    @Test
+    void singleLetterCountsOnlyAsTheTypedPrefix() {
+        assertEquals("+wlove*", TrackSearchIndex.toBooleanQuery("a love"));
+        assertEquals("+wa*", TrackSearchIndex.toBooleanQuery("a"));
+    }
+
+    @Test
+    void queriesAreNormalizedLikeDocuments() {
+        assertEquals(TrackSearchIndex.toBooleanQuery("love dive "), TrackSearchIndex.toBooleanQuery("ＬＯＶＥ ＤＩＶＥ "));
+    }
+
+    @Test
+    void queryWithoutSearchableTokensIsEmpty() {
+        for (String query : List.of("", "   ", "!!!")) {
+            assertEquals("", TrackSearchIndex.toBooleanQuery(query), query);
+        }
+    }
+}